@@ -1,11 +1,9 @@
 package com.superkiment.client;
 
 import com.superkiment.client.graphics.ui.UIElement;
-import com.superkiment.client.network.handles.BlockHandle;
 import com.superkiment.client.network.handles.EntityHandle;
 import com.superkiment.common.entities.Player;
-import com.superkiment.common.entities.Projectile;
-import org.joml.Vector2d;
+import com.superkiment.common.packets.input.PlayerInput;
 import org.joml.Vector2f;
 import org.lwjgl.glfw.GLFW;
 
@@ -13,7 +11,6 @@ import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 
-import static java.lang.Math.round;
 import static org.lwjgl.glfw.GLFW.*;
 
 /**
@@ -91,26 +88,10 @@ public class InputManager {
             player.moveFromInput = true;
         });
 
-        input.onActionPress("tirer", () -> {
-            Vector2d projPos = new Vector2d(player.pos.x, player.pos.y);
-            Vector2d projDir = new Vector2d(player.dirLookLerp.x, player.dirLookLerp.y);
+        // Le tir et les blocs partent avec la prochaine commande : c'est le serveur qui les crée
+        input.onActionPress("tirer", () -> Main.gameClient.queueAction(PlayerInput.ACTION_FIRE));
 
-            projDir
-                    .normalize()
-                    .mul(30);
-            projPos.add(projDir);
-            projDir.normalize();
-
-            Projectile projectile = new Projectile(projPos, projDir);
-            projectile.addCollisionException(player);
-            EntityHandle.createEntity(projectile);
-        });
-
-        input.onActionPress("ajouter block", () -> {
-            int posX = (int) round(player.pos.x / 50);
-            int posY = (int) round(player.pos.y / 50);
-            BlockHandle.createBlock(new Vector2d(posX, posY));
-        });
+        input.onActionPress("ajouter block", () -> Main.gameClient.queueAction(PlayerInput.ACTION_PLACE_BLOCK));
 
         input.onActionRelease("avancer", () -> player.dirDepl.y = 0);
         input.onActionRelease("reculer", () -> player.dirDepl.y = 0);
@@ -3,7 +3,6 @@ package com.superkiment.client;
 import com.superkiment.client.graphics.Renderer;
 import com.superkiment.client.graphics.ui.UIManager;
 import com.superkiment.client.network.GameClient;
-import com.superkiment.client.network.handles.PlayerHandle;
 import com.superkiment.common.Time;
 import com.superkiment.common.blocks.BlocksManager;
 import com.superkiment.common.entities.EntitiesManager;
@@ -86,19 +85,13 @@ public class Main {
     private void gameTick(float deltaTime) {
         Entity localPlayer = gameClient.getLocalPlayer();
 
-        localPlayer.updateLogic(entitiesManager, blocksManager);
+        // Commandes du joueur local : prédites ici, envoyées au serveur (UDP) qui fait foi
+        gameClient.updatePrediction(deltaTime);
 
         gameClient.update();
 
-        // Envoyer la position au serveur (UDP) régulièrement
-        GameClient.positionSendTimer += deltaTime;
-        if (GameClient.positionSendTimer >= GameClient.POSITION_SEND_RATE) {
-            PlayerHandle.sendPosition();
-            GameClient.positionSendTimer = 0;
-        }
-
         renderer.renderFloor();
-        renderer.renderEntities(entitiesManager.getEntities(), localPlayer);
+        renderer.renderEntities(entitiesManager.getEntities(), localPlayer, gameClient.getInterpolator());
         renderer.renderBlocks(blocksManager.getBlocks());
     }
 
@@ -4,6 +4,8 @@ import com.superkiment.client.graphics.ui.UIElement;
 import com.superkiment.common.blocks.Block;
 import com.superkiment.common.collisions.Collisionable;
 import com.superkiment.common.entities.Entity;
+import com.superkiment.common.packets.snapshot.SnapshotClock;
+import com.superkiment.common.packets.snapshot.SnapshotInterpolator;
 import com.superkiment.common.shapes.Shape;
 import com.superkiment.common.shapes.ShapeModel;
 import org.joml.Vector2d;
@@ -14,7 +16,6 @@ import org.lwjgl.system.MemoryStack;
 
 import java.nio.IntBuffer;
 import java.util.List;
-import java.util.Map;
 
 import static com.superkiment.common.shapes.Shape.ShapeType;
 import static org.lwjgl.glfw.GLFW.*;
@@ -53,11 +54,19 @@ public class Renderer {
         }
     }
 
-    public void renderEntities(Map<String, Entity> entities, Entity localPlayer) {
-        for (Entity entity : entities.values()) {
+    /**
+     * Les entités distantes sont placées par l'interpolateur, à l'heure serveur courante moins le délai d'interpolation ;
+     * le joueur local et les entités sans historique gardent le lissage par frame.
+     */
+    public void renderEntities(Iterable<Entity> entities, Entity localPlayer, SnapshotInterpolator interpolator) {
+        double now = SnapshotClock.now();
+
+        for (Entity entity : entities) {
             boolean isLocal = entity.id.equals(localPlayer.id);
 
-            entity.updateLerp();
+            if (isLocal || !interpolator.apply(entity, now)) {
+                entity.updateLerp();
+            }
 
             glPushMatrix();
             glTranslated(entity.posLerp.x, entity.posLerp.y, 0);
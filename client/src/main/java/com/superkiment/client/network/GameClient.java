@@ -11,12 +11,26 @@ import com.superkiment.common.entities.Entity;
 import com.superkiment.common.entities.Player;
 import com.superkiment.common.packets.Packet;
 import com.superkiment.common.packets.PacketCreateBlock;
+import com.superkiment.common.packets.PacketWorldChunk;
 import com.superkiment.common.packets.PacketPlayerJoin;
-import com.superkiment.common.packets.PacketPositionsBulk;
+import com.superkiment.common.packets.PacketUdpSession;
+import com.superkiment.common.packets.PacketZoneJoin;
+import com.superkiment.common.packets.PacketZoneRedirect;
 import com.superkiment.common.packets.entity.*;
+import com.superkiment.common.packets.input.ClientPrediction;
+import com.superkiment.common.packets.input.PlayerInput;
+import com.superkiment.common.packets.snapshot.Quantization;
+import com.superkiment.common.packets.snapshot.Snapshot;
+import com.superkiment.common.packets.snapshot.SnapshotClock;
+import com.superkiment.common.packets.snapshot.SnapshotInterpolator;
+import com.superkiment.common.packets.snapshot.SnapshotReceiver;
 import org.joml.Vector2d;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import static org.lwjgl.glfw.GLFW.glfwSetWindowTitle;
 
@@ -29,17 +43,49 @@ public class GameClient {
     public static final int TCP_PORT = 56201;
     public static final int UDP_PORT = 56202;
 
-    public static float positionSendTimer = 0;
-    public static final float POSITION_SEND_RATE = 1.0f / 30.0f; // 30 Hz
+    /**
+     * Une image plus longue que ça ne produit pas plus de commandes : le joueur ralentit au lieu de sauter.
+     */
+    private static final int MAX_INPUTS_PER_FRAME = 5;
+
+    /**
+     * Un socket fermé débloque sa lecture aussitôt : cette attente ne sert qu'à ne pas rester bloqué sur un thread récalcitrant.
+     */
+    private static final long RECEIVE_JOIN_MILLIS = 1000;
 
     private final String serverAddress;
     private final int tcpPort;
     private final int udpPort;
 
-    private TCPClient tcpClient;
-    private UDPClient udpClient;
+    private volatile TCPClient tcpClient;
+    private volatile UDPClient udpClient;
 
     private final Heartbeat heartbeat;
+    // Remplacés à chaque changement de zone : les numéros de snapshot et l'horloge sont ceux du serveur
+    private volatile SnapshotReceiver snapshotReceiver = new SnapshotReceiver();
+    private volatile SnapshotInterpolator interpolator = new SnapshotInterpolator();
+    private final SnapshotReceiver.Listener snapshotListener = new SnapshotReceiver.Listener() {
+        @Override
+        public void onEntityState(int netId, double x, double y, double dirX, double dirY) {
+            inboundStates.offer(new EntityState(netId, x, y, dirX, dirY));
+        }
+
+        @Override
+        public void onSnapshot(Snapshot snapshot) {
+            interpolator.onSnapshot(snapshot, SnapshotClock.now());
+            offerAuthoritativeState(snapshot);
+        }
+    };
+
+    // Remplacée au changement de zone : les numéros de commande repartent de zéro avec le nouveau serveur
+    private volatile ClientPrediction prediction = new ClientPrediction();
+    private final ClientPrediction.Step predictionStep = this::applyLocalInput;
+    private float inputTimer = 0;
+
+    /**
+     * Actions demandées depuis la dernière commande (thread du jeu).
+     */
+    private int queuedActions = 0;
 
     //Références
     private final EntitiesManager entitiesManager;
@@ -50,6 +96,21 @@ public class GameClient {
 
     private boolean connected = false;
 
+    /**
+     * Packets reçus par TCP et par le canal fiable UDP, traités par {@link #update()} : seul le thread du jeu modifie les entités.
+     */
+    private final Queue<Packet> inboundPackets = new ConcurrentLinkedQueue<>();
+
+    /**
+     * États d'entités décodés par le thread de réception UDP, appliqués par {@link #update()} comme les packets.
+     */
+    private final Queue<EntityState> inboundStates = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Redirection vers le serveur d'une autre zone, appliquée par {@link #update()} une fois les packets reçus traités.
+     */
+    private PacketZoneRedirect pendingRedirect;
+
     public GameClient(String serverAddress, int tcpPort, int udpPort) {
         this.serverAddress = serverAddress;
         this.tcpPort = tcpPort;
@@ -121,61 +182,136 @@ public class GameClient {
         return null;
     }
 
+    /**
+     * Confier un packet reçu au thread du jeu. Threads de réception.
+     */
+    public void queuePacket(Packet packet) {
+        inboundPackets.offer(packet);
+    }
+
+    private void processInbound() {
+        Packet packet;
+        while ((packet = inboundPackets.poll()) != null) {
+            handleTCPPacket(packet);
+        }
+
+        // Après les packets : une entité créée par TCP reçoit tout de suite l'état du même tick
+        EntityState state;
+        while ((state = inboundStates.poll()) != null) {
+            applyEntityState(state);
+        }
+    }
+
     /**
      * Gérer les packets TCP reçus
      */
-    public void handleTCPPacket(Packet packet) {
+    private void handleTCPPacket(Packet packet) {
         switch (packet.getType()) {
             case CREATE_ENTITY -> EntityHandle.handleCreateEntity((PacketCreateEntity) packet);
 
             case DELETE_ENTITY -> EntityHandle.handleDeleteEntity((PacketDeleteEntity) packet);
 
-            case UPDATE_ENTITY -> EntityHandle.handleUpdateEntity((PacketUpdateEntity) packet);
+            case ENTITY_PATCH -> EntityHandle.handleEntityPatch((PacketEntityPatch) packet);
 
             case PLAYER_JOIN -> PlayerHandle.handlePlayerJoin((PacketPlayerJoin) packet);
 
             case CREATE_BLOCK -> BlockHandle.handleCreateBlock((PacketCreateBlock) packet);
 
+            case WORLD_CHUNK -> BlockHandle.handleWorldChunk((PacketWorldChunk) packet);
+
+            case UDP_SESSION -> udpClient.startSession((PacketUdpSession) packet);
+
+            case ZONE_REDIRECT -> pendingRedirect = (PacketZoneRedirect) packet;
+
             default -> Logger.warn("Type de packet TCP non géré: " + packet.getType());
 
         }
     }
 
     /**
-     * Gérer les packets UDP sur la position d'une entité unique reçus
+     * Gérer un datagramme de snapshot : appliquer les états reçus et acquitter le snapshot s'il est complet
      */
-    public void handleUDPPositionPacket(PacketEntityPosition packet) {
-        // Ne pas mettre à jour notre propre position
-        if (packet.entityId.equals(playerId)) {
-            return;
+    public void handleUDPSnapshot(ByteBuffer buffer) {
+        try {
+            int completeSeq = snapshotReceiver.receive(buffer, snapshotListener);
+            if (completeSeq >= 0) {
+                udpClient.sendSnapshotAck(completeSeq);
+            }
+        } catch (IOException e) {
+            Logger.warn("Snapshot UDP invalide: " + e.getMessage());
         }
+    }
 
-        Entity entity = entitiesManager.getEntities().get(packet.entityId);
-        if (entity != null) {
-            entity.pos.set(packet.posX, packet.posY);
-            entity.dirLookTarget.set(packet.dirX, packet.dirY);
-        }
+    /**
+     * Dernier état reçu : sert à la logique du client. L'affichage passe par {@link #getInterpolator()}.
+     */
+    private void applyEntityState(EntityState state) {
+        Entity entity = entitiesManager.getEntityFromNetId(state.netId());
+
+        // Ne pas mettre à jour notre propre joueur
+        if (entity == null || entity == localPlayer) return;
+
+        entity.pos.set(state.x(), state.y());
+        entity.dirLookTarget.set(state.dirX(), state.dirY());
+    }
+
+    private record EntityState(int netId, double x, double y, double dirX, double dirY) {
     }
 
     /**
-     * Gérer les packets UDP sur la position de plusieurs entités reçus
-     *
-     * @param packet
+     * Position du joueur local selon le serveur, à réconcilier avec la prédiction. Thread de réception.
      */
-    public void handleUDPBulkPositionPacket(PacketPositionsBulk packet) {
+    private void offerAuthoritativeState(Snapshot snapshot) {
+        if (snapshot.inputAck < 0 || localPlayer == null || localPlayer.netId == 0) return;
 
-        for (int i = 0; i < packet.ids.size(); i++) {
-            String id = packet.ids.get(i);
+        int index = snapshot.indexOf(localPlayer.netId);
+        if (index < 0) return;
 
-            Entity entity = entitiesManager.getEntities().get(id);
+        prediction.offerAuthoritative(
+                snapshot.inputAck,
+                Quantization.dequantizePosition(snapshot.x[index]),
+                Quantization.dequantizePosition(snapshot.y[index])
+        );
+    }
 
-            if (entity != null) {
-                entity.pos.x = packet.x.get(i);
-                entity.pos.y = packet.y.get(i);
-            }
+    /**
+     * Échantillonner les commandes du joueur local à intervalle fixe : chacune est simulée tout de suite puis envoyée,
+     * sans attendre le serveur. Sa réponse corrige ensuite la prédiction si elle n'est pas d'accord.
+     */
+    public void updatePrediction(float deltaTime) {
+        prediction.reconcile(localPlayer, predictionStep);
+
+        inputTimer = (float) Math.min(inputTimer + deltaTime, MAX_INPUTS_PER_FRAME * PlayerInput.DURATION);
+        while (inputTimer >= PlayerInput.DURATION) {
+            inputTimer -= (float) PlayerInput.DURATION;
+
+            int moveX = (int) Math.signum(localPlayer.dirDepl.x);
+            int moveY = (int) Math.signum(localPlayer.dirDepl.y);
+            // On vise là où on avance, sinon là où on regardait déjà
+            int aim = moveX != 0 || moveY != 0
+                    ? Quantization.quantizeAngle(moveX, moveY)
+                    : Quantization.quantizeAngle(localPlayer.dirLookTarget.x, localPlayer.dirLookTarget.y);
+
+            PlayerInput input = prediction.next(moveX, moveY, aim, queuedActions);
+            queuedActions = 0;
+
+            predictionStep.apply(input);
+            prediction.recordPredicted(input, localPlayer.pos);
+            PlayerHandle.sendInputs(prediction);
         }
     }
 
+    private void applyLocalInput(PlayerInput input) {
+        localPlayer.applyInput(input, entitiesManager, blocksManager);
+    }
+
+    /**
+     * Demander une action (tir, bloc), envoyée avec la prochaine commande et exécutée par le serveur.
+     */
+    public void queueAction(int action) {
+        queuedActions |= action;
+    }
+
     /**
      * Déconnecter du serveur
      */
@@ -190,7 +326,63 @@ public class GameClient {
     }
 
     public void update() {
+        processInbound();
+
+        PacketZoneRedirect redirect = pendingRedirect;
+        if (redirect != null) {
+            pendingRedirect = null;
+            switchZone(redirect);
+        }
+
         heartbeat.update();
+        if (udpClient != null) udpClient.update();
+    }
+
+    /**
+     * Le joueur est passé dans une autre zone : se reconnecter au serveur qui la simule, qui a déjà reçu son entité.
+     * Les autres entités de l'ancien serveur sont oubliées, le nouveau envoie celles qui entourent le joueur.
+     */
+    private void switchZone(PacketZoneRedirect redirect) {
+        Logger.info("Changement de zone: " + redirect.host + ":" + redirect.tcpPort);
+        // Une fois les threads de réception terminés, l'ancien serveur ne peut plus rien modifier
+        tcpClient.disconnect();
+        udpClient.disconnect();
+        inboundPackets.clear();
+        inboundStates.clear();
+
+        snapshotReceiver = new SnapshotReceiver();
+        interpolator = new SnapshotInterpolator();
+        prediction = new ClientPrediction();
+        inputTimer = 0;
+        queuedActions = 0;
+        entitiesManager.clear();
+        // Son netId sera celui attribué par le nouveau serveur
+        localPlayer.netId = 0;
+        entitiesManager.addEntity(localPlayer);
+
+        try {
+            tcpClient = new TCPClient(redirect.host, redirect.tcpPort, this);
+            tcpClient.connect();
+            udpClient = new UDPClient(redirect.host, redirect.udpPort, this);
+            udpClient.connect();
+
+            tcpClient.send(new PacketZoneJoin(playerId, localPlayer.name, redirect.ticket));
+        } catch (IOException e) {
+            Logger.error("Connexion au serveur de la zone impossible: " + e.getMessage());
+            connected = false;
+        }
+    }
+
+    /**
+     * Attendre la fin d'un thread de réception qui vient de perdre son socket.
+     */
+    static void joinReceiveThread(Thread thread) {
+        if (thread == null || thread == Thread.currentThread()) return;
+        try {
+            thread.join(RECEIVE_JOIN_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     // Getters
@@ -198,6 +390,10 @@ public class GameClient {
         return localPlayer;
     }
 
+    public SnapshotInterpolator getInterpolator() {
+        return interpolator;
+    }
+
     public boolean isConnected() {
         return connected;
     }
@@ -2,6 +2,7 @@ package com.superkiment.client.network;
 
 import com.superkiment.common.Logger;
 import com.superkiment.common.packets.*;
+import com.superkiment.common.packets.codec.PacketCodecs;
 
 import java.io.*;
 import java.net.Socket;
@@ -13,8 +14,8 @@ public class TCPClient {
     private final GameClient gameClient;
 
     private Socket socket;
-    private ObjectOutputStream out;
-    private ObjectInputStream in;
+    private DataOutputStream out;
+    private DataInputStream in;
     private Thread receiveThread;
 
     public TCPClient(String serverAddress, int port, GameClient gameClient) {
@@ -25,8 +26,9 @@ public class TCPClient {
 
     public void connect() throws IOException {
         socket = new Socket(serverAddress, port);
-        out = new ObjectOutputStream(socket.getOutputStream());
-        in = new ObjectInputStream(socket.getInputStream());
+        socket.setTcpNoDelay(true);
+        out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
 
         // Thread pour recevoir les packets
         receiveThread = new Thread(this::receiveLoop, "tcp-receive-loop");
@@ -39,13 +41,18 @@ public class TCPClient {
         try {
             while (!socket.isClosed()) {
                 try {
-                    Packet packet = (Packet) in.readObject();
+                    int length = in.readInt();
+                    if (length < 0 || length > PacketCodecs.MAX_FRAME_SIZE) {
+                        throw new IOException("Taille de frame invalide: " + length);
+                    }
+                    byte[] payload = new byte[length];
+                    in.readFully(payload);
+
+                    Packet packet = PacketCodecs.decode(payload);
                     Logger.trace("Packet arriving : " + packet.getClass().getName());
-                    gameClient.handleTCPPacket(packet);
+                    gameClient.queuePacket(packet);
                 } catch (EOFException e) {
                     break;
-                } catch (ClassNotFoundException e) {
-                    e.printStackTrace();
                 }
             }
         } catch (IOException e) {
@@ -53,16 +60,19 @@ public class TCPClient {
         }
     }
 
-    public void send(Packet packet) {
+    public synchronized void send(Packet packet) {
         try {
             Logger.trace("TCP SENT : " + packet);
-            out.writeObject(packet);
+            out.write(PacketCodecs.encodeFrame(packet));
             out.flush();
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Fermer la connexion et attendre la fin du thread de réception : plus aucun packet n'arrive ensuite.
+     */
     public void disconnect() {
         try {
             if (socket != null) {
@@ -71,5 +81,6 @@ public class TCPClient {
         } catch (IOException e) {
             e.printStackTrace();
         }
+        GameClient.joinReceiveThread(receiveThread);
     }
 }
\ No newline at end of file
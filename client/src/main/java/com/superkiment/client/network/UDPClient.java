@@ -1,35 +1,85 @@
 package com.superkiment.client.network;
 
 import com.superkiment.common.Logger;
-import com.superkiment.common.packets.PacketPositionsBulk;
 import com.superkiment.common.packets.PacketSerializer;
-import com.superkiment.common.packets.entity.PacketEntityPosition;
+import com.superkiment.common.packets.codec.PacketCodecs;
+import com.superkiment.common.packets.input.InputCodec;
+import com.superkiment.common.packets.input.ClientPrediction;
+import com.superkiment.common.packets.PacketUdpSession;
+import com.superkiment.common.packets.ping.PingCodec;
+import com.superkiment.common.packets.session.SessionCodec;
+import com.superkiment.common.packets.reliable.ReliableChannel;
+import com.superkiment.common.packets.snapshot.SnapshotCodec;
 
 import java.io.IOException;
-import java.net.DatagramPacket;
-import java.net.DatagramSocket;
-import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
-
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+
+/**
+ * Réception et envoi UDP vers le serveur, sur un DatagramChannel.
+ * Les buffers sont alloués une fois : un pour la réception, un pour les commandes et un pour les hellos (thread du jeu),
+ * et les autres pour les réponses (thread de réception).
+ * <p>
+ * Rien ne part avant que le serveur ait attribué une session par TCP : le client envoie alors des hellos jusqu'à
+ * son acquittement, puis de temps en temps pour que le serveur suive un changement d'adresse (voir {@link SessionCodec}).
+ * <p>
+ * Les événements des entités arrivent par le canal fiable ({@link ReliableChannel}) et sont confiés au thread du jeu
+ * comme les packets TCP ; ce client n'y envoie que des acquittements.
+ */
 public class UDPClient {
 
     private final String serverAddress;
     private final int port;
     private final GameClient gameClient;
 
-    private DatagramSocket socket;
-    private InetAddress serverInetAddress;
+    private DatagramChannel channel;
+    private InetSocketAddress serverSocketAddress;
     private Thread receiveThread;
 
+    private final ByteBuffer receiveBuffer = ByteBuffer.allocateDirect(PacketSerializer.UDP_BUFFER_SIZE);
+    private final ByteBuffer inputBuffer = ByteBuffer.allocateDirect(InputCodec.MAX_SIZE);
+    private final ByteBuffer ackBuffer = ByteBuffer.allocateDirect(SnapshotCodec.ACK_SIZE);
+    private final ByteBuffer pongBuffer = ByteBuffer.allocateDirect(PingCodec.PONG_SIZE);
+    private final ByteBuffer helloBuffer = ByteBuffer.allocateDirect(SessionCodec.HELLO_SIZE);
+
+    /**
+     * Hellos répétés tant que le serveur ne les a pas acquittés, puis de loin en loin.
+     */
+    public static final long HELLO_RETRY_MILLIS = 250;
+    public static final long HELLO_KEEPALIVE_MILLIS = 4000;
+
+    // Session écrite par le thread TCP, lue par les autres
+    private volatile int sessionId = SessionCodec.NO_SESSION;
+    private volatile long sessionToken;
+    private volatile boolean bound = false;
+    private long lastHello = 0;
+
+    /**
+     * [type][session] devant chaque datagramme du canal fiable. Uniquement manipulé par le thread de réception.
+     */
+    private final ReliableChannel reliable = new ReliableChannel(PacketSerializer.UDP_PAYLOAD_BUDGET - 1 - Short.BYTES);
+    private final ByteBuffer reliableBuffer = ByteBuffer.allocateDirect(PacketSerializer.UDP_PAYLOAD_BUDGET);
+    private final ReliableChannel.Receiver reliableReceiver;
+
     public UDPClient(String serverAddress, int port, GameClient gameClient) {
         this.serverAddress = serverAddress;
         this.port = port;
         this.gameClient = gameClient;
+        this.reliableReceiver = (message, channel) -> {
+            try {
+                gameClient.queuePacket(PacketCodecs.decode(message));
+            } catch (IOException e) {
+                Logger.warn("Message fiable invalide: " + e.getMessage());
+            }
+        };
     }
 
     public void connect() throws IOException {
-        socket = new DatagramSocket();
-        serverInetAddress = InetAddress.getByName(serverAddress);
+        channel = DatagramChannel.open();
+        channel.bind(null);
+        serverSocketAddress = new InetSocketAddress(serverAddress, port);
 
         // Thread pour recevoir les packets
         receiveThread = new Thread(this::receiveLoop, "udp-receive-loop");
@@ -39,54 +89,143 @@ public class UDPClient {
     }
 
     private void receiveLoop() {
-        byte[] buffer = new byte[1024];
-
-        while (!socket.isClosed()) {
+        while (channel.isOpen()) {
             try {
-                DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
-                socket.receive(packet);
-
-                ByteBuffer packetBuffer = ByteBuffer.wrap(packet.getData(), 0, packet.getLength());
+                receiveBuffer.clear();
+                channel.receive(receiveBuffer);
+                long receivedMicros = System.nanoTime() / 1000;
+                receiveBuffer.flip();
+                if (!receiveBuffer.hasRemaining()) continue;
 
                 // Le premier octet permet de connaître le type de packet UDP.
-                byte type = packetBuffer.get();
+                byte type = receiveBuffer.get();
 
                 switch (type) {
-                    case 1 -> {
-                        PacketEntityPosition posPacket =
-                                PacketSerializer.deserializePositionUDP(packetBuffer);
-                        gameClient.handleUDPPositionPacket(posPacket);
+                    case SnapshotCodec.TYPE_SNAPSHOT -> gameClient.handleUDPSnapshot(receiveBuffer);
+                    case ReliableChannel.TYPE_RELIABLE -> {
+                        reliable.receive(receiveBuffer, System.currentTimeMillis(), reliableReceiver);
+                        sendReliableAck();
                     }
-                    case 2 -> {
-
-                        PacketPositionsBulk posPacket =
-                                PacketSerializer.deserializeBulkPositions(packetBuffer);
-                        gameClient.handleUDPBulkPositionPacket(posPacket);
+                    case PingCodec.TYPE_PING -> sendPong(PingCodec.readPingSeq(receiveBuffer), receivedMicros);
+                    case SessionCodec.TYPE_HELLO_ACK -> {
+                        if (SessionCodec.readSessionId(receiveBuffer) == sessionId) bound = true;
                     }
                 }
 
+            } catch (ClosedChannelException e) {
+                break;
             } catch (IOException e) {
-                if (!socket.isClosed()) e.printStackTrace();
+                if (channel.isOpen()) e.printStackTrace();
+            } catch (RuntimeException e) {
+                Logger.warn("Datagramme UDP invalide: " + e.getMessage());
             }
         }
     }
 
+    /**
+     * La session attribuée par le serveur : les hellos partent au prochain {@link #update()}.
+     */
+    public void startSession(PacketUdpSession session) {
+        sessionToken = session.token;
+        sessionId = session.sessionId;
+        bound = false;
+    }
+
+    /**
+     * Le serveur a lié la session à notre adresse : les commandes peuvent partir.
+     */
+    public boolean isBound() {
+        return bound;
+    }
+
+    /**
+     * Envoyer un hello si c'est le moment. Thread du jeu uniquement.
+     */
+    public void update() {
+        int session = sessionId;
+        if (session == SessionCodec.NO_SESSION) return;
+
+        long now = System.currentTimeMillis();
+        if (now - lastHello < (bound ? HELLO_KEEPALIVE_MILLIS : HELLO_RETRY_MILLIS)) return;
+        lastHello = now;
+
+        helloBuffer.clear();
+        SessionCodec.writeHello(helloBuffer, session, sessionToken);
+        write(helloBuffer.flip());
+    }
+
+    /**
+     * Envoyer la dernière commande du joueur, précédée des précédentes pour couvrir les pertes. Thread du jeu uniquement.
+     */
+    public void sendInputs(ClientPrediction prediction) {
+        int count = prediction.recentCount(InputCodec.REDUNDANCY);
+        if (count == 0 || !bound) return;
+
+        inputBuffer.clear();
+        InputCodec.writeHeader(inputBuffer, sessionId, prediction.recent(0).seq, count);
+        for (int age = count - 1; age >= 0; age--) {
+            InputCodec.writeInput(inputBuffer, prediction.recent(age));
+        }
+        write(inputBuffer.flip());
+    }
+
+    /**
+     * Acquitter un snapshot reçu en entier, pour que le serveur l'utilise comme baseline. Thread de réception uniquement.
+     */
+    public void sendSnapshotAck(int seq) {
+        if (!bound) return;
 
-    public void sendPosition(PacketEntityPosition packet) {
+        ackBuffer.clear();
+        SnapshotCodec.writeAck(ackBuffer, sessionId, seq);
+        write(ackBuffer.flip());
+    }
+
+    /**
+     * Acquitter tout de suite ce que le canal fiable vient de recevoir, pour que le serveur n'ait rien à renvoyer.
+     * Thread de réception uniquement.
+     */
+    private void sendReliableAck() {
+        if (!bound) return;
+
+        reliableBuffer.clear();
+        reliableBuffer.put(ReliableChannel.TYPE_RELIABLE);
+        reliableBuffer.putShort((short) sessionId);
+        if (reliable.writeDatagram(reliableBuffer, System.currentTimeMillis())) {
+            write(reliableBuffer.flip());
+        }
+    }
+
+    /**
+     * Répondre tout de suite à un ping du serveur avec l'heure de réception et celle de la réponse, sur l'horloge du client,
+     * pour qu'il mesure la latence sans le temps passé ici. Thread de réception uniquement.
+     */
+    private void sendPong(int seq, long receivedMicros) {
+        if (!bound) return;
+
+        pongBuffer.clear();
+        PingCodec.writePong(pongBuffer, sessionId, seq, receivedMicros, System.nanoTime() / 1000);
+        write(pongBuffer.flip());
+    }
+
+    private void write(ByteBuffer datagram) {
         try {
-            byte[] data = PacketSerializer.serializePositionUDP(packet);
-            DatagramPacket datagramPacket = new DatagramPacket(
-                    data, data.length, serverInetAddress, port
-            );
-            socket.send(datagramPacket);
+            channel.send(datagram, serverSocketAddress);
         } catch (IOException e) {
-            e.printStackTrace();
+            if (channel.isOpen()) e.printStackTrace();
         }
     }
 
+    /**
+     * Fermer le canal et attendre la fin du thread de réception : plus aucun packet n'arrive ensuite.
+     */
     public void disconnect() {
-        if (socket != null) {
-            socket.close();
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
         }
+        GameClient.joinReceiveThread(receiveThread);
     }
-}
\ No newline at end of file
+}
@@ -1,30 +1,31 @@
 package com.superkiment.client.network.handles;
 
-import com.superkiment.client.Main;
-import com.superkiment.client.network.TCPClient;
 import com.superkiment.common.Logger;
 import com.superkiment.common.packets.PacketCreateBlock;
+import com.superkiment.common.packets.PacketWorldChunk;
 import org.joml.Vector2d;
 
 import static com.superkiment.client.Main.blocksManager;
 
 /**
- * Le handle qui contient les fonctions nécessaires à la création de blocs et la récéption de données concernant la création de block.
+ * Le handle qui contient les fonctions nécessaires à la récéption de données concernant la création de block.
  */
 public class BlockHandle {
 
-    /**
-     * Créer un block (TCP - fiable)
-     */
-    public static void createBlock(Vector2d position) {
-        TCPClient tcpClient = Main.gameClient.getTCPClient();
-        PacketCreateBlock packet = new PacketCreateBlock(position);
-        tcpClient.send(packet);
-    }
-
-
     public static void handleCreateBlock(PacketCreateBlock packet) {
         blocksManager.addBlock(new Vector2d(packet.posX, packet.posY));
         Logger.info("Block distant créé: (" + packet.posX + " " + packet.posY + ")");
     }
+
+    /**
+     * Une partie des blocs du monde, reçue après le join : ajoutée en une fois.
+     */
+    public static void handleWorldChunk(PacketWorldChunk packet) {
+        int added = blocksManager.addBlocks(packet.blockX, packet.blockY, packet.count);
+        Logger.debug("Partie du monde reçue: " + (packet.chunkIndex + 1) + "/" + packet.chunkCount + " (" + added + " blocs)");
+
+        if (packet.chunkIndex == packet.chunkCount - 1) {
+            Logger.info("Monde reçu: " + blocksManager.getBlocks().size() + " blocs");
+        }
+    }
 }
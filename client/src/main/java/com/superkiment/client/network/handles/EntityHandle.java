@@ -5,10 +5,11 @@ import com.superkiment.client.network.TCPClient;
 import com.superkiment.common.Logger;
 import com.superkiment.common.entities.Entity;
 import com.superkiment.common.entities.EntityFactory;
+import com.superkiment.common.entities.EntityReplication;
 import com.superkiment.common.packets.Packet;
-import com.superkiment.common.packets.entity.LinkEntityPacket;
 import com.superkiment.common.packets.entity.PacketCreateEntity;
 import com.superkiment.common.packets.entity.PacketDeleteEntity;
+import com.superkiment.common.packets.entity.PacketEntityPatch;
 import com.superkiment.common.packets.entity.PacketUpdateEntity;
 
 import static com.superkiment.client.Main.entitiesManager;
@@ -19,12 +20,6 @@ import static com.superkiment.client.graphics.ui.dynamic_ui.ShapeModel_UI.AddDyn
  */
 public class EntityHandle {
 
-    public static void createEntity(Entity entity) {
-        Packet packet = LinkEntityPacket.CreatePacketFromEntity(entity);
-        TCPClient tcpClient = Main.gameClient.getTCPClient();
-        tcpClient.send(packet);
-    }
-
     public static void deleteEntity(Entity entity) {
         Packet packet = new PacketDeleteEntity(entity.id);
         TCPClient tcpClient = Main.gameClient.getTCPClient();
@@ -38,10 +33,10 @@ public class EntityHandle {
     }
 
     public static void handleCreateEntity(PacketCreateEntity packet) {
-        String playerId = Main.gameClient.getLocalPlayer().id;
-
-        // Ne pas créer si c'est notre propre entité
-        if (packet.entityId.equals(playerId)) {
+        // Ne pas recréer une entité déjà connue (notre propre joueur) : on apprend seulement son netId
+        Entity existing = entitiesManager.getEntityFromID(packet.entityId);
+        if (existing != null) {
+            entitiesManager.bindNetId(existing, packet.netId);
             return;
         }
 
@@ -55,18 +50,20 @@ public class EntityHandle {
     }
 
     public static void handleDeleteEntity(PacketDeleteEntity packet) {
-        Entity removed = entitiesManager.getEntities().remove(packet.entityId);
+        Entity removed = entitiesManager.removeEntity(packet.entityId);
         if (removed != null) {
             Logger.debug("Entité supprimée: " + removed.name);
         }
     }
 
-    public static void handleUpdateEntity(PacketCreateEntity packet) {
-
-
-        Entity entity = entitiesManager.getEntityFromID(packet.entityId);
-        EntityFactory.ApplyBasePacketToEntity(packet, entity);
+    /**
+     * Appliquer les champs modifiés d'une entité, les autres restent tels quels.
+     */
+    public static void handleEntityPatch(PacketEntityPatch packet) {
+        Entity entity = entitiesManager.getEntityFromNetId(packet.netId);
+        if (entity == null) return;
 
-        Logger.debug("Entité distante mise à jour: " + entity.name + " (" + entity.id + ") à la position " + entity.pos);
+        EntityReplication.apply(packet, entity);
+        Logger.debug("Entité distante mise à jour: " + entity.name + " (" + entity.id + ")");
     }
 }
@@ -5,11 +5,11 @@ import com.superkiment.client.network.UDPClient;
 import com.superkiment.common.Logger;
 import com.superkiment.common.entities.Player;
 import com.superkiment.common.packets.PacketPlayerJoin;
-import com.superkiment.common.packets.entity.PacketEntityPosition;
+import com.superkiment.common.packets.input.ClientPrediction;
 
 /**
  * Le handle qui contient les fonctions nécessaires à la création de player et la récéption de données concernant la création de player.
- * Contient également les fonctions sur la mise à jour de la position du joueur.
+ * Contient également l'envoi des commandes du joueur.
  */
 public class PlayerHandle {
 
@@ -26,23 +26,16 @@ public class PlayerHandle {
     }
 
     /**
-     * Envoyer la position du joueur (UDP)
+     * Envoyer les dernières commandes du joueur (UDP)
      */
-    public static void sendPosition() {
+    public static void sendInputs(ClientPrediction prediction) {
         UDPClient udpClient = Main.gameClient.getUDPClient();
         boolean connected = Main.gameClient.isConnected();
         Player localPlayer = Main.gameClient.getLocalPlayer();
 
-        if (!connected || localPlayer == null) return;
+        // Tant que la session UDP n'est pas liée, le serveur ne saurait pas à qui appliquer la commande
+        if (!connected || localPlayer == null || !udpClient.isBound()) return;
 
-        PacketEntityPosition packet = new PacketEntityPosition(
-                localPlayer.id,
-                localPlayer.pos.x,
-                localPlayer.pos.y,
-                localPlayer.dirLookTarget.x,
-                localPlayer.dirLookTarget.y
-        );
-
-        udpClient.sendPosition(packet);
+        udpClient.sendInputs(prediction);
     }
 }
@@ -5,11 +5,17 @@ import java.time.format.DateTimeFormatter;
 
 /**
  * Classe sans instance qui permet le calcul de temps entre deux loops.
+ * <p>
+ * La frame est propre à chaque thread : les salles du serveur tournent chacune sur le sien, à leur propre rythme.
  */
 public class Time {
 
-    private static long frameLastTime;
-    private static float frameDeltaTime;
+    private static final class Frame {
+        long lastTime;
+        float deltaTime;
+    }
+
+    private static final ThreadLocal<Frame> frame = ThreadLocal.withInitial(Frame::new);
 
     /**
      * In nanoseconds
@@ -34,14 +40,18 @@ public class Time {
     }
 
     public static void UpdateFrameTime() {
+        Frame current = frame.get();
         long currentTime = System.nanoTime();
         // Conversion en secondes
-        frameDeltaTime = (currentTime - frameLastTime) * 1e-9f;
-        frameLastTime = currentTime;
+        current.deltaTime = (currentTime - current.lastTime) * 1e-9f;
+        current.lastTime = currentTime;
     }
 
+    /**
+     * Durée de la dernière frame du thread courant, en secondes.
+     */
     public static float GetDeltaFrameTime() {
-        return frameDeltaTime;
+        return frame.get().deltaTime;
     }
 
     public void updateDeltaTime() {
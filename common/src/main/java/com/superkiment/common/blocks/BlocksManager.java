@@ -3,7 +3,10 @@ package com.superkiment.common.blocks;
 import com.superkiment.common.Logger;
 import org.joml.Vector2d;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
@@ -12,6 +15,11 @@ import java.util.concurrent.CopyOnWriteArrayList;
 public class BlocksManager {
     private final List<Block> blocks;
 
+    /**
+     * Cases occupées, pour refuser un doublon sans parcourir tous les blocs.
+     */
+    private final Set<Long> occupied = ConcurrentHashMap.newKeySet();
+
     public BlocksManager() {
         blocks = new CopyOnWriteArrayList<>();
     }
@@ -21,15 +29,33 @@ public class BlocksManager {
     }
 
     public boolean addBlock(Vector2d pos) {
-        for (Block block : blocks) {
-            if (block.isBlockOnPos(pos)) {
-                Logger.debug("Cannot place block " + (int) pos.x + " " + (int) pos.y);
-                return false;
-            }
+        if (!occupied.add(key((int) pos.x, (int) pos.y))) {
+            Logger.debug("Cannot place block " + (int) pos.x + " " + (int) pos.y);
+            return false;
         }
 
         Logger.debug("Added block to BlockManager " + (int) pos.x + " " + (int) pos.y);
         blocks.add(new Block((int) pos.x, (int) pos.y));
         return true;
     }
+
+    /**
+     * Ajouter les {@code count} premiers blocs en une seule copie de la liste, en ignorant les cases déjà occupées.
+     *
+     * @return le nombre de blocs ajoutés.
+     */
+    public int addBlocks(int[] blockX, int[] blockY, int count) {
+        List<Block> added = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (occupied.add(key(blockX[i], blockY[i]))) {
+                added.add(new Block(blockX[i], blockY[i]));
+            }
+        }
+        blocks.addAll(added);
+        return added.size();
+    }
+
+    private static long key(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
 }
@@ -1,6 +1,7 @@
 package com.superkiment.common.collisions;
 
 import com.superkiment.common.entities.Entity;
+import com.superkiment.common.entities.EntityReplication;
 import com.superkiment.common.shapes.ShapeModel;
 import org.joml.Vector2d;
 
@@ -39,9 +40,9 @@ public abstract class Collisionable {
     public boolean dirtyPosition = false;
 
     /**
-     * Est-ce qu'un attribut comme les hp ou le nom ont changé depuis le dernier tick ?
+     * Les champs répliqués (hp, nom...) modifiés depuis leur dernier envoi, un bit par champ de {@link EntityReplication}.
      */
-    public boolean dirtyOtherAttribute = false;
+    public int dirtyFields = 0;
 
     /**
      * Est-ce que le Collisionable réagit aux collisions de manière physique ?
@@ -87,7 +88,15 @@ public abstract class Collisionable {
         return exceptionsCollisions.get(i);
     }
 
+    /**
+     * Noter que des champs répliqués ont changé, pour que le serveur les envoie aux clients.
+     */
+    public void markDirty(int fields) {
+        dirtyFields |= fields;
+    }
+
     protected void fullHealth() {
         this.hp = this.maxHP;
+        markDirty(EntityReplication.HP);
     }
 }
\ No newline at end of file
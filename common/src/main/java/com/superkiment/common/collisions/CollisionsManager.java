@@ -43,7 +43,7 @@ public class CollisionsManager {
         List<Collisionable> testedCollisionables = new ArrayList<>();
 
         // Récupère les CollisionsManager
-        for (Entity entity : entitiesManager.getEntities().values()) {
+        for (Entity entity : entitiesManager.getEntities()) {
             if (entity == parent) continue;
             testedCollisionables.add(entity);
         }
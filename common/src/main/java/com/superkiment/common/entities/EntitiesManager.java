@@ -1,28 +1,95 @@
 package com.superkiment.common.entities;
 
+import com.superkiment.common.utils.SlotMap;
+
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * La collection et gestion des entités et clients dans le monde.
+ * <p>
+ * Les entités sont rangées dans une {@link SlotMap}, parcourue à chaque tick et désignée par {@link Entity#handle} ;
+ * l'index par UUID ne sert qu'aux packets qui nomment une entité par son id.
+ * Un seul thread ajoute et retire des entités : le tick côté serveur, le thread du jeu côté client, à qui les threads
+ * de réception confient les packets (voir GameClient). Les autres threads ne font que lire l'index des netIds.
  */
 public class EntitiesManager {
 
-    protected final Map<String, Entity> entities = new ConcurrentHashMap<>();
+    protected final SlotMap<Entity> entities = new SlotMap<>();
+    private final Map<String, Entity> entitiesById = new ConcurrentHashMap<>();
     protected final List<Entity> toBeDeletedEntities = new ArrayList<>();
 
+    /**
+     * Index des entités par identifiant réseau, pour les packets UDP qui ne contiennent que le netId.
+     */
+    private volatile Entity[] entitiesByNetId = new Entity[256];
+
     public EntitiesManager() {
     }
 
-    public Map<String, Entity> getEntities() {
+    public SlotMap<Entity> getEntities() {
         return entities;
     }
 
+    /**
+     * Ajouter une entité. Une autre entité de même id est remplacée.
+     */
     public void addEntity(Entity entity) {
         entity.setEntitiesManager(this);
-        entities.put(entity.id, entity);
+
+        Entity previous = entitiesById.get(entity.id);
+        if (previous == entity) return;
+        if (previous != null) removeEntity(previous.id);
+
+        entity.handle = entities.insert(entity);
+        entitiesById.put(entity.id, entity);
+        if (entity.netId != 0) indexNetId(entity);
+    }
+
+    /**
+     * Retirer une entité et son identifiant réseau.
+     *
+     * @return l'entité retirée, ou null si elle n'existait pas.
+     */
+    public Entity removeEntity(String id) {
+        Entity entity = entitiesById.remove(id);
+        if (entity == null) return null;
+
+        entities.remove(entity.handle);
+        entity.handle = SlotMap.NONE;
+        if (entity.netId != 0 && getEntityFromNetId(entity.netId) == entity) {
+            entitiesByNetId[entity.netId] = null;
+        }
+        return entity;
+    }
+
+    /**
+     * Associer un identifiant réseau à une entité déjà présente (ex : le joueur local, créé avant que le serveur ne lui attribue son netId).
+     */
+    public void bindNetId(Entity entity, int netId) {
+        if (entity.netId != 0 && getEntityFromNetId(entity.netId) == entity) {
+            entitiesByNetId[entity.netId] = null;
+        }
+        entity.netId = netId;
+        if (netId != 0) indexNetId(entity);
+    }
+
+    private void indexNetId(Entity entity) {
+        Entity[] index = entitiesByNetId;
+        if (entity.netId >= index.length) {
+            index = Arrays.copyOf(index, Integer.highestOneBit(entity.netId) << 1);
+            entitiesByNetId = index;
+        }
+        index[entity.netId] = entity;
+    }
+
+    public Entity getEntityFromNetId(int netId) {
+        Entity[] index = entitiesByNetId;
+        if (netId <= 0 || netId >= index.length) return null;
+        return index[netId];
     }
 
     public void addToBeDeleted(Entity entity) {
@@ -38,6 +105,20 @@ public class EntitiesManager {
     }
 
     public Entity getEntityFromID(String id) {
-        return entities.get(id);
+        return entitiesById.get(id);
+    }
+
+    /**
+     * @return l'entité de la poignée, ou null si elle a été retirée.
+     */
+    public Entity getEntity(long handle) {
+        return entities.get(handle);
+    }
+
+    /**
+     * Retirer toutes les entités.
+     */
+    public void clear() {
+        for (int i = entities.size() - 1; i >= 0; i--) removeEntity(entities.at(i).id);
     }
 }
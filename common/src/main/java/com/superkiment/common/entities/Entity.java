@@ -6,6 +6,7 @@ import com.superkiment.common.collisions.CollisionData;
 import com.superkiment.common.collisions.Collisionable;
 import com.superkiment.common.shapes.ShapeModel;
 import com.superkiment.common.collisions.CollisionsManager;
+import com.superkiment.common.utils.SlotMap;
 import org.joml.Vector2d;
 
 import java.util.ArrayList;
@@ -23,8 +24,24 @@ public class Entity extends Collisionable {
     public String id;
     public String name = "NoName";
 
+    /**
+     * Identifiant réseau sur 16 bits attribué par le serveur, utilisé à la place de l'UUID en UDP. 0 = pas encore attribué.
+     */
+    public int netId = 0;
+
+    /**
+     * Poignée dans la {@link SlotMap} de son gestionnaire, {@link SlotMap#NONE} tant qu'elle n'y est pas.
+     */
+    public long handle = SlotMap.NONE;
+
     public boolean moveFromInput = false;
 
+    /**
+     * Copie, en lecture seule, d'une entité simulée par le serveur d'une zone voisine : elle sert aux collisions
+     * et à la réplication, mais sa logique n'est jamais mise à jour ici.
+     */
+    public boolean ghost = false;
+
     protected EntitiesManager entitiesManager;
 
     public Entity() {
@@ -55,10 +72,15 @@ public class Entity extends Collisionable {
         if (hp <= 0) deleteSelf();
 
         updateMovement();
-        {
-            List<CollisionData> collisions = collisionsManager.findCollisionsWithData(entitiesManager, blocksManager);
-            collisionsManager.reactToCollisions(collisions);
-        }
+        updateCollisions(entitiesManager, blocksManager);
+    }
+
+    /**
+     * Trouver les collisions de l'entité et y réagir.
+     */
+    protected void updateCollisions(EntitiesManager entitiesManager, BlocksManager blocksManager) {
+        List<CollisionData> collisions = collisionsManager.findCollisionsWithData(entitiesManager, blocksManager);
+        collisionsManager.reactToCollisions(collisions);
     }
 
     public void turnToDirection(Vector2d dir) {
@@ -71,17 +93,24 @@ public class Entity extends Collisionable {
     protected void updateMovement() {
         if (!moveFromInput) return;
 
-        dirLookTarget.set(dirDepl.x, dirDepl.y);
+        move(dirDepl.x, dirDepl.y, Time.GetDeltaFrameTime());
+
+        moveFromInput = false;
+    }
 
-        Vector2d mvt = new Vector2d(dirDepl.x, dirDepl.y);
+    /**
+     * Avancer dans la direction (dirX, dirY) pendant dt secondes, à la vitesse de l'entité.
+     */
+    public void move(double dirX, double dirY, double dt) {
+        dirLookTarget.set(dirX, dirY);
+
+        Vector2d mvt = new Vector2d(dirX, dirY);
         if (mvt.lengthSquared() > 0) {
-            mvt.normalize().mul(speed).mul(Time.GetDeltaFrameTime());
+            mvt.normalize().mul(speed).mul(dt);
             collisionsManager.velocity.set(mvt);
             pos.add(mvt);
             dirtyPosition = true;
         }
-
-        moveFromInput = false;
     }
 
     /**
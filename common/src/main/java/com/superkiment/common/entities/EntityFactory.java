@@ -13,6 +13,7 @@ import java.util.function.Function;
 
 /**
  * Usine d'entités pour transformer des packets en entités prêtes à être ajoutées à l'EntitiesManager.
+ * Le client n'en a qu'une ({@link #getInstance()}), le serveur une par salle.
  */
 public class EntityFactory {
     private static EntityFactory instance;
@@ -23,7 +24,8 @@ public class EntityFactory {
      */
     private final Map<Class<? extends Packet>, Function<Packet, Entity>> creators;
 
-    private EntityFactory() {
+    public EntityFactory(EntitiesManager entitiesManager) {
+        this.entitiesManager = entitiesManager;
         creators = new HashMap<>();
 
         creators.put(PacketCreateEntity.class, packet -> {
@@ -39,7 +41,9 @@ public class EntityFactory {
 
             // trouver les exceptions
             for (String id : pp.exceptions) {
-                projectile.addCollisionException(entitiesManager.getEntityFromID(id));
+                // Le tireur peut ne pas être connu ici, s'il est resté dans une autre zone
+                Entity exception = entitiesManager.getEntityFromID(id);
+                if (exception != null) projectile.addCollisionException(exception);
             }
 
             Logger.debug("USED PROJECTILE CREATOR, " + projectile.numberOfCollisionExceptions() + " collision exceptions.");
@@ -66,21 +70,22 @@ public class EntityFactory {
      */
     public static void CreateInstance(EntitiesManager entitiesManager) {
         if (instance == null) {
-            instance = new EntityFactory();
-            instance.entitiesManager = entitiesManager;
+            instance = new EntityFactory(entitiesManager);
             Logger.debug("EntitiesManager entity created");
         }
     }
 
     public static EntityFactory getInstance() {
-        if (instance == null) instance = new EntityFactory();
+        if (instance == null) instance = new EntityFactory(null);
         return instance;
     }
 
     public Entity create(Packet packet) {
         Function<Packet, Entity> creator = creators.get(packet.getClass());
         if (creator != null) {
-            return creator.apply(packet);
+            Entity entity = creator.apply(packet);
+            entity.netId = ((PacketCreateEntity) packet).netId;
+            return entity;
         }
         throw new IllegalArgumentException("Unknown packet type: " + packet.getClass());
     }
@@ -89,7 +94,7 @@ public class EntityFactory {
 
         entity.id = pe.entityId;
         entity.name = pe.entityName;
-        entity.pos = new Vector2d(pe.posX, pe.posY);
+        entity.pos.set(pe.posX, pe.posY);
         entity.hp = pe.hp;
 
         if (entity.shapeModel.shapes.size() != pe.shapesTexts.length)
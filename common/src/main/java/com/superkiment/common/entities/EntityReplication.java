@@ -0,0 +1,69 @@
+package com.superkiment.common.entities;
+
+import com.superkiment.common.packets.entity.PacketEntityPatch;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Les champs d'une entité répliqués vers les clients en dehors des snapshots, un bit par champ.
+ * <p>
+ * Une entité marque les champs qu'elle modifie ({@link Entity#markDirty(int)}) ; le serveur n'envoie ensuite que ceux-là,
+ * dans un {@link PacketEntityPatch}, et le client les applique avec {@link #apply}. La position et la direction
+ * passent par les snapshots et ne sont pas concernées.
+ */
+public final class EntityReplication {
+
+    public static final int NAME = 1;
+    public static final int HP = 1 << 1;
+    public static final int MAX_HP = 1 << 2;
+    public static final int SHAPE_TEXTS = 1 << 3;
+
+    public static final int ALL = NAME | HP | MAX_HP | SHAPE_TEXTS;
+
+    /**
+     * Champs répliqués par classe d'entité : un changement d'un autre champ n'est pas envoyé.
+     */
+    private static final Map<Class<?>, Integer> descriptors = new HashMap<>();
+
+    static {
+        register(Entity.class, ALL);
+        register(Player.class, ALL);
+        // Un projectile ne vit pas assez longtemps pour que ses points de vie ou son nom intéressent les clients
+        register(Projectile.class, SHAPE_TEXTS);
+    }
+
+    private EntityReplication() {
+    }
+
+    public static void register(Class<? extends Entity> type, int fields) {
+        descriptors.put(type, fields);
+    }
+
+    /**
+     * Champs répliqués pour la classe de l'entité, ou ceux de sa classe parente la plus proche.
+     */
+    public static int fieldsOf(Entity entity) {
+        for (Class<?> type = entity.getClass(); type != null; type = type.getSuperclass()) {
+            Integer fields = descriptors.get(type);
+            if (fields != null) return fields;
+        }
+        return 0;
+    }
+
+    /**
+     * Appliquer à l'entité les champs présents dans le patch, sans toucher aux autres.
+     */
+    public static void apply(PacketEntityPatch patch, Entity entity) {
+        if ((patch.fields & NAME) != 0) entity.name = patch.name;
+        if ((patch.fields & HP) != 0) entity.hp = patch.hp;
+        if ((patch.fields & MAX_HP) != 0) entity.maxHP = patch.maxHp;
+
+        if ((patch.fields & SHAPE_TEXTS) != 0) {
+            int count = Math.min(patch.shapesTexts.length, entity.shapeModel.shapes.size());
+            for (int i = 0; i < count; i++) {
+                entity.shapeModel.shapes.get(i).text = patch.shapesTexts[i];
+            }
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package com.superkiment.common.entities;
 
+import com.superkiment.common.blocks.BlocksManager;
+import com.superkiment.common.packets.input.PlayerInput;
+import com.superkiment.common.packets.snapshot.Quantization;
 import com.superkiment.common.shapes.Shape;
 import com.superkiment.common.collisions.CollisionShape;
 import org.joml.Vector2d;
@@ -29,6 +32,16 @@ public class Player extends Entity {
         respawnPoint = new Vector2d(pos.x, pos.y);
     }
 
+    /**
+     * Simuler une commande : le même pas sert à la prédiction du client et à la simulation du serveur.
+     * Les actions (tir, bloc) ne sont pas simulées ici : seul le serveur les exécute.
+     */
+    public void applyInput(PlayerInput input, EntitiesManager entitiesManager, BlocksManager blocksManager) {
+        if (input.isMoving()) move(input.moveX, input.moveY, PlayerInput.DURATION);
+        Quantization.dequantizeAngle(input.aim, dirLookTarget);
+        updateCollisions(entitiesManager, blocksManager);
+    }
+
     @Override
     public void deleteSelf() {
         respawn();
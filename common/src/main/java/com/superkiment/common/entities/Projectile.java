@@ -57,7 +57,7 @@ public class Projectile extends Entity {
     public void onCollision(Collisionable other) {
         Logger.trace(this + " had a collision");
         other.hp -= 10;
-        other.dirtyOtherAttribute = true;
+        other.markDirty(EntityReplication.HP);
         deleteSelf();
     }
 }
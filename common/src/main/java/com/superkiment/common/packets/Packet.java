@@ -13,13 +13,16 @@ public abstract class Packet implements Serializable {
     public enum PacketType {
         CREATE_ENTITY,
         UPDATE_ENTITY,
-        ENTITY_POSITION,
         DELETE_ENTITY,
         PLAYER_JOIN,
         CREATE_BLOCK,
         DELETE_BLOCK,
-        BULK_POSITION,
         HEARTBEAT,
+        WORLD_CHUNK,
+        ENTITY_PATCH,
+        UDP_SESSION,
+        ZONE_REDIRECT,
+        ZONE_JOIN,
     }
 
     public abstract PacketType getType();
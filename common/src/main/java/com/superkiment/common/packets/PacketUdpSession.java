@@ -0,0 +1,27 @@
+package com.superkiment.common.packets;
+
+/**
+ * La session UDP attribuée par le serveur au join, envoyée par TCP : le client la présente dans un hello UDP
+ * (voir {@link com.superkiment.common.packets.session.SessionCodec}), puis la met en tête de chacun de ses datagrammes.
+ */
+public class PacketUdpSession extends Packet {
+
+    public int sessionId;
+    public long token;
+
+    public PacketUdpSession(int sessionId, long token) {
+        this.sessionId = sessionId;
+        this.token = token;
+    }
+
+    @Override
+    public PacketType getType() {
+        return PacketType.UDP_SESSION;
+    }
+
+    @Override
+    public String toString() {
+        // Le jeton reste secret, y compris dans les logs
+        return "PacketUdpSession{sessionId=" + sessionId + "}";
+    }
+}
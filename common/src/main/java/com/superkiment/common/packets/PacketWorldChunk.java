@@ -0,0 +1,45 @@
+package com.superkiment.common.packets;
+
+/**
+ * Une partie des blocs du monde, envoyée à un joueur qui rejoint la partie.
+ * Les parties arrivent des plus proches du joueur aux plus lointaines, il peut donc jouer avant d'avoir reçu toute la carte.
+ */
+public class PacketWorldChunk extends Packet {
+
+    /**
+     * Position de la partie dans l'envoi, de 0 à {@link #chunkCount} - 1.
+     */
+    public int chunkIndex;
+    public int chunkCount;
+
+    /**
+     * Coordonnées des blocs sur la grille, seules les {@link #count} premières sont utilisées.
+     */
+    public int count;
+    public int[] blockX;
+    public int[] blockY;
+
+    /**
+     * Compresser le contenu à l'encodage s'il est assez grand. N'est pas transmis.
+     */
+    public boolean deflate = true;
+
+    public PacketWorldChunk(int chunkIndex, int chunkCount, int[] blockX, int[] blockY, int count) {
+        super();
+        this.chunkIndex = chunkIndex;
+        this.chunkCount = chunkCount;
+        this.blockX = blockX;
+        this.blockY = blockY;
+        this.count = count;
+    }
+
+    @Override
+    public PacketType getType() {
+        return PacketType.WORLD_CHUNK;
+    }
+
+    @Override
+    public String toString() {
+        return "PacketWorldChunk{" + (chunkIndex + 1) + "/" + chunkCount + ", blocs=" + count + "}";
+    }
+}
@@ -0,0 +1,28 @@
+package com.superkiment.common.packets;
+
+/**
+ * Join d'un joueur redirigé par une autre zone (voir {@link PacketZoneRedirect}) : à la place de
+ * {@link PacketPlayerJoin}, le serveur lui rend le joueur qu'il a reçu de l'autre zone au lieu d'en attendre un nouveau.
+ */
+public class PacketZoneJoin extends Packet {
+
+    public String playerId;
+    public String playerName;
+    public long ticket;
+
+    public PacketZoneJoin(String playerId, String playerName, long ticket) {
+        this.playerId = playerId;
+        this.playerName = playerName;
+        this.ticket = ticket;
+    }
+
+    @Override
+    public PacketType getType() {
+        return PacketType.ZONE_JOIN;
+    }
+
+    @Override
+    public String toString() {
+        return "PacketZoneJoin{playerId=" + playerId + ", playerName=" + playerName + "}";
+    }
+}
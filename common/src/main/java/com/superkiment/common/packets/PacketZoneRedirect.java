@@ -0,0 +1,31 @@
+package com.superkiment.common.packets;
+
+/**
+ * Le joueur a quitté la zone de ce serveur : le client doit se reconnecter au serveur de la zone qu'il rejoint,
+ * qui a déjà reçu son joueur, et s'y présenter avec le ticket (voir {@link PacketZoneJoin}).
+ */
+public class PacketZoneRedirect extends Packet {
+
+    public String host;
+    public int tcpPort;
+    public int udpPort;
+    public long ticket;
+
+    public PacketZoneRedirect(String host, int tcpPort, int udpPort, long ticket) {
+        this.host = host;
+        this.tcpPort = tcpPort;
+        this.udpPort = udpPort;
+        this.ticket = ticket;
+    }
+
+    @Override
+    public PacketType getType() {
+        return PacketType.ZONE_REDIRECT;
+    }
+
+    @Override
+    public String toString() {
+        // Le ticket reste secret, y compris dans les logs
+        return "PacketZoneRedirect{" + host + ":" + tcpPort + "/" + udpPort + "}";
+    }
+}
@@ -0,0 +1,14 @@
+package com.superkiment.common.packets.codec;
+
+import com.superkiment.common.packets.Packet;
+
+import java.io.IOException;
+
+/**
+ * Écriture et lecture explicites du contenu d'un type de packet, sans le type lui-même (écrit par {@link PacketCodecs}).
+ */
+public interface PacketCodec<T extends Packet> {
+    void write(T packet, PacketWriter out);
+
+    T read(PacketReader in) throws IOException;
+}
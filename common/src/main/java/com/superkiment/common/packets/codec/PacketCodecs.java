@@ -0,0 +1,434 @@
+package com.superkiment.common.packets.codec;
+
+import com.superkiment.common.entities.EntityReplication;
+import com.superkiment.common.packets.*;
+import com.superkiment.common.packets.entity.*;
+import org.joml.Vector2d;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Registre des codecs binaires, indexé par {@link Packet.PacketType}.
+ * Remplace la sérialisation Java sur TCP : pas de descripteurs de classe ni de réflexion, et aucun état partagé entre deux packets.
+ * <p>
+ * Format d'un packet : [type (1 octet)][contenu écrit par le codec du type]
+ * Format d'une frame TCP : [longueur du packet (4 octets)][packet]
+ * <p>
+ * Un {@link PacketEntityPatch} n'écrit que les champs marqués : [netId][champs (1 octet)][chaque champ présent, dans l'ordre des bits]
+ * <p>
+ * Les blocs d'un {@link PacketWorldChunk} sont écrits en écarts zigzag et compressés en deflate s'ils sont assez nombreux :
+ * [index][nombre de parties][drapeaux][taille brute][taille compressée si deflate][contenu]
+ */
+public abstract class PacketCodecs {
+
+    /**
+     * Taille de l'en-tête d'une frame TCP : la longueur du contenu sur 4 octets.
+     */
+    public static final int FRAME_HEADER_SIZE = Integer.BYTES;
+
+    /**
+     * Taille maximale du contenu d'une frame TCP, au-delà la connexion est considérée comme corrompue.
+     */
+    public static final int MAX_FRAME_SIZE = 1 << 20;
+
+    private static final Packet.PacketType[] TYPES = Packet.PacketType.values();
+    private static final Map<Packet.PacketType, PacketCodec<? extends Packet>> codecs = new EnumMap<>(Packet.PacketType.class);
+
+    /**
+     * Sous-types de PacketCreateEntity, écrits après le type CREATE_ENTITY.
+     */
+    private static final byte ENTITY_KIND_PLAYER = 1;
+    private static final byte ENTITY_KIND_PROJECTILE = 2;
+
+    /**
+     * En dessous, le contenu d'un PacketWorldChunk n'est pas compressé : le gain ne paierait pas l'en-tête deflate.
+     */
+    public static final int DEFLATE_MIN_SIZE = 256;
+    private static final byte WORLD_CHUNK_DEFLATED = 1;
+
+    static {
+        register(Packet.PacketType.PLAYER_JOIN, new PacketCodec<PacketPlayerJoin>() {
+            @Override
+            public void write(PacketPlayerJoin packet, PacketWriter out) {
+                out.writeId(packet.playerId);
+                out.writeString(packet.playerName);
+            }
+
+            @Override
+            public PacketPlayerJoin read(PacketReader in) throws IOException {
+                return new PacketPlayerJoin(in.readId(), in.readString());
+            }
+        });
+
+        register(Packet.PacketType.HEARTBEAT, new PacketCodec<PacketHeartbeat>() {
+            @Override
+            public void write(PacketHeartbeat packet, PacketWriter out) {
+                out.writeId(packet.playerId);
+                out.writeLong(packet.timestamp);
+            }
+
+            @Override
+            public PacketHeartbeat read(PacketReader in) throws IOException {
+                return new PacketHeartbeat(in.readId(), in.readLong());
+            }
+        });
+
+        register(Packet.PacketType.UDP_SESSION, new PacketCodec<PacketUdpSession>() {
+            @Override
+            public void write(PacketUdpSession packet, PacketWriter out) {
+                out.writeShort(packet.sessionId);
+                out.writeLong(packet.token);
+            }
+
+            @Override
+            public PacketUdpSession read(PacketReader in) throws IOException {
+                return new PacketUdpSession(in.readUnsignedShort(), in.readLong());
+            }
+        });
+
+        register(Packet.PacketType.ZONE_REDIRECT, new PacketCodec<PacketZoneRedirect>() {
+            @Override
+            public void write(PacketZoneRedirect packet, PacketWriter out) {
+                out.writeString(packet.host);
+                out.writeShort(packet.tcpPort);
+                out.writeShort(packet.udpPort);
+                out.writeLong(packet.ticket);
+            }
+
+            @Override
+            public PacketZoneRedirect read(PacketReader in) throws IOException {
+                return new PacketZoneRedirect(in.readString(), in.readUnsignedShort(), in.readUnsignedShort(), in.readLong());
+            }
+        });
+
+        register(Packet.PacketType.ZONE_JOIN, new PacketCodec<PacketZoneJoin>() {
+            @Override
+            public void write(PacketZoneJoin packet, PacketWriter out) {
+                out.writeId(packet.playerId);
+                out.writeString(packet.playerName);
+                out.writeLong(packet.ticket);
+            }
+
+            @Override
+            public PacketZoneJoin read(PacketReader in) throws IOException {
+                return new PacketZoneJoin(in.readId(), in.readString(), in.readLong());
+            }
+        });
+
+        register(Packet.PacketType.CREATE_BLOCK, new PacketCodec<PacketCreateBlock>() {
+            @Override
+            public void write(PacketCreateBlock packet, PacketWriter out) {
+                out.writeDouble(packet.posX);
+                out.writeDouble(packet.posY);
+            }
+
+            @Override
+            public PacketCreateBlock read(PacketReader in) throws IOException {
+                return new PacketCreateBlock(new Vector2d(in.readDouble(), in.readDouble()));
+            }
+        });
+
+        register(Packet.PacketType.DELETE_ENTITY, new PacketCodec<PacketDeleteEntity>() {
+            @Override
+            public void write(PacketDeleteEntity packet, PacketWriter out) {
+                out.writeId(packet.entityId);
+            }
+
+            @Override
+            public PacketDeleteEntity read(PacketReader in) throws IOException {
+                return new PacketDeleteEntity(in.readId());
+            }
+        });
+
+        register(Packet.PacketType.CREATE_ENTITY, new PacketCodec<PacketCreateEntity>() {
+            @Override
+            public void write(PacketCreateEntity packet, PacketWriter out) {
+                if (packet instanceof PacketCreateEntityProjectile projectile) {
+                    out.writeByte(ENTITY_KIND_PROJECTILE);
+                    writeEntityBase(packet, out);
+                    out.writeDouble(projectile.trajX);
+                    out.writeDouble(projectile.trajY);
+                } else if (packet instanceof PacketCreateEntityPlayer) {
+                    out.writeByte(ENTITY_KIND_PLAYER);
+                    writeEntityBase(packet, out);
+                } else {
+                    throw new IllegalArgumentException("Pas de codec pour " + packet.getClass().getName());
+                }
+            }
+
+            @Override
+            public PacketCreateEntity read(PacketReader in) throws IOException {
+                byte kind = in.readByte();
+                switch (kind) {
+                    case ENTITY_KIND_PLAYER -> {
+                        return readEntityBase(new PacketCreateEntityPlayer(), in);
+                    }
+                    case ENTITY_KIND_PROJECTILE -> {
+                        PacketCreateEntityProjectile packet = readEntityBase(new PacketCreateEntityProjectile(), in);
+                        packet.trajX = in.readDouble();
+                        packet.trajY = in.readDouble();
+                        return packet;
+                    }
+                    default -> throw new IOException("Type d'entité inconnu: " + kind);
+                }
+            }
+        });
+
+        register(Packet.PacketType.UPDATE_ENTITY, new PacketCodec<PacketUpdateEntity>() {
+            @Override
+            public void write(PacketUpdateEntity packet, PacketWriter out) {
+                writeEntityBase(packet, out);
+            }
+
+            @Override
+            public PacketUpdateEntity read(PacketReader in) throws IOException {
+                return readEntityBase(new PacketUpdateEntity(), in);
+            }
+        });
+
+        register(Packet.PacketType.ENTITY_PATCH, new PacketCodec<PacketEntityPatch>() {
+            @Override
+            public void write(PacketEntityPatch packet, PacketWriter out) {
+                out.writeShort(packet.netId);
+                out.writeByte(packet.fields);
+                if ((packet.fields & EntityReplication.NAME) != 0) out.writeString(packet.name);
+                if ((packet.fields & EntityReplication.HP) != 0) out.writeFloat(packet.hp);
+                if ((packet.fields & EntityReplication.MAX_HP) != 0) out.writeFloat(packet.maxHp);
+                if ((packet.fields & EntityReplication.SHAPE_TEXTS) != 0) out.writeStringArray(packet.shapesTexts);
+            }
+
+            @Override
+            public PacketEntityPatch read(PacketReader in) throws IOException {
+                PacketEntityPatch packet = new PacketEntityPatch();
+                packet.netId = in.readUnsignedShort();
+                packet.fields = in.readByte() & 0xFF;
+                if ((packet.fields & ~EntityReplication.ALL) != 0) {
+                    throw new IOException("Champs d'entité inconnus: " + Integer.toBinaryString(packet.fields));
+                }
+                if ((packet.fields & EntityReplication.NAME) != 0) packet.name = in.readString();
+                if ((packet.fields & EntityReplication.HP) != 0) packet.hp = in.readFloat();
+                if ((packet.fields & EntityReplication.MAX_HP) != 0) packet.maxHp = in.readFloat();
+                if ((packet.fields & EntityReplication.SHAPE_TEXTS) != 0) packet.shapesTexts = in.readStringArray();
+                return packet;
+            }
+        });
+
+        register(Packet.PacketType.WORLD_CHUNK, new PacketCodec<PacketWorldChunk>() {
+            @Override
+            public void write(PacketWorldChunk packet, PacketWriter out) {
+                out.writeVarInt(packet.chunkIndex);
+                out.writeVarInt(packet.chunkCount);
+
+                // Coordonnées en écarts zigzag avec le bloc précédent : des blocs voisins tiennent sur deux octets
+                PacketWriter blocks = new PacketWriter(packet.count * 2 + 5);
+                blocks.writeVarInt(packet.count);
+                int previousX = 0, previousY = 0;
+                for (int i = 0; i < packet.count; i++) {
+                    blocks.writeSignedVarInt(packet.blockX[i] - previousX);
+                    blocks.writeSignedVarInt(packet.blockY[i] - previousY);
+                    previousX = packet.blockX[i];
+                    previousY = packet.blockY[i];
+                }
+
+                byte[] raw = blocks.toByteArray();
+                byte[] deflated = packet.deflate && raw.length >= DEFLATE_MIN_SIZE ? deflate(raw) : null;
+                if (deflated != null && deflated.length < raw.length) {
+                    out.writeByte(WORLD_CHUNK_DEFLATED);
+                    out.writeVarInt(raw.length);
+                    out.writeVarInt(deflated.length);
+                    out.writeBytes(deflated, 0, deflated.length);
+                } else {
+                    out.writeByte(0);
+                    out.writeVarInt(raw.length);
+                    out.writeBytes(raw, 0, raw.length);
+                }
+            }
+
+            @Override
+            public PacketWorldChunk read(PacketReader in) throws IOException {
+                int chunkIndex = in.readVarInt();
+                int chunkCount = in.readVarInt();
+                byte flags = in.readByte();
+                int rawLength = in.readVarInt();
+                if (rawLength < 1 || rawLength > MAX_FRAME_SIZE) {
+                    throw new IOException("Taille de partie du monde invalide: " + rawLength);
+                }
+
+                byte[] raw = new byte[rawLength];
+                if ((flags & WORLD_CHUNK_DEFLATED) != 0) {
+                    int length = in.readVarInt();
+                    if (length < 0 || length > in.remaining()) {
+                        throw new IOException("Taille compressée invalide: " + length);
+                    }
+                    byte[] deflated = new byte[length];
+                    in.readBytes(deflated, 0, length);
+                    inflate(deflated, raw);
+                } else {
+                    in.readBytes(raw, 0, rawLength);
+                }
+
+                PacketReader blocks = new PacketReader(ByteBuffer.wrap(raw));
+                int count = blocks.readVarInt();
+                // Chaque bloc occupe au moins deux octets
+                if (count < 0 || count > blocks.remaining() / 2) {
+                    throw new IOException("Nombre de blocs invalide: " + count);
+                }
+
+                int[] blockX = new int[count];
+                int[] blockY = new int[count];
+                int x = 0, y = 0;
+                for (int i = 0; i < count; i++) {
+                    x += blocks.readSignedVarInt();
+                    y += blocks.readSignedVarInt();
+                    blockX[i] = x;
+                    blockY[i] = y;
+                }
+                return new PacketWorldChunk(chunkIndex, chunkCount, blockX, blockY, count);
+            }
+        });
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            PacketWriter out = new PacketWriter(raw.length / 2 + 16);
+            byte[] buffer = new byte[1024];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(buffer);
+                out.writeBytes(buffer, 0, length);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void inflate(byte[] deflated, byte[] into) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(deflated);
+            int length = 0;
+            while (length < into.length && !inflater.finished()) {
+                int read = inflater.inflate(into, length, into.length - length);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                length += read;
+            }
+            if (length != into.length || !inflater.finished()) {
+                throw new IOException("Partie du monde compressée tronquée");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Partie du monde compressée invalide: " + e.getMessage());
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static <T extends Packet> void register(Packet.PacketType type, PacketCodec<T> codec) {
+        codecs.put(type, codec);
+    }
+
+    /**
+     * Champs communs à tous les PacketCreateEntity.
+     */
+    private static void writeEntityBase(PacketCreateEntity packet, PacketWriter out) {
+        out.writeId(packet.entityId);
+        out.writeShort(packet.netId);
+        out.writeString(packet.entityName);
+        out.writeDouble(packet.posX);
+        out.writeDouble(packet.posY);
+        out.writeFloat(packet.hp);
+        out.writeIdArray(packet.exceptions);
+        out.writeStringArray(packet.shapesTexts);
+    }
+
+    private static <T extends PacketCreateEntity> T readEntityBase(T packet, PacketReader in) throws IOException {
+        packet.entityId = in.readId();
+        packet.netId = in.readUnsignedShort();
+        packet.entityName = in.readString();
+        packet.posX = in.readDouble();
+        packet.posY = in.readDouble();
+        packet.hp = in.readFloat();
+        packet.exceptions = in.readIdArray();
+        packet.shapesTexts = in.readStringArray();
+        return packet;
+    }
+
+    public static boolean hasCodec(Packet.PacketType type) {
+        return codecs.containsKey(type);
+    }
+
+    /**
+     * Écrire un packet (type + contenu) à la suite du writer.
+     */
+    @SuppressWarnings("unchecked")
+    public static void write(Packet packet, PacketWriter out) {
+        PacketCodec<Packet> codec = (PacketCodec<Packet>) codecs.get(packet.getType());
+        if (codec == null) {
+            throw new IllegalArgumentException("Pas de codec pour le type " + packet.getType());
+        }
+        out.writeByte(packet.getType().ordinal());
+        codec.write(packet, out);
+    }
+
+    /**
+     * Encoder un packet seul (type + contenu).
+     */
+    public static byte[] encode(Packet packet) {
+        PacketWriter out = new PacketWriter();
+        write(packet, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Encoder un packet dans une frame TCP préfixée par sa longueur.
+     */
+    public static byte[] encodeFrame(Packet packet) {
+        PacketWriter out = new PacketWriter();
+        writeFrame(packet, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Écrire une frame TCP complète à la suite du writer.
+     */
+    public static void writeFrame(Packet packet, PacketWriter out) {
+        int lengthIndex = out.size();
+        out.writeInt(0);
+        write(packet, out);
+
+        int length = out.size() - lengthIndex - FRAME_HEADER_SIZE;
+        if (length > MAX_FRAME_SIZE) {
+            throw new IllegalArgumentException("Frame trop grande: " + length + " octets");
+        }
+        out.setInt(lengthIndex, length);
+    }
+
+    public static Packet decode(byte[] data) throws IOException {
+        return decode(ByteBuffer.wrap(data));
+    }
+
+    /**
+     * Décoder un packet (type + contenu) depuis la position courante du buffer.
+     */
+    public static Packet decode(ByteBuffer buffer) throws IOException {
+        PacketReader in = new PacketReader(buffer);
+        int ordinal = in.readByte() & 0xFF;
+        if (ordinal >= TYPES.length) {
+            throw new IOException("Type de packet inconnu: " + ordinal);
+        }
+
+        PacketCodec<? extends Packet> codec = codecs.get(TYPES[ordinal]);
+        if (codec == null) {
+            throw new IOException("Pas de codec pour le type " + TYPES[ordinal]);
+        }
+        return codec.read(in);
+    }
+}
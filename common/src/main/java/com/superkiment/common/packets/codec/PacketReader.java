@@ -0,0 +1,140 @@
+package com.superkiment.common.packets.codec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Lecture symétrique de {@link PacketWriter} au-dessus d'un ByteBuffer.
+ * Toute donnée incohérente lève une IOException pour que la connexion puisse être fermée proprement.
+ */
+public class PacketReader {
+
+    private final ByteBuffer buffer;
+
+    public PacketReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    public int remaining() {
+        return buffer.remaining();
+    }
+
+    public byte readByte() throws IOException {
+        require(1);
+        return buffer.get();
+    }
+
+    public boolean readBoolean() throws IOException {
+        return readByte() != 0;
+    }
+
+    public int readUnsignedShort() throws IOException {
+        require(2);
+        return buffer.getShort() & 0xFFFF;
+    }
+
+    public int readInt() throws IOException {
+        require(4);
+        return buffer.getInt();
+    }
+
+    public long readLong() throws IOException {
+        require(8);
+        return buffer.getLong();
+    }
+
+    public float readFloat() throws IOException {
+        require(4);
+        return buffer.getFloat();
+    }
+
+    public double readDouble() throws IOException {
+        require(8);
+        return buffer.getDouble();
+    }
+
+    public int readVarInt() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("VarInt trop long");
+    }
+
+    public int readSignedVarInt() throws IOException {
+        int value = readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public void readBytes(byte[] into, int offset, int length) throws IOException {
+        require(length);
+        buffer.get(into, offset, length);
+    }
+
+    public String readString() throws IOException {
+        int length = readVarInt();
+        if (length == 0) {
+            readByte();
+            return null;
+        }
+        length--;
+        require(length);
+
+        String value;
+        if (buffer.hasArray()) {
+            value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return value;
+    }
+
+    public String readId() throws IOException {
+        byte kind = readByte();
+        return switch (kind) {
+            case 1 -> new UUID(readLong(), readLong()).toString();
+            case 0 -> readString();
+            default -> throw new IOException("Type d'identifiant inconnu: " + kind);
+        };
+    }
+
+    public String[] readStringArray() throws IOException {
+        String[] values = new String[readCount()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = readString();
+        }
+        return values;
+    }
+
+    public String[] readIdArray() throws IOException {
+        String[] ids = new String[readCount()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = readId();
+        }
+        return ids;
+    }
+
+    /**
+     * Taille de tableau : chaque élément occupe au moins un octet, ce qui borne les allocations sur données corrompues.
+     */
+    private int readCount() throws IOException {
+        int count = readVarInt();
+        if (count < 0 || count > buffer.remaining()) {
+            throw new IOException("Taille de tableau invalide: " + count);
+        }
+        return count;
+    }
+
+    private void require(int bytes) throws IOException {
+        if (bytes < 0 || buffer.remaining() < bytes) {
+            throw new IOException("Packet tronqué: " + bytes + " octets attendus, " + buffer.remaining() + " disponibles");
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.superkiment.common.packets.codec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Buffer d'écriture extensible pour le codec binaire des packets. Big-endian, comme ByteBuffer.
+ */
+public class PacketWriter {
+
+    private byte[] data;
+    private int position;
+
+    public PacketWriter() {
+        this(64);
+    }
+
+    public PacketWriter(int initialCapacity) {
+        data = new byte[Math.max(initialCapacity, 8)];
+    }
+
+    /**
+     * Vide le buffer sans libérer sa mémoire, pour le réutiliser.
+     */
+    public void reset() {
+        position = 0;
+    }
+
+    public int size() {
+        return position;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(data, position);
+    }
+
+    /**
+     * Copie le contenu écrit dans un ByteBuffer (qui doit avoir assez de place).
+     */
+    public void copyTo(ByteBuffer buffer) {
+        buffer.put(data, 0, position);
+    }
+
+    /**
+     * Copie le contenu écrit dans un tableau (qui doit avoir assez de place), à partir de {@code offset}.
+     */
+    public void copyTo(byte[] into, int offset) {
+        System.arraycopy(data, 0, into, offset, position);
+    }
+
+    public void writeByte(int value) {
+        ensureCapacity(1);
+        data[position++] = (byte) value;
+    }
+
+    public void writeBoolean(boolean value) {
+        writeByte(value ? 1 : 0);
+    }
+
+    public void writeShort(int value) {
+        ensureCapacity(2);
+        data[position++] = (byte) (value >>> 8);
+        data[position++] = (byte) value;
+    }
+
+    public void writeInt(int value) {
+        ensureCapacity(4);
+        data[position++] = (byte) (value >>> 24);
+        data[position++] = (byte) (value >>> 16);
+        data[position++] = (byte) (value >>> 8);
+        data[position++] = (byte) value;
+    }
+
+    /**
+     * Écrit l'entier à une position déjà écrite (pour compléter un en-tête de longueur après coup).
+     */
+    public void setInt(int index, int value) {
+        data[index] = (byte) (value >>> 24);
+        data[index + 1] = (byte) (value >>> 16);
+        data[index + 2] = (byte) (value >>> 8);
+        data[index + 3] = (byte) value;
+    }
+
+    public void writeLong(long value) {
+        writeInt((int) (value >>> 32));
+        writeInt((int) value);
+    }
+
+    public void writeFloat(float value) {
+        writeInt(Float.floatToRawIntBits(value));
+    }
+
+    public void writeDouble(double value) {
+        writeLong(Double.doubleToRawLongBits(value));
+    }
+
+    /**
+     * Entier positif sur 1 à 5 octets (7 bits par octet, le bit de poids fort indique la suite).
+     */
+    public void writeVarInt(int value) {
+        ensureCapacity(5);
+        while ((value & ~0x7F) != 0) {
+            data[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[position++] = (byte) value;
+    }
+
+    /**
+     * Entier signé en varint zigzag : les petites valeurs négatives restent sur peu d'octets.
+     */
+    public void writeSignedVarInt(int value) {
+        writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    public void writeBytes(byte[] bytes, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, data, position, length);
+        position += length;
+    }
+
+    /**
+     * Chaîne UTF-8 préfixée par sa longueur en varint. Une chaîne null est écrite avec la longueur 0 et le marqueur -1.
+     */
+    public void writeString(String value) {
+        if (value == null) {
+            writeVarInt(0);
+            writeByte(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length + 1);
+        writeBytes(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Identifiant d'entité ou de joueur : les UUID canoniques sont écrits sur 16 octets au lieu de 36 caractères.
+     */
+    public void writeId(String id) {
+        UUID uuid = parseCanonicalUUID(id);
+        if (uuid != null) {
+            writeByte(1);
+            writeLong(uuid.getMostSignificantBits());
+            writeLong(uuid.getLeastSignificantBits());
+        } else {
+            writeByte(0);
+            writeString(id);
+        }
+    }
+
+    public void writeStringArray(String[] values) {
+        writeVarInt(values.length);
+        for (String value : values) {
+            writeString(value);
+        }
+    }
+
+    public void writeIdArray(String[] ids) {
+        writeVarInt(ids.length);
+        for (String id : ids) {
+            writeId(id);
+        }
+    }
+
+    private void ensureCapacity(int extra) {
+        if (position + extra > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, position + extra));
+        }
+    }
+
+    private static UUID parseCanonicalUUID(String id) {
+        if (id == null || id.length() != 36) return null;
+        try {
+            UUID uuid = UUID.fromString(id);
+            return uuid.toString().equals(id) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.superkiment.common.packets.codec;
+
+import com.superkiment.common.packets.Packet;
+import com.superkiment.common.utils.MpscArrayQueue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Un packet encodé une seule fois, dont les octets sont partagés sans copie par toutes les files qui l'envoient.
+ * <p>
+ * Compté par références : chaque file qui garde le frame appelle {@link #retain()}, puis {@link #release()}
+ * une fois les octets écrits ou acquittés. Le dernier release rend le buffer à son {@link Pool}, qui le réutilise
+ * pour un prochain packet. Le contenu ne doit plus être modifié après l'encodage.
+ * <p>
+ * Un frame qui n'est jamais libéré (connexion fermée avec des frames en attente) est simplement laissé au GC.
+ */
+public final class SharedFrame {
+
+    private byte[] data;
+    private int length;
+    private final AtomicInteger references = new AtomicInteger();
+    private final Pool pool;
+
+    private SharedFrame(byte[] data, int length, Pool pool) {
+        this.data = data;
+        this.length = length;
+        this.pool = pool;
+    }
+
+    /**
+     * Partager des octets déjà encodés, sans pool : le tableau est laissé au GC après le dernier release.
+     */
+    public static SharedFrame wrap(byte[] bytes) {
+        SharedFrame frame = new SharedFrame(bytes, bytes.length, null);
+        frame.references.set(1);
+        return frame;
+    }
+
+    /**
+     * Les octets du frame, valides de 0 à {@link #length()}. Ne pas modifier.
+     */
+    public byte[] array() {
+        return data;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public int references() {
+        return references.get();
+    }
+
+    /**
+     * Une référence de plus, pour une file qui va garder le frame. Depuis n'importe quel thread.
+     */
+    public SharedFrame retain() {
+        if (references.getAndIncrement() <= 0) throw new IllegalStateException("Frame déjà libéré");
+        return this;
+    }
+
+    /**
+     * Rendre une référence. La dernière rend le buffer au pool. Depuis n'importe quel thread.
+     */
+    public void release() {
+        int remaining = references.decrementAndGet();
+        if (remaining < 0) throw new IllegalStateException("Frame libéré trop de fois");
+        if (remaining == 0 && pool != null) pool.recycle(this);
+    }
+
+    /**
+     * Buffers réutilisés pour encoder les packets d'un thread, en général celui du tick.
+     * {@link #encode} et {@link #encodeFrame} ne sont appelés que par ce thread ; les frames reviennent depuis n'importe
+     * quel thread (celui du Selector après l'écriture, par exemple).
+     */
+    public static final class Pool {
+
+        /**
+         * Au-delà, un buffer n'est pas gardé : un gros packet isolé ne doit pas immobiliser de la mémoire.
+         */
+        public static final int MAX_POOLED_SIZE = 16 * 1024;
+
+        private final MpscArrayQueue<SharedFrame> free;
+        private final PacketWriter writer = new PacketWriter(1024);
+
+        public Pool(int capacity) {
+            this.free = new MpscArrayQueue<>(capacity);
+        }
+
+        /**
+         * Encoder un packet seul (type + contenu), avec une référence pour l'appelant.
+         */
+        public SharedFrame encode(Packet packet) {
+            writer.reset();
+            PacketCodecs.write(packet, writer);
+            return take();
+        }
+
+        /**
+         * Encoder un packet dans une frame TCP préfixée par sa longueur, avec une référence pour l'appelant.
+         */
+        public SharedFrame encodeFrame(Packet packet) {
+            writer.reset();
+            PacketCodecs.writeFrame(packet, writer);
+            return take();
+        }
+
+        /**
+         * Buffers libres, prêts à être réutilisés.
+         */
+        public int available() {
+            return free.size();
+        }
+
+        private SharedFrame take() {
+            int size = writer.size();
+            SharedFrame frame = free.poll();
+            if (frame == null) {
+                frame = new SharedFrame(new byte[Math.max(size, 256)], 0, this);
+            } else if (frame.data.length < size) {
+                frame.data = new byte[Math.max(size, frame.data.length * 2)];
+            }
+
+            writer.copyTo(frame.data, 0);
+            frame.length = size;
+            frame.references.set(1);
+            return frame;
+        }
+
+        private void recycle(SharedFrame frame) {
+            if (frame.data.length > MAX_POOLED_SIZE) return;
+            free.offer(frame);
+        }
+    }
+}
@@ -9,6 +9,11 @@ import com.superkiment.common.packets.Packet;
 public abstract class PacketCreateEntity extends Packet {
 
     public String entityId;
+
+    /**
+     * Identifiant réseau attribué par le serveur, 0 dans les packets envoyés par un client.
+     */
+    public int netId;
     public String entityName;
     public double posX;
     public double posY;
@@ -16,8 +21,15 @@ public abstract class PacketCreateEntity extends Packet {
     public String[] shapesTexts;
     public float hp;
 
+    /**
+     * Packet vide, rempli champ par champ par le codec binaire.
+     */
+    protected PacketCreateEntity() {
+    }
+
     public PacketCreateEntity(Entity entity) {
         this.entityId = entity.id;
+        this.netId = entity.netId;
         this.entityName = entity.name;
         this.posX = entity.pos.x;
         this.posY = entity.pos.y;
@@ -41,7 +53,7 @@ public abstract class PacketCreateEntity extends Packet {
 
     @Override
     public String toString() {
-        return "PacketCreateEntity{id=" + entityId + ", name=" + entityName +
+        return "PacketCreateEntity{id=" + entityId + ", netId=" + netId + ", name=" + entityName +
                 ", pos=(" + posX + "," + posY + ")}";
     }
 }
\ No newline at end of file
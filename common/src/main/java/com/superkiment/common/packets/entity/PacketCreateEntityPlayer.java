@@ -6,6 +6,9 @@ import com.superkiment.common.packets.Packet;
 
 public class PacketCreateEntityPlayer extends PacketCreateEntity {
 
+    public PacketCreateEntityPlayer() {
+    }
+
     public PacketCreateEntityPlayer(Player player) {
         super(player);
     }
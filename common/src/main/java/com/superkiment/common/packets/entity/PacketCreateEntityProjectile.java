@@ -9,6 +9,9 @@ public class PacketCreateEntityProjectile extends PacketCreateEntity {
     public double trajX;
     public double trajY;
 
+    public PacketCreateEntityProjectile() {
+    }
+
     public PacketCreateEntityProjectile(Projectile projectile) {
         super(projectile);
         this.trajX = projectile.dirDepl.x;
@@ -0,0 +1,52 @@
+package com.superkiment.common.packets.entity;
+
+import com.superkiment.common.entities.Entity;
+import com.superkiment.common.entities.EntityReplication;
+import com.superkiment.common.packets.Packet;
+
+/**
+ * Les champs d'une entité qui ont changé depuis le dernier tick, et seulement eux (voir {@link EntityReplication}).
+ * L'entité est désignée par son netId ; les champs absents de {@link #fields} ne sont ni remplis ni envoyés.
+ */
+public class PacketEntityPatch extends Packet {
+
+    public int netId;
+    public int fields;
+
+    public String name;
+    public float hp;
+    public float maxHp;
+    public String[] shapesTexts;
+
+    /**
+     * Packet vide, rempli champ par champ par le codec binaire.
+     */
+    public PacketEntityPatch() {
+    }
+
+    public PacketEntityPatch(Entity entity, int fields) {
+        this.netId = entity.netId;
+        this.fields = fields;
+
+        if ((fields & EntityReplication.NAME) != 0) name = entity.name;
+        if ((fields & EntityReplication.HP) != 0) hp = entity.hp;
+        if ((fields & EntityReplication.MAX_HP) != 0) maxHp = entity.maxHP;
+
+        if ((fields & EntityReplication.SHAPE_TEXTS) != 0) {
+            shapesTexts = new String[entity.shapeModel.shapes.size()];
+            for (int i = 0; i < shapesTexts.length; i++) {
+                shapesTexts[i] = entity.shapeModel.shapes.get(i).text;
+            }
+        }
+    }
+
+    @Override
+    public PacketType getType() {
+        return PacketType.ENTITY_PATCH;
+    }
+
+    @Override
+    public String toString() {
+        return "PacketEntityPatch{netId=" + netId + ", fields=" + Integer.toBinaryString(fields) + "}";
+    }
+}
@@ -7,6 +7,9 @@ import com.superkiment.common.entities.Entity;
  */
 public class PacketUpdateEntity extends PacketCreateEntity {
 
+    public PacketUpdateEntity() {
+    }
+
     public PacketUpdateEntity(Entity entity) {
         super(entity);
     }
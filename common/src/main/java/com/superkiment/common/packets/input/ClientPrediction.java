@@ -0,0 +1,160 @@
+package com.superkiment.common.packets.input;
+
+import com.superkiment.common.entities.Entity;
+import com.superkiment.common.packets.snapshot.Snapshot;
+import org.joml.Vector2d;
+
+/**
+ * Côté client : prédiction du joueur local et réconciliation avec le serveur.
+ * <p>
+ * Chaque commande est simulée dès qu'elle est échantillonnée, et gardée avec la position prédite qui en résulte
+ * jusqu'à ce que le serveur l'ait traitée. Quand un état du serveur arrive avec le numéro de la dernière commande
+ * traitée, on le compare à la prédiction faite pour cette commande : en cas d'écart, on repart de l'état du serveur
+ * et on rejoue les commandes qu'il n'a pas encore vues.
+ * <p>
+ * Les commandes et la réconciliation sont manipulées par le thread du jeu ; seul {@link #offerAuthoritative} est appelé
+ * par le thread de réception UDP.
+ */
+public class ClientPrediction {
+
+    /**
+     * Commandes gardées en attente de traitement par le serveur : un peu plus de 2 s à 30 Hz.
+     */
+    public static final int SIZE = 64;
+
+    /**
+     * Écart toléré entre la prédiction et le serveur, au-dessus de l'arrondi des snapshots (1/16e d'unité).
+     */
+    public static final double TOLERANCE = 0.25;
+
+    /**
+     * Simulation d'une commande sur le joueur local, la même que celle du serveur.
+     */
+    public interface Step {
+        void apply(PlayerInput input);
+    }
+
+    private final PlayerInput[] inputs = new PlayerInput[SIZE];
+    private final double[] predictedX = new double[SIZE];
+    private final double[] predictedY = new double[SIZE];
+
+    private int nextSeq = 0;
+    private int sampled = 0;
+
+    /**
+     * Plus ancienne commande que le serveur n'a pas encore traitée.
+     */
+    private int pendingStart = 0;
+
+    // Dernier état du serveur reçu, pas encore réconcilié
+    private boolean hasAuthoritative = false;
+    private int authoritativeAck;
+    private double authoritativeX;
+    private double authoritativeY;
+
+    private int corrections = 0;
+
+    public ClientPrediction() {
+        for (int i = 0; i < SIZE; i++) inputs[i] = new PlayerInput();
+    }
+
+    /**
+     * Numéroter une nouvelle commande. L'objet rendu est réutilisé {@link #SIZE} commandes plus tard.
+     */
+    public PlayerInput next(int moveX, int moveY, int aim, int actions) {
+        int seq = nextSeq;
+        nextSeq = (nextSeq + 1) & 0xFFFF;
+
+        // Trop de commandes sans réponse : les plus anciennes ne seront plus rejouées
+        if (pendingCount() > SIZE) pendingStart = (nextSeq - SIZE) & 0xFFFF;
+
+        sampled = Math.min(sampled + 1, SIZE);
+        return inputs[seq % SIZE].set(seq, moveX, moveY, aim, actions);
+    }
+
+    public PlayerInput next(int moveX, int moveY) {
+        return next(moveX, moveY, 0, 0);
+    }
+
+    /**
+     * Commande échantillonnée {@code age} commandes avant la dernière (0 pour la dernière).
+     */
+    public PlayerInput recent(int age) {
+        return inputs[((nextSeq - 1 - age) & 0xFFFF) % SIZE];
+    }
+
+    /**
+     * Nombre de commandes récentes disponibles, au plus {@code max}.
+     */
+    public int recentCount(int max) {
+        return Math.min(sampled, max);
+    }
+
+    /**
+     * Noter la position obtenue après avoir simulé la commande.
+     */
+    public void recordPredicted(PlayerInput input, Vector2d pos) {
+        predictedX[input.seq % SIZE] = pos.x;
+        predictedY[input.seq % SIZE] = pos.y;
+    }
+
+    /**
+     * Position du joueur selon le serveur, après la commande {@code ack}. Appelé par le thread de réception.
+     */
+    public synchronized void offerAuthoritative(int ack, double x, double y) {
+        if (hasAuthoritative && !Snapshot.isNewer(ack, authoritativeAck)) return;
+
+        hasAuthoritative = true;
+        authoritativeAck = ack;
+        authoritativeX = x;
+        authoritativeY = y;
+    }
+
+    /**
+     * Comparer le dernier état reçu du serveur à la prédiction, et corriger le joueur si besoin.
+     *
+     * @return vrai si la position du joueur a été corrigée.
+     */
+    public boolean reconcile(Entity player, Step step) {
+        int ack;
+        double x, y;
+        synchronized (this) {
+            if (!hasAuthoritative) return false;
+            hasAuthoritative = false;
+            ack = authoritativeAck;
+            x = authoritativeX;
+            y = authoritativeY;
+        }
+
+        // Commande déjà réconciliée, ou plus dans l'historique
+        int ackOffset = (ack - pendingStart) & 0xFFFF;
+        if (ackOffset >= pendingCount()) return false;
+
+        pendingStart = (ack + 1) & 0xFFFF;
+
+        int slot = ack % SIZE;
+        double dx = predictedX[slot] - x, dy = predictedY[slot] - y;
+        if (dx * dx + dy * dy <= TOLERANCE * TOLERANCE) return false;
+
+        // Repartir de l'état du serveur et rejouer ce qu'il n'a pas encore traité
+        player.pos.set(x, y);
+        for (int seq = pendingStart; seq != nextSeq; seq = (seq + 1) & 0xFFFF) {
+            PlayerInput input = inputs[seq % SIZE];
+            step.apply(input);
+            recordPredicted(input, player.pos);
+        }
+        corrections++;
+        return true;
+    }
+
+    /**
+     * Nombre de commandes pas encore traitées par le serveur.
+     */
+    public int pendingCount() {
+        return (nextSeq - pendingStart) & 0xFFFF;
+    }
+
+    public int getCorrections() {
+        return corrections;
+    }
+}
@@ -0,0 +1,99 @@
+package com.superkiment.common.packets.input;
+
+import com.superkiment.common.packets.snapshot.Quantization;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodage UDP des commandes du joueur.
+ * <p>
+ * Chaque datagramme répète les dernières commandes ({@link #REDUNDANCY}) : une commande perdue arrive avec la suivante,
+ * sans renvoi ni acquittement. Le serveur ignore celles qu'il a déjà reçues.
+ * <p>
+ * Format : [type 5][session du client (2)][seq de la plus récente (2)][nombre de commandes (1)]
+ * puis les commandes, de la plus ancienne à la plus récente : [axes et actions (1)][visée (2)].
+ * Les axes tiennent sur 2 bits chacun (valeur + 1), suivis des actions sur 2 bits.
+ */
+public abstract class InputCodec {
+
+    public static final byte TYPE_INPUT = 5;
+
+    /**
+     * Commandes répétées dans chaque datagramme : couvre la perte de deux datagrammes consécutifs.
+     */
+    public static final int REDUNDANCY = 3;
+
+    /**
+     * [type][session][seq de la plus récente][nombre de commandes]
+     */
+    public static final int HEADER_SIZE = 1 + Short.BYTES + Short.BYTES + 1;
+
+    /**
+     * [axes et actions][visée]
+     */
+    public static final int INPUT_SIZE = 1 + Short.BYTES;
+
+    public static final int MAX_SIZE = HEADER_SIZE + REDUNDANCY * INPUT_SIZE;
+
+    private static final int ACTIONS_SHIFT = 4;
+
+    /**
+     * Écrire l'en-tête, à faire suivre de {@code count} appels à {@link #writeInput}, de la plus ancienne commande
+     * à la plus récente.
+     */
+    public static void writeHeader(ByteBuffer buffer, int sessionId, int newestSeq, int count) {
+        buffer.put(TYPE_INPUT);
+        buffer.putShort((short) sessionId);
+        buffer.putShort((short) newestSeq);
+        buffer.put((byte) count);
+    }
+
+    public static void writeInput(ByteBuffer buffer, PlayerInput input) {
+        buffer.put((byte) ((input.moveX + 1) | (input.moveY + 1) << 2 | input.actions << ACTIONS_SHIFT));
+        buffer.putShort((short) input.aim);
+    }
+
+    /**
+     * Lire la session du client, juste après l'octet de type.
+     */
+    public static int readSessionId(ByteBuffer buffer) {
+        return buffer.getShort() & 0xFFFF;
+    }
+
+    /**
+     * Lire le numéro de la commande la plus récente, après la session.
+     */
+    public static int readNewestSeq(ByteBuffer buffer) {
+        return buffer.getShort() & 0xFFFF;
+    }
+
+    /**
+     * Lire le nombre de commandes, après le numéro de la plus récente.
+     *
+     * @throws IllegalArgumentException si le nombre est invalide ou si le datagramme est trop court pour les contenir.
+     */
+    public static int readCount(ByteBuffer buffer) {
+        int count = buffer.get() & 0xFF;
+        if (count == 0 || count > REDUNDANCY || buffer.remaining() < count * INPUT_SIZE) {
+            throw new IllegalArgumentException("Nombre de commandes invalide: " + count);
+        }
+        return count;
+    }
+
+    /**
+     * Lire la commande suivante dans {@code into}, avec le numéro {@code seq} déduit de sa place dans le datagramme.
+     *
+     * @throws IllegalArgumentException si les axes, les actions ou la visée sont invalides.
+     */
+    public static PlayerInput readInput(ByteBuffer buffer, int seq, PlayerInput into) {
+        int bits = buffer.get() & 0xFF;
+        int aim = buffer.getShort() & 0xFFFF;
+        int moveX = (bits & 0b11) - 1;
+        int moveY = (bits >> 2 & 0b11) - 1;
+        int actions = bits >> ACTIONS_SHIFT;
+        if (moveX > 1 || moveY > 1 || (actions & ~PlayerInput.ACTIONS_MASK) != 0 || aim >= Quantization.ANGLE_STEPS) {
+            throw new IllegalArgumentException("Commande invalide: " + bits + "/" + aim);
+        }
+        return into.set(seq, moveX, moveY, aim, actions);
+    }
+}
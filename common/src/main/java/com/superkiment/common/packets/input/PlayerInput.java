@@ -0,0 +1,72 @@
+package com.superkiment.common.packets.input;
+
+/**
+ * Une commande du joueur, échantillonnée par le client à intervalle fixe ({@link #DURATION}) et numérotée.
+ * Le client la simule tout de suite (prédiction) et l'envoie au serveur, qui la simule à son tour et fait foi.
+ */
+public class PlayerInput {
+
+    /**
+     * Durée simulée par une commande : le client en échantillonne une tous les 1/30e de seconde.
+     */
+    public static final double DURATION = 1.0 / 30.0;
+
+    /**
+     * Actions ponctuelles, portées par une seule commande.
+     */
+    public static final int ACTION_FIRE = 1;
+    public static final int ACTION_PLACE_BLOCK = 1 << 1;
+    public static final int ACTIONS_MASK = ACTION_FIRE | ACTION_PLACE_BLOCK;
+
+    /**
+     * Numéro de séquence sur 16 bits, qui boucle.
+     */
+    public int seq;
+
+    /**
+     * Axes de déplacement, chacun -1, 0 ou 1.
+     */
+    public int moveX;
+    public int moveY;
+
+    /**
+     * Direction visée, quantifiée comme les angles des snapshots
+     * (voir {@link com.superkiment.common.packets.snapshot.Quantization#quantizeAngle}).
+     */
+    public int aim;
+
+    /**
+     * Combinaison de {@link #ACTION_FIRE} et {@link #ACTION_PLACE_BLOCK}.
+     */
+    public int actions;
+
+    public PlayerInput set(int seq, int moveX, int moveY, int aim, int actions) {
+        this.seq = seq & 0xFFFF;
+        this.moveX = Integer.signum(moveX);
+        this.moveY = Integer.signum(moveY);
+        this.aim = aim;
+        this.actions = actions & ACTIONS_MASK;
+        return this;
+    }
+
+    public PlayerInput set(int seq, int moveX, int moveY) {
+        return set(seq, moveX, moveY, 0, 0);
+    }
+
+    public PlayerInput set(PlayerInput other) {
+        return set(other.seq, other.moveX, other.moveY, other.aim, other.actions);
+    }
+
+    public boolean isMoving() {
+        return moveX != 0 || moveY != 0;
+    }
+
+    public boolean hasAction(int action) {
+        return (actions & action) != 0;
+    }
+
+    @Override
+    public String toString() {
+        return "PlayerInput{seq=" + seq + ", move=(" + moveX + "," + moveY + "), aim=" + aim + ", actions=" + actions + "}";
+    }
+}
@@ -0,0 +1,67 @@
+package com.superkiment.common.packets.ping;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodage UDP des échanges de mesure de latence, à la manière de NTP.
+ * <p>
+ * Le serveur envoie un ping numéroté et garde son heure d'envoi t0. Le client répond tout de suite avec son heure
+ * de réception t1 et son heure d'envoi t2, sur sa propre horloge ; le serveur note l'heure de réception t3.
+ * Aller-retour : (t3 - t0) - (t2 - t1), sans le temps passé chez le client.
+ * Décalage des horloges (client - serveur) : ((t1 - t0) + (t2 - t3)) / 2, exact si les deux trajets durent autant.
+ * <p>
+ * Format : ping [type 7][seq (2)], pong [type 8][session du client (2)][seq (2)][t1 (8)][t2 (8)].
+ * Les heures sont en microsecondes.
+ */
+public abstract class PingCodec {
+
+    public static final byte TYPE_PING = 7;
+    public static final byte TYPE_PONG = 8;
+
+    public static final int PING_SIZE = 1 + Short.BYTES;
+    public static final int PONG_SIZE = 1 + Short.BYTES + Short.BYTES + Long.BYTES + Long.BYTES;
+
+    public static void writePing(ByteBuffer buffer, int seq) {
+        buffer.put(TYPE_PING);
+        buffer.putShort((short) seq);
+    }
+
+    /**
+     * Lire le numéro d'un ping, juste après l'octet de type.
+     */
+    public static int readPingSeq(ByteBuffer buffer) {
+        return buffer.getShort() & 0xFFFF;
+    }
+
+    public static void writePong(ByteBuffer buffer, int sessionId, int seq, long receivedMicros, long sentMicros) {
+        buffer.put(TYPE_PONG);
+        buffer.putShort((short) sessionId);
+        buffer.putShort((short) seq);
+        buffer.putLong(receivedMicros);
+        buffer.putLong(sentMicros);
+    }
+
+    /**
+     * Un pong décodé, réutilisable.
+     */
+    public static final class Pong {
+        public int sessionId;
+        public int seq;
+        public long clientReceivedMicros;
+        public long clientSentMicros;
+    }
+
+    /**
+     * Lire un pong, juste après l'octet de type.
+     *
+     * @throws IllegalArgumentException si le datagramme est trop court.
+     */
+    public static Pong readPong(ByteBuffer buffer, Pong into) {
+        if (buffer.remaining() < PONG_SIZE - 1) throw new IllegalArgumentException("Pong tronqué: " + buffer.remaining() + " octets");
+        into.sessionId = buffer.getShort() & 0xFFFF;
+        into.seq = buffer.getShort() & 0xFFFF;
+        into.clientReceivedMicros = buffer.getLong();
+        into.clientSentMicros = buffer.getLong();
+        return into;
+    }
+}
@@ -0,0 +1,480 @@
+package com.superkiment.common.packets.reliable;
+
+import com.superkiment.common.packets.codec.SharedFrame;
+import com.superkiment.common.packets.snapshot.Snapshot;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Messages fiables au-dessus d'UDP, entre deux extrémités : un canal de chaque côté.
+ * <p>
+ * Chaque datagramme porte un numéro de séquence et acquitte les 33 derniers reçus de l'autre côté
+ * (le plus récent et un champ de 32 bits). Un message reste en attente jusqu'à ce qu'un datagramme qui le portait
+ * soit acquitté ; il est renvoyé dans un nouveau datagramme si aucun acquittement n'arrive à temps.
+ * Deux sous-canaux : {@link #ORDERED} livre les messages dans l'ordre d'envoi, {@link #UNORDERED} dès leur arrivée.
+ * Les messages plus grands qu'un datagramme sont découpés en fragments, recomposés avant la livraison.
+ * <p>
+ * Format, après ce que l'appelant écrit devant (type du datagramme, expéditeur) :
+ * [seq (2)][dernier seq reçu (2)][champ d'acquittement (4)][drapeaux (1)][nombre de fragments (1)]
+ * puis chaque fragment : [drapeaux (1)][id du message (2)][index et nombre si fragmenté (1 + 1)][taille (2)][octets].
+ * <p>
+ * Pas thread-safe : chaque canal est utilisé par un seul thread. Rien n'est alloué pour écrire un datagramme.
+ * Un message envoyé à plusieurs clients est un {@link SharedFrame} dont chaque canal garde une référence jusqu'à l'acquittement.
+ */
+public class ReliableChannel {
+
+    public static final byte TYPE_RELIABLE = 6;
+
+    public static final int ORDERED = 0;
+    public static final int UNORDERED = 1;
+
+    /**
+     * [seq][dernier seq reçu][champ d'acquittement][drapeaux][nombre de fragments]
+     */
+    public static final int HEADER_SIZE = Short.BYTES + Short.BYTES + Integer.BYTES + 1 + 1;
+
+    /**
+     * [drapeaux][id][index][nombre][taille], au plus.
+     */
+    public static final int FRAGMENT_HEADER_SIZE = 1 + Short.BYTES + 1 + 1 + Short.BYTES;
+
+    public static final int MAX_FRAGMENTS = 255;
+
+    /**
+     * Fragments en attente d'acquittement au plus. Les ids en vol tiennent donc toujours dans la fenêtre de réception.
+     */
+    public static final int MAX_PENDING = 4096;
+
+    /**
+     * Délai minimal avant de renvoyer un fragment, quel que soit le RTT mesuré.
+     */
+    public static final long MIN_RESEND_MILLIS = 50;
+
+    private static final int FLAG_HAS_ACK = 1;
+    private static final int FRAGMENT_UNORDERED = 1;
+    private static final int FRAGMENT_SPLIT = 2;
+
+    private static final int SENT_HISTORY = 256;
+    private static final int WINDOW = MAX_PENDING;
+
+    /**
+     * Reçoit les messages livrés par {@link #receive}.
+     */
+    public interface Receiver {
+        void onMessage(byte[] message, int channel);
+    }
+
+    private final int maxDatagramSize;
+    private final int fragmentSize;
+
+    // ─── Envoi
+    private final int[] nextId = new int[2];
+    private final Fragment[] pending = new Fragment[MAX_PENDING];
+    private int pendingCount = 0;
+    private long pendingBytes = 0;
+    private int localSeq = 0;
+    private final SentDatagram[] sent = new SentDatagram[SENT_HISTORY];
+    private double rttMillis = 100;
+    private long resent = 0;
+
+    // ─── Réception
+    private int remoteSeq = -1;
+    private int remoteAckBits = 0;
+    private boolean ackPending = false;
+    private int nextOrdered = 0;
+    private final byte[][] orderedReady = new byte[WINDOW][];
+    private final Assembly[] orderedAssemblies = new Assembly[WINDOW];
+    private final Assembly[] unorderedAssemblies = new Assembly[WINDOW];
+    private final int[] unorderedDelivered = new int[WINDOW];
+
+    /**
+     * @param maxDatagramSize place disponible pour le canal dans un datagramme, après ce que l'appelant écrit devant.
+     */
+    public ReliableChannel(int maxDatagramSize) {
+        this.maxDatagramSize = maxDatagramSize;
+        this.fragmentSize = maxDatagramSize - HEADER_SIZE - FRAGMENT_HEADER_SIZE;
+        if (fragmentSize <= 0) throw new IllegalArgumentException("Datagramme trop petit: " + maxDatagramSize);
+
+        int maxFragmentsPerDatagram = Math.min(255, (maxDatagramSize - HEADER_SIZE) / (FRAGMENT_HEADER_SIZE - 2));
+        for (int i = 0; i < SENT_HISTORY; i++) {
+            sent[i] = new SentDatagram(maxFragmentsPerDatagram);
+        }
+        Arrays.fill(unorderedDelivered, -1);
+    }
+
+    // ─────────────────────── Envoi ───────────────────────────────────────
+
+    /**
+     * Confier un message au canal. Il partira dans les prochains {@link #writeDatagram}.
+     *
+     * @return false si trop de fragments attendent déjà leur acquittement : le message n'est pas envoyé.
+     */
+    public boolean send(int channel, byte[] message) {
+        SharedFrame frame = SharedFrame.wrap(message);
+        try {
+            return send(channel, frame);
+        } finally {
+            frame.release();
+        }
+    }
+
+    /**
+     * Confier un message partagé avec d'autres canaux : chaque fragment en garde une référence
+     * jusqu'à son acquittement, sans copier les octets.
+     *
+     * @return false si trop de fragments attendent déjà leur acquittement : le message n'est pas envoyé.
+     */
+    public boolean send(int channel, SharedFrame message) {
+        if (channel != ORDERED && channel != UNORDERED) throw new IllegalArgumentException("Sous-canal inconnu: " + channel);
+
+        int length = message.length();
+        int fragments = Math.max(1, (length + fragmentSize - 1) / fragmentSize);
+        if (fragments > MAX_FRAGMENTS) {
+            throw new IllegalArgumentException("Message trop grand: " + length + " octets");
+        }
+        if (pendingCount + fragments > MAX_PENDING) return false;
+
+        int id = nextId[channel];
+        nextId[channel] = (id + 1) & 0xFFFF;
+        for (int i = 0; i < fragments; i++) {
+            int offset = i * fragmentSize;
+            pending[pendingCount++] = new Fragment(channel, id, i, fragments, message.retain(), offset,
+                    Math.min(fragmentSize, length - offset));
+        }
+        pendingBytes += length;
+        return true;
+    }
+
+    /**
+     * Écrire à la suite du buffer un datagramme avec les fragments jamais envoyés ou dont le renvoi est dû,
+     * les plus anciens d'abord, et les acquittements des datagrammes reçus.
+     *
+     * @return false si rien n'est à envoyer : le buffer n'est alors pas modifié.
+     */
+    public boolean writeDatagram(ByteBuffer out, long now) {
+        int start = out.position();
+        int limit = Math.min(out.limit(), start + maxDatagramSize);
+        long resendDelay = getResendDelayMillis();
+
+        out.position(start + HEADER_SIZE);
+        SentDatagram record = sent[localSeq % SENT_HISTORY];
+        record.count = 0;
+
+        for (int i = 0; i < pendingCount && record.count < record.fragments.length; i++) {
+            Fragment fragment = pending[i];
+            if (fragment.lastSent >= 0 && now - fragment.lastSent < resendDelay) continue;
+
+            boolean split = fragment.count > 1;
+            int size = FRAGMENT_HEADER_SIZE - (split ? 0 : 2) + fragment.length;
+            if (out.position() + size > limit) break;
+
+            out.put((byte) ((fragment.channel == UNORDERED ? FRAGMENT_UNORDERED : 0) | (split ? FRAGMENT_SPLIT : 0)));
+            out.putShort((short) fragment.id);
+            if (split) {
+                out.put((byte) fragment.index);
+                out.put((byte) (fragment.count - 1));
+            }
+            out.putShort((short) fragment.length);
+            out.put(fragment.message.array(), fragment.offset, fragment.length);
+
+            if (fragment.lastSent >= 0) resent++;
+            fragment.lastSent = now;
+            record.fragments[record.count++] = fragment;
+        }
+
+        if (record.count == 0 && !ackPending) {
+            out.position(start);
+            return false;
+        }
+
+        int end = out.position();
+        out.position(start);
+        out.putShort((short) localSeq);
+        out.putShort((short) Math.max(remoteSeq, 0));
+        out.putInt(remoteAckBits);
+        out.put((byte) (remoteSeq >= 0 ? FLAG_HAS_ACK : 0));
+        out.put((byte) record.count);
+        out.position(end);
+
+        record.seq = localSeq;
+        record.sentAt = now;
+        record.acked = false;
+        localSeq = (localSeq + 1) & 0xFFFF;
+        ackPending = false;
+        return true;
+    }
+
+    // ─────────────────────── Réception ───────────────────────────────────
+
+    /**
+     * Lire un datagramme, positionné après ce que l'appelant a écrit devant : prendre en compte ses acquittements
+     * et livrer les messages complets. Un datagramme invalide lève une IllegalArgumentException.
+     */
+    public void receive(ByteBuffer datagram, long now, Receiver receiver) {
+        if (datagram.remaining() < HEADER_SIZE) throw new IllegalArgumentException("Datagramme fiable tronqué");
+
+        int seq = datagram.getShort() & 0xFFFF;
+        int ack = datagram.getShort() & 0xFFFF;
+        int ackBits = datagram.getInt();
+        int flags = datagram.get();
+        int count = datagram.get() & 0xFF;
+
+        if ((flags & FLAG_HAS_ACK) != 0) acknowledge(ack, ackBits, now);
+        noteReceived(seq);
+        if (count > 0) ackPending = true;
+
+        for (int i = 0; i < count; i++) {
+            if (datagram.remaining() < FRAGMENT_HEADER_SIZE - 2) throw new IllegalArgumentException("Fragment tronqué");
+            int fragmentFlags = datagram.get();
+            int id = datagram.getShort() & 0xFFFF;
+            int index = 0, fragments = 1;
+            if ((fragmentFlags & FRAGMENT_SPLIT) != 0) {
+                index = datagram.get() & 0xFF;
+                fragments = (datagram.get() & 0xFF) + 1;
+                if (index >= fragments) throw new IllegalArgumentException("Fragment invalide: " + index + "/" + fragments);
+            }
+            int length = datagram.getShort() & 0xFFFF;
+            if (length > datagram.remaining()) throw new IllegalArgumentException("Fragment tronqué: " + length + " octets");
+
+            int channel = (fragmentFlags & FRAGMENT_UNORDERED) != 0 ? UNORDERED : ORDERED;
+            if (channel == ORDERED) {
+                receiveOrdered(datagram, id, index, fragments, length, receiver);
+            } else {
+                receiveUnordered(datagram, id, index, fragments, length, receiver);
+            }
+        }
+    }
+
+    private void receiveOrdered(ByteBuffer datagram, int id, int index, int fragments, int length, Receiver receiver) {
+        int ahead = (id - nextOrdered) & 0xFFFF;
+        if (ahead >= WINDOW) {
+            // Déjà livré : un renvoi dont l'acquittement s'est perdu
+            skip(datagram, length);
+            return;
+        }
+
+        int slot = id % WINDOW;
+        if (orderedReady[slot] != null) {
+            skip(datagram, length);
+            return;
+        }
+
+        byte[] message = assemble(orderedAssemblies, slot, id, index, fragments, datagram, length);
+        if (message == null) return;
+        orderedReady[slot] = message;
+
+        // Livrer tout ce qui est maintenant contigu
+        while (orderedReady[nextOrdered % WINDOW] != null) {
+            int ready = nextOrdered % WINDOW;
+            byte[] next = orderedReady[ready];
+            orderedReady[ready] = null;
+            nextOrdered = (nextOrdered + 1) & 0xFFFF;
+            receiver.onMessage(next, ORDERED);
+        }
+    }
+
+    private void receiveUnordered(ByteBuffer datagram, int id, int index, int fragments, int length, Receiver receiver) {
+        int slot = id % WINDOW;
+        if (unorderedDelivered[slot] == id) {
+            skip(datagram, length);
+            return;
+        }
+
+        byte[] message = assemble(unorderedAssemblies, slot, id, index, fragments, datagram, length);
+        if (message == null) return;
+        unorderedDelivered[slot] = id;
+        receiver.onMessage(message, UNORDERED);
+    }
+
+    /**
+     * Ajouter un fragment au message {@code id}.
+     *
+     * @return le message complet, ou null s'il manque des fragments.
+     */
+    private static byte[] assemble(Assembly[] assemblies, int slot, int id, int index, int fragments,
+                                   ByteBuffer datagram, int length) {
+        if (fragments == 1) {
+            byte[] message = new byte[length];
+            datagram.get(message);
+            return message;
+        }
+
+        Assembly assembly = assemblies[slot];
+        if (assembly == null || assembly.id != id || assembly.parts.length != fragments) {
+            assembly = new Assembly(id, fragments);
+            assemblies[slot] = assembly;
+        }
+        if (assembly.parts[index] != null) {
+            skip(datagram, length);
+            return null;
+        }
+
+        byte[] part = new byte[length];
+        datagram.get(part);
+        assembly.parts[index] = part;
+        assembly.size += length;
+        if (++assembly.received < fragments) return null;
+
+        assemblies[slot] = null;
+        byte[] message = new byte[assembly.size];
+        int offset = 0;
+        for (byte[] p : assembly.parts) {
+            System.arraycopy(p, 0, message, offset, p.length);
+            offset += p.length;
+        }
+        return message;
+    }
+
+    private static void skip(ByteBuffer datagram, int length) {
+        datagram.position(datagram.position() + length);
+    }
+
+    /**
+     * Noter la réception du datagramme {@code seq}, pour l'acquitter dans les prochains envois.
+     */
+    private void noteReceived(int seq) {
+        if (remoteSeq < 0) {
+            remoteSeq = seq;
+            remoteAckBits = 0;
+            return;
+        }
+
+        if (Snapshot.isNewer(seq, remoteSeq)) {
+            int diff = (seq - remoteSeq) & 0xFFFF;
+            remoteAckBits = diff > 32 ? 0 : diff == 32 ? 1 << 31 : (remoteAckBits << diff) | (1 << (diff - 1));
+            remoteSeq = seq;
+        } else {
+            int back = (remoteSeq - seq) & 0xFFFF;
+            if (back >= 1 && back <= 32) remoteAckBits |= 1 << (back - 1);
+        }
+    }
+
+    /**
+     * L'autre côté a reçu {@code ack} et les 32 datagrammes précédents marqués dans {@code ackBits}.
+     */
+    private void acknowledge(int ack, int ackBits, long now) {
+        boolean any = acknowledge(ack, now);
+        for (int i = 0; i < 32; i++) {
+            if ((ackBits & (1 << i)) != 0) any |= acknowledge((ack - 1 - i) & 0xFFFF, now);
+        }
+        if (!any) return;
+
+        // Retirer les fragments acquittés, sans changer l'ordre des autres
+        int kept = 0;
+        for (int i = 0; i < pendingCount; i++) {
+            if (!pending[i].acked) pending[kept++] = pending[i];
+            else pendingBytes -= pending[i].length;
+        }
+        for (int i = kept; i < pendingCount; i++) pending[i] = null;
+        pendingCount = kept;
+    }
+
+    private boolean acknowledge(int seq, long now) {
+        SentDatagram record = sent[seq % SENT_HISTORY];
+        if (record.acked || record.seq != seq || record.sentAt < 0) return false;
+
+        record.acked = true;
+        for (int i = 0; i < record.count; i++) {
+            Fragment fragment = record.fragments[i];
+            record.fragments[i] = null;
+            // Un fragment renvoyé peut être acquitté par deux datagrammes
+            if (fragment.acked) continue;
+            fragment.acked = true;
+            fragment.message.release();
+        }
+        record.count = 0;
+
+        rttMillis += ((now - record.sentAt) - rttMillis) * 0.125;
+        return true;
+    }
+
+    // ─────────────────────── État ────────────────────────────────────────
+
+    /**
+     * Fragments envoyés ou à envoyer, pas encore acquittés.
+     */
+    public int getPendingCount() {
+        return pendingCount;
+    }
+
+    /**
+     * Octets des messages envoyés ou à envoyer, pas encore acquittés.
+     */
+    public long getPendingBytes() {
+        return pendingBytes;
+    }
+
+    public double getRttMillis() {
+        return rttMillis;
+    }
+
+    /**
+     * Délai avant de renvoyer un fragment sans acquittement : un peu plus d'un aller-retour.
+     */
+    public long getResendDelayMillis() {
+        return Math.max(MIN_RESEND_MILLIS, (long) (rttMillis * 1.5));
+    }
+
+    /**
+     * Nombre de renvois depuis la création du canal.
+     */
+    public long getResent() {
+        return resent;
+    }
+
+    /**
+     * Un fragment d'un message en attente d'acquittement. Un message qui tient dans un datagramme est un seul fragment.
+     */
+    private static final class Fragment {
+        final int channel;
+        final int id;
+        final int index;
+        final int count;
+        final SharedFrame message;
+        final int offset;
+        final int length;
+        long lastSent = -1;
+        boolean acked = false;
+
+        Fragment(int channel, int id, int index, int count, SharedFrame message, int offset, int length) {
+            this.channel = channel;
+            this.id = id;
+            this.index = index;
+            this.count = count;
+            this.message = message;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Un datagramme envoyé et les fragments qu'il portait.
+     */
+    private static final class SentDatagram {
+        int seq = -1;
+        long sentAt = -1;
+        boolean acked = false;
+        final Fragment[] fragments;
+        int count = 0;
+
+        SentDatagram(int capacity) {
+            fragments = new Fragment[capacity];
+        }
+    }
+
+    /**
+     * Les fragments reçus d'un message découpé.
+     */
+    private static final class Assembly {
+        final int id;
+        final byte[][] parts;
+        int received = 0;
+        int size = 0;
+
+        Assembly(int id, int fragments) {
+            this.id = id;
+            this.parts = new byte[fragments][];
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.superkiment.common.packets.session;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodage UDP de l'ouverture d'une session.
+ * <p>
+ * Au join, le serveur attribue par TCP un identifiant de session sur 16 bits et un jeton secret
+ * ({@link com.superkiment.common.packets.PacketUdpSession}). Le client envoie un hello avec les deux ; le serveur
+ * associe alors la session à l'adresse d'où vient le hello et répond par un acquittement. Ensuite, chaque datagramme
+ * du client commence par [type][identifiant de session (2)] et n'est accepté que depuis cette adresse.
+ * Un nouveau hello valide depuis une autre adresse (changement de NAT, de réseau) y déplace la session.
+ * <p>
+ * Format : hello [type 9][session (2)][jeton (8)], acquittement [type 10][session (2)].
+ */
+public abstract class SessionCodec {
+
+    public static final byte TYPE_HELLO = 9;
+    public static final byte TYPE_HELLO_ACK = 10;
+
+    public static final int HELLO_SIZE = 1 + Short.BYTES + Long.BYTES;
+    public static final int HELLO_ACK_SIZE = 1 + Short.BYTES;
+
+    /**
+     * Aucune session : le client n'a pas encore reçu la sienne.
+     */
+    public static final int NO_SESSION = 0;
+
+    public static void writeHello(ByteBuffer buffer, int sessionId, long token) {
+        buffer.put(TYPE_HELLO);
+        buffer.putShort((short) sessionId);
+        buffer.putLong(token);
+    }
+
+    public static void writeHelloAck(ByteBuffer buffer, int sessionId) {
+        buffer.put(TYPE_HELLO_ACK);
+        buffer.putShort((short) sessionId);
+    }
+
+    /**
+     * Lire l'identifiant de session, juste après l'octet de type.
+     */
+    public static int readSessionId(ByteBuffer buffer) {
+        return buffer.getShort() & 0xFFFF;
+    }
+
+    /**
+     * Lire le jeton d'un hello, après l'identifiant de session.
+     *
+     * @throws IllegalArgumentException si le datagramme est trop court.
+     */
+    public static long readToken(ByteBuffer buffer) {
+        if (buffer.remaining() < Long.BYTES) throw new IllegalArgumentException("Hello tronqué: " + buffer.remaining() + " octets");
+        return buffer.getLong();
+    }
+}
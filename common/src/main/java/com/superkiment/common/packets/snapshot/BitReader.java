@@ -0,0 +1,79 @@
+package com.superkiment.common.packets.snapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Lecture symétrique de {@link BitWriter}, à partir de la position courante d'un ByteBuffer (sans la modifier).
+ */
+public class BitReader {
+
+    private ByteBuffer buffer;
+    private int start;
+    private int limitBits;
+    private int bitPosition = 0;
+
+    public BitReader() {
+        reset(ByteBuffer.allocate(0));
+    }
+
+    public BitReader(ByteBuffer buffer) {
+        reset(buffer);
+    }
+
+    /**
+     * Relire à partir de la position courante d'un autre buffer, pour réutiliser le reader d'un datagramme à l'autre.
+     */
+    public BitReader reset(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.start = buffer.position();
+        this.limitBits = buffer.remaining() * 8;
+        this.bitPosition = 0;
+        return this;
+    }
+
+    public int remainingBits() {
+        return limitBits - bitPosition;
+    }
+
+    public long readBits(int bits) throws IOException {
+        if (bits < 0 || bits > 64) throw new IllegalArgumentException("Nombre de bits invalide: " + bits);
+        if (bits > remainingBits()) {
+            throw new IOException("Snapshot tronqué: " + bits + " bits attendus, " + remainingBits() + " disponibles");
+        }
+
+        long value = 0;
+        while (bits > 0) {
+            int offset = bitPosition & 7;
+            int available = 8 - offset;
+            int n = Math.min(available, bits);
+            int current = buffer.get(start + (bitPosition >>> 3)) & 0xFF;
+            int chunk = (current >>> (available - n)) & ((1 << n) - 1);
+
+            value = (value << n) | chunk;
+            bitPosition += n;
+            bits -= n;
+        }
+        return value;
+    }
+
+    public int readInt(int bits) throws IOException {
+        return (int) readBits(bits);
+    }
+
+    public boolean readBoolean() throws IOException {
+        return readBits(1) != 0;
+    }
+
+    public int readVarUnsigned() throws IOException {
+        if (!readBoolean()) return readInt(4);
+        if (!readBoolean()) return readInt(8);
+        if (!readBoolean()) return readInt(16);
+        return readInt(32);
+    }
+
+    public int readVarSigned() throws IOException {
+        int zigzag = readVarUnsigned();
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+}
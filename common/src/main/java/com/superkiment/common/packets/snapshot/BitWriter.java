@@ -0,0 +1,136 @@
+package com.superkiment.common.packets.snapshot;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Écriture bit à bit, bit de poids fort en premier. Le dernier octet est complété par des zéros.
+ */
+public class BitWriter {
+
+    private byte[] data;
+    private int bitPosition = 0;
+
+    public BitWriter() {
+        this(256);
+    }
+
+    public BitWriter(int initialCapacity) {
+        data = new byte[Math.max(1, initialCapacity)];
+    }
+
+    public void reset() {
+        Arrays.fill(data, 0, byteLength(), (byte) 0);
+        bitPosition = 0;
+    }
+
+    public int bitLength() {
+        return bitPosition;
+    }
+
+    public int byteLength() {
+        return (bitPosition + 7) >>> 3;
+    }
+
+    /**
+     * Position courante, à passer à {@link #rollback(int)} pour annuler ce qui a été écrit depuis.
+     */
+    public int mark() {
+        return bitPosition;
+    }
+
+    public void rollback(int mark) {
+        if (mark < 0 || mark > bitPosition) throw new IllegalArgumentException("Marque invalide: " + mark);
+
+        int firstByte = mark >>> 3;
+        int offset = mark & 7;
+        int end = byteLength();
+        if (offset != 0) {
+            data[firstByte] &= (byte) (0xFF << (8 - offset));
+            firstByte++;
+        }
+        Arrays.fill(data, firstByte, end, (byte) 0);
+        bitPosition = mark;
+    }
+
+    /**
+     * Écrire les {@code bits} bits de poids faible de {@code value}.
+     */
+    public void writeBits(long value, int bits) {
+        if (bits < 0 || bits > 64) throw new IllegalArgumentException("Nombre de bits invalide: " + bits);
+        ensureCapacity(bitPosition + bits);
+
+        while (bits > 0) {
+            int offset = bitPosition & 7;
+            int free = 8 - offset;
+            int n = Math.min(free, bits);
+            int chunk = (int) (value >>> (bits - n)) & ((1 << n) - 1);
+
+            data[bitPosition >>> 3] |= (byte) (chunk << (free - n));
+            bitPosition += n;
+            bits -= n;
+        }
+    }
+
+    public void writeBoolean(boolean value) {
+        writeBits(value ? 1 : 0, 1);
+    }
+
+    /**
+     * Entier positif en taille variable : 0 + 4 bits, 10 + 8 bits, 110 + 16 bits ou 111 + 32 bits.
+     * Les petites valeurs (écarts de netId, petits déplacements) tiennent sur 5 bits.
+     */
+    public void writeVarUnsigned(int value) {
+        if ((value & ~0xF) == 0) {
+            writeBits(value, 1 + 4);
+        } else if ((value & ~0xFF) == 0) {
+            writeBits(0b10, 2);
+            writeBits(value, 8);
+        } else if ((value & ~0xFFFF) == 0) {
+            writeBits(0b110, 3);
+            writeBits(value, 16);
+        } else {
+            writeBits(0b111, 3);
+            writeBits(value, 32);
+        }
+    }
+
+    /**
+     * Entier signé en zigzag (0, -1, 1, -2, ...) puis en taille variable.
+     */
+    public void writeVarSigned(int value) {
+        writeVarUnsigned((value << 1) ^ (value >> 31));
+    }
+
+    /**
+     * Nombre de bits écrits par {@link #writeVarUnsigned(int)}.
+     */
+    public static int varUnsignedBits(int value) {
+        if ((value & ~0xF) == 0) return 1 + 4;
+        if ((value & ~0xFF) == 0) return 2 + 8;
+        if ((value & ~0xFFFF) == 0) return 3 + 16;
+        return 3 + 32;
+    }
+
+    /**
+     * Nombre de bits écrits par {@link #writeVarSigned(int)}.
+     */
+    public static int varSignedBits(int value) {
+        return varUnsignedBits((value << 1) ^ (value >> 31));
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(data, byteLength());
+    }
+
+    public void copyTo(ByteBuffer buffer) {
+        buffer.put(data, 0, byteLength());
+    }
+
+    private void ensureCapacity(int bits) {
+        int bytes = (bits + 7) >>> 3;
+        if (bytes > data.length) {
+            data = Arrays.copyOf(data, Math.max(bytes, data.length * 2));
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.superkiment.common.packets.snapshot;
+
+import com.superkiment.common.utils.DirectBufferPool;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Remplit des datagrammes bit à bit jusqu'au budget, sans jamais couper une entrée en deux.
+ * <p>
+ * Utilisation : {@link #start(List)}, puis pour chaque entrée {@link #begin()}, écrire dans {@link #bits()} et {@link #commit()}.
+ * Si l'entrée dépasse le budget, elle est retirée, la part courante est fermée et {@code commit()} retourne false :
+ * l'appelant réécrit alors l'entrée au début de la nouvelle part (les écarts de netId repartent de zéro).
+ * <p>
+ * Les parts sont copiées dans des buffers directs réutilisés, l'en-tête étant laissé à l'appelant :
+ * les rendre avec {@link #release(List)} une fois envoyées. Un packer n'est utilisé que par un seul thread.
+ */
+public class DatagramPacker {
+
+    private final int maxDatagramSize;
+    private final int headerSize;
+    private final int budgetBits;
+    private final DirectBufferPool pool;
+    private final BitWriter bits;
+
+    private List<ByteBuffer> parts;
+    private int mark = 0;
+
+    /**
+     * @param maxDatagramSize taille maximale d'un datagramme, en-tête compris.
+     * @param headerSize      octets réservés à l'en-tête, écrit par l'appelant.
+     * @param trailerBits     bits réservés à la fin de chaque part, écrits par {@link #closePart()}.
+     */
+    public DatagramPacker(int maxDatagramSize, int headerSize, int trailerBits) {
+        this.maxDatagramSize = maxDatagramSize;
+        this.headerSize = headerSize;
+        this.budgetBits = (maxDatagramSize - headerSize) * 8 - trailerBits;
+        this.pool = new DirectBufferPool(maxDatagramSize);
+        this.bits = new BitWriter(maxDatagramSize);
+    }
+
+    public int maxDatagramSize() {
+        return maxDatagramSize;
+    }
+
+    /**
+     * Commencer un nouveau message, dont les parts seront ajoutées à {@code out}.
+     */
+    void start(List<ByteBuffer> out) {
+        parts = out;
+        bits.reset();
+        mark = 0;
+    }
+
+    BitWriter bits() {
+        return bits;
+    }
+
+    int budgetBits() {
+        return budgetBits;
+    }
+
+    void begin() {
+        mark = bits.mark();
+    }
+
+    /**
+     * @return true si l'entrée tient dans la part courante, false si elle a été annulée et qu'une nouvelle part a commencé.
+     */
+    boolean commit() {
+        if (bits.bitLength() <= budgetBits) return true;
+
+        if (mark == 0) {
+            throw new IllegalArgumentException("Entrée de " + bits.bitLength() + " bits plus grande qu'un datagramme de " + maxDatagramSize + " octets");
+        }
+        bits.rollback(mark);
+        closePart();
+        return false;
+    }
+
+    /**
+     * Terminer la part courante (bit de fin à 0) et en commencer une nouvelle.
+     */
+    void closePart() {
+        bits.writeBoolean(false);
+
+        ByteBuffer part = pool.acquire();
+        part.position(headerSize);
+        bits.copyTo(part);
+        part.flip();
+        parts.add(part);
+
+        bits.reset();
+        mark = 0;
+    }
+
+    /**
+     * Fermer la dernière part, même vide.
+     *
+     * @return le nombre de parts du message.
+     */
+    int finish() {
+        closePart();
+        return parts.size();
+    }
+
+    /**
+     * Rendre les buffers d'un message envoyé, la liste est vidée.
+     */
+    public void release(List<ByteBuffer> parts) {
+        pool.releaseAll(parts);
+    }
+
+    /**
+     * Nombre de buffers directs créés par ce packer, stable en régime établi.
+     */
+    public int buffersCreated() {
+        return pool.created();
+    }
+}
@@ -0,0 +1,115 @@
+package com.superkiment.common.packets.snapshot;
+
+import org.joml.Vector2d;
+
+/**
+ * Côté client : les dernières positions reçues pour une entité, datées à l'heure du serveur,
+ * entre lesquelles on interpole au moment de l'affichage.
+ * <p>
+ * Au-delà de la dernière position connue, l'entité continue sur sa lancée pendant au plus {@link #MAX_EXTRAPOLATION}
+ * millisecondes, puis s'arrête en attendant la suite.
+ */
+public class InterpolationBuffer {
+
+    public static final int SIZE = 16;
+    public static final double MAX_EXTRAPOLATION = 100;
+
+    private final double[] times = new double[SIZE];
+    private final double[] x = new double[SIZE];
+    private final double[] y = new double[SIZE];
+    private final double[] angle = new double[SIZE];
+
+    private int newest = -1;
+    private int count = 0;
+
+    // Heure serveur du dernier snapshot qui contenait l'entité, mise à jour ou reportée
+    private double seen = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Ajouter une position ; ignorée si elle n'est pas plus récente que la dernière.
+     *
+     * @param angle direction en radians
+     */
+    public void add(double time, double x, double y, double angle) {
+        if (count > 0 && time <= times[newest]) return;
+
+        newest = (newest + 1) % SIZE;
+        times[newest] = time;
+        this.x[newest] = x;
+        this.y[newest] = y;
+        this.angle[newest] = angle;
+        if (count < SIZE) count++;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public double newestTime() {
+        return count == 0 ? Double.NEGATIVE_INFINITY : times[newest];
+    }
+
+    public void markSeen(double time) {
+        seen = Math.max(seen, time);
+    }
+
+    public double seenTime() {
+        return seen;
+    }
+
+    /**
+     * Écrire dans {@code pos} et {@code dir} l'état de l'entité à l'heure serveur {@code time}.
+     *
+     * @return faux si aucune position n'a encore été reçue.
+     */
+    public boolean sample(double time, Vector2d pos, Vector2d dir) {
+        if (count == 0) return false;
+
+        if (time >= times[newest]) {
+            if (count == 1) return write(newest, pos, dir);
+
+            int previous = index(1);
+            double ahead = Math.min(time - times[newest], MAX_EXTRAPOLATION);
+            double t = ahead / (times[newest] - times[previous]);
+            pos.set(x[newest] + (x[newest] - x[previous]) * t, y[newest] + (y[newest] - y[previous]) * t);
+            dir.set(Math.cos(angle[newest]), Math.sin(angle[newest]));
+            return true;
+        }
+
+        for (int k = 1; k < count; k++) {
+            int from = index(k);
+            if (times[from] > time) continue;
+
+            int to = index(k - 1);
+            double t = (time - times[from]) / (times[to] - times[from]);
+            pos.set(x[from] + (x[to] - x[from]) * t, y[from] + (y[to] - y[from]) * t);
+
+            double a = angle[from] + shortestArc(angle[from], angle[to]) * t;
+            dir.set(Math.cos(a), Math.sin(a));
+            return true;
+        }
+
+        // Plus ancien que tout ce qui est gardé : la plus ancienne position connue
+        return write(index(count - 1), pos, dir);
+    }
+
+    /**
+     * Index de la k-ième position en partant de la plus récente.
+     */
+    private int index(int k) {
+        return (newest - k + SIZE) % SIZE;
+    }
+
+    private boolean write(int i, Vector2d pos, Vector2d dir) {
+        pos.set(x[i], y[i]);
+        dir.set(Math.cos(angle[i]), Math.sin(angle[i]));
+        return true;
+    }
+
+    private static double shortestArc(double from, double to) {
+        double delta = (to - from) % (2 * Math.PI);
+        if (delta > Math.PI) delta -= 2 * Math.PI;
+        if (delta < -Math.PI) delta += 2 * Math.PI;
+        return delta;
+    }
+}
@@ -0,0 +1,41 @@
+package com.superkiment.common.packets.snapshot;
+
+import org.joml.Vector2d;
+
+/**
+ * Conversion des positions et directions en entiers à précision fixe pour les snapshots UDP.
+ */
+public abstract class Quantization {
+
+    /**
+     * Les positions sont arrondies au 1/16e d'unité (un pixel se déplace donc par pas de 0.0625).
+     */
+    public static final int POSITION_SCALE = 16;
+
+    /**
+     * Les directions sont réduites à un angle sur 10 bits, soit une précision d'environ 0.35°.
+     */
+    public static final int ANGLE_BITS = 10;
+    public static final int ANGLE_STEPS = 1 << ANGLE_BITS;
+
+    public static int quantizePosition(double value) {
+        return (int) Math.round(value * POSITION_SCALE);
+    }
+
+    public static double dequantizePosition(int value) {
+        return (double) value / POSITION_SCALE;
+    }
+
+    public static int quantizeAngle(double dirX, double dirY) {
+        double turns = Math.atan2(dirY, dirX) / (2 * Math.PI);
+        return (int) Math.round(turns * ANGLE_STEPS) & (ANGLE_STEPS - 1);
+    }
+
+    /**
+     * Écrit dans {@code out} le vecteur unitaire correspondant à l'angle quantifié.
+     */
+    public static Vector2d dequantizeAngle(int angle, Vector2d out) {
+        double radians = (double) angle / ANGLE_STEPS * 2 * Math.PI;
+        return out.set(Math.cos(radians), Math.sin(radians));
+    }
+}
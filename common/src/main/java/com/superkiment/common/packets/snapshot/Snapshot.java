@@ -0,0 +1,179 @@
+package com.superkiment.common.packets.snapshot;
+
+import com.superkiment.common.entities.Entity;
+
+import java.util.Arrays;
+
+/**
+ * État quantifié de toutes les entités du monde à un tick donné, trié par netId.
+ * Les tableaux sont parallèles : l'entité i a pour identifiant {@code netIds[i]} et pour position {@code (x[i], y[i])}.
+ * <p>
+ * Une fois capturé et envoyé, un snapshot sert de référence (baseline) pour les deltas suivants : il ne doit plus être modifié.
+ */
+public class Snapshot {
+
+    /**
+     * Numéro de séquence sur 16 bits, qui boucle.
+     */
+    public int seq;
+
+    /**
+     * Tick du serveur et heure du serveur (millisecondes depuis son démarrage, sur 32 bits) au moment de la capture,
+     * qui permettent au client d'interpoler entre les snapshots au bon rythme.
+     */
+    public int tick;
+    public int serverTime;
+
+    /**
+     * Dernière commande du joueur destinataire traitée par le serveur avant la capture, ou -1.
+     * Propre à chaque client : le client s'en sert pour réconcilier sa prédiction.
+     */
+    public int inputAck = -1;
+
+    public int size = 0;
+
+    public int[] netIds;
+    public int[] x;
+    public int[] y;
+    public int[] angle;
+
+    /**
+     * Entités reportées par le serveur, faute de budget : elles ne sont pas mises à jour dans ce snapshot, le client garde
+     * ce qu'il en a déjà reçu. Leur état est celui de la baseline, ou 0 si elle ne les contient pas.
+     */
+    public boolean[] kept;
+
+    // Tableaux de travail de sort(), conservés pour ne pas allouer à chaque tick
+    private long[] sortKeys;
+    private int[] sortScratch;
+    private boolean[] keptScratch;
+
+    public Snapshot(int seq, int capacity) {
+        this.seq = seq;
+        capacity = Math.max(capacity, 4);
+        netIds = new int[capacity];
+        x = new int[capacity];
+        y = new int[capacity];
+        angle = new int[capacity];
+        kept = new boolean[capacity];
+    }
+
+    /**
+     * Capturer l'état quantifié des entités qui ont un netId.
+     */
+    public static Snapshot capture(int seq, Iterable<Entity> entities, int expectedSize) {
+        return new Snapshot(seq, expectedSize).recapture(seq, entities);
+    }
+
+    /**
+     * Réutiliser ce snapshot pour capturer un nouveau tick. Il ne doit plus servir de baseline à personne.
+     */
+    public Snapshot recapture(int seq, Iterable<Entity> entities) {
+        this.seq = seq;
+        clear();
+        for (Entity entity : entities) {
+            if (entity.netId == 0) continue;
+            add(
+                    entity.netId,
+                    Quantization.quantizePosition(entity.pos.x),
+                    Quantization.quantizePosition(entity.pos.y),
+                    Quantization.quantizeAngle(entity.dirLookTarget.x, entity.dirLookTarget.y)
+            );
+        }
+        sort();
+        return this;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Ajouter une entité à la fin. Appeler {@link #sort()} ensuite si les netIds ne sont pas ajoutés dans l'ordre.
+     */
+    public void add(int netId, int x, int y, int angle) {
+        add(netId, x, y, angle, false);
+    }
+
+    public void add(int netId, int x, int y, int angle, boolean kept) {
+        if (size == netIds.length) grow();
+        this.netIds[size] = netId;
+        this.x[size] = x;
+        this.y[size] = y;
+        this.angle[size] = angle;
+        this.kept[size] = kept;
+        size++;
+    }
+
+    /**
+     * @return l'index de l'entité, ou une valeur négative si elle n'est pas dans le snapshot.
+     */
+    public int indexOf(int netId) {
+        return Arrays.binarySearch(netIds, 0, size, netId);
+    }
+
+    /**
+     * Trier les entités par netId, ordre attendu par {@link SnapshotCodec}.
+     */
+    public void sort() {
+        boolean sorted = true;
+        for (int i = 1; i < size && sorted; i++) {
+            sorted = netIds[i - 1] < netIds[i];
+        }
+        if (sorted) return;
+
+        if (sortKeys == null || sortKeys.length < size) {
+            sortKeys = new long[netIds.length];
+            sortScratch = new int[netIds.length];
+            keptScratch = new boolean[netIds.length];
+        }
+
+        // netId dans les bits de poids fort, index d'origine dans les bits de poids faible
+        long[] keys = sortKeys;
+        for (int i = 0; i < size; i++) {
+            keys[i] = ((long) netIds[i] << 32) | i;
+        }
+        Arrays.sort(keys, 0, size);
+
+        for (int i = 0; i < size; i++) {
+            netIds[i] = (int) (keys[i] >>> 32);
+        }
+        permute(x, keys);
+        permute(y, keys);
+        permute(angle, keys);
+
+        System.arraycopy(kept, 0, keptScratch, 0, size);
+        for (int i = 0; i < size; i++) {
+            kept[i] = keptScratch[(int) keys[i]];
+        }
+    }
+
+    private void permute(int[] values, long[] keys) {
+        System.arraycopy(values, 0, sortScratch, 0, size);
+        for (int i = 0; i < size; i++) {
+            values[i] = sortScratch[(int) keys[i]];
+        }
+    }
+
+    private void grow() {
+        int capacity = netIds.length * 2;
+        netIds = Arrays.copyOf(netIds, capacity);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        angle = Arrays.copyOf(angle, capacity);
+        kept = Arrays.copyOf(kept, capacity);
+    }
+
+    /**
+     * Vrai si {@code seq} est plus récent que {@code other}, en tenant compte du bouclage sur 16 bits.
+     */
+    public static boolean isNewer(int seq, int other) {
+        int diff = (seq - other) & 0xFFFF;
+        return diff != 0 && diff < 0x8000;
+    }
+
+    @Override
+    public String toString() {
+        return "Snapshot{seq=" + seq + ", size=" + size + "}";
+    }
+}
@@ -0,0 +1,101 @@
+package com.superkiment.common.packets.snapshot;
+
+/**
+ * Côté client : estimation de l'heure du serveur et du délai d'interpolation, à partir de l'heure portée par chaque snapshot.
+ * <p>
+ * Le client affiche le monde avec un peu de retard sur le dernier snapshot reçu, pour toujours avoir deux snapshots
+ * entre lesquels interpoler. Ce retard s'adapte à l'intervalle entre snapshots et à la gigue du réseau :
+ * une perte ou des arrivées irrégulières l'allongent, une connexion stable le raccourcit.
+ * <p>
+ * Toutes les heures sont en millisecondes. L'heure locale est fournie par l'appelant (voir {@link #now()}).
+ */
+public class SnapshotClock {
+
+    public static final double MIN_DELAY = 50;
+    public static final double MAX_DELAY = 300;
+
+    /**
+     * Intervalle supposé avant d'avoir mesuré quoi que ce soit : un snapshot par tick à 20 Hz.
+     */
+    private static final double DEFAULT_INTERVAL = 50;
+
+    private boolean started = false;
+    private int lastServerTimeRaw;
+    private long lastServerTime;
+    private double lastLocalTime;
+
+    /**
+     * Heure serveur - heure locale.
+     */
+    private double offset;
+    private double interval = DEFAULT_INTERVAL;
+    private double jitter = 0;
+    private double delay = 2 * DEFAULT_INTERVAL;
+
+    public static double now() {
+        return System.nanoTime() / 1_000_000.0;
+    }
+
+    /**
+     * Prendre en compte un snapshot reçu en entier.
+     *
+     * @param serverTime heure du serveur portée par le snapshot, sur 32 bits
+     * @param localTime  heure locale de réception
+     * @return l'heure du serveur sans bouclage, ou -1 si le snapshot n'est pas plus récent que le précédent.
+     */
+    public long onSnapshot(int serverTime, double localTime) {
+        if (!started) {
+            started = true;
+            lastServerTimeRaw = serverTime;
+            lastServerTime = serverTime & 0xFFFFFFFFL;
+            lastLocalTime = localTime;
+            offset = lastServerTime - localTime;
+            return lastServerTime;
+        }
+
+        // La différence sur 32 bits reste juste quand l'heure du serveur boucle
+        long server = lastServerTime + (serverTime - lastServerTimeRaw);
+        if (server <= lastServerTime) return -1;
+
+        double serverGap = server - lastServerTime;
+        double localGap = localTime - lastLocalTime;
+        interval += (serverGap - interval) * 0.1;
+        jitter += (Math.abs(localGap - serverGap) - jitter) * 0.1;
+
+        // Un snapshot arrivé plus tôt que prévu corrige vite l'estimation, un snapshot en retard la corrige lentement
+        double sampleOffset = server - localTime;
+        offset += (sampleOffset - offset) * (sampleOffset > offset ? 0.5 : 0.02);
+
+        // Deux intervalles pour survivre à une perte, plus de quoi absorber la gigue ; changé doucement pour ne pas sauter
+        double target = Math.max(MIN_DELAY, Math.min(MAX_DELAY, 2 * interval + 2 * jitter));
+        delay += (target - delay) * 0.05;
+
+        lastServerTimeRaw = serverTime;
+        lastServerTime = server;
+        lastLocalTime = localTime;
+        return server;
+    }
+
+    public boolean isStarted() {
+        return started;
+    }
+
+    /**
+     * Heure du serveur à afficher à l'heure locale {@code localTime}, dans la même échelle que {@link #onSnapshot}.
+     */
+    public double renderTime(double localTime) {
+        return localTime + offset - delay;
+    }
+
+    public double getDelay() {
+        return delay;
+    }
+
+    public double getInterval() {
+        return interval;
+    }
+
+    public double getJitter() {
+        return jitter;
+    }
+}
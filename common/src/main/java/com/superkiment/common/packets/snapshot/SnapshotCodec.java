@@ -0,0 +1,218 @@
+package com.superkiment.common.packets.snapshot;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Encodage des snapshots UDP en deltas par rapport au dernier snapshot acquitté par le client (la baseline).
+ * <p>
+ * Format d'un datagramme : [type 3][seq (2)][baseline (2)][flags (1)][part (1)][nombre de parts (1)][tick (4)][heure serveur (4)]
+ * [dernière commande traitée (2)] puis les entrées, bit à bit.
+ * Chaque entrée commence par un bit de continuation, l'écart de netId avec l'entrée précédente et une opération sur 2 bits :
+ * <ul>
+ *     <li>DELTA : l'entité est dans la baseline, seuls les champs modifiés sont écrits (masque sur 3 bits) ;</li>
+ *     <li>FULL : l'entité n'est pas dans la baseline, position et angle complets ;</li>
+ *     <li>REMOVED : l'entité était dans la baseline et n'est plus dans le snapshot ;</li>
+ *     <li>KEPT : l'entité a été reportée par le serveur, le client garde ce qu'il en a déjà reçu.</li>
+ * </ul>
+ * Les entités identiques à la baseline ne sont pas écrites. Chaque part se décode indépendamment des autres.
+ */
+public abstract class SnapshotCodec {
+
+    public static final byte TYPE_SNAPSHOT = 3;
+    public static final byte TYPE_ACK = 4;
+
+    /**
+     * [type][seq][baseline][flags][part][nombre de parts][tick][heure serveur][dernière commande traitée]
+     */
+    public static final int HEADER_SIZE = 1 + Short.BYTES + Short.BYTES + 1 + 1 + 1 + Integer.BYTES + Integer.BYTES + Short.BYTES;
+
+    /**
+     * [type][session du client][seq acquitté]
+     */
+    public static final int ACK_SIZE = 1 + Short.BYTES + Short.BYTES;
+
+    static final int OP_DELTA = 0;
+    static final int OP_FULL = 1;
+    static final int OP_REMOVED = 2;
+    static final int OP_KEPT = 3;
+
+    static final int FLAG_HAS_BASELINE = 1;
+    static final int FLAG_HAS_INPUT_ACK = 2;
+
+    static final int CHANGED_X = 0b100;
+    static final int CHANGED_Y = 0b010;
+    static final int CHANGED_ANGLE = 0b001;
+
+    /**
+     * Taille maximale d'une entrée : continuation + écart + opération + position complète (2 × 35 bits) + angle.
+     */
+    static final int MAX_RECORD_BITS = 1 + 35 + 2 + 35 + 35 + Quantization.ANGLE_BITS;
+
+    /**
+     * Taille d'une entrée KEPT, en comptant un petit écart de netId comme {@link #recordBits}.
+     */
+    public static final int KEPT_RECORD_BITS = 1 + BitWriter.varUnsignedBits(0) + 2;
+
+    /**
+     * Plus petit datagramme capable de contenir n'importe quelle entrée, plus le bit de fin.
+     */
+    public static final int MIN_DATAGRAM_SIZE = HEADER_SIZE + (MAX_RECORD_BITS + 1 + 7) / 8;
+
+    private static final int MAX_PARTS = 255;
+
+    /**
+     * Packer pour des datagrammes de snapshot d'au plus {@code maxDatagramSize} octets.
+     */
+    public static DatagramPacker newPacker(int maxDatagramSize) {
+        if (maxDatagramSize < MIN_DATAGRAM_SIZE) {
+            throw new IllegalArgumentException("Datagramme trop petit pour un snapshot: " + maxDatagramSize);
+        }
+        return new DatagramPacker(maxDatagramSize, HEADER_SIZE, 1);
+    }
+
+    /**
+     * Encoder {@code current} par rapport à {@code baseline} (null si le client n'a rien acquitté), en tableaux d'octets.
+     * Alloue à chaque appel : le serveur passe par {@link #encode(Snapshot, Snapshot, DatagramPacker, List)}.
+     */
+    public static List<byte[]> encode(Snapshot current, Snapshot baseline, int maxDatagramSize) {
+        DatagramPacker packer = newPacker(maxDatagramSize);
+        List<ByteBuffer> parts = new ArrayList<>();
+        encode(current, baseline, packer, parts);
+
+        List<byte[]> datagrams = new ArrayList<>(parts.size());
+        for (ByteBuffer part : parts) {
+            byte[] datagram = new byte[part.remaining()];
+            part.get(datagram);
+            datagrams.add(datagram);
+        }
+        return datagrams;
+    }
+
+    /**
+     * Encoder {@code current} par rapport à {@code baseline} (null si le client n'a rien acquitté),
+     * en autant de datagrammes que nécessaire pour ne pas dépasser la taille du packer.
+     * Chaque datagramme est rempli au plus près du budget, une entrée n'est jamais coupée entre deux datagrammes.
+     * Il y a toujours au moins un datagramme, même vide, pour que le client puisse acquitter le snapshot.
+     * <p>
+     * Les datagrammes sont ajoutés à {@code out}, prêts à envoyer, et doivent être rendus avec {@link DatagramPacker#release(List)}.
+     */
+    public static void encode(Snapshot current, Snapshot baseline, DatagramPacker packer, List<ByteBuffer> out) {
+        packer.start(out);
+        int previousNetId = 0;
+
+        int baselineSize = baseline == null ? 0 : baseline.size;
+        int i = 0, j = 0;
+        while (i < current.size || j < baselineSize) {
+            int currentId = i < current.size ? current.netIds[i] : Integer.MAX_VALUE;
+            int baselineId = j < baselineSize ? baseline.netIds[j] : Integer.MAX_VALUE;
+
+            int mask = 0;
+            // Une entité reportée est toujours écrite, pour que le client ne la remette pas à l'état de la baseline
+            boolean kept = currentId <= baselineId && current.kept[i];
+            if (currentId == baselineId && !kept) {
+                if (current.x[i] != baseline.x[j]) mask |= CHANGED_X;
+                if (current.y[i] != baseline.y[j]) mask |= CHANGED_Y;
+                if (current.angle[i] != baseline.angle[j]) mask |= CHANGED_ANGLE;
+
+                if (mask == 0) {
+                    i++;
+                    j++;
+                    continue;
+                }
+            }
+
+            int netId = Math.min(currentId, baselineId);
+            packer.begin();
+            writeRecord(packer.bits(), netId - previousNetId - 1, current, i, currentId, baseline, j, baselineId, mask, kept);
+            if (!packer.commit()) {
+                // L'entrée ne tenait plus : elle ouvre la part suivante, son écart repart de zéro
+                packer.begin();
+                writeRecord(packer.bits(), netId - 1, current, i, currentId, baseline, j, baselineId, mask, kept);
+                packer.commit();
+            }
+            previousNetId = netId;
+
+            if (currentId <= baselineId) i++;
+            if (baselineId <= currentId) j++;
+        }
+        int partCount = packer.finish();
+
+        if (partCount > MAX_PARTS) {
+            packer.release(out);
+            throw new IllegalStateException("Snapshot trop grand: " + partCount + " datagrammes");
+        }
+
+        for (int part = 0; part < partCount; part++) {
+            ByteBuffer datagram = out.get(part);
+            datagram.put(0, TYPE_SNAPSHOT);
+            datagram.putShort(1, (short) current.seq);
+            datagram.putShort(3, (short) (baseline == null ? 0 : baseline.seq));
+            datagram.put(5, (byte) ((baseline == null ? 0 : FLAG_HAS_BASELINE) | (current.inputAck < 0 ? 0 : FLAG_HAS_INPUT_ACK)));
+            datagram.put(6, (byte) part);
+            datagram.put(7, (byte) partCount);
+            datagram.putInt(8, current.tick);
+            datagram.putInt(12, current.serverTime);
+            datagram.putShort(16, (short) Math.max(current.inputAck, 0));
+        }
+    }
+
+    /**
+     * Taille en bits de l'entrée de l'entité {@code i} de {@code current}, par rapport à l'entrée {@code j} de la baseline
+     * (négatif si l'entité n'y est pas), en comptant un petit écart de netId. 0 si l'entité est identique à la baseline.
+     */
+    public static int recordBits(Snapshot current, int i, Snapshot baseline, int j) {
+        // Continuation, écart, opération
+        int header = 1 + BitWriter.varUnsignedBits(0) + 2;
+
+        if (baseline == null || j < 0) {
+            return header + BitWriter.varSignedBits(current.x[i]) + BitWriter.varSignedBits(current.y[i]) + Quantization.ANGLE_BITS;
+        }
+
+        int fields = 0;
+        if (current.x[i] != baseline.x[j]) fields += BitWriter.varSignedBits(current.x[i] - baseline.x[j]);
+        if (current.y[i] != baseline.y[j]) fields += BitWriter.varSignedBits(current.y[i] - baseline.y[j]);
+        if (current.angle[i] != baseline.angle[j]) fields += Quantization.ANGLE_BITS;
+        return fields == 0 ? 0 : header + 3 + fields;
+    }
+
+    private static void writeRecord(BitWriter bits, int gap,
+                                    Snapshot current, int i, int currentId,
+                                    Snapshot baseline, int j, int baselineId, int mask, boolean kept) {
+        bits.writeBoolean(true);
+        bits.writeVarUnsigned(gap);
+
+        if (kept) {
+            bits.writeBits(OP_KEPT, 2);
+        } else if (currentId == baselineId) {
+            bits.writeBits(OP_DELTA, 2);
+            bits.writeBits(mask, 3);
+            if ((mask & CHANGED_X) != 0) bits.writeVarSigned(current.x[i] - baseline.x[j]);
+            if ((mask & CHANGED_Y) != 0) bits.writeVarSigned(current.y[i] - baseline.y[j]);
+            if ((mask & CHANGED_ANGLE) != 0) bits.writeBits(current.angle[i], Quantization.ANGLE_BITS);
+        } else if (currentId < baselineId) {
+            bits.writeBits(OP_FULL, 2);
+            bits.writeVarSigned(current.x[i]);
+            bits.writeVarSigned(current.y[i]);
+            bits.writeBits(current.angle[i], Quantization.ANGLE_BITS);
+        } else {
+            bits.writeBits(OP_REMOVED, 2);
+        }
+    }
+
+    public static byte[] encodeAck(int sessionId, int seq) {
+        ByteBuffer buffer = ByteBuffer.allocate(ACK_SIZE);
+        writeAck(buffer, sessionId, seq);
+        return buffer.array();
+    }
+
+    /**
+     * Écrire un acquittement à la position courante du buffer.
+     */
+    public static void writeAck(ByteBuffer buffer, int sessionId, int seq) {
+        buffer.put(TYPE_ACK);
+        buffer.putShort((short) sessionId);
+        buffer.putShort((short) seq);
+    }
+}
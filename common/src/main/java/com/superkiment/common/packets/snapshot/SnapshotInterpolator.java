@@ -0,0 +1,67 @@
+package com.superkiment.common.packets.snapshot;
+
+import com.superkiment.common.entities.Entity;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Côté client : historique des positions de chaque entité répliquée et calcul de la position à afficher,
+ * indépendamment de la fréquence d'affichage.
+ * <p>
+ * Alimenté par le thread de réception UDP à chaque snapshot complet, lu par le thread d'affichage.
+ */
+public class SnapshotInterpolator {
+
+    private final SnapshotClock clock = new SnapshotClock();
+    private final Map<Integer, InterpolationBuffer> buffers = new HashMap<>();
+
+    /**
+     * Ajouter un snapshot complet, reçu à l'heure locale {@code localTime}.
+     */
+    public synchronized void onSnapshot(Snapshot snapshot, double localTime) {
+        long serverTime = clock.onSnapshot(snapshot.serverTime, localTime);
+        if (serverTime < 0) return;
+
+        for (int i = 0; i < snapshot.size; i++) {
+            if (snapshot.kept[i]) {
+                // Reportée par le serveur : sa dernière position reçue reste la plus récente
+                InterpolationBuffer buffer = buffers.get(snapshot.netIds[i]);
+                if (buffer != null) buffer.markSeen(serverTime);
+                continue;
+            }
+
+            InterpolationBuffer buffer = buffers.computeIfAbsent(snapshot.netIds[i], netId -> new InterpolationBuffer());
+            buffer.markSeen(serverTime);
+            buffer.add(
+                    serverTime,
+                    Quantization.dequantizePosition(snapshot.x[i]),
+                    Quantization.dequantizePosition(snapshot.y[i]),
+                    (double) snapshot.angle[i] / Quantization.ANGLE_STEPS * 2 * Math.PI
+            );
+        }
+
+        // Les entités qui ne sont plus répliquées n'ont plus rien à interpoler
+        Iterator<InterpolationBuffer> iterator = buffers.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().seenTime() < serverTime) iterator.remove();
+        }
+    }
+
+    /**
+     * Placer {@code entity.posLerp} et {@code entity.dirLookLerp} à l'état à afficher à l'heure locale {@code localTime}.
+     *
+     * @return faux si l'entité n'a pas d'historique (pas encore reçue, ou pas répliquée).
+     */
+    public synchronized boolean apply(Entity entity, double localTime) {
+        if (entity.netId == 0 || !clock.isStarted()) return false;
+
+        InterpolationBuffer buffer = buffers.get(entity.netId);
+        return buffer != null && buffer.sample(clock.renderTime(localTime), entity.posLerp, entity.dirLookLerp);
+    }
+
+    public synchronized double getDelay() {
+        return clock.getDelay();
+    }
+}
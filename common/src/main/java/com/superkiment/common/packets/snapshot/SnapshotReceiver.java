@@ -0,0 +1,235 @@
+package com.superkiment.common.packets.snapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Côté client : décode les datagrammes de snapshot, applique les états reçus et reconstruit les snapshots complets
+ * qui serviront de baseline au serveur une fois acquittés.
+ * <p>
+ * Utilisé par un seul thread (celui de réception UDP).
+ */
+public class SnapshotReceiver {
+
+    /**
+     * Reçoit l'état d'une entité décodé depuis un snapshot.
+     */
+    public interface Listener {
+        void onEntityState(int netId, double x, double y, double dirX, double dirY);
+
+        /**
+         * Un snapshot vient d'être reçu en entier, avec l'état de toutes les entités répliquées, modifiées ou non.
+         * Celles que le serveur a reportées y sont marquées {@link Snapshot#kept}.
+         * Son contenu ne doit pas être conservé : il est réutilisé {@link #HISTORY_SIZE} snapshots plus tard.
+         */
+        default void onSnapshot(Snapshot snapshot) {
+        }
+    }
+
+    /**
+     * Plus grand que l'historique du serveur, pour que toute baseline qu'il choisit soit encore connue ici.
+     */
+    public static final int HISTORY_SIZE = 32;
+
+    private final Snapshot[] history = new Snapshot[HISTORY_SIZE];
+    private int latestSeq = -1;
+
+    // Snapshot en cours de réception
+    private int pendingSeq = -1;
+    private int pendingTick;
+    private int pendingServerTime;
+    private int pendingInputAck;
+    private Snapshot pendingBaseline;
+    private int pendingPartCount;
+    private int pendingPartsReceived;
+    private final boolean[] partsReceived = new boolean[256];
+    private final Snapshot pendingRecords = new Snapshot(0, 64);
+    private int[] pendingRemoved = new int[16];
+    private int pendingRemovedCount;
+
+    private final BitReader reader = new BitReader();
+
+    /**
+     * Traiter un datagramme de snapshot, positionné juste après l'octet de type.
+     *
+     * @return le numéro du snapshot à acquitter s'il vient d'être reçu en entier, -1 sinon.
+     * @throws IOException si le datagramme est incohérent.
+     */
+    public int receive(ByteBuffer datagram, Listener listener) throws IOException {
+        if (datagram.remaining() < SnapshotCodec.HEADER_SIZE - 1) {
+            throw new IOException("En-tête de snapshot tronqué");
+        }
+        int seq = datagram.getShort() & 0xFFFF;
+        int baselineSeq = datagram.getShort() & 0xFFFF;
+        int flags = datagram.get();
+        boolean hasBaseline = (flags & SnapshotCodec.FLAG_HAS_BASELINE) != 0;
+        int part = datagram.get() & 0xFF;
+        int partCount = datagram.get() & 0xFF;
+        int tick = datagram.getInt();
+        int serverTime = datagram.getInt();
+        int inputAck = datagram.getShort() & 0xFFFF;
+        if ((flags & SnapshotCodec.FLAG_HAS_INPUT_ACK) == 0) inputAck = -1;
+
+        if (partCount == 0 || part >= partCount) throw new IOException("Part de snapshot invalide: " + part + "/" + partCount);
+
+        // Snapshot déjà reçu ou plus ancien que le dernier complet : inutile
+        if (latestSeq != -1 && !Snapshot.isNewer(seq, latestSeq)) return -1;
+
+        if (seq != pendingSeq) {
+            // Une part plus ancienne que le snapshot en cours arrive en retard : on l'ignore
+            if (pendingSeq != -1 && !Snapshot.isNewer(seq, pendingSeq)) return -1;
+
+            Snapshot baseline = null;
+            if (hasBaseline) {
+                baseline = history[baselineSeq % HISTORY_SIZE];
+                // Baseline inconnue ou écrasée : impossible de décoder les deltas
+                if (baseline == null || baseline.seq != baselineSeq) return -1;
+            }
+            startPending(seq, baseline, partCount, tick, serverTime, inputAck);
+        }
+
+        if (partsReceived[part]) return -1;
+
+        decodeRecords(reader.reset(datagram), listener);
+        partsReceived[part] = true;
+        pendingPartsReceived++;
+
+        if (pendingPartsReceived < pendingPartCount) return -1;
+
+        Snapshot complete = assemble();
+        history[seq % HISTORY_SIZE] = complete;
+        latestSeq = seq;
+        pendingSeq = -1;
+        pendingBaseline = null;
+        listener.onSnapshot(complete);
+        return seq;
+    }
+
+    /**
+     * Dernier snapshot reçu en entier, ou null. Son contenu est réutilisé {@link #HISTORY_SIZE} snapshots plus tard.
+     */
+    public Snapshot getLatest() {
+        return latestSeq == -1 ? null : history[latestSeq % HISTORY_SIZE];
+    }
+
+    private void startPending(int seq, Snapshot baseline, int partCount, int tick, int serverTime, int inputAck) {
+        pendingSeq = seq;
+        pendingTick = tick;
+        pendingServerTime = serverTime;
+        pendingInputAck = inputAck;
+        pendingBaseline = baseline;
+        pendingPartCount = partCount;
+        pendingPartsReceived = 0;
+        Arrays.fill(partsReceived, false);
+        pendingRecords.clear();
+        pendingRemovedCount = 0;
+    }
+
+    private void decodeRecords(BitReader in, Listener listener) throws IOException {
+        Snapshot baseline = pendingBaseline;
+        int netId = 0;
+
+        while (in.readBoolean()) {
+            netId += in.readVarUnsigned() + 1;
+            if (netId <= 0 || netId > 0xFFFF) throw new IOException("netId invalide dans le snapshot: " + netId);
+
+            int op = in.readInt(2);
+            switch (op) {
+                case SnapshotCodec.OP_DELTA -> {
+                    int index = baseline == null ? -1 : baseline.indexOf(netId);
+                    if (index < 0) throw new IOException("Delta sans référence pour le netId " + netId);
+
+                    int mask = in.readInt(3);
+                    int x = baseline.x[index], y = baseline.y[index], angle = baseline.angle[index];
+                    if ((mask & SnapshotCodec.CHANGED_X) != 0) x += in.readVarSigned();
+                    if ((mask & SnapshotCodec.CHANGED_Y) != 0) y += in.readVarSigned();
+                    if ((mask & SnapshotCodec.CHANGED_ANGLE) != 0) angle = in.readInt(Quantization.ANGLE_BITS);
+
+                    record(netId, x, y, angle, listener);
+                }
+                case SnapshotCodec.OP_FULL -> {
+                    int x = in.readVarSigned();
+                    int y = in.readVarSigned();
+                    int angle = in.readInt(Quantization.ANGLE_BITS);
+
+                    record(netId, x, y, angle, listener);
+                }
+                case SnapshotCodec.OP_REMOVED -> {
+                    if (pendingRemovedCount == pendingRemoved.length) {
+                        pendingRemoved = Arrays.copyOf(pendingRemoved, pendingRemoved.length * 2);
+                    }
+                    pendingRemoved[pendingRemovedCount++] = netId;
+                }
+                case SnapshotCodec.OP_KEPT -> {
+                    // Rien de nouveau : l'entité garde dans le snapshot l'état de la baseline, comme côté serveur,
+                    // et le client ce qu'il en a reçu de plus récent
+                    int index = baseline == null ? -1 : baseline.indexOf(netId);
+                    if (index < 0) {
+                        pendingRecords.add(netId, 0, 0, 0, true);
+                    } else {
+                        pendingRecords.add(netId, baseline.x[index], baseline.y[index], baseline.angle[index], true);
+                    }
+                }
+                default -> throw new IOException("Opération de snapshot inconnue: " + op);
+            }
+        }
+    }
+
+    private void record(int netId, int x, int y, int angle, Listener listener) {
+        pendingRecords.add(netId, x, y, angle);
+
+        double radians = (double) angle / Quantization.ANGLE_STEPS * 2 * Math.PI;
+        listener.onEntityState(
+                netId,
+                Quantization.dequantizePosition(x),
+                Quantization.dequantizePosition(y),
+                Math.cos(radians),
+                Math.sin(radians)
+        );
+    }
+
+    /**
+     * Snapshot complet = baseline, à laquelle on applique les entrées reçues et retire les entités supprimées.
+     */
+    private Snapshot assemble() {
+        Snapshot baseline = pendingBaseline;
+        Snapshot records = pendingRecords;
+        records.sort();
+        Arrays.sort(pendingRemoved, 0, pendingRemovedCount);
+
+        int baselineSize = baseline == null ? 0 : baseline.size;
+
+        // Le snapshot qui sort de l'historique est réutilisé, sauf s'il est justement la baseline
+        Snapshot complete = history[pendingSeq % HISTORY_SIZE];
+        if (complete == null || complete == baseline) {
+            complete = new Snapshot(pendingSeq, baselineSize + records.size);
+        } else {
+            complete.seq = pendingSeq;
+            complete.clear();
+        }
+        complete.tick = pendingTick;
+        complete.serverTime = pendingServerTime;
+        complete.inputAck = pendingInputAck;
+
+        int b = 0, r = 0, removed = 0;
+        while (b < baselineSize || r < records.size) {
+            int baselineId = b < baselineSize ? baseline.netIds[b] : Integer.MAX_VALUE;
+            int recordId = r < records.size ? records.netIds[r] : Integer.MAX_VALUE;
+
+            if (recordId <= baselineId) {
+                complete.add(recordId, records.x[r], records.y[r], records.angle[r], records.kept[r]);
+                r++;
+                if (recordId == baselineId) b++;
+                continue;
+            }
+
+            while (removed < pendingRemovedCount && pendingRemoved[removed] < baselineId) removed++;
+            if (removed >= pendingRemovedCount || pendingRemoved[removed] != baselineId) {
+                complete.add(baselineId, baseline.x[b], baseline.y[b], baseline.angle[b]);
+            }
+            b++;
+        }
+        return complete;
+    }
+}
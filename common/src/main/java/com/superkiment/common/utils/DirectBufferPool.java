@@ -0,0 +1,59 @@
+package com.superkiment.common.utils;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.List;
+
+/**
+ * Réserve de ByteBuffer directs de taille fixe, réutilisés d'un envoi à l'autre pour ne pas allouer à chaque datagramme.
+ * <p>
+ * Pas thread-safe : chaque thread qui envoie possède sa propre réserve.
+ */
+public class DirectBufferPool {
+
+    private final int bufferSize;
+    private final ArrayDeque<ByteBuffer> free = new ArrayDeque<>();
+    private int created = 0;
+
+    public DirectBufferPool(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * @return un buffer vide (position 0, limit = capacité), créé seulement si la réserve est vide.
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = free.pollLast();
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(bufferSize);
+            created++;
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    public void release(ByteBuffer buffer) {
+        free.addLast(buffer);
+    }
+
+    /**
+     * Rendre tous les buffers de la liste, qui est vidée.
+     */
+    public void releaseAll(List<ByteBuffer> buffers) {
+        for (int i = 0; i < buffers.size(); i++) {
+            free.addLast(buffers.get(i));
+        }
+        buffers.clear();
+    }
+
+    public int bufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Nombre de buffers créés depuis le début : se stabilise une fois la réserve chaude.
+     */
+    public int created() {
+        return created;
+    }
+}
@@ -0,0 +1,119 @@
+package com.superkiment.common.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * File bornée sans verrou, plusieurs producteurs / un seul consommateur (algorithme de D. Vyukov).
+ * <p>
+ * Chaque case porte un numéro de séquence qui indique si elle est libre pour le producteur du tour courant
+ * ou prête pour le consommateur : les producteurs ne se disputent que l'index d'écriture, jamais un verrou.
+ * {@link #offer(Object)} peut être appelé depuis n'importe quel thread, {@link #poll()} et {@link #peek()}
+ * uniquement depuis le thread consommateur.
+ *
+ * @param <E> le type des éléments
+ */
+public class MpscArrayQueue<E> {
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences;
+
+    private final AtomicLong producerIndex = new AtomicLong();
+    private final AtomicLong consumerIndex = new AtomicLong();
+
+    /**
+     * @param capacity nombre maximal d'éléments, arrondi à la puissance de 2 supérieure.
+     */
+    public MpscArrayQueue(int capacity) {
+        if (capacity < 2) throw new IllegalArgumentException("Capacité trop petite: " + capacity);
+
+        this.capacity = Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = this.capacity - 1;
+        this.elements = new AtomicReferenceArray<>(this.capacity);
+        this.sequences = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Ajouter un élément à la fin de la file.
+     *
+     * @return false si la file est pleine, l'élément n'est alors pas ajouté.
+     */
+    public boolean offer(E element) {
+        if (element == null) throw new NullPointerException();
+
+        while (true) {
+            long index = producerIndex.get();
+            int slot = (int) index & mask;
+            long sequence = sequences.get(slot);
+
+            if (sequence == index) {
+                // La case est libre pour ce tour : on la réserve
+                if (producerIndex.compareAndSet(index, index + 1)) {
+                    elements.lazySet(slot, element);
+                    sequences.set(slot, index + 1);
+                    return true;
+                }
+            } else if (sequence < index) {
+                // La case n'a pas encore été consommée depuis le tour précédent : file pleine
+                return false;
+            }
+            // Sinon un autre producteur vient de réserver la case, on réessaie avec le nouvel index
+        }
+    }
+
+    /**
+     * Retirer le premier élément. Consommateur uniquement.
+     *
+     * @return null si la file est vide ou si le prochain élément est encore en cours de publication.
+     */
+    public E poll() {
+        long index = consumerIndex.get();
+        int slot = (int) index & mask;
+        if (sequences.get(slot) != index + 1) return null;
+
+        E element = elements.get(slot);
+        elements.lazySet(slot, null);
+        sequences.set(slot, index + capacity);
+        consumerIndex.lazySet(index + 1);
+        return element;
+    }
+
+    /**
+     * Lire le premier élément sans le retirer. Consommateur uniquement.
+     */
+    public E peek() {
+        long index = consumerIndex.get();
+        int slot = (int) index & mask;
+        if (sequences.get(slot) != index + 1) return null;
+        return elements.get(slot);
+    }
+
+    /**
+     * Vider la file. Consommateur uniquement.
+     */
+    public void clear() {
+        while (poll() != null) ;
+    }
+
+    /**
+     * Nombre approximatif d'éléments : exact pour le consommateur, indicatif pour les autres threads.
+     */
+    public int size() {
+        long size = producerIndex.get() - consumerIndex.get();
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,184 @@
+package com.superkiment.common.utils;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Table d'éléments désignés par des poignées entières : un tableau dense pour le parcours, et des cases qui le référencent
+ * pour l'accès par poignée, sans hachage ni boxing.
+ * <p>
+ * Une poignée réunit le numéro de la case (32 bits du bas) et sa génération (32 bits du haut), incrémentée à chaque
+ * fois que la case est libérée : une poignée gardée après un retrait ne désigne jamais l'élément qui reprend la case.
+ * Ajout, retrait et accès sont en O(1) : le retrait place le dernier élément dans le trou, le tableau reste compact.
+ * <p>
+ * Le parcours va du dernier élément au premier : le thread qui modifie la table peut, pendant son parcours, retirer
+ * l'élément courant ou un élément déjà vu sans en manquer aucun, le dernier élément qui prend sa place ayant déjà été vu.
+ * Les éléments ajoutés pendant le parcours n'en font pas partie.
+ * <p>
+ * Un seul thread modifie la table. Un autre peut la parcourir en même temps : il voit alors chaque élément présent
+ * pendant tout son parcours, mais peut manquer ou voir deux fois un élément déplacé par un retrait concurrent.
+ *
+ * @param <T> le type des éléments
+ */
+public class SlotMap<T> implements Iterable<T> {
+
+    /**
+     * Poignée qui ne désigne jamais rien.
+     */
+    public static final long NONE = 0;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    // Éléments et case de chacun, dans l'ordre de parcours
+    private volatile Object[] values = new Object[INITIAL_CAPACITY];
+    private int[] valueSlots = new int[INITIAL_CAPACITY];
+    private volatile int size = 0;
+
+    // Par case : position de l'élément dans le tableau dense, ou case libre suivante ; génération courante
+    private int[] slotIndex = new int[INITIAL_CAPACITY];
+    private int[] generations = new int[INITIAL_CAPACITY];
+    private int slotCount = 0;
+    private int freeHead = -1;
+
+    /**
+     * Ajouter un élément.
+     *
+     * @return sa poignée, jamais {@link #NONE}.
+     */
+    public long insert(T value) {
+        if (value == null) throw new NullPointerException();
+
+        int slot;
+        if (freeHead >= 0) {
+            slot = freeHead;
+            freeHead = slotIndex[slot];
+        } else {
+            if (slotCount == slotIndex.length) {
+                slotIndex = Arrays.copyOf(slotIndex, slotCount * 2);
+                generations = Arrays.copyOf(generations, slotCount * 2);
+            }
+            slot = slotCount++;
+            generations[slot] = 1;
+        }
+
+        int index = size;
+        Object[] dense = values;
+        if (index == dense.length) {
+            // Publié après la copie : un parcours concurrent garde l'ancien tableau, complet
+            dense = Arrays.copyOf(dense, index * 2);
+            valueSlots = Arrays.copyOf(valueSlots, index * 2);
+            values = dense;
+        }
+        dense[index] = value;
+        valueSlots[index] = slot;
+        slotIndex[slot] = index;
+        size = index + 1;
+
+        return handle(slot, generations[slot]);
+    }
+
+    /**
+     * @return l'élément de la poignée, ou null s'il a été retiré.
+     */
+    @SuppressWarnings("unchecked")
+    public T get(long handle) {
+        int slot = (int) handle;
+        if (slot < 0 || slot >= slotCount || generations[slot] != (int) (handle >>> 32)) return null;
+        return (T) values[slotIndex[slot]];
+    }
+
+    public boolean contains(long handle) {
+        return get(handle) != null;
+    }
+
+    /**
+     * Retirer l'élément de la poignée : le dernier élément prend sa place.
+     *
+     * @return l'élément retiré, ou null s'il l'était déjà.
+     */
+    @SuppressWarnings("unchecked")
+    public T remove(long handle) {
+        T value = get(handle);
+        if (value == null) return null;
+
+        int slot = (int) handle;
+        int index = slotIndex[slot];
+        int last = size - 1;
+        Object[] dense = values;
+
+        dense[index] = dense[last];
+        valueSlots[index] = valueSlots[last];
+        slotIndex[valueSlots[index]] = index;
+        dense[last] = null;
+        size = last;
+
+        // Une génération à 0 rendrait la poignée égale à NONE pour la case 0
+        int generation = generations[slot] + 1;
+        generations[slot] = generation == 0 ? 1 : generation;
+        slotIndex[slot] = freeHead;
+        freeHead = slot;
+        return value;
+    }
+
+    /**
+     * L'élément à la position {@code index} du parcours, de 0 à {@link #size()} exclus.
+     */
+    @SuppressWarnings("unchecked")
+    public T at(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index);
+        return (T) values[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Tout retirer : les poignées distribuées jusque-là ne désignent plus rien.
+     */
+    public void clear() {
+        while (size > 0) remove(handle(valueSlots[size - 1], generations[valueSlots[size - 1]]));
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<>() {
+            private final Object[] dense = values;
+            private int index = Math.min(size, dense.length);
+            private Object next = advance();
+
+            private Object advance() {
+                // Des retraits ont pu raccourcir la table depuis l'élément précédent
+                index = Math.min(index, Math.min(size, dense.length));
+                while (index > 0) {
+                    Object value = dense[--index];
+                    if (value != null) return value;
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public T next() {
+                if (next == null) throw new NoSuchElementException();
+                T value = (T) next;
+                next = advance();
+                return value;
+            }
+        };
+    }
+
+    private static long handle(int slot, int generation) {
+        return ((long) generation << 32) | (slot & 0xFFFFFFFFL);
+    }
+}
@@ -69,4 +69,16 @@ public class BlocksManagerTest {
         }
         assertEquals(20, manager.getBlocks().size(), "20 blocs à positions distinctes doivent tous être présents");
     }
+
+    // ─────────────────────── addBlocks ───────────────────────────────────
+
+    @Test
+    void addBlocks_skipsOccupiedAndDuplicates() {
+        manager.addBlock(new Vector2d(1, 1));
+
+        int added = manager.addBlocks(new int[]{0, 1, 2, 2, 9}, new int[]{0, 1, -3, -3, 9}, 4);
+        assertEquals(2, added, "La case déjà occupée et le doublon doivent être ignorés, le 5e bloc est hors du compte");
+        assertEquals(3, manager.getBlocks().size());
+        assertFalse(manager.addBlock(new Vector2d(2, -3)), "Une case remplie en lot doit être occupée");
+    }
 }
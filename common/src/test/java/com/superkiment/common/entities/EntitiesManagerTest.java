@@ -19,7 +19,7 @@ public class EntitiesManagerTest {
 
     @Test
     void addEntity_increasesCount() {
-        assertTrue(manager.getEntities().isEmpty(), "Map doit être vide au départ");
+        assertTrue(manager.getEntities().isEmpty(), "La table doit être vide au départ");
 
         manager.addEntity(new Entity(new Vector2d(0, 0)));
         assertEquals(1, manager.getEntities().size());
@@ -87,7 +87,7 @@ public class EntitiesManagerTest {
         assertDoesNotThrow(() -> manager.deleteAllEntitiesToBeDeleted());
     }
 
-    // ──────────────────── Cohérence de la map ─────────────────────────────
+    // ──────────────────── Cohérence de la table ───────────────────────────
 
     @Test
     void addEntity_idUsedAsKey() {
@@ -95,17 +95,105 @@ public class EntitiesManagerTest {
         String id = e.id;
         manager.addEntity(e);
 
-        assertTrue(manager.getEntities().containsKey(id),
-                "La map doit utiliser l'id de l'entité comme clé");
+        assertSame(e, manager.getEntityFromID(id),
+                "L'entité doit être retrouvée par son id");
     }
 
     @Test
     void entities_addedTwice_onlyStoredOnce() {
-        // Un même id ne doit pas être dupliqué (ConcurrentHashMap replace)
+        // Un même id ne doit pas être dupliqué
         Entity e = new Entity();
         manager.addEntity(e);
         manager.addEntity(e); // Doublon
         assertEquals(1, manager.getEntities().size(),
                 "Ajouter deux fois la même entité ne doit pas dupliquer");
     }
+
+    // ──────────────────── netId ───────────────────────────────────────────
+
+    @Test
+    void addEntity_withNetId_isIndexed() {
+        Entity e = new Entity();
+        e.netId = 1000;
+        manager.addEntity(e);
+
+        assertSame(e, manager.getEntityFromNetId(1000), "L'entité doit être retrouvée par son netId");
+        assertNull(manager.getEntityFromNetId(999), "Un netId inconnu doit retourner null");
+        assertNull(manager.getEntityFromNetId(0), "0 signifie pas de netId");
+    }
+
+    @Test
+    void bindNetId_existingEntity_isIndexed() {
+        Entity e = new Entity();
+        manager.addEntity(e);
+        assertEquals(0, e.netId, "Pas de netId avant que le serveur ne l'attribue");
+
+        manager.bindNetId(e, 42);
+        assertEquals(42, e.netId);
+        assertSame(e, manager.getEntityFromNetId(42));
+
+        manager.bindNetId(e, 43);
+        assertNull(manager.getEntityFromNetId(42), "L'ancien netId doit être libéré");
+        assertSame(e, manager.getEntityFromNetId(43));
+    }
+
+    @Test
+    void removeEntity_clearsNetIdIndex() {
+        Entity e = new Entity();
+        e.netId = 5;
+        manager.addEntity(e);
+
+        assertSame(e, manager.removeEntity(e.id));
+        assertNull(manager.getEntityFromNetId(5), "Le netId ne doit plus pointer vers l'entité retirée");
+        assertNull(manager.removeEntity(e.id), "Retirer deux fois retourne null");
+    }
+
+    // ──────────────────── Poignées ────────────────────────────────────────
+
+    @Test
+    void addEntity_assignsHandle() {
+        Entity e = new Entity();
+        manager.addEntity(e);
+
+        assertNotEquals(0L, e.handle, "L'entité doit recevoir une poignée");
+        assertSame(e, manager.getEntity(e.handle));
+    }
+
+    @Test
+    void removeEntity_invalidatesHandle() {
+        Entity e = new Entity();
+        manager.addEntity(e);
+        long handle = e.handle;
+
+        manager.removeEntity(e.id);
+        manager.addEntity(new Entity());
+        assertNull(manager.getEntity(handle), "La poignée d'une entité retirée ne doit désigner aucune autre entité");
+        assertEquals(0L, e.handle);
+    }
+
+    @Test
+    void addEntity_sameIdReplacesPrevious() {
+        Entity first = new Entity();
+        Entity second = new Entity();
+        second.id = first.id;
+        manager.addEntity(first);
+        manager.addEntity(second);
+
+        assertEquals(1, manager.getEntities().size());
+        assertSame(second, manager.getEntityFromID(first.id));
+        assertNull(manager.getEntity(first.handle), "L'entité remplacée ne doit plus être dans la table");
+    }
+
+    @Test
+    void clear_removesEverything() {
+        Entity e = new Entity();
+        e.netId = 7;
+        manager.addEntity(e);
+        manager.addEntity(new Entity());
+
+        manager.clear();
+        assertTrue(manager.getEntities().isEmpty());
+        assertNull(manager.getEntityFromID(e.id));
+        assertNull(manager.getEntityFromNetId(7));
+    }
 }
@@ -1,6 +1,7 @@
 package com.superkiment.common.entities;
 
 import com.superkiment.common.Time;
+import com.superkiment.common.packets.entity.PacketEntityPatch;
 import org.joml.Vector2d;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -113,6 +114,43 @@ public class EntityTest {
         assertFalse(entity.dirtyPosition, "dirtyPosition doit être false par défaut");
     }
 
+    // ───────────────────── Champs répliqués ────────────────────────────────
+
+    @Test
+    void projectileHit_marksOnlyHp() {
+        Player player = new Player(new Vector2d(0, 0));
+        new Projectile(new Vector2d(0, 0), new Vector2d(0, 1)) {
+            @Override
+            public void deleteSelf() {
+            }
+        }.onCollision(player);
+
+        assertEquals(90f, player.hp, 1e-6f);
+        assertEquals(EntityReplication.HP, player.dirtyFields, "Seuls les hp doivent être à renvoyer");
+    }
+
+    @Test
+    void applyPatch_changesOnlyPatchedFields_keepsPosInstance() {
+        Player source = new Player(new Vector2d(0, 0));
+        source.hp = 25;
+        source.name = "Changé";
+
+        Player target = new Player(new Vector2d(5, 6));
+        Vector2d pos = target.pos;
+        EntityReplication.apply(new PacketEntityPatch(source, EntityReplication.HP), target);
+
+        assertEquals(25f, target.hp, 1e-6f);
+        assertEquals("NoName", target.name, "Le nom n'était pas dans le patch");
+        assertSame(pos, target.pos, "La position ne doit pas être réallouée");
+        assertEquals(5, target.pos.x, 1e-9);
+    }
+
+    @Test
+    void fieldsOf_projectileReplicatesLess() {
+        assertEquals(EntityReplication.ALL, EntityReplication.fieldsOf(new Player(new Vector2d())));
+        assertEquals(EntityReplication.SHAPE_TEXTS, EntityReplication.fieldsOf(new Projectile(new Vector2d(), new Vector2d(0, 1))));
+    }
+
     // ───────────────────── Mouvement avec input ────────────────────────────
 
     @Test
@@ -0,0 +1,86 @@
+package com.superkiment.common.packets.codec;
+
+import com.superkiment.common.entities.Player;
+import com.superkiment.common.entities.Projectile;
+import com.superkiment.common.packets.*;
+import com.superkiment.common.packets.entity.PacketCreateEntityPlayer;
+import com.superkiment.common.packets.entity.PacketCreateEntityProjectile;
+import com.superkiment.common.packets.entity.PacketUpdateEntity;
+import org.joml.Vector2d;
+
+import java.util.UUID;
+
+/**
+ * Comparaison taille / débit entre le codec binaire et {@link PacketSerializer#serialize(Packet)}.
+ * <p>
+ * Lancer avec : java -cp ... com.superkiment.common.packets.codec.PacketCodecsBenchmark [itérations]
+ */
+public class PacketCodecsBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+
+        Player player = new Player(new Vector2d(100, 200));
+        player.name = "Alice";
+        Projectile projectile = new Projectile(new Vector2d(5, 6), new Vector2d(0, 1));
+        projectile.addCollisionException(player);
+
+        Packet[] packets = {
+                new PacketPlayerJoin(UUID.randomUUID().toString(), "Alice"),
+                new PacketHeartbeat(UUID.randomUUID().toString(), System.currentTimeMillis()),
+                new PacketCreateBlock(new Vector2d(1, 2)),
+                new PacketCreateEntityPlayer(player),
+                new PacketCreateEntityProjectile(projectile),
+                new PacketUpdateEntity(player),
+        };
+
+        System.out.println(String.format("%-30s %10s %10s %16s %16s", "packet", "java (o)", "binaire (o)", "java (k/s)", "binaire (k/s)"));
+
+        for (Packet packet : packets) {
+            int javaSize = PacketSerializer.serialize(packet).length;
+            int binarySize = PacketCodecs.encode(packet).length;
+
+            // Préchauffage du JIT
+            measureJava(packet, iterations / 10);
+            measureBinary(packet, iterations / 10);
+
+            double javaRate = measureJava(packet, iterations);
+            double binaryRate = measureBinary(packet, iterations);
+
+            System.out.println(String.format("%-30s %10d %10d %16.0f %16.0f",
+                    packet.getClass().getSimpleName(), javaSize, binarySize, javaRate / 1000, binaryRate / 1000));
+        }
+    }
+
+    /**
+     * @return le nombre d'encodages + décodages par seconde avec la sérialisation Java.
+     */
+    private static double measureJava(Packet packet, int iterations) throws Exception {
+        long start = System.nanoTime();
+        int sink = 0;
+        for (int i = 0; i < iterations; i++) {
+            byte[] bytes = PacketSerializer.serialize(packet);
+            sink += PacketSerializer.deserialize(bytes).getType().ordinal();
+        }
+        return rate(iterations, start, sink);
+    }
+
+    /**
+     * @return le nombre d'encodages + décodages par seconde avec le codec binaire.
+     */
+    private static double measureBinary(Packet packet, int iterations) throws Exception {
+        long start = System.nanoTime();
+        int sink = 0;
+        for (int i = 0; i < iterations; i++) {
+            byte[] bytes = PacketCodecs.encode(packet);
+            sink += PacketCodecs.decode(bytes).getType().ordinal();
+        }
+        return rate(iterations, start, sink);
+    }
+
+    private static double rate(int iterations, long start, int sink) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        if (sink == -1) System.out.println();
+        return iterations / seconds;
+    }
+}
@@ -0,0 +1,284 @@
+package com.superkiment.common.packets.codec;
+
+import com.superkiment.common.entities.EntityReplication;
+import com.superkiment.common.entities.Player;
+import com.superkiment.common.entities.Projectile;
+import com.superkiment.common.packets.*;
+import com.superkiment.common.packets.entity.*;
+import org.joml.Vector2d;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests du codec binaire TCP : roundtrip de chaque type de packet, frames et données corrompues.
+ */
+public class PacketCodecsTest {
+
+    private static <T extends Packet> T roundtrip(T packet) throws IOException {
+        byte[] bytes = PacketCodecs.encode(packet);
+        assertEquals(packet.getType().ordinal(), bytes[0], "Le premier octet doit être le type du packet");
+
+        @SuppressWarnings("unchecked")
+        T result = (T) PacketCodecs.decode(bytes);
+        assertEquals(packet.getClass(), result.getClass(), "La classe du packet doit survivre");
+        return result;
+    }
+
+    // ─────────────────────── Roundtrips ──────────────────────────────────
+
+    @Test
+    void playerJoin_roundtrip() throws IOException {
+        PacketPlayerJoin result = roundtrip(new PacketPlayerJoin("uuid-42", "Alice"));
+
+        assertEquals("uuid-42", result.playerId);
+        assertEquals("Alice", result.playerName);
+    }
+
+    @Test
+    void heartbeat_roundtrip() throws IOException {
+        String id = UUID.randomUUID().toString();
+        PacketHeartbeat result = roundtrip(new PacketHeartbeat(id, 123456789L));
+
+        assertEquals(id, result.playerId, "Un UUID canonique doit survivre à l'encodage compact");
+        assertEquals(123456789L, result.timestamp);
+    }
+
+    @Test
+    void udpSession_roundtrip() throws IOException {
+        PacketUdpSession result = roundtrip(new PacketUdpSession(65535, -8_000_000_000_000_000_123L));
+
+        assertEquals(65535, result.sessionId, "L'identifiant de session est non signé");
+        assertEquals(-8_000_000_000_000_000_123L, result.token);
+    }
+
+    @Test
+    void zoneRedirect_roundtrip() throws IOException {
+        PacketZoneRedirect result = roundtrip(new PacketZoneRedirect("127.0.0.1", 56211, 56212, -42L));
+
+        assertEquals("127.0.0.1", result.host);
+        assertEquals(56211, result.tcpPort, "Les ports sont non signés");
+        assertEquals(56212, result.udpPort);
+        assertEquals(-42L, result.ticket);
+    }
+
+    @Test
+    void zoneJoin_roundtrip() throws IOException {
+        String id = UUID.randomUUID().toString();
+        PacketZoneJoin result = roundtrip(new PacketZoneJoin(id, "Alice", 7L));
+
+        assertEquals(id, result.playerId);
+        assertEquals("Alice", result.playerName);
+        assertEquals(7L, result.ticket);
+    }
+
+    @Test
+    void createBlock_roundtrip() throws IOException {
+        PacketCreateBlock result = roundtrip(new PacketCreateBlock(new Vector2d(3, -7)));
+
+        assertEquals(3, result.posX, 1e-9);
+        assertEquals(-7, result.posY, 1e-9);
+    }
+
+    @Test
+    void deleteEntity_roundtrip() throws IOException {
+        PacketDeleteEntity result = roundtrip(new PacketDeleteEntity("entity-1"));
+        assertEquals("entity-1", result.entityId);
+    }
+
+    @Test
+    void createPlayer_roundtrip() throws IOException {
+        Player player = new Player(new Vector2d(100, 200));
+        player.name = "Joueur Élan";
+        player.hp = 42.5f;
+        player.netId = 513;
+        player.shapeModel.shapes.get(0).text = "Bonjour";
+
+        PacketCreateEntityPlayer result = roundtrip(new PacketCreateEntityPlayer(player));
+
+        assertEquals(player.id, result.entityId);
+        assertEquals(513, result.netId, "Le netId doit survivre");
+        assertEquals("Joueur Élan", result.entityName, "Les caractères UTF-8 doivent survivre");
+        assertEquals(100, result.posX, 1e-9);
+        assertEquals(200, result.posY, 1e-9);
+        assertEquals(42.5f, result.hp, 1e-6f);
+        assertEquals(Packet.PacketType.CREATE_ENTITY, result.getType());
+        assertArrayEquals(new PacketCreateEntityPlayer(player).shapesTexts, result.shapesTexts,
+                "Les textes des formes (y compris null) doivent survivre");
+    }
+
+    @Test
+    void createProjectile_roundtrip_keepsTrajectoryAndExceptions() throws IOException {
+        Player owner = new Player(new Vector2d(0, 0));
+        Projectile projectile = new Projectile(new Vector2d(5, 6), new Vector2d(0, 1));
+        projectile.addCollisionException(owner);
+
+        PacketCreateEntityProjectile result = roundtrip(new PacketCreateEntityProjectile(projectile));
+
+        assertEquals(projectile.id, result.entityId);
+        assertEquals(0, result.trajX, 1e-9);
+        assertEquals(1, result.trajY, 1e-9);
+        assertArrayEquals(new String[]{owner.id}, result.exceptions);
+    }
+
+    @Test
+    void updateEntity_roundtrip() throws IOException {
+        Player player = new Player(new Vector2d(9, 8));
+        player.hp = 10;
+
+        PacketUpdateEntity result = roundtrip(new PacketUpdateEntity(player));
+        assertEquals(player.id, result.entityId);
+        assertEquals(10f, result.hp, 1e-6f);
+        assertEquals(Packet.PacketType.UPDATE_ENTITY, result.getType());
+    }
+
+    @Test
+    void entityPatch_roundtrip_onlyMarkedFields() throws IOException {
+        Player player = new Player(new Vector2d(9, 8));
+        player.netId = 321;
+        player.hp = 40;
+        player.name = "Alice";
+
+        PacketEntityPatch result = roundtrip(new PacketEntityPatch(player, EntityReplication.HP));
+        assertEquals(321, result.netId);
+        assertEquals(EntityReplication.HP, result.fields);
+        assertEquals(40f, result.hp, 1e-6f);
+        assertNull(result.name, "Un champ non marqué n'est pas envoyé");
+        assertNull(result.shapesTexts);
+
+        PacketEntityPatch all = roundtrip(new PacketEntityPatch(player, EntityReplication.ALL));
+        assertEquals("Alice", all.name);
+        assertEquals(player.shapeModel.shapes.size(), all.shapesTexts.length);
+    }
+
+    @Test
+    void entityPatch_hpOnly_muchSmallerThanFullUpdate() {
+        Player player = new Player(new Vector2d(9, 8));
+        player.netId = 321;
+
+        int patch = PacketCodecs.encode(new PacketEntityPatch(player, EntityReplication.HP)).length;
+        int full = PacketCodecs.encode(new PacketUpdateEntity(player)).length;
+        assertEquals(1 + 2 + 1 + 4, patch, "Type, netId, champs et hp");
+        assertTrue(patch * 4 < full, patch + " octets contre " + full + " pour la mise à jour complète");
+    }
+
+    @Test
+    void entityPatch_unknownFields_throws() {
+        byte[] bytes = PacketCodecs.encode(new PacketEntityPatch(new Player(new Vector2d()), 0));
+        bytes[3] = (byte) 0x80;
+        assertThrows(IOException.class, () -> PacketCodecs.decode(bytes));
+    }
+
+    @Test
+    void worldChunk_roundtrip_rawAndDeflated() throws IOException {
+        int count = 600;
+        int[] xs = new int[count + 1];
+        int[] ys = new int[count + 1];
+        for (int i = 0; i < count; i++) {
+            xs[i] = i % 30 - 15;
+            ys[i] = i / 30 - 7;
+        }
+
+        PacketWorldChunk raw = new PacketWorldChunk(2, 5, xs, ys, count);
+        raw.deflate = false;
+        PacketWorldChunk deflated = new PacketWorldChunk(2, 5, xs, ys, count);
+
+        for (PacketWorldChunk packet : new PacketWorldChunk[]{raw, deflated}) {
+            PacketWorldChunk result = roundtrip(packet);
+            assertEquals(2, result.chunkIndex);
+            assertEquals(5, result.chunkCount);
+            assertEquals(count, result.count, "Seuls les count premiers blocs doivent être écrits");
+            assertArrayEquals(Arrays.copyOf(xs, count), result.blockX);
+            assertArrayEquals(Arrays.copyOf(ys, count), result.blockY);
+        }
+
+        int rawSize = PacketCodecs.encode(raw).length;
+        int deflatedSize = PacketCodecs.encode(deflated).length;
+        assertTrue(rawSize <= 3 + 4 * count, "Des blocs voisins doivent tenir sur peu d'octets, reçu " + rawSize);
+        assertTrue(deflatedSize * 2 < rawSize, "Une grille régulière doit bien se compresser : " + deflatedSize + " contre " + rawSize);
+    }
+
+    @Test
+    void worldChunk_corruptedDeflate_throws() {
+        int[] xs = new int[400];
+        int[] ys = new int[400];
+        for (int i = 0; i < xs.length; i++) xs[i] = i;
+
+        byte[] bytes = PacketCodecs.encode(new PacketWorldChunk(0, 1, xs, ys, xs.length));
+        for (int i = bytes.length - 8; i < bytes.length; i++) bytes[i] ^= 0x5A;
+
+        assertThrows(IOException.class, () -> PacketCodecs.decode(bytes));
+    }
+
+    // ─────────────────────── Frames ──────────────────────────────────────
+
+    @Test
+    void encodeFrame_prefixesLength() throws IOException {
+        PacketPlayerJoin packet = new PacketPlayerJoin("a", "A");
+        byte[] frame = PacketCodecs.encodeFrame(packet);
+        byte[] body = PacketCodecs.encode(packet);
+
+        ByteBuffer buffer = ByteBuffer.wrap(frame);
+        assertEquals(body.length, buffer.getInt(), "L'en-tête doit contenir la taille du packet");
+        assertArrayEquals(body, Arrays.copyOfRange(frame, PacketCodecs.FRAME_HEADER_SIZE, frame.length));
+        assertInstanceOf(PacketPlayerJoin.class, PacketCodecs.decode(buffer));
+    }
+
+    @Test
+    void writer_severalFrames_areDecodedInOrder() throws IOException {
+        PacketWriter out = new PacketWriter(8);
+        PacketCodecs.writeFrame(new PacketDeleteEntity("x"), out);
+        PacketCodecs.writeFrame(new PacketHeartbeat("y", 1L), out);
+
+        ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+        int first = buffer.getInt();
+        ByteBuffer firstFrame = buffer.duplicate();
+        firstFrame.limit(buffer.position() + first);
+        assertInstanceOf(PacketDeleteEntity.class, PacketCodecs.decode(firstFrame));
+
+        buffer.position(buffer.position() + first);
+        buffer.getInt();
+        assertInstanceOf(PacketHeartbeat.class, PacketCodecs.decode(buffer));
+    }
+
+    // ─────────────────────── Données invalides ───────────────────────────
+
+    @Test
+    void decode_unknownType_throws() {
+        assertThrows(IOException.class, () -> PacketCodecs.decode(new byte[]{(byte) 200}));
+    }
+
+    @Test
+    void decode_truncatedPacket_throws() {
+        byte[] bytes = PacketCodecs.encode(new PacketPlayerJoin("uuid-42", "Alice"));
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length - 2);
+
+        assertThrows(IOException.class, () -> PacketCodecs.decode(truncated));
+    }
+
+    // ─────────────────────── Taille ──────────────────────────────────────
+
+    @Test
+    void binary_isSmallerThanJavaSerialization() throws IOException {
+        Player player = new Player(new Vector2d(100, 200));
+        Packet[] packets = {
+                new PacketPlayerJoin(UUID.randomUUID().toString(), "Alice"),
+                new PacketHeartbeat(UUID.randomUUID().toString(), System.currentTimeMillis()),
+                new PacketCreateBlock(new Vector2d(1, 2)),
+                new PacketCreateEntityPlayer(player),
+                new PacketUpdateEntity(player),
+        };
+
+        for (Packet packet : packets) {
+            int binary = PacketCodecs.encode(packet).length;
+            int java = PacketSerializer.serialize(packet).length;
+            assertTrue(binary * 4 < java,
+                    packet.getType() + " : " + binary + " octets en binaire contre " + java + " en sérialisation Java");
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.superkiment.common.packets.codec;
+
+import com.superkiment.common.packets.PacketHeartbeat;
+import com.superkiment.common.packets.PacketPlayerJoin;
+import com.superkiment.common.packets.reliable.ReliableChannel;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests des frames partagées : mêmes octets que l'encodage classique, comptage des références et réutilisation des buffers.
+ */
+public class SharedFrameTest {
+
+    @Test
+    void encode_matchesPacketCodecs() {
+        SharedFrame.Pool pool = new SharedFrame.Pool(16);
+        PacketPlayerJoin packet = new PacketPlayerJoin("uuid-1", "Alice");
+
+        SharedFrame message = pool.encode(packet);
+        SharedFrame frame = pool.encodeFrame(packet);
+
+        assertArrayEquals(PacketCodecs.encode(packet), Arrays.copyOf(message.array(), message.length()));
+        assertArrayEquals(PacketCodecs.encodeFrame(packet), Arrays.copyOf(frame.array(), frame.length()));
+    }
+
+    @Test
+    void lastRelease_returnsBufferToPool_andIsReused() throws IOException {
+        SharedFrame.Pool pool = new SharedFrame.Pool(16);
+        SharedFrame frame = pool.encode(new PacketHeartbeat("a", 1));
+
+        // Deux files gardent le frame, puis l'appelant rend sa référence
+        frame.retain();
+        frame.retain();
+        frame.release();
+        assertEquals(0, pool.available(), "Le frame est encore référencé par les files");
+
+        frame.release();
+        frame.release();
+        assertEquals(1, pool.available(), "Le dernier release rend le buffer au pool");
+
+        SharedFrame reused = pool.encode(new PacketHeartbeat("b", 2));
+        assertSame(frame, reused, "Le buffer libéré doit servir au packet suivant");
+        assertEquals(1, reused.references());
+        PacketHeartbeat decoded = (PacketHeartbeat) PacketCodecs.decode(ByteBuffer.wrap(reused.array(), 0, reused.length()));
+        assertEquals(2, decoded.timestamp, "Le contenu doit être celui du nouveau packet");
+    }
+
+    @Test
+    void releasedTooManyTimes_throws() {
+        SharedFrame frame = SharedFrame.wrap(new byte[]{1, 2, 3});
+        frame.release();
+        assertThrows(IllegalStateException.class, frame::release);
+        assertThrows(IllegalStateException.class, frame::retain);
+    }
+
+    @Test
+    void reliableChannels_shareOneFrame_releasedAfterEveryAck() {
+        SharedFrame.Pool pool = new SharedFrame.Pool(16);
+        SharedFrame message = pool.encode(new PacketPlayerJoin("uuid-1", "Alice"));
+
+        ReliableChannel[] servers = new ReliableChannel[3];
+        ReliableChannel[] clients = new ReliableChannel[3];
+        for (int i = 0; i < servers.length; i++) {
+            servers[i] = new ReliableChannel(512);
+            clients[i] = new ReliableChannel(512);
+            assertTrue(servers[i].send(ReliableChannel.ORDERED, message));
+        }
+        message.release();
+        assertEquals(3, message.references(), "Chaque canal garde sa référence jusqu'à l'acquittement");
+
+        for (int i = 0; i < servers.length; i++) {
+            ByteBuffer datagram = ByteBuffer.allocate(512);
+            assertTrue(servers[i].writeDatagram(datagram, 0));
+            clients[i].receive(datagram.flip(), 0, (m, c) -> {
+            });
+
+            ByteBuffer ack = ByteBuffer.allocate(512);
+            assertTrue(clients[i].writeDatagram(ack, 10));
+            servers[i].receive(ack.flip(), 10, (m, c) -> fail("Le client n'envoie rien"));
+        }
+
+        assertEquals(0, message.references());
+        assertEquals(1, pool.available(), "Le message acquitté par tous les clients revient au pool");
+    }
+}
@@ -0,0 +1,193 @@
+package com.superkiment.common.packets.input;
+
+import com.superkiment.common.entities.Entity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de la prédiction du joueur local : réconciliation avec le serveur et encodage des commandes.
+ */
+public class ClientPredictionTest {
+
+    private ClientPrediction prediction;
+    private Entity player;
+    private ClientPrediction.Step step;
+    private int replayed;
+
+    @BeforeEach
+    void setUp() {
+        prediction = new ClientPrediction();
+        player = new Entity();
+        player.pos.set(0, 0);
+        replayed = 0;
+        // Pas de simulation simple : 10 unités par commande et par axe
+        step = input -> {
+            player.pos.add(input.moveX * 10, input.moveY * 10);
+            replayed++;
+        };
+    }
+
+    /**
+     * Simule {@code count} commandes vers la droite, comme le fait le client à chaque pas fixe.
+     */
+    private void predictRight(int count) {
+        for (int i = 0; i < count; i++) {
+            PlayerInput input = prediction.next(1, 0);
+            step.apply(input);
+            prediction.recordPredicted(input, player.pos);
+        }
+        replayed = 0;
+    }
+
+    // ─────────────────────── Réconciliation ──────────────────────────────
+
+    @Test
+    void serverAgrees_noCorrection() {
+        predictRight(5);
+
+        // Le serveur a traité les commandes 0 à 2 : le joueur est à x = 30, comme prédit
+        prediction.offerAuthoritative(2, 30, 0);
+
+        assertFalse(prediction.reconcile(player, step));
+        assertEquals(50, player.pos.x, 1e-9, "La prédiction ne doit pas bouger quand le serveur est d'accord");
+        assertEquals(0, replayed);
+        assertEquals(2, prediction.pendingCount(), "Les commandes acquittées ne sont plus en attente");
+    }
+
+    @Test
+    void serverDisagrees_rewindsAndReplaysPendingInputs() {
+        predictRight(5);
+
+        // Le serveur a bloqué le joueur à x = 15 après la commande 2 (un mur que le client ne connaissait pas)
+        prediction.offerAuthoritative(2, 15, 0);
+
+        assertTrue(prediction.reconcile(player, step));
+        assertEquals(2, replayed, "Seules les commandes 3 et 4, pas encore traitées par le serveur, sont rejouées");
+        assertEquals(35, player.pos.x, 1e-9, "Le joueur repart de l'état du serveur puis rejoue ses commandes");
+        assertEquals(1, prediction.getCorrections());
+
+        // La prédiction rejouée devient la référence : le serveur confirme ensuite la commande 4
+        prediction.offerAuthoritative(4, 35, 0);
+        assertFalse(prediction.reconcile(player, step));
+    }
+
+    @Test
+    void quantizationError_isTolerated() {
+        predictRight(3);
+
+        prediction.offerAuthoritative(2, 30 + 1.0 / 16, 0);
+
+        assertFalse(prediction.reconcile(player, step), "L'arrondi des snapshots ne doit pas déclencher de correction");
+    }
+
+    @Test
+    void staleOrRepeatedAck_isIgnored() {
+        predictRight(5);
+        prediction.offerAuthoritative(3, 40, 0);
+        assertFalse(prediction.reconcile(player, step));
+
+        // Un snapshot plus ancien arrive en retard avec une position fausse
+        prediction.offerAuthoritative(1, -100, 0);
+        assertFalse(prediction.reconcile(player, step));
+        assertEquals(50, player.pos.x, 1e-9);
+
+        // Deux snapshots reçus avant la réconciliation : seul le plus récent compte
+        prediction.offerAuthoritative(4, 50, 0);
+        prediction.offerAuthoritative(3, -100, 0);
+        assertFalse(prediction.reconcile(player, step));
+        assertEquals(0, prediction.pendingCount());
+    }
+
+    @Test
+    void sequenceWrapsAround() {
+        // Le serveur acquitte au fil de l'eau pour que l'historique ne déborde pas
+        for (int i = 0; i < 70_000; i++) {
+            PlayerInput input = prediction.next(0, 0);
+            prediction.recordPredicted(input, player.pos);
+            prediction.offerAuthoritative(input.seq, 0, 0);
+            prediction.reconcile(player, step);
+        }
+
+        predictRight(3);
+        int last = (70_000 + 2) & 0xFFFF;
+        prediction.offerAuthoritative((last - 1) & 0xFFFF, 0, 0);
+
+        assertTrue(prediction.reconcile(player, step), "La réconciliation doit fonctionner après le bouclage des numéros");
+        assertEquals(1, replayed);
+        assertEquals(10, player.pos.x, 1e-9);
+    }
+
+    @Test
+    void tooManyUnacknowledgedInputs_dropsOldest() {
+        predictRight(ClientPrediction.SIZE + 10);
+
+        assertEquals(ClientPrediction.SIZE, prediction.pendingCount());
+
+        // Une commande sortie de l'historique ne peut plus servir de référence
+        prediction.offerAuthoritative(5, 0, 0);
+        assertFalse(prediction.reconcile(player, step));
+    }
+
+    // ─────────────────────── Codec ───────────────────────────────────────
+
+    @Test
+    void recent_returnsLastSampledInputs() {
+        assertEquals(0, prediction.recentCount(InputCodec.REDUNDANCY));
+
+        prediction.next(1, 0);
+        prediction.next(0, 1);
+        assertEquals(2, prediction.recentCount(InputCodec.REDUNDANCY), "Seules les commandes déjà échantillonnées sont répétées");
+        assertEquals(1, prediction.recent(0).seq);
+        assertEquals(0, prediction.recent(1).seq);
+
+        prediction.next(-1, 0);
+        prediction.next(0, -1);
+        assertEquals(InputCodec.REDUNDANCY, prediction.recentCount(InputCodec.REDUNDANCY));
+    }
+
+    @Test
+    void codec_redundantInputs_roundtrip() {
+        PlayerInput older = new PlayerInput().set(65535, -1, 1, 0, PlayerInput.ACTION_FIRE);
+        PlayerInput newer = new PlayerInput().set(0, 1, 0, 1023, PlayerInput.ACTION_PLACE_BLOCK);
+
+        ByteBuffer buffer = ByteBuffer.allocate(InputCodec.MAX_SIZE);
+        InputCodec.writeHeader(buffer, 513, newer.seq, 2);
+        InputCodec.writeInput(buffer, older);
+        InputCodec.writeInput(buffer, newer);
+        assertEquals(InputCodec.HEADER_SIZE + 2 * InputCodec.INPUT_SIZE, buffer.position());
+
+        buffer.flip();
+        assertEquals(InputCodec.TYPE_INPUT, buffer.get());
+        assertEquals(513, InputCodec.readSessionId(buffer));
+        int newest = InputCodec.readNewestSeq(buffer);
+        assertEquals(2, InputCodec.readCount(buffer));
+
+        PlayerInput first = InputCodec.readInput(buffer, (newest - 1) & 0xFFFF, new PlayerInput());
+        assertEquals(65535, first.seq, "Le numéro des commandes répétées se déduit de la plus récente, même après bouclage");
+        assertEquals(-1, first.moveX);
+        assertEquals(1, first.moveY);
+        assertTrue(first.hasAction(PlayerInput.ACTION_FIRE));
+        assertFalse(first.hasAction(PlayerInput.ACTION_PLACE_BLOCK));
+
+        PlayerInput second = InputCodec.readInput(buffer, newest, new PlayerInput());
+        assertEquals(0, second.seq);
+        assertEquals(1023, second.aim);
+        assertEquals(PlayerInput.ACTION_PLACE_BLOCK, second.actions);
+    }
+
+    @Test
+    void codec_invalidData_throws() {
+        assertThrows(IllegalArgumentException.class,
+                () -> InputCodec.readInput(ByteBuffer.wrap(new byte[]{0b0111, 0, 0}), 0, new PlayerInput()), "Axe invalide");
+        assertThrows(IllegalArgumentException.class,
+                () -> InputCodec.readInput(ByteBuffer.wrap(new byte[]{(byte) 0b1000_0101, 0, 0}), 0, new PlayerInput()), "Action inconnue");
+        assertThrows(IllegalArgumentException.class,
+                () -> InputCodec.readCount(ByteBuffer.wrap(new byte[]{2, 0b0101, 0, 0})), "Datagramme trop court");
+        assertThrows(IllegalArgumentException.class,
+                () -> InputCodec.readCount(ByteBuffer.wrap(new byte[]{0})), "Datagramme sans commande");
+    }
+}
@@ -0,0 +1,252 @@
+package com.superkiment.common.packets.reliable;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests du canal fiable : pertes et renvois, ordre de livraison, doublons, fragmentation et acquittements.
+ * Deux canaux jouent le serveur et le client, reliés par une liste de datagrammes que chaque test perd ou mélange.
+ */
+public class ReliableChannelTest {
+
+    private static final int DATAGRAM_SIZE = 200;
+
+    private ReliableChannel server;
+    private ReliableChannel client;
+    private List<byte[]> received;
+    private List<Integer> receivedChannels;
+    private ReliableChannel.Receiver receiver;
+    private long now;
+
+    @BeforeEach
+    void setUp() {
+        server = new ReliableChannel(DATAGRAM_SIZE);
+        client = new ReliableChannel(DATAGRAM_SIZE);
+        received = new ArrayList<>();
+        receivedChannels = new ArrayList<>();
+        receiver = (message, channel) -> {
+            received.add(message);
+            receivedChannels.add(channel);
+        };
+        now = 0;
+    }
+
+    /**
+     * Tous les datagrammes que {@code from} veut envoyer à cet instant.
+     */
+    private List<ByteBuffer> drain(ReliableChannel from) {
+        List<ByteBuffer> datagrams = new ArrayList<>();
+        while (true) {
+            ByteBuffer buffer = ByteBuffer.allocate(DATAGRAM_SIZE);
+            if (!from.writeDatagram(buffer, now)) break;
+            datagrams.add(buffer.flip());
+        }
+        return datagrams;
+    }
+
+    /**
+     * Le client reçoit les datagrammes du serveur et lui renvoie ses acquittements, sans perte.
+     */
+    private void deliverAndAck(List<ByteBuffer> datagrams) {
+        for (ByteBuffer datagram : datagrams) client.receive(datagram, now, receiver);
+        for (ByteBuffer ack : drain(client)) server.receive(ack, now, (m, c) -> fail("Le client n'envoie rien"));
+    }
+
+    private static byte[] message(int id, int length) {
+        byte[] message = new byte[length];
+        for (int i = 0; i < length; i++) message[i] = (byte) (id * 31 + i);
+        return message;
+    }
+
+    // ─────────────────────── Pertes ──────────────────────────────────────
+
+    @Test
+    void lostDatagram_isResentAfterDelay_andAcknowledged() {
+        assertTrue(server.send(ReliableChannel.ORDERED, message(0, 20)));
+        assertEquals(20, server.getPendingBytes());
+
+        List<ByteBuffer> first = drain(server);
+        assertEquals(1, first.size());
+        // Le datagramme est perdu : rien n'est renvoyé avant le délai
+        assertTrue(drain(server).isEmpty(), "Un message déjà envoyé ne part pas deux fois dans le même délai");
+
+        now += server.getResendDelayMillis();
+        List<ByteBuffer> resent = drain(server);
+        assertEquals(1, resent.size(), "Le message sans acquittement doit être renvoyé");
+        assertEquals(1, server.getResent());
+
+        deliverAndAck(resent);
+        assertEquals(1, received.size());
+        assertArrayEquals(message(0, 20), received.get(0));
+        assertEquals(0, server.getPendingCount(), "Le message acquitté n'est plus en attente");
+        assertEquals(0, server.getPendingBytes());
+
+        now += 10 * server.getResendDelayMillis();
+        assertTrue(drain(server).isEmpty(), "Un message acquitté n'est plus renvoyé");
+    }
+
+    @Test
+    void randomLoss_everyMessageDeliveredOnceInOrder() {
+        Random random = new Random(42);
+        int messages = 300;
+        int sent = 0;
+
+        for (int step = 0; step < 2000 && received.size() < messages; step++) {
+            // Quelques messages par tick, comme les événements des entités
+            for (int i = 0; i < 3 && sent < messages; i++) {
+                assertTrue(server.send(ReliableChannel.ORDERED, message(sent, 10 + sent % 50)));
+                sent++;
+            }
+
+            // 30 % de pertes dans chaque sens
+            for (ByteBuffer datagram : drain(server)) {
+                if (random.nextInt(10) >= 3) client.receive(datagram, now, receiver);
+            }
+            for (ByteBuffer ack : drain(client)) {
+                if (random.nextInt(10) >= 3) server.receive(ack, now, (m, c) -> fail("Le client n'envoie rien"));
+            }
+            now += 50;
+        }
+
+        assertEquals(messages, received.size(), "Chaque message doit arriver une fois malgré les pertes");
+        for (int i = 0; i < messages; i++) {
+            assertArrayEquals(message(i, 10 + i % 50), received.get(i), "Les messages doivent arriver dans l'ordre d'envoi");
+        }
+    }
+
+    // ─────────────────────── Ordre et doublons ───────────────────────────
+
+    @Test
+    void ordered_outOfOrderDatagrams_heldUntilContiguous() {
+        server.send(ReliableChannel.ORDERED, message(0, 150));
+        server.send(ReliableChannel.ORDERED, message(1, 150));
+        server.send(ReliableChannel.ORDERED, message(2, 150));
+
+        List<ByteBuffer> datagrams = drain(server);
+        assertEquals(3, datagrams.size(), "Un message par datagramme à cette taille");
+
+        client.receive(datagrams.get(2), now, receiver);
+        client.receive(datagrams.get(1), now, receiver);
+        assertTrue(received.isEmpty(), "Les messages suivants attendent le premier");
+
+        client.receive(datagrams.get(0), now, receiver);
+        assertEquals(3, received.size());
+        for (int i = 0; i < 3; i++) {
+            assertArrayEquals(message(i, 150), received.get(i));
+        }
+    }
+
+    @Test
+    void unordered_deliveredOnArrival_duplicatesDropped() {
+        server.send(ReliableChannel.UNORDERED, message(0, 150));
+        server.send(ReliableChannel.UNORDERED, message(1, 150));
+
+        List<ByteBuffer> datagrams = drain(server);
+        client.receive(datagrams.get(1), now, receiver);
+        assertEquals(1, received.size(), "Un message non ordonné est livré dès son arrivée");
+        assertArrayEquals(message(1, 150), received.get(0));
+        assertEquals(ReliableChannel.UNORDERED, (int) receivedChannels.get(0));
+
+        // Le même datagramme reçu deux fois, comme un renvoi dont l'acquittement s'est perdu
+        client.receive(datagrams.get(1).rewind(), now, receiver);
+        client.receive(datagrams.get(0), now, receiver);
+        assertEquals(2, received.size(), "Un doublon ne doit pas être livré");
+    }
+
+    @Test
+    void ordered_resentAfterLostAck_notDeliveredTwice() {
+        server.send(ReliableChannel.ORDERED, message(0, 20));
+        for (ByteBuffer datagram : drain(server)) client.receive(datagram, now, receiver);
+        drain(client); // L'acquittement est perdu
+
+        now += server.getResendDelayMillis();
+        deliverAndAck(drain(server));
+
+        assertEquals(1, received.size(), "Le renvoi d'un message déjà livré doit être ignoré");
+        assertEquals(0, server.getPendingCount(), "L'acquittement du renvoi libère le message");
+    }
+
+    // ─────────────────────── Fragmentation ───────────────────────────────
+
+    @Test
+    void largeMessage_fragmentedAndReassembled() {
+        byte[] large = message(7, 5000);
+        assertTrue(server.send(ReliableChannel.ORDERED, large));
+        server.send(ReliableChannel.ORDERED, message(8, 10));
+
+        List<ByteBuffer> datagrams = drain(server);
+        assertTrue(datagrams.size() > 1, "Un message plus grand qu'un datagramme doit être découpé");
+        for (ByteBuffer datagram : datagrams) {
+            assertTrue(datagram.remaining() <= DATAGRAM_SIZE, "Aucun datagramme ne dépasse la taille maximale");
+        }
+
+        // Arrivée dans le désordre
+        List<ByteBuffer> shuffled = new ArrayList<>(datagrams);
+        java.util.Collections.reverse(shuffled);
+        deliverAndAck(shuffled);
+
+        assertEquals(2, received.size());
+        assertArrayEquals(large, received.get(0), "Le message recomposé doit être identique");
+        assertArrayEquals(message(8, 10), received.get(1));
+        assertEquals(0, server.getPendingCount());
+    }
+
+    @Test
+    void tooLargeMessage_rejected() {
+        byte[] huge = new byte[(DATAGRAM_SIZE - ReliableChannel.HEADER_SIZE - ReliableChannel.FRAGMENT_HEADER_SIZE)
+                * ReliableChannel.MAX_FRAGMENTS + 1];
+        assertThrows(IllegalArgumentException.class, () -> server.send(ReliableChannel.ORDERED, huge));
+    }
+
+    @Test
+    void full_sendRefused() {
+        byte[] small = message(0, 1);
+        for (int i = 0; i < ReliableChannel.MAX_PENDING; i++) {
+            assertTrue(server.send(ReliableChannel.ORDERED, small));
+        }
+        assertFalse(server.send(ReliableChannel.ORDERED, small), "Au-delà de la limite, l'envoi est refusé");
+    }
+
+    // ─────────────────────── Acquittements ───────────────────────────────
+
+    @Test
+    void nothingToSend_noDatagram() {
+        assertTrue(drain(server).isEmpty(), "Sans message ni acquittement dû, rien ne part");
+
+        server.send(ReliableChannel.ORDERED, message(0, 10));
+        deliverAndAck(drain(server));
+        assertTrue(drain(client).isEmpty(), "Un datagramme qui n'acquitte que des acquittements ne demande pas de réponse");
+    }
+
+    @Test
+    void ack_updatesRtt() {
+        double initial = server.getRttMillis();
+        for (int i = 0; i < 50; i++) {
+            server.send(ReliableChannel.ORDERED, message(i, 10));
+            List<ByteBuffer> datagrams = drain(server);
+            now += 20;
+            deliverAndAck(datagrams);
+        }
+
+        assertTrue(server.getRttMillis() < initial, "Le RTT doit converger vers les 20 ms mesurés");
+        assertEquals(20, server.getRttMillis(), 1, "RTT mesuré");
+        assertEquals(ReliableChannel.MIN_RESEND_MILLIS, server.getResendDelayMillis(), "Délai de renvoi borné par le minimum");
+    }
+
+    @Test
+    void corruptedDatagram_throws() {
+        server.send(ReliableChannel.ORDERED, message(0, 50));
+        ByteBuffer datagram = drain(server).get(0);
+        ByteBuffer truncated = ByteBuffer.wrap(Arrays.copyOf(datagram.array(), datagram.limit() - 10));
+
+        assertThrows(IllegalArgumentException.class, () -> client.receive(truncated, now, receiver));
+    }
+}
@@ -0,0 +1,89 @@
+package com.superkiment.common.packets.snapshot;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de BitWriter / BitReader : roundtrip, tailles variables et annulation.
+ */
+public class BitStreamTest {
+
+    private static BitReader readerOf(BitWriter writer) {
+        return new BitReader(ByteBuffer.wrap(writer.toByteArray()));
+    }
+
+    @Test
+    void bits_roundtrip_acrossByteBoundaries() throws IOException {
+        BitWriter writer = new BitWriter(1);
+        writer.writeBits(0b101, 3);
+        writer.writeBits(0x3FF, 10);
+        writer.writeBoolean(true);
+        writer.writeBits(0x123456789L, 36);
+        writer.writeBits(-1L, 64);
+
+        assertEquals(3 + 10 + 1 + 36 + 64, writer.bitLength());
+        assertEquals(15, writer.byteLength(), "114 bits tiennent dans 15 octets");
+
+        BitReader reader = readerOf(writer);
+        assertEquals(0b101, reader.readBits(3));
+        assertEquals(0x3FF, reader.readBits(10));
+        assertTrue(reader.readBoolean());
+        assertEquals(0x123456789L, reader.readBits(36));
+        assertEquals(-1L, reader.readBits(64));
+    }
+
+    @Test
+    void varUnsigned_usesSmallestClass() throws IOException {
+        int[] values = {0, 15, 16, 255, 256, 65535, 65536, Integer.MAX_VALUE};
+        int[] expectedBits = {5, 5, 10, 10, 19, 19, 35, 35};
+
+        for (int i = 0; i < values.length; i++) {
+            BitWriter writer = new BitWriter();
+            writer.writeVarUnsigned(values[i]);
+            assertEquals(expectedBits[i], writer.bitLength(), "Taille pour " + values[i]);
+            assertEquals(values[i], readerOf(writer).readVarUnsigned());
+        }
+    }
+
+    @Test
+    void varSigned_roundtrip() throws IOException {
+        int[] values = {0, -1, 1, -8, 7, -200, 200, Integer.MIN_VALUE, Integer.MAX_VALUE};
+
+        BitWriter writer = new BitWriter();
+        for (int value : values) writer.writeVarSigned(value);
+
+        BitReader reader = readerOf(writer);
+        for (int value : values) {
+            assertEquals(value, reader.readVarSigned());
+        }
+    }
+
+    @Test
+    void rollback_erasesBitsWrittenAfterMark() throws IOException {
+        BitWriter writer = new BitWriter();
+        writer.writeBits(0b11, 2);
+        int mark = writer.mark();
+        writer.writeBits(0xFFFF, 16);
+        writer.rollback(mark);
+
+        assertEquals(2, writer.bitLength());
+        writer.writeBits(0b01, 2);
+
+        BitReader reader = readerOf(writer);
+        assertEquals(0b1101, reader.readBits(4), "Les bits annulés ne doivent pas réapparaître");
+        assertEquals(0, reader.readBits(4), "Le reste de l'octet doit être à zéro");
+    }
+
+    @Test
+    void read_pastEnd_throws() {
+        BitWriter writer = new BitWriter();
+        writer.writeBits(1, 3);
+
+        BitReader reader = readerOf(writer);
+        assertThrows(IOException.class, () -> reader.readBits(9));
+    }
+}
@@ -0,0 +1,54 @@
+package com.superkiment.common.packets.snapshot;
+
+import com.superkiment.common.packets.PacketSerializer;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Datagrammes envoyés par client et par tick quand toutes les entités bougent :
+ * ancien découpage fixe par 17 entités, bulk rempli au budget, snapshot complet et snapshot delta.
+ * <p>
+ * Lancer avec : java -cp ... com.superkiment.common.packets.snapshot.DatagramPackerBenchmark [budget]
+ */
+public class DatagramPackerBenchmark {
+
+    private static final int OLD_CHUNK_SIZE = 17;
+
+    /**
+     * Ancien bulk : [type][count (2)] puis [netId (2)][x][y] par entité.
+     */
+    private static final int BULK_ENTRY_SIZE = Short.BYTES + 2 * Double.BYTES;
+
+    public static void main(String[] args) {
+        int budget = args.length > 0 ? Integer.parseInt(args[0]) : PacketSerializer.UDP_PAYLOAD_BUDGET;
+        int bulkPerDatagram = (budget - 1 - Short.BYTES) / BULK_ENTRY_SIZE;
+
+        System.out.println("Budget : " + budget + " octets");
+        System.out.println(String.format("%-10s %14s %14s %14s %14s %14s",
+                "entités", "17/datagramme", "bulk rempli", "complet", "delta", "octets delta"));
+
+        for (int entities : new int[]{100, 1000, 5000}) {
+            Random random = new Random(entities);
+            Snapshot baseline = new Snapshot(1, entities);
+            Snapshot current = new Snapshot(2, entities);
+            for (int i = 1; i <= entities; i++) {
+                int x = random.nextInt(2000 * Quantization.POSITION_SCALE);
+                int y = random.nextInt(2000 * Quantization.POSITION_SCALE);
+                int angle = random.nextInt(Quantization.ANGLE_STEPS);
+                baseline.add(i, x, y, angle);
+                current.add(i, x + random.nextInt(33) - 16, y + random.nextInt(33) - 16, angle);
+            }
+
+            int chunked = (entities + OLD_CHUNK_SIZE - 1) / OLD_CHUNK_SIZE;
+            int bulk = (entities + bulkPerDatagram - 1) / bulkPerDatagram;
+            List<byte[]> full = SnapshotCodec.encode(current, null, budget);
+            List<byte[]> delta = SnapshotCodec.encode(current, baseline, budget);
+            int deltaBytes = 0;
+            for (byte[] datagram : delta) deltaBytes += datagram.length;
+
+            System.out.println(String.format("%-10d %14d %14d %14d %14d %14d",
+                    entities, chunked, bulk, full.size(), delta.size(), deltaBytes));
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.superkiment.common.packets.snapshot;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests du remplissage des datagrammes : budget exact, entrées jamais coupées, tailles limites.
+ */
+public class DatagramPackerTest {
+
+    // ─────────────────────── Packer ──────────────────────────────────────
+
+    @Test
+    void record_exactlyFillingBudget_staysInPart() {
+        // 2 octets de corps, dont 1 bit réservé pour la fin : 15 bits disponibles
+        DatagramPacker packer = new DatagramPacker(SnapshotCodec.HEADER_SIZE + 2, SnapshotCodec.HEADER_SIZE, 1);
+        assertEquals(15, packer.budgetBits());
+        List<ByteBuffer> parts = new ArrayList<>();
+        packer.start(parts);
+
+        packer.begin();
+        packer.bits().writeBits(0x7FFF, 15);
+        assertTrue(packer.commit(), "Une entrée qui remplit exactement le budget doit tenir");
+
+        packer.begin();
+        packer.bits().writeBits(1, 1);
+        assertFalse(packer.commit(), "Un bit de plus doit ouvrir une nouvelle part");
+
+        packer.begin();
+        packer.bits().writeBits(1, 1);
+        assertTrue(packer.commit());
+
+        assertEquals(2, packer.finish());
+        assertArrayEquals(new byte[]{(byte) 0xFF, (byte) 0xFE}, body(parts.get(0)), "L'entrée annulée ne doit pas laisser de bits");
+        assertArrayEquals(new byte[]{(byte) 0x80}, body(parts.get(1)));
+    }
+
+    @Test
+    void release_reusesBuffers() {
+        DatagramPacker packer = SnapshotCodec.newPacker(1200);
+        Snapshot snapshot = randomSnapshot(1, 500, 3);
+        List<ByteBuffer> datagrams = new ArrayList<>();
+
+        SnapshotCodec.encode(snapshot, null, packer, datagrams);
+        int parts = datagrams.size();
+        assertTrue(parts > 1);
+        packer.release(datagrams);
+        assertTrue(datagrams.isEmpty(), "La liste doit être vidée");
+
+        for (int i = 0; i < 10; i++) {
+            SnapshotCodec.encode(snapshot, null, packer, datagrams);
+            packer.release(datagrams);
+        }
+        assertEquals(parts, packer.buffersCreated(), "Les buffers rendus doivent être réutilisés");
+    }
+
+    private static byte[] body(ByteBuffer datagram) {
+        byte[] body = new byte[datagram.remaining() - SnapshotCodec.HEADER_SIZE];
+        datagram.get(SnapshotCodec.HEADER_SIZE, body);
+        return body;
+    }
+
+    @Test
+    void record_largerThanEmptyPart_throws() {
+        DatagramPacker packer = new DatagramPacker(SnapshotCodec.HEADER_SIZE + 1, SnapshotCodec.HEADER_SIZE, 1);
+        packer.start(new ArrayList<>());
+
+        packer.begin();
+        packer.bits().writeBits(0, 8);
+        assertThrows(IllegalArgumentException.class, packer::commit);
+    }
+
+    // ─────────────────────── Snapshots ───────────────────────────────────
+
+    private static Snapshot randomSnapshot(int seq, int entities, long seed) {
+        Random random = new Random(seed);
+        Snapshot snapshot = new Snapshot(seq, entities);
+        int netId = 0;
+        for (int i = 0; i < entities; i++) {
+            netId += 1 + random.nextInt(random.nextBoolean() ? 3 : 300);
+            snapshot.add(netId,
+                    random.nextInt(1 << 22) - (1 << 21),
+                    random.nextInt(1 << 22) - (1 << 21),
+                    random.nextInt(Quantization.ANGLE_STEPS));
+        }
+        return snapshot;
+    }
+
+    @Test
+    void encode_belowMinimumSize_throws() {
+        Snapshot snapshot = randomSnapshot(1, 10, 1);
+        assertThrows(IllegalArgumentException.class,
+                () -> SnapshotCodec.encode(snapshot, null, SnapshotCodec.MIN_DATAGRAM_SIZE - 1));
+    }
+
+    @Test
+    void encode_everyBudget_neverExceedsItAndLosesNothing() throws IOException {
+        int[] budgets = {SnapshotCodec.MIN_DATAGRAM_SIZE, SnapshotCodec.MIN_DATAGRAM_SIZE + 1,
+                SnapshotCodec.MIN_DATAGRAM_SIZE + 7, 64, 100, 576, 1200, 1472};
+        Snapshot snapshot = randomSnapshot(9, 200, 2);
+
+        for (int budget : budgets) {
+            List<byte[]> datagrams = SnapshotCodec.encode(snapshot, null, budget);
+
+            for (byte[] datagram : datagrams) {
+                assertTrue(datagram.length <= budget, datagram.length + " octets pour un budget de " + budget);
+            }
+            for (int k = 0; k < datagrams.size() - 1; k++) {
+                // Une part n'est fermée que si l'entrée suivante n'y tenait pas
+                int slack = budget - datagrams.get(k).length;
+                assertTrue(slack * 8 < SnapshotCodec.MAX_RECORD_BITS + 8,
+                        "Part " + k + " sous-remplie de " + slack + " octets pour un budget de " + budget);
+            }
+
+            SnapshotReceiver receiver = new SnapshotReceiver();
+            Set<Integer> received = new HashSet<>();
+            int complete = -1;
+            for (byte[] datagram : datagrams) {
+                ByteBuffer buffer = ByteBuffer.wrap(datagram);
+                buffer.get();
+                complete = receiver.receive(buffer, (netId, x, y, dirX, dirY) -> received.add(netId));
+            }
+            assertEquals(9, complete, "Budget " + budget + " : le snapshot doit être complet");
+            assertEquals(200, received.size(), "Budget " + budget + " : aucune entité ne doit être perdue");
+        }
+    }
+
+    @Test
+    void encode_fillsDatagramsTighterThanWorstCaseReservation() {
+        // Petits deltas : beaucoup plus d'entrées par datagramme que si l'on réservait la taille maximale d'une entrée
+        Snapshot baseline = new Snapshot(1, 2000);
+        Snapshot current = new Snapshot(2, 2000);
+        for (int i = 1; i <= 2000; i++) {
+            baseline.add(i, i * 16, 0, 0);
+            current.add(i, i * 16 + 1, 0, 0);
+        }
+
+        List<byte[]> datagrams = SnapshotCodec.encode(current, baseline, 1200);
+        int perDatagram = 2000 / datagrams.size();
+        int worstCase = (1200 - SnapshotCodec.HEADER_SIZE) * 8 / SnapshotCodec.MAX_RECORD_BITS;
+        assertTrue(perDatagram > 5 * worstCase, perDatagram + " entrées par datagramme, au pire " + worstCase);
+    }
+}
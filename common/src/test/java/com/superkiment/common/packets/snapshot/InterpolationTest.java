@@ -0,0 +1,162 @@
+package com.superkiment.common.packets.snapshot;
+
+import com.superkiment.common.entities.Entity;
+import org.joml.Vector2d;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de l'interpolation côté client : historique par entité, horloge serveur et délai adaptatif.
+ */
+public class InterpolationTest {
+
+    private final Vector2d pos = new Vector2d();
+    private final Vector2d dir = new Vector2d();
+
+    // ─────────────────────── Historique ──────────────────────────────────
+
+    @Test
+    void buffer_interpolatesBetweenSurroundingSamples() {
+        InterpolationBuffer buffer = new InterpolationBuffer();
+        buffer.add(0, 0, 0, 0);
+        buffer.add(50, 10, 20, Math.PI / 2);
+        buffer.add(100, 30, 20, Math.PI / 2);
+
+        assertTrue(buffer.sample(25, pos, dir));
+        assertEquals(5, pos.x, 1e-9);
+        assertEquals(10, pos.y, 1e-9);
+        assertEquals(Math.cos(Math.PI / 4), dir.x, 1e-9, "L'angle est interpolé lui aussi");
+
+        buffer.sample(75, pos, dir);
+        assertEquals(20, pos.x, 1e-9);
+    }
+
+    @Test
+    void buffer_angle_takesShortestArc() {
+        InterpolationBuffer buffer = new InterpolationBuffer();
+        buffer.add(0, 0, 0, Math.toRadians(350));
+        buffer.add(10, 0, 0, Math.toRadians(10));
+
+        buffer.sample(5, pos, dir);
+        assertEquals(1, dir.x, 1e-9, "À mi-chemin entre 350° et 10°, on regarde vers 0°");
+    }
+
+    @Test
+    void buffer_extrapolation_isCapped() {
+        InterpolationBuffer buffer = new InterpolationBuffer();
+        buffer.add(0, 0, 0, 0);
+        buffer.add(50, 50, 0, 0);
+
+        buffer.sample(80, pos, dir);
+        assertEquals(80, pos.x, 1e-9, "Sur sa lancée juste après la dernière position");
+
+        buffer.sample(1000, pos, dir);
+        assertEquals(50 + InterpolationBuffer.MAX_EXTRAPOLATION, pos.x, 1e-9, "L'extrapolation s'arrête au plafond");
+    }
+
+    @Test
+    void buffer_stoppedEntity_isNotExtrapolated() {
+        InterpolationBuffer buffer = new InterpolationBuffer();
+        buffer.add(0, 0, 0, 0);
+        buffer.add(50, 10, 0, 0);
+        buffer.add(100, 10, 0, 0);
+
+        buffer.sample(180, pos, dir);
+        assertEquals(10, pos.x, 1e-9);
+    }
+
+    @Test
+    void buffer_olderThanHistory_usesOldestSample_andIgnoresOutOfOrder() {
+        InterpolationBuffer buffer = new InterpolationBuffer();
+        for (int i = 0; i < InterpolationBuffer.SIZE + 4; i++) buffer.add(i * 10, i, 0, 0);
+        buffer.add(5, -100, 0, 0);
+
+        buffer.sample(0, pos, dir);
+        assertEquals(4, pos.x, 1e-9, "Les plus anciennes positions ont été remplacées");
+        assertFalse(new InterpolationBuffer().sample(0, pos, dir));
+    }
+
+    // ─────────────────────── Horloge et délai ────────────────────────────
+
+    @Test
+    void clock_regularSnapshots_renderOneDelayBehindServer() {
+        SnapshotClock clock = new SnapshotClock();
+        for (int i = 0; i < 200; i++) clock.onSnapshot(i * 50, 1000 + i * 50 + 20);
+
+        assertEquals(50, clock.getInterval(), 1e-6);
+        assertEquals(0, clock.getJitter(), 1e-6);
+        assertEquals(100, clock.getDelay(), 1, "Deux intervalles sans gigue");
+        assertEquals(199 * 50 - 100, clock.renderTime(1000 + 199 * 50 + 20), 1);
+    }
+
+    @Test
+    void clock_jitterAndLoss_lengthenDelay() {
+        SnapshotClock stable = new SnapshotClock();
+        SnapshotClock lossy = new SnapshotClock();
+        Random random = new Random(4);
+
+        for (int i = 0; i < 400; i++) {
+            stable.onSnapshot(i * 50, i * 50);
+            if (random.nextInt(5) == 0) continue;
+            lossy.onSnapshot(i * 50, i * 50 + random.nextInt(40));
+        }
+
+        assertTrue(lossy.getDelay() > stable.getDelay() + 20,
+                "Pertes et gigue doivent allonger le délai : " + lossy.getDelay() + " contre " + stable.getDelay());
+        assertTrue(lossy.getDelay() <= SnapshotClock.MAX_DELAY);
+    }
+
+    @Test
+    void clock_serverTimeWrap_staysMonotonic() {
+        SnapshotClock clock = new SnapshotClock();
+        long first = clock.onSnapshot(Integer.MAX_VALUE - 10, 0);
+        long second = clock.onSnapshot(Integer.MIN_VALUE + 39, 50);
+
+        assertEquals(50, second - first, "L'écart reste juste quand l'heure serveur boucle");
+        assertEquals(-1, clock.onSnapshot(Integer.MAX_VALUE, 60), "Un snapshot plus ancien est ignoré");
+    }
+
+    // ─────────────────────── Interpolateur ───────────────────────────────
+
+    @Test
+    void interpolator_movesEntitySmoothly_independentlyOfFrameRate() {
+        SnapshotInterpolator interpolator = new SnapshotInterpolator();
+        Entity entity = new Entity();
+        entity.netId = 9;
+
+        // Une entité qui avance de 10 unités par snapshot de 50 ms
+        for (int i = 0; i <= 20; i++) {
+            Snapshot snapshot = new Snapshot(i, 1);
+            snapshot.serverTime = i * 50;
+            snapshot.add(9, Quantization.quantizePosition(i * 10), 0, 0);
+            interpolator.onSnapshot(snapshot, i * 50);
+        }
+
+        assertTrue(interpolator.apply(entity, 1000));
+        double delay = interpolator.getDelay();
+        assertEquals((1000 - delay) / 5, entity.posLerp.x, 0.01, "Position à l'heure serveur moins le délai");
+
+        interpolator.apply(entity, 1007);
+        assertEquals((1007 - delay) / 5, entity.posLerp.x, 0.01, "Entre deux snapshots, le mouvement reste linéaire");
+    }
+
+    @Test
+    void interpolator_forgetsEntitiesNoLongerReplicated() {
+        SnapshotInterpolator interpolator = new SnapshotInterpolator();
+        Entity entity = new Entity();
+        entity.netId = 3;
+
+        Snapshot first = new Snapshot(1, 1);
+        first.add(3, 0, 0, 0);
+        interpolator.onSnapshot(first, 0);
+        assertTrue(interpolator.apply(entity, 0));
+
+        Snapshot second = new Snapshot(2, 1);
+        second.serverTime = 50;
+        interpolator.onSnapshot(second, 50);
+        assertFalse(interpolator.apply(entity, 50), "Une entité absent du dernier snapshot n'est plus interpolée");
+    }
+}
@@ -0,0 +1,84 @@
+package com.superkiment.common.packets.snapshot;
+
+import com.superkiment.common.packets.PacketSerializer;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Octets envoyés par client et par tick : ancien bulk (doubles), snapshot complet quantifié, snapshot delta.
+ * <p>
+ * Lancer avec : java -cp ... com.superkiment.common.packets.snapshot.SnapshotBenchmark [entités] [% en mouvement] [retard d'ack en ticks]
+ */
+public class SnapshotBenchmark {
+
+    /**
+     * Ancien bulk : [type][count (2)] puis [netId (2)][x][y] par entité, autant que le budget en contient.
+     */
+    private static final int BULK_ENTRY_SIZE = Short.BYTES + 2 * Double.BYTES;
+    private static final int BULK_MAX_ENTITIES = (PacketSerializer.UDP_PAYLOAD_BUDGET - 1 - Short.BYTES) / BULK_ENTRY_SIZE;
+
+    public static void main(String[] args) {
+        int entities = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int movingPercent = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int ackLag = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        int ticks = 600;
+
+        Random random = new Random(1);
+        int[] x = new int[entities];
+        int[] y = new int[entities];
+        int[] angle = new int[entities];
+        for (int i = 0; i < entities; i++) {
+            x[i] = Quantization.quantizePosition(random.nextDouble() * 2000);
+            y[i] = Quantization.quantizePosition(random.nextDouble() * 2000);
+            angle[i] = random.nextInt(Quantization.ANGLE_STEPS);
+        }
+
+        long bulkBytes = 0, fullBytes = 0, deltaBytes = 0;
+        long bulkDatagrams = 0, fullDatagrams = 0, deltaDatagrams = 0;
+        ArrayDeque<Snapshot> inFlight = new ArrayDeque<>();
+        Snapshot acked = null;
+
+        for (int tick = 1; tick <= ticks; tick++) {
+            int moved = 0;
+            for (int i = 0; i < entities; i++) {
+                if (random.nextInt(100) >= movingPercent) continue;
+                x[i] += random.nextInt(33) - 16;
+                y[i] += random.nextInt(33) - 16;
+                angle[i] = (angle[i] + random.nextInt(9) - 4) & (Quantization.ANGLE_STEPS - 1);
+                moved++;
+            }
+
+            Snapshot current = new Snapshot(tick & 0xFFFF, entities);
+            for (int i = 0; i < entities; i++) current.add(i + 1, x[i], y[i], angle[i]);
+
+            // Ancien format : une entrée de 18 octets par entité qui a bougé, 56 entités par datagramme
+            int bulkPackets = (moved + BULK_MAX_ENTITIES - 1) / BULK_MAX_ENTITIES;
+            bulkBytes += bulkPackets * 3L + moved * (long) BULK_ENTRY_SIZE;
+            bulkDatagrams += bulkPackets;
+
+            List<byte[]> full = SnapshotCodec.encode(current, null, PacketSerializer.UDP_PAYLOAD_BUDGET);
+            for (byte[] datagram : full) fullBytes += datagram.length;
+            fullDatagrams += full.size();
+
+            List<byte[]> delta = SnapshotCodec.encode(current, acked, PacketSerializer.UDP_PAYLOAD_BUDGET);
+            for (byte[] datagram : delta) deltaBytes += datagram.length;
+            deltaDatagrams += delta.size();
+
+            // L'acquittement arrive quelques ticks plus tard
+            inFlight.addLast(current);
+            if (inFlight.size() > ackLag) acked = inFlight.pollFirst();
+        }
+
+        System.out.println(entities + " entités, " + movingPercent + "% en mouvement par tick, ack avec " + ackLag + " ticks de retard");
+        System.out.println(String.format("%-22s %14s %18s", "format", "octets/tick", "datagrammes/tick"));
+        print("bulk (doubles)", bulkBytes, bulkDatagrams, ticks);
+        print("snapshot complet", fullBytes, fullDatagrams, ticks);
+        print("snapshot delta", deltaBytes, deltaDatagrams, ticks);
+    }
+
+    private static void print(String name, long bytes, long datagrams, int ticks) {
+        System.out.println(String.format("%-22s %14.0f %18.2f", name, bytes / (double) ticks, datagrams / (double) ticks));
+    }
+}
@@ -0,0 +1,264 @@
+package com.superkiment.common.packets.snapshot;
+
+import com.superkiment.common.entities.Entity;
+import org.joml.Vector2d;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests des snapshots delta : encodage serveur, réception et reconstruction côté client.
+ */
+public class SnapshotCodecTest {
+
+    private SnapshotReceiver receiver;
+
+    /**
+     * Derniers états reçus par netId : {x, y, dirX, dirY}.
+     */
+    private Map<Integer, double[]> received;
+
+    @BeforeEach
+    void setUp() {
+        receiver = new SnapshotReceiver();
+        received = new HashMap<>();
+    }
+
+    private int deliver(List<byte[]> datagrams) throws IOException {
+        int complete = -1;
+        for (byte[] datagram : datagrams) {
+            ByteBuffer buffer = ByteBuffer.wrap(datagram);
+            assertEquals(SnapshotCodec.TYPE_SNAPSHOT, buffer.get(), "Le premier octet doit être le type snapshot");
+            int seq = receiver.receive(buffer, (netId, x, y, dirX, dirY) -> received.put(netId, new double[]{x, y, dirX, dirY}));
+            if (seq >= 0) complete = seq;
+        }
+        return complete;
+    }
+
+    private static Snapshot snapshot(int seq, int[][] entities) {
+        Snapshot snapshot = new Snapshot(seq, entities.length);
+        for (int[] e : entities) snapshot.add(e[0], e[1], e[2], e[3]);
+        snapshot.sort();
+        return snapshot;
+    }
+
+    // ─────────────────────── Quantification ──────────────────────────────
+
+    @Test
+    void capture_quantizesPositionsAndDirections() {
+        Entity entity = new Entity(new Vector2d(100.03, -20.5));
+        entity.netId = 3;
+        entity.dirLookTarget.set(0, 1);
+        Entity withoutNetId = new Entity();
+
+        Snapshot snapshot = Snapshot.capture(1, List.of(entity, withoutNetId), 2);
+
+        assertEquals(1, snapshot.size, "Les entités sans netId ne sont pas répliquées");
+        assertEquals(1600, snapshot.x[0], "100.03 arrondi au 1/16e");
+        assertEquals(-328, snapshot.y[0]);
+        assertEquals(Quantization.ANGLE_STEPS / 4, snapshot.angle[0], "(0, 1) correspond à un quart de tour");
+    }
+
+    // ─────────────────────── Snapshots complets ──────────────────────────
+
+    @Test
+    void fullSnapshot_withoutBaseline_deliversEveryEntity() throws IOException {
+        Snapshot snapshot = snapshot(10, new int[][]{{5, 160, 320, 0}, {2, -16, 0, 256}, {900, 1 << 20, 7, 512}});
+
+        int complete = deliver(SnapshotCodec.encode(snapshot, null, 1024));
+
+        assertEquals(10, complete, "Le snapshot complet doit être à acquitter");
+        assertEquals(3, received.size());
+        assertEquals(10, received.get(5)[0], 1e-9);
+        assertEquals(20, received.get(5)[1], 1e-9);
+        assertEquals(-1, received.get(2)[0], 1e-9);
+        assertEquals(65536, received.get(900)[0], 1e-9);
+        assertEquals(0, received.get(2)[2], 1e-9, "256 / 1024 = un quart de tour : dirX = 0");
+        assertEquals(1, received.get(2)[3], 1e-9);
+    }
+
+    @Test
+    void emptySnapshot_stillProducesOneDatagramToAck() throws IOException {
+        List<byte[]> datagrams = SnapshotCodec.encode(new Snapshot(1, 0), null, 1024);
+
+        assertEquals(1, datagrams.size());
+        assertEquals(1, deliver(datagrams));
+    }
+
+    @Test
+    void tickAndServerTime_reachCompleteSnapshot_withUnchangedEntities() throws IOException {
+        Snapshot baseline = snapshot(1, new int[][]{{1, 0, 0, 0}, {2, 16, 16, 0}});
+        Snapshot current = snapshot(2, new int[][]{{1, 0, 0, 0}, {2, 32, 16, 0}});
+        current.tick = 1234;
+        current.serverTime = -5;
+        current.inputAck = 65535;
+        deliver(SnapshotCodec.encode(baseline, null, 1024));
+        assertEquals(-1, receiver.getLatest().inputAck, "Sans commande traitée, le client ne doit rien réconcilier");
+
+        List<Snapshot> completed = new ArrayList<>();
+        for (byte[] datagram : SnapshotCodec.encode(current, baseline, 1024)) {
+            ByteBuffer buffer = ByteBuffer.wrap(datagram);
+            buffer.get();
+            receiver.receive(buffer, new SnapshotReceiver.Listener() {
+                @Override
+                public void onEntityState(int netId, double x, double y, double dirX, double dirY) {
+                }
+
+                @Override
+                public void onSnapshot(Snapshot snapshot) {
+                    completed.add(snapshot);
+                }
+            });
+        }
+
+        assertEquals(1, completed.size(), "Le snapshot complet doit être signalé une fois");
+        Snapshot complete = completed.get(0);
+        assertEquals(1234, complete.tick);
+        assertEquals(-5, complete.serverTime, "L'heure serveur est transmise telle quelle sur 32 bits");
+        assertEquals(65535, complete.inputAck, "La dernière commande traitée est lue sur 16 bits non signés");
+        assertEquals(2, complete.size, "L'entité immobile fait partie du snapshot complet");
+    }
+
+    // ─────────────────────── Deltas ──────────────────────────────────────
+
+    @Test
+    void delta_onlyChangedEntitiesAreSent() throws IOException {
+        Snapshot baseline = snapshot(1, new int[][]{{1, 0, 0, 0}, {2, 100, 100, 0}, {3, 50, 50, 0}});
+        assertEquals(1, deliver(SnapshotCodec.encode(baseline, null, 1024)));
+        received.clear();
+
+        Snapshot current = snapshot(2, new int[][]{{1, 0, 0, 0}, {2, 101, 100, 0}, {3, 50, 50, 0}});
+        List<byte[]> datagrams = SnapshotCodec.encode(current, baseline, 1024);
+
+        assertEquals(2, deliver(datagrams));
+        assertEquals(1, received.size(), "Seule l'entité qui a bougé doit être reçue");
+        assertEquals(101 / 16.0, received.get(2)[0], 1e-9);
+        assertTrue(datagrams.get(0).length <= SnapshotCodec.HEADER_SIZE + 3,
+                "Un petit déplacement doit tenir en quelques octets, reçu " + datagrams.get(0).length);
+    }
+
+    @Test
+    void recordBits_matchesEncodedSize() {
+        Snapshot baseline = snapshot(1, new int[][]{{1, 0, 0, 0}});
+        Snapshot current = snapshot(2, new int[][]{{1, 4000, -250, 700}});
+
+        int bits = SnapshotCodec.recordBits(current, 0, baseline, 0);
+        byte[] datagram = SnapshotCodec.encode(current, baseline, 1024).get(0);
+        assertEquals(SnapshotCodec.HEADER_SIZE + (bits + 1 + 7) / 8, datagram.length,
+                "L'estimation doit correspondre à la taille réellement encodée");
+        assertEquals(0, SnapshotCodec.recordBits(baseline, 0, baseline, 0), "Une entité inchangée ne coûte rien");
+    }
+
+    @Test
+    void delta_addedAndRemovedEntities_rebuildSameSnapshot() throws IOException {
+        Snapshot baseline = snapshot(1, new int[][]{{1, 0, 0, 0}, {2, 100, 100, 0}, {3, 50, 50, 0}});
+        deliver(SnapshotCodec.encode(baseline, null, 1024));
+
+        Snapshot current = snapshot(2, new int[][]{{1, 0, 0, 0}, {3, 50, 50, 1000}, {4, -30, 40, 12}});
+        assertEquals(2, deliver(SnapshotCodec.encode(current, baseline, 1024)));
+
+        Snapshot rebuilt = receiver.getLatest();
+        assertEquals(current.size, rebuilt.size, "L'entité 2 doit avoir été retirée et la 4 ajoutée");
+        for (int i = 0; i < current.size; i++) {
+            assertEquals(current.netIds[i], rebuilt.netIds[i]);
+            assertEquals(current.x[i], rebuilt.x[i]);
+            assertEquals(current.y[i], rebuilt.y[i]);
+            assertEquals(current.angle[i], rebuilt.angle[i]);
+        }
+    }
+
+    @Test
+    void delta_againstUnknownBaseline_isDropped() throws IOException {
+        Snapshot baseline = snapshot(1, new int[][]{{1, 0, 0, 0}});
+        Snapshot current = snapshot(2, new int[][]{{1, 16, 0, 0}});
+
+        // Le client n'a jamais reçu le snapshot 1
+        assertEquals(-1, deliver(SnapshotCodec.encode(current, baseline, 1024)), "Le delta ne doit pas être acquitté");
+        assertTrue(received.isEmpty(), "Rien ne doit être appliqué sans baseline");
+    }
+
+    @Test
+    void olderSnapshot_afterNewerOne_isIgnored() throws IOException {
+        Snapshot first = snapshot(5, new int[][]{{1, 0, 0, 0}});
+        Snapshot second = snapshot(6, new int[][]{{1, 16, 0, 0}});
+
+        List<byte[]> late = SnapshotCodec.encode(first, null, 1024);
+        deliver(SnapshotCodec.encode(second, null, 1024));
+        received.clear();
+
+        assertEquals(-1, deliver(late), "Un snapshot arrivé en retard ne doit pas être appliqué");
+        assertTrue(received.isEmpty());
+    }
+
+    @Test
+    void history_reusedOverManySnapshots_staysCorrect() throws IOException {
+        Snapshot previous = null;
+        for (int seq = 1; seq <= 3 * SnapshotReceiver.HISTORY_SIZE; seq++) {
+            Snapshot current = snapshot(seq, new int[][]{{1, seq, 0, 0}, {2, 0, seq * 2, 0}, {3 + seq % 5, 7, 7, 7}});
+            assertEquals(seq, deliver(SnapshotCodec.encode(current, previous, 1024)));
+            assertSnapshotEquals(current, receiver.getLatest());
+            previous = current;
+        }
+    }
+
+    @Test
+    void baseline_inTheSlotBeingReused_isNotOverwrittenBeforeUse() throws IOException {
+        Snapshot baseline = snapshot(8, new int[][]{{1, 0, 0, 0}, {2, 16, 16, 0}});
+        deliver(SnapshotCodec.encode(baseline, null, 1024));
+
+        // 40 et 8 partagent la même case de l'historique
+        int seq = 8 + SnapshotReceiver.HISTORY_SIZE;
+        Snapshot current = snapshot(seq, new int[][]{{1, 32, 0, 0}, {2, 16, 16, 0}});
+        assertEquals(seq, deliver(SnapshotCodec.encode(current, baseline, 1024)));
+        assertSnapshotEquals(current, receiver.getLatest());
+    }
+
+    private static void assertSnapshotEquals(Snapshot expected, Snapshot actual) {
+        assertEquals(expected.seq, actual.seq);
+        assertEquals(expected.size, actual.size, "Nombre d'entités du snapshot " + expected.seq);
+        for (int i = 0; i < expected.size; i++) {
+            assertEquals(expected.netIds[i], actual.netIds[i]);
+            assertEquals(expected.x[i], actual.x[i]);
+            assertEquals(expected.y[i], actual.y[i]);
+            assertEquals(expected.angle[i], actual.angle[i]);
+        }
+    }
+
+    @Test
+    void seq_wrapsAround16Bits() {
+        assertTrue(Snapshot.isNewer(0, 0xFFFF), "0 suit 65535");
+        assertTrue(Snapshot.isNewer(5, 0xFFF0));
+        assertFalse(Snapshot.isNewer(0xFFF0, 5));
+        assertFalse(Snapshot.isNewer(7, 7));
+    }
+
+    // ─────────────────────── Plusieurs datagrammes ───────────────────────
+
+    @Test
+    void largeSnapshot_isSplitIntoIndependentParts_outOfOrder() throws IOException {
+        List<int[]> entities = new ArrayList<>();
+        for (int i = 1; i <= 500; i++) entities.add(new int[]{i * 3, i * 1000, -i * 1000, i % 1024});
+        Snapshot snapshot = snapshot(42, entities.toArray(new int[0][]));
+
+        List<byte[]> datagrams = new ArrayList<>(SnapshotCodec.encode(snapshot, null, 256));
+        assertTrue(datagrams.size() > 1, "500 entités ne tiennent pas dans 256 octets");
+        for (byte[] datagram : datagrams) {
+            assertTrue(datagram.length <= 256, "Aucun datagramme ne doit dépasser la taille maximale");
+        }
+
+        // Livraison dans le désordre : le snapshot n'est complet qu'à la dernière part
+        java.util.Collections.reverse(datagrams);
+        assertEquals(-1, deliver(datagrams.subList(0, datagrams.size() - 1)));
+        assertEquals(42, deliver(datagrams.subList(datagrams.size() - 1, datagrams.size())));
+        assertEquals(500, received.size());
+        assertEquals(500, receiver.getLatest().size);
+    }
+}
@@ -0,0 +1,127 @@
+package com.superkiment.common.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MpscArrayQueueTest {
+
+    // ─────────────────────── Mono-thread ─────────────────────────────────
+
+    @Test
+    void capacity_isRoundedToPowerOfTwo() {
+        assertEquals(8, new MpscArrayQueue<Integer>(5).capacity());
+        assertEquals(8, new MpscArrayQueue<Integer>(8).capacity());
+    }
+
+    @Test
+    void offerAndPoll_keepFifoOrder() {
+        MpscArrayQueue<Integer> queue = new MpscArrayQueue<>(4);
+        queue.offer(1);
+        queue.offer(2);
+        queue.offer(3);
+
+        assertEquals(3, queue.size());
+        assertEquals(1, (int) queue.peek(), "peek ne doit pas retirer l'élément");
+        assertEquals(1, (int) queue.poll());
+        assertEquals(2, (int) queue.poll());
+        assertEquals(3, (int) queue.poll());
+        assertNull(queue.poll(), "Une file vide doit retourner null");
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void offer_whenFull_returnsFalse() {
+        MpscArrayQueue<Integer> queue = new MpscArrayQueue<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(i));
+        }
+
+        assertFalse(queue.offer(99), "La file pleine doit refuser l'élément");
+        assertEquals(4, queue.size());
+
+        queue.poll();
+        assertTrue(queue.offer(4), "Une case libérée doit être réutilisable");
+    }
+
+    @Test
+    void wrapAround_manyTimes_staysConsistent() {
+        MpscArrayQueue<Integer> queue = new MpscArrayQueue<>(4);
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(queue.offer(i));
+            assertTrue(queue.offer(i + 1));
+            assertEquals(i, (int) queue.poll());
+            assertEquals(i + 1, (int) queue.poll());
+        }
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void clear_emptiesQueue() {
+        MpscArrayQueue<String> queue = new MpscArrayQueue<>(4);
+        queue.offer("a");
+        queue.offer("b");
+        queue.clear();
+
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    void offer_null_throws() {
+        assertThrows(NullPointerException.class, () -> new MpscArrayQueue<String>(4).offer(null));
+    }
+
+    // ─────────────────────── Multi-producteurs ───────────────────────────
+
+    @Test
+    void multipleProducers_everyElementReceivedOnceInProducerOrder() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 20_000;
+        MpscArrayQueue<long[]> queue = new MpscArrayQueue<>(256);
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    long[] element = {producer, i};
+                    while (!queue.offer(element)) Thread.yield();
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        start.countDown();
+
+        int[] next = new int[producers];
+        int received = 0;
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (received < producers * perProducer && System.currentTimeMillis() < deadline) {
+            long[] element = queue.poll();
+            if (element == null) {
+                Thread.yield();
+                continue;
+            }
+            int producer = (int) element[0];
+            assertEquals(next[producer], element[1], "Les éléments d'un même producteur doivent rester dans l'ordre");
+            next[producer]++;
+            received++;
+        }
+
+        for (Thread thread : threads) thread.join();
+        assertEquals(producers * perProducer, received, "Tous les éléments doivent être reçus");
+        assertNull(queue.poll(), "Aucun élément ne doit être dupliqué");
+    }
+}
@@ -0,0 +1,114 @@
+package com.superkiment.common.utils;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Comparaison entre une {@link ConcurrentHashMap} indexée par UUID (l'ancien stockage des entités et des clients)
+ * et une {@link SlotMap} : parcours de toute la table, accès par clé ou par poignée, et renouvellement
+ * (un retrait et un ajout, comme un projectile qui disparaît et un autre qui est tiré).
+ * <p>
+ * Lancer avec : java -cp ... com.superkiment.common.utils.SlotMapBenchmark [éléments] [itérations]
+ */
+public class SlotMapBenchmark {
+
+    private static final class Element {
+        final String id = UUID.randomUUID().toString();
+        long handle;
+        int value;
+    }
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+
+        Element[] elements = new Element[count];
+        Map<String, Element> map = new ConcurrentHashMap<>();
+        SlotMap<Element> slots = new SlotMap<>();
+        for (int i = 0; i < count; i++) {
+            Element element = elements[i] = new Element();
+            element.value = i;
+            map.put(element.id, element);
+            element.handle = slots.insert(element);
+        }
+
+        System.out.println(String.format("%-12s %16s %16s", "", "map (ns/op)", "slotmap (ns/op)"));
+
+        // Préchauffage du JIT
+        for (int round = 0; round < 2; round++) {
+            boolean print = round == 1;
+            report(print, "parcours", iterateMap(map, iterations) / count, iterateSlots(slots, iterations) / count);
+            report(print, "accès", lookupMap(map, elements, iterations), lookupSlots(slots, elements, iterations));
+            report(print, "churn", churnMap(map, elements, iterations), churnSlots(slots, elements, iterations));
+        }
+    }
+
+    private static double iterateMap(Map<String, Element> map, int iterations) {
+        long start = System.nanoTime();
+        long sink = 0;
+        for (int n = 0; n < iterations; n++) {
+            for (Element element : map.values()) sink += element.value;
+        }
+        return perOp(start, iterations, sink);
+    }
+
+    private static double iterateSlots(SlotMap<Element> slots, int iterations) {
+        long start = System.nanoTime();
+        long sink = 0;
+        for (int n = 0; n < iterations; n++) {
+            for (int i = 0; i < slots.size(); i++) sink += slots.at(i).value;
+        }
+        return perOp(start, iterations, sink);
+    }
+
+    private static double lookupMap(Map<String, Element> map, Element[] elements, int iterations) {
+        long start = System.nanoTime();
+        long sink = 0;
+        for (int n = 0; n < iterations; n++) {
+            for (Element element : elements) sink += map.get(element.id).value;
+        }
+        return perOp(start, (long) iterations * elements.length, sink);
+    }
+
+    private static double lookupSlots(SlotMap<Element> slots, Element[] elements, int iterations) {
+        long start = System.nanoTime();
+        long sink = 0;
+        for (int n = 0; n < iterations; n++) {
+            for (Element element : elements) sink += slots.get(element.handle).value;
+        }
+        return perOp(start, (long) iterations * elements.length, sink);
+    }
+
+    private static double churnMap(Map<String, Element> map, Element[] elements, int iterations) {
+        long start = System.nanoTime();
+        for (int n = 0; n < iterations; n++) {
+            for (Element element : elements) {
+                map.remove(element.id);
+                map.put(element.id, element);
+            }
+        }
+        return perOp(start, (long) iterations * elements.length, map.size());
+    }
+
+    private static double churnSlots(SlotMap<Element> slots, Element[] elements, int iterations) {
+        long start = System.nanoTime();
+        for (int n = 0; n < iterations; n++) {
+            for (Element element : elements) {
+                slots.remove(element.handle);
+                element.handle = slots.insert(element);
+            }
+        }
+        return perOp(start, (long) iterations * elements.length, slots.size());
+    }
+
+    private static double perOp(long start, long operations, long sink) {
+        long elapsed = System.nanoTime() - start;
+        if (sink == -1) System.out.println();
+        return (double) elapsed / operations;
+    }
+
+    private static void report(boolean print, String name, double mapNanos, double slotNanos) {
+        if (print) System.out.println(String.format("%-12s %16.2f %16.2f", name, mapNanos, slotNanos));
+    }
+}
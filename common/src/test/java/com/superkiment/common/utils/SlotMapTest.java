@@ -0,0 +1,130 @@
+package com.superkiment.common.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SlotMapTest {
+
+    // ─────────────────────── Poignées ────────────────────────────────────
+
+    @Test
+    void insert_returnsHandleToValue() {
+        SlotMap<String> map = new SlotMap<>();
+        long a = map.insert("a");
+        long b = map.insert("b");
+
+        assertNotEquals(SlotMap.NONE, a, "Une poignée ne doit jamais valoir NONE");
+        assertNotEquals(a, b);
+        assertEquals("a", map.get(a));
+        assertEquals("b", map.get(b));
+        assertEquals(2, map.size());
+        assertNull(map.get(SlotMap.NONE));
+    }
+
+    @Test
+    void remove_invalidatesHandle() {
+        SlotMap<String> map = new SlotMap<>();
+        long a = map.insert("a");
+
+        assertEquals("a", map.remove(a));
+        assertNull(map.get(a));
+        assertFalse(map.contains(a));
+        assertNull(map.remove(a), "Retirer deux fois retourne null");
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    void reusedSlot_doesNotMatchOldHandle() {
+        SlotMap<String> map = new SlotMap<>();
+        long old = map.insert("ancien");
+        map.remove(old);
+        long reused = map.insert("nouveau");
+
+        assertEquals((int) old, (int) reused, "La case libérée doit être réutilisée");
+        assertNull(map.get(old), "L'ancienne poignée ne doit pas désigner l'élément qui a repris la case");
+        assertEquals("nouveau", map.get(reused));
+    }
+
+    // ─────────────────────── Parcours ────────────────────────────────────
+
+    @Test
+    void iteration_goesFromLastToFirst() {
+        SlotMap<Integer> map = new SlotMap<>();
+        for (int i = 0; i < 5; i++) map.insert(i);
+
+        List<Integer> seen = new ArrayList<>();
+        for (int value : map) seen.add(value);
+        assertEquals(List.of(4, 3, 2, 1, 0), seen);
+        assertEquals(3, (int) map.at(3));
+    }
+
+    @Test
+    void remove_movesLastIntoHole() {
+        SlotMap<Integer> map = new SlotMap<>();
+        long[] handles = new long[5];
+        for (int i = 0; i < 5; i++) handles[i] = map.insert(i);
+
+        map.remove(handles[1]);
+
+        List<Integer> seen = new ArrayList<>();
+        for (int value : map) seen.add(value);
+        assertEquals(List.of(3, 2, 4, 0), seen, "Le dernier élément doit prendre la place du retiré");
+        assertEquals(4, (int) map.get(handles[4]), "La poignée d'un élément déplacé reste valide");
+    }
+
+    @Test
+    void removeDuringIteration_missesNothing() {
+        SlotMap<Integer> map = new SlotMap<>();
+        long[] handles = new long[10];
+        for (int i = 0; i < handles.length; i++) handles[i] = map.insert(i);
+
+        // Chaque élément pair se retire pendant le parcours, et le 3 retire le 9, déjà vu
+        List<Integer> seen = new ArrayList<>();
+        for (int value : map) {
+            seen.add(value);
+            if (value % 2 == 0) map.remove(handles[value]);
+            if (value == 3) map.remove(handles[9]);
+        }
+
+        seen.sort(null);
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), seen, "Chaque élément doit être vu une fois");
+        assertEquals(4, map.size());
+        for (int value : map) assertTrue(value % 2 == 1 && value != 9);
+    }
+
+    @Test
+    void growth_keepsHandlesValid() {
+        SlotMap<Integer> map = new SlotMap<>();
+        long[] handles = new long[1000];
+        for (int i = 0; i < handles.length; i++) handles[i] = map.insert(i);
+        for (int i = 0; i < handles.length; i += 2) map.remove(handles[i]);
+
+        assertEquals(500, map.size());
+        for (int i = 1; i < handles.length; i += 2) assertEquals(i, (int) map.get(handles[i]));
+        for (int i = 0; i < handles.length; i += 2) assertNull(map.get(handles[i]));
+    }
+
+    @Test
+    void clear_invalidatesEveryHandle() {
+        SlotMap<String> map = new SlotMap<>();
+        long a = map.insert("a");
+        long b = map.insert("b");
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(a));
+        assertNull(map.get(b));
+        assertFalse(map.iterator().hasNext());
+    }
+
+    @Test
+    void at_outOfBounds_throws() {
+        SlotMap<String> map = new SlotMap<>();
+        map.insert("a");
+        assertThrows(IndexOutOfBoundsException.class, () -> map.at(1));
+    }
+}
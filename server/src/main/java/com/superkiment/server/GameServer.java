@@ -1,32 +1,36 @@
 package com.superkiment.server;
 
 import com.superkiment.common.Logger;
-import com.superkiment.common.Time;
-import com.superkiment.common.blocks.BlocksManager;
-import com.superkiment.common.entities.Entity;
-import com.superkiment.common.entities.EntityFactory;
-import com.superkiment.server.entities.ServerEntitiesManager;
 import com.superkiment.server.monitor.MonitorWebServer;
 import com.superkiment.server.monitor.ServerMonitor;
-import com.superkiment.server.network.ClientConnection;
-import com.superkiment.server.network.Network;
+import com.superkiment.server.network.ReplicationWorkers;
 import com.superkiment.server.network.TCPServer;
 import com.superkiment.server.network.UDPServer;
-
+import com.superkiment.server.room.Room;
+import com.superkiment.server.room.RoomManager;
+import com.superkiment.server.zone.ZoneMap;
+import com.superkiment.server.zone.ZoneNode;
+
+import java.io.IOException;
+
+/**
+ * Le processus serveur : les sockets, le moniteur et les salles (voir {@link RoomManager}), qui ont chacune leur monde et leur tick.
+ * <p>
+ * Si la carte est découpée en zones (-Dsurvivkim.zones, voir {@link ZoneMap}), le processus ne simule que la sienne
+ * (-Dsurvivkim.zone), dans une seule salle, sur les ports que le découpage lui donne. Plusieurs processus peuvent
+ * ainsi tourner sur la même machine, chacun avec son -Dsurvivkim.zone et son -Dsurvivkim.monitor.port.
+ */
 public class GameServer {
 
     private static final int TCP_PORT = 56201;
     private static final int UDP_PORT = 56202;
-    private static final int TICK_RATE = 20; // 20 ticks par seconde
 
     private TCPServer tcpServer;
     private UDPServer udpServer;
     private ServerMonitor monitor;
+    private RoomManager rooms;
 
-    public static ServerEntitiesManager entitiesManager;
-    public static BlocksManager blocksManager;
-
-    public boolean running = false;
+    public volatile boolean running = false;
 
     public static void main(String[] args) {
         GameServer server = new GameServer();
@@ -34,97 +38,62 @@ public class GameServer {
     }
 
     public void start() {
+        ZoneMap zones = ZoneMap.fromSystemProperties();
+        ZoneMap.Zone zone = zones == null ? null : zones.get(Integer.getInteger("survivkim.zone", 0));
+        int tcpPort = zone == null ? TCP_PORT : zone.tcpPort;
+        int udpPort = zone == null ? UDP_PORT : zone.udpPort;
+
         Logger.info("=== Démarrage du serveur ===");
-        Logger.info("TCP Port: " + TCP_PORT);
-        Logger.info("UDP Port: " + UDP_PORT);
+        Logger.info("TCP Port: " + tcpPort);
+        Logger.info("UDP Port: " + udpPort);
 
         monitor = ServerMonitor.getInstance();
         MonitorWebServer monitorServer = new MonitorWebServer();
         monitorServer.start();
 
-        entitiesManager = new ServerEntitiesManager();
-        blocksManager = new BlocksManager();
-
-        EntityFactory.CreateInstance(entitiesManager);
+        rooms = zone == null
+                ? new RoomManager()
+                : new RoomManager(RoomManager.ROOM_CAPACITY, 1, ReplicationWorkers.THREADS);
 
         running = true;
 
         // Démarrer les serveurs TCP et UDP
-        tcpServer = new TCPServer(TCP_PORT, this);
+        tcpServer = new TCPServer(tcpPort, rooms);
         new Thread(tcpServer::start, "tcp-server").start();
 
-        udpServer = new UDPServer(UDP_PORT);
+        udpServer = new UDPServer(udpPort, rooms);
         new Thread(udpServer::start, "udp-server").start();
 
-        //Mise à jour des stats
-        new Thread(() -> monitor.statsUpdateLoop(this), "monitor").start();
-
-        loop();
-    }
-
-    /**
-     * Boucle principale du serveur.
-     */
-    private void loop() {
-        long lastTime = System.nanoTime();
-
-        // = nano-seconds Per Tick
-        double nsPerTick = 1_000_000_000.0 / TICK_RATE;
-        double delta = 0;
-
-        while (running) {
-            long now = System.nanoTime();
-            delta += (now - lastTime) / nsPerTick;
-            lastTime = now;
-
-            if (delta >= 1) {
-                tick();
-                delta--;
-            }
+        rooms.attach(tcpServer, udpServer);
 
+        if (zone == null) {
+            rooms.start(RoomManager.INITIAL_ROOMS);
+        } else {
+            // Une seule salle, qui simule la zone : tous les joueurs du processus y entrent
+            Room room = rooms.createRoom();
+            room.zone = new ZoneNode(room, zones, zone.index);
             try {
-                Thread.sleep(1);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
+                room.zone.start();
+            } catch (IOException e) {
+                Logger.error("Impossible d'ouvrir le port des zones " + zone.peerPort + ": " + e.getMessage());
+                stop();
+                return;
             }
+            rooms.start(1);
         }
-    }
-
-    /**
-     * Une loop du jeu en lui-même
-     */
-    private void tick() {
-        Time.UpdateFrameTime();
 
-        // Gérer les timeouts
-        for (ClientConnection client : entitiesManager.getClients().values()) {
-            float timeSinceLastHeatbeat = client.timeSinceLastHeartbeat(System.currentTimeMillis());
-
-            // Timeout : 12 secondes (3 * heartbeat de 4s)
-            if (timeSinceLastHeatbeat > 12_000f) {
-                Logger.info("Client " + client.playerName + " was timed out.");
-                client.disconnect();
-            }
-        }
-
-        for (Entity entity : entitiesManager.getEntities().values()) {
-            entity.dirtyOtherAttribute = false;
-            entity.dirtyPosition = false;
-        }
-
-        for (Entity entity : entitiesManager.getEntities().values()) {
-            entity.updateLogic(entitiesManager, blocksManager);
-        }
-
-        entitiesManager.deleteAllEntitiesToBeDeleted();
+        //Mise à jour des stats
+        new Thread(() -> monitor.statsUpdateLoop(this), "monitor").start();
+    }
 
-        Network.broadcastBulkPositionUDP(udpServer);
-        Network.broadcastChangesInCollisionablesTCP(tcpServer);
+    public RoomManager getRooms() {
+        return rooms;
     }
 
     public void stop() {
         running = false;
+        rooms.stop();
         tcpServer.stop();
         udpServer.stop();
     }
-}
\ No newline at end of file
+}
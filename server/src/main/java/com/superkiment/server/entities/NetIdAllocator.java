@@ -0,0 +1,49 @@
+package com.superkiment.server.entities;
+
+/**
+ * Distribue les identifiants réseau des entités, sur 16 bits (1 à 65535, 0 signifiant "pas d'identifiant").
+ * <p>
+ * Les identifiants libérés sont réutilisés dans l'ordre où ils ont été rendus, pour qu'un datagramme UDP en retard
+ * ait le moins de chances possible de désigner la nouvelle entité qui a repris l'identifiant.
+ */
+public class NetIdAllocator {
+
+    public static final int MAX_NET_ID = 0xFFFF;
+
+    private int nextFreshId = 1;
+
+    /**
+     * File circulaire des identifiants libérés.
+     */
+    private final int[] released = new int[MAX_NET_ID];
+    private int releasedHead = 0;
+    private int releasedCount = 0;
+
+    public synchronized int allocate() {
+        if (nextFreshId <= MAX_NET_ID) {
+            return nextFreshId++;
+        }
+        if (releasedCount == 0) {
+            throw new IllegalStateException("Plus d'identifiant réseau disponible (" + MAX_NET_ID + " entités)");
+        }
+
+        int id = released[releasedHead];
+        releasedHead = (releasedHead + 1) % released.length;
+        releasedCount--;
+        return id;
+    }
+
+    public synchronized void release(int netId) {
+        if (netId <= 0 || netId > MAX_NET_ID) return;
+
+        released[(releasedHead + releasedCount) % released.length] = netId;
+        releasedCount++;
+    }
+
+    /**
+     * Nombre d'identifiants actuellement attribués.
+     */
+    public synchronized int inUse() {
+        return nextFreshId - 1 - releasedCount;
+    }
+}
@@ -3,40 +3,114 @@ package com.superkiment.server.entities;
 import com.superkiment.common.Logger;
 import com.superkiment.common.entities.EntitiesManager;
 import com.superkiment.common.entities.Entity;
-import com.superkiment.common.packets.entity.PacketDeleteEntity;
+import com.superkiment.common.utils.SlotMap;
 import com.superkiment.server.network.ClientConnection;
-import com.superkiment.server.network.Network;
 import com.superkiment.server.network.handles.EntityHandle;
+import com.superkiment.server.room.Room;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Les entités et les clients d'une salle, rangés comme les entités dans des {@link SlotMap} parcourues par le tick.
+ * Chaque client garde la poignée de l'entité de son joueur : le tick n'a pas à chercher son UUID.
+ * Uniquement modifié par le thread de la salle.
+ */
 public class ServerEntitiesManager extends EntitiesManager {
-    private final Map<String, ClientConnection> clients = new ConcurrentHashMap<>();
+    private final Room room;
+    private final SlotMap<ClientConnection> clients = new SlotMap<>();
+    private final Map<String, ClientConnection> clientsById = new ConcurrentHashMap<>();
+    private final NetIdAllocator netIds = new NetIdAllocator();
 
-    public Map<String, ClientConnection> getClients() {
+    public ServerEntitiesManager(Room room) {
+        this.room = room;
+    }
+
+    public SlotMap<ClientConnection> getClients() {
         return clients;
     }
 
+    /**
+     * @return le client du joueur, ou null s'il n'a pas rejoint la partie.
+     */
+    public ClientConnection getClient(String playerId) {
+        return clientsById.get(playerId);
+    }
+
+    /**
+     * Ajouter le client d'un joueur qui rejoint la partie. Un autre client du même joueur est remplacé.
+     */
+    public void addClient(ClientConnection client) {
+        ClientConnection previous = clientsById.put(client.playerId, client);
+        if (previous == client) return;
+        if (previous != null) clients.remove(previous.handle);
+
+        client.handle = clients.insert(client);
+        Entity player = getEntityFromID(client.playerId);
+        client.playerHandle = player == null ? SlotMap.NONE : player.handle;
+    }
+
+    /**
+     * L'entité du joueur d'un client, ou null s'il n'en a pas (encore).
+     */
+    public Entity getPlayer(ClientConnection client) {
+        return getEntity(client.playerHandle);
+    }
+
+    /**
+     * Le serveur est seul à attribuer les identifiants réseau : celui éventuellement reçu d'un client est ignoré.
+     */
+    @Override
+    public void addEntity(Entity entity) {
+        entity.netId = netIds.allocate();
+        super.addEntity(entity);
+
+        // L'entité d'un joueur est créée après son join
+        ClientConnection client = clientsById.get(entity.id);
+        if (client != null) client.playerHandle = entity.handle;
+    }
+
+    @Override
+    public Entity removeEntity(String id) {
+        Entity entity = super.removeEntity(id);
+        if (entity != null) netIds.release(entity.netId);
+        return entity;
+    }
+
     public void removeClient(ClientConnection client) {
         if (client.playerId != null) {
-            getClients().remove(client.playerId);
+            // Seule la session de cette connexion est libérée, jamais celle d'une autre
+            room.network.closeUdpSession(client);
+
+            // Une connexion déjà remplacée par une autre du même joueur ne lui retire pas son joueur
+            if (!clientsById.remove(client.playerId, client)) return;
+            clients.remove(client.handle);
+            client.handle = SlotMap.NONE;
             Logger.info("Client déconnecté: " + client.playerName);
 
-            // Supprimer l'entité du joueur
-            if (getEntities().containsKey(client.playerId)) {
-                PacketDeleteEntity packet = new PacketDeleteEntity(client.playerId);
-                Network.broadcastTCP(packet, null);
-                getEntities().remove(client.playerId);
+            // Supprimer l'entité du joueur, sauf s'il est passé dans une autre zone qui la simule désormais
+            Entity player = getEntityFromID(client.playerId);
+            if (player != null && !player.ghost) {
+                room.network.broadcastEntityDeleted(player);
+                removeEntity(client.playerId);
             }
         }
     }
 
+    /**
+     * Retirer tous les clients, sans fermer leurs connexions.
+     */
+    public void clearClients() {
+        for (int i = clients.size() - 1; i >= 0; i--) clients.at(i).handle = SlotMap.NONE;
+        clients.clear();
+        clientsById.clear();
+    }
+
     @Override
     public void deleteAllEntitiesToBeDeleted() {
         for (Entity entity : toBeDeletedEntities) {
             entity.onDeleted();
-            EntityHandle.deleteEntity(entity.id);
+            EntityHandle.deleteEntity(room, entity.id);
         }
 
         toBeDeletedEntities.clear();
@@ -0,0 +1,141 @@
+package com.superkiment.server.entities;
+
+import com.superkiment.common.entities.Entity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Grille spatiale uniforme sur les entités, reconstruite à chaque tick, pour trouver les entités proches d'un point
+ * sans parcourir tout le monde.
+ * <p>
+ * Les cases sont indexées par une table à adressage ouvert et gardées d'un tick à l'autre (seulement vidées) :
+ * aucune allocation en régime établi. Uniquement manipulé par le thread du tick.
+ */
+public class SpatialGrid {
+
+    private final double cellSize;
+
+    private long[] keys = new long[64];
+    private Cell[] cells = new Cell[64];
+    private int cellCount = 0;
+
+    /**
+     * Cases non vides depuis le dernier {@link #clear()}.
+     */
+    private final List<Cell> usedCells = new ArrayList<>();
+
+    private static final class Cell {
+        Entity[] entities = new Entity[8];
+        int size = 0;
+
+        void add(Entity entity) {
+            if (size == entities.length) entities = Arrays.copyOf(entities, size * 2);
+            entities[size++] = entity;
+        }
+    }
+
+    public SpatialGrid(double cellSize) {
+        if (cellSize <= 0) throw new IllegalArgumentException("Taille de case invalide: " + cellSize);
+        this.cellSize = cellSize;
+    }
+
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    public void clear() {
+        for (Cell cell : usedCells) {
+            Arrays.fill(cell.entities, 0, cell.size, null);
+            cell.size = 0;
+        }
+        usedCells.clear();
+    }
+
+    public void rebuild(Iterable<Entity> entities) {
+        clear();
+        for (Entity entity : entities) insert(entity);
+    }
+
+    public void insert(Entity entity) {
+        Cell cell = cell(key(cellOf(entity.pos.x), cellOf(entity.pos.y)));
+        if (cell.size == 0) usedCells.add(cell);
+        cell.add(entity);
+    }
+
+    /**
+     * Ajouter à {@code out} les entités à une distance inférieure ou égale à {@code radius} de (x, y).
+     */
+    public void query(double x, double y, double radius, List<Entity> out) {
+        double radiusSquared = radius * radius;
+        int minX = cellOf(x - radius), maxX = cellOf(x + radius);
+        int minY = cellOf(y - radius), maxY = cellOf(y + radius);
+
+        for (int cx = minX; cx <= maxX; cx++) {
+            for (int cy = minY; cy <= maxY; cy++) {
+                Cell cell = find(key(cx, cy));
+                if (cell == null) continue;
+
+                for (int i = 0; i < cell.size; i++) {
+                    Entity entity = cell.entities[i];
+                    double dx = entity.pos.x - x, dy = entity.pos.y - y;
+                    if (dx * dx + dy * dy <= radiusSquared) out.add(entity);
+                }
+            }
+        }
+    }
+
+    private int cellOf(double coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    private static long key(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+    }
+
+    private int slot(long key, int mask) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+    }
+
+    private Cell find(long key) {
+        int mask = cells.length - 1;
+        for (int i = slot(key, mask); cells[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) return cells[i];
+        }
+        return null;
+    }
+
+    /**
+     * La case de cette clé, créée si besoin.
+     */
+    private Cell cell(long key) {
+        int mask = cells.length - 1;
+        int i = slot(key, mask);
+        for (; cells[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) return cells[i];
+        }
+
+        Cell cell = new Cell();
+        keys[i] = key;
+        cells[i] = cell;
+        if (++cellCount * 2 > cells.length) grow();
+        return cell;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        Cell[] oldCells = cells;
+        keys = new long[oldKeys.length * 2];
+        cells = new Cell[oldCells.length * 2];
+
+        int mask = cells.length - 1;
+        for (int j = 0; j < oldCells.length; j++) {
+            if (oldCells[j] == null) continue;
+            int i = slot(oldKeys[j], mask);
+            while (cells[i] != null) i = (i + 1) & mask;
+            keys[i] = oldKeys[j];
+            cells[i] = oldCells[j];
+        }
+    }
+}
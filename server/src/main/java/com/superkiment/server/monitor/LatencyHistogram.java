@@ -0,0 +1,107 @@
+package com.superkiment.server.monitor;
+
+import java.util.Arrays;
+
+/**
+ * Histogramme de latences à la manière de HdrHistogram : précision relative constante (moins de 1,6 %)
+ * de la microseconde à la minute, dans un tableau de taille fixe, sans allocation à l'enregistrement.
+ * <p>
+ * Les valeurs sous {@link #SUB_BUCKETS} microsecondes ont chacune leur case. Au-delà, chaque puissance de deux
+ * est découpée en {@link #SUB_BUCKETS} / 2 cases de même largeur.
+ * Pas thread-safe : un seul thread enregistre, les autres lisent des copies.
+ */
+public class LatencyHistogram {
+
+    public static final int SUB_BUCKETS = 128;
+    private static final int HALF = SUB_BUCKETS / 2;
+    private static final int SUB_BITS = Integer.numberOfTrailingZeros(SUB_BUCKETS);
+
+    /**
+     * Plus grande valeur enregistrée telle quelle, un peu plus d'une minute : au-delà, elle compte pour cette valeur.
+     */
+    public static final long MAX_VALUE = (1L << 26) - 1;
+
+    private static final int BUCKETS = index(MAX_VALUE) + 1;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count = 0;
+    private long sum = 0;
+    private long min = Long.MAX_VALUE;
+    private long max = 0;
+
+    public void record(long micros) {
+        long value = Math.max(0, Math.min(micros, MAX_VALUE));
+        counts[index(value)]++;
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Ajouter les valeurs d'un autre histogramme, pour agréger plusieurs clients.
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) counts[i] += other.counts[i];
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+    /**
+     * La plus petite valeur en dessous de laquelle se trouvent {@code percentile} % des valeurs,
+     * arrondie à la borne haute de sa case. 0 si l'histogramme est vide.
+     */
+    public long percentile(double percentile) {
+        if (count == 0) return 0;
+
+        long target = Math.max(1, (long) Math.ceil(count * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= target) return Math.min(highestEquivalent(i), max);
+        }
+        return max;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    static int index(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BITS - 1);
+        int sub = (int) (value >>> shift);
+        return SUB_BUCKETS + (shift - 1) * HALF + (sub - HALF);
+    }
+
+    static long highestEquivalent(int index) {
+        if (index < SUB_BUCKETS) return index;
+
+        int shift = (index - SUB_BUCKETS) / HALF + 1;
+        long sub = (index - SUB_BUCKETS) % HALF + HALF;
+        return ((sub + 1) << shift) - 1;
+    }
+}
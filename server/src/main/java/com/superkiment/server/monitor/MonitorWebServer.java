@@ -17,7 +17,10 @@ import java.util.concurrent.CopyOnWriteArrayList;
  */
 public class MonitorWebServer {
 
-    private static final int PORT = 56204;
+    /**
+     * Port du dashboard (-Dsurvivkim.monitor.port), à changer pour lancer plusieurs serveurs sur la même machine.
+     */
+    private static final int PORT = Integer.getInteger("survivkim.monitor.port", 56204);
     private HttpServer server;
     private static final List<HttpExchange> sseClients = new CopyOnWriteArrayList<>();
 
@@ -203,6 +206,7 @@ public class MonitorWebServer {
                          .TCP_OUT { border-left-color: #60a5fa; }
                          .UDP_IN { border-left-color: #fbbf24; }
                          .UDP_OUT { border-left-color: #f97316; }
+                         .HEALTH { border-left-color: #f87171; }
                          .status-indicator {
                              display: inline-block;
                              width: 10px;
@@ -259,6 +263,10 @@ public class MonitorWebServer {
                                  <div class="stat-label">UDP/s</div>
                                  <div class="stat-value" id="udpPerSec">0<span class="stat-unit">pkt/s</span></div>
                              </div>
+                             <div class="stat-card">
+                                 <div class="stat-label">Messages fiables/s</div>
+                                 <div class="stat-value" id="reliablePerSec">0<span class="stat-unit">msg/s</span></div>
+                             </div>
                              <div class="stat-card">
                                  <div class="stat-label">Données reçues</div>
                                  <div class="stat-value" id="bytesIn">0<span class="stat-unit">KB</span></div>
@@ -267,6 +275,30 @@ public class MonitorWebServer {
                                  <div class="stat-label">Données envoyées</div>
                                  <div class="stat-value" id="bytesOut">0<span class="stat-unit">KB</span></div>
                              </div>
+                             <div class="stat-card">
+                                 <div class="stat-label">File d'envoi max</div>
+                                 <div class="stat-value" id="outboundQueue">0<span class="stat-unit">frames</span></div>
+                             </div>
+                             <div class="stat-card">
+                                 <div class="stat-label">File d'entrée max</div>
+                                 <div class="stat-value" id="inboundQueue">0<span class="stat-unit">TCP</span></div>
+                             </div>
+                             <div class="stat-card">
+                                 <div class="stat-label">Datagrammes perdus</div>
+                                 <div class="stat-value" id="inboundDropped">0<span class="stat-unit">UDP</span></div>
+                             </div>
+                             <div class="stat-card">
+                                 <div class="stat-label">Clients dégradés</div>
+                                 <div class="stat-value" id="degraded">0<span class="stat-unit">clients</span></div>
+                             </div>
+                             <div class="stat-card">
+                                 <div class="stat-label">Snapshots retenus</div>
+                                 <div class="stat-value" id="skippedSnapshots">0<span class="stat-unit">snapshots</span></div>
+                             </div>
+                             <div class="stat-card">
+                                 <div class="stat-label">Latence p50 / p99</div>
+                                 <div class="stat-value" id="latency">0<span class="stat-unit">ms</span></div>
+                             </div>
                          </div>
                 
                          <div class="logs-container">
@@ -297,8 +329,21 @@ public class MonitorWebServer {
                              document.getElementById('udp').textContent = data.totalUDPPackets.toLocaleString();
                              document.getElementById('tcpPerSec').innerHTML = data.tcpPacketsPerSecond + '<span class="stat-unit">pkt/s</span>';
                              document.getElementById('udpPerSec').innerHTML = data.udpPacketsPerSecond + '<span class="stat-unit">pkt/s</span>';
+                             document.getElementById('reliablePerSec').innerHTML = data.reliableMessagesPerSecond + '<span class="stat-unit">msg/s</span> '
+                                     + (data.totalReliableBytes / 1024).toFixed(2) + '<span class="stat-unit">KB</span>';
                              document.getElementById('bytesIn').innerHTML = (data.totalBytesReceived / 1024).toFixed(2) + '<span class="stat-unit">KB</span>';
                              document.getElementById('bytesOut').innerHTML = (data.totalBytesSent / 1024).toFixed(2) + '<span class="stat-unit">KB</span>';
+                             document.getElementById('outboundQueue').innerHTML = data.maxOutboundQueueDepth + '<span class="stat-unit">frames</span>';
+                             document.getElementById('inboundQueue').innerHTML = data.maxInboundTCPDepth + '<span class="stat-unit">TCP</span> '
+                                     + data.maxInboundUDPDepth + '<span class="stat-unit">UDP</span>';
+                             document.getElementById('inboundDropped').innerHTML = data.inboundUDPDropped + '<span class="stat-unit">UDP</span> '
+                                     + data.rejectedDatagrams + '<span class="stat-unit">rejetés</span>';
+                             document.getElementById('degraded').innerHTML = data.degradedClients + '<span class="stat-unit">clients</span> '
+                                     + data.healthDegradations + '<span class="stat-unit">au total</span>';
+                             document.getElementById('skippedSnapshots').innerHTML = data.skippedSnapshots + '<span class="stat-unit">snapshots</span> '
+                                     + data.healthDisconnects + '<span class="stat-unit">déconnexions</span>';
+                             document.getElementById('latency').innerHTML = (data.latencyP50 / 1000).toFixed(1) + ' / '
+                                     + (data.latencyP99 / 1000).toFixed(1) + '<span class="stat-unit">ms</span>';
                 
                              logsContainer.innerHTML = '';
                              data.recentLogs.reverse().forEach(log => {
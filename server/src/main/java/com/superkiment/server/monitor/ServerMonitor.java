@@ -1,17 +1,20 @@
 package com.superkiment.server.monitor;
 
+import com.superkiment.common.Logger;
 import com.superkiment.common.packets.Packet;
-import com.superkiment.common.packets.entity.PacketEntityPosition;
-import com.superkiment.common.packets.PacketSerializer;
 import com.superkiment.server.GameServer;
+import com.superkiment.server.network.ClientConnection;
+import com.superkiment.server.network.ConnectionHealth;
+import com.superkiment.server.network.Network;
+import com.superkiment.server.room.Room;
 
-import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.text.SimpleDateFormat;
 
 /**
- * Moniteur central qui collecte toutes les stats du serveur
+ * Moniteur central qui collecte toutes les stats du serveur, toutes salles réunies.
+ * Les compteurs sont mis à jour par les ticks de plusieurs salles : chaque mise à jour est synchronisée.
  */
 public class ServerMonitor {
 
@@ -24,15 +27,37 @@ public class ServerMonitor {
     private long totalBytesSent = 0;
     private int connectedClients = 0;
     private int totalEntities = 0;
+    private int maxOutboundQueueDepth = 0;
+    private int maxInboundTCPDepth = 0;
+    private int maxInboundUDPDepth = 0;
+    private long inboundUDPDropped = 0;
+    private long rejectedDatagrams = 0;
+    private long rejectedDatagramsLogged = 0;
+    private long lastRejectedLogTime = 0;
+    private int degradedClients = 0;
+    private long healthDegradations = 0;
+    private long healthDisconnects = 0;
+    private long skippedSnapshots = 0;
+    private long totalReliableMessages = 0;
+    private long totalReliableBytes = 0;
+
+    // Latences publiées par le tick, lues par le thread des stats
+    private volatile List<ClientLatency> clientLatencies = List.of();
+    private volatile long latencyP50 = 0;
+    private volatile long latencyP99 = 0;
+    private volatile long latencyMax = 0;
 
     // Logs récents (max 100)
     private final Queue<LogEntry> recentLogs = new ConcurrentLinkedQueue<>();
     private static final int MAX_LOGS = 100;
 
+    public static final long REJECTED_LOG_INTERVAL_MILLIS = 10_000;
+
     // Stats par seconde
     private int tcpPacketsPerSecond = 0;
     private int udpPacketsPerSecond = 0;
     private long bytesPerSecond = 0;
+    private int reliableMessagesPerSecond = 0;
 
     private long lastResetTime = System.currentTimeMillis();
 
@@ -62,63 +87,110 @@ public class ServerMonitor {
     }
 
     /**
-     * Logger un packet TCP reçu
+     * Logger un packet TCP reçu, de {@code bytes} octets une fois encodé
      */
-    public void logTCPReceived(Packet packet) throws IOException {
-        byte[] data = PacketSerializer.serialize(packet);
-        int bytes = data.length;
+    public void logTCPReceived(Packet packet, int bytes) {
         String packetType = packet.getType().toString();
 
-        totalTCPPackets++;
-        tcpPacketsPerSecond++;
-        totalBytesReceived += bytes;
-        bytesPerSecond += bytes;
+        synchronized (this) {
+            totalTCPPackets++;
+            tcpPacketsPerSecond++;
+            totalBytesReceived += bytes;
+            bytesPerSecond += bytes;
+        }
         log("TCP_IN", "← " + packetType + " (" + bytes + " bytes)");
     }
 
     /**
-     * Logger un packet TCP envoyé
+     * Logger un packet envoyé, de {@code bytes} octets une fois encodé : la taille vient de l'encodage déjà fait pour l'envoi
      */
-    public void logTCPSent(Packet packet) throws IOException {
-        byte[] data = PacketSerializer.serialize(packet);
-        int bytes = data.length;
+    public void logTCPSent(Packet packet, int bytes) {
         String packetType = packet.getType().toString();
 
-        totalTCPPackets++;
-        tcpPacketsPerSecond++;
-        totalBytesSent += bytes;
-        bytesPerSecond += bytes;
+        synchronized (this) {
+            totalTCPPackets++;
+            tcpPacketsPerSecond++;
+            totalBytesSent += bytes;
+            bytesPerSecond += bytes;
+        }
         log("TCP_OUT", "→ " + packetType + " (" + bytes + " bytes)");
     }
 
     /**
-     * Logger un packet UDP reçu
+     * Logger un message confié au canal fiable UDP, de {@code bytes} octets une fois encodé. Les datagrammes qui le
+     * portent sont comptés par {@link #logUDPSent(int, long)} : seuls les messages le sont ici.
      */
-    public void logUDPReceived(PacketEntityPosition packet) {
-        byte[] data = PacketSerializer.serializePositionUDP(packet);
-        int bytes = data.length;
-        String entityId = packet.entityId;
+    public void logReliableSent(Packet packet, int bytes) {
+        String packetType = packet.getType().toString();
 
+        synchronized (this) {
+            totalReliableMessages++;
+            reliableMessagesPerSecond++;
+            totalReliableBytes += bytes;
+        }
+        log("UDP_OUT", "→ " + packetType + " fiable (" + bytes + " bytes)");
+    }
+
+    /**
+     * Logger un datagramme UDP reçu. Seule la taille est comptée, pour ne rien allouer par datagramme.
+     */
+    public synchronized void logUDPReceived(int bytes) {
         totalUDPPackets++;
         udpPacketsPerSecond++;
         totalBytesReceived += bytes;
         bytesPerSecond += bytes;
-        //log("UDP_IN", "← Position " + entityId.substring(0, 8) + "... (" + bytes + " bytes)");
     }
 
     /**
-     * Logger un packet UDP envoyé
+     * Logger un datagramme UDP envoyé. Seule la taille est comptée, pour ne rien allouer par datagramme.
      */
-    public void logUDPSent(PacketEntityPosition packet) {
-        byte[] data = PacketSerializer.serializePositionUDP(packet);
-        int bytes = data.length;
-        String entityId = packet.entityId;
+    public void logUDPSent(int bytes) {
+        logUDPSent(1, bytes);
+    }
 
-        totalUDPPackets++;
-        udpPacketsPerSecond++;
+    /**
+     * Logger plusieurs datagrammes envoyés d'un coup, comptés par les threads de réplication.
+     */
+    public synchronized void logUDPSent(int datagrams, long bytes) {
+        totalUDPPackets += datagrams;
+        udpPacketsPerSecond += datagrams;
         totalBytesSent += bytes;
         bytesPerSecond += bytes;
-        //log("UDP_OUT", "→ Position " + entityId.substring(0, 8) + "... (" + bytes + " bytes)");
+    }
+
+    /**
+     * Logger un changement de santé d'une connexion (voir {@link ConnectionHealth})
+     */
+    public void logHealthChange(ConnectionHealth.Change change, String message) {
+        synchronized (this) {
+            if (change == ConnectionHealth.Change.DEGRADED) healthDegradations++;
+            if (change == ConnectionHealth.Change.DISCONNECT) healthDisconnects++;
+        }
+        log("HEALTH", message);
+    }
+
+    /**
+     * Compter, à chaque tick d'une salle, les snapshots qui n'ont pas été envoyés aux clients dégradés
+     */
+    public synchronized void logSkippedSnapshots(int skippedSnapshots) {
+        this.skippedSnapshots += skippedSnapshots;
+    }
+
+    /**
+     * Mettre à jour le nombre de clients dégradés, toutes salles réunies
+     */
+    public void setDegradedClients(int count) {
+        this.degradedClients = count;
+    }
+
+    /**
+     * Publier la latence de chaque client et les percentiles de tous les clients réunis, en microsecondes
+     */
+    public void setLatencyStats(List<ClientLatency> clients, long p50, long p99, long max) {
+        this.clientLatencies = clients;
+        this.latencyP50 = p50;
+        this.latencyP99 = p99;
+        this.latencyMax = max;
     }
 
     /**
@@ -135,15 +207,49 @@ public class ServerMonitor {
         this.totalEntities = count;
     }
 
+    /**
+     * Mettre à jour la plus grande file d'envoi TCP parmi les clients
+     */
+    public void setMaxOutboundQueueDepth(int depth) {
+        this.maxOutboundQueueDepth = depth;
+    }
+
+    /**
+     * Mettre à jour les files d'entrée du tick : plus grandes profondeurs de la dernière seconde et datagrammes perdus
+     */
+    public void setInboundQueueStats(int tcpDepth, int udpDepth, long udpDropped) {
+        this.maxInboundTCPDepth = tcpDepth;
+        this.maxInboundUDPDepth = udpDepth;
+        this.inboundUDPDropped = udpDropped;
+    }
+
+    /**
+     * Mettre à jour les datagrammes rejetés (invalides, sans session ou d'un type inconnu), et le signaler dans les logs
+     * au plus une fois toutes les {@link #REJECTED_LOG_INTERVAL_MILLIS} : un expéditeur inconnu ne peut pas les inonder.
+     */
+    public void updateRejectedDatagrams(long total) {
+        long now = System.currentTimeMillis();
+        long newlyRejected;
+        synchronized (this) {
+            rejectedDatagrams = total;
+            newlyRejected = total - rejectedDatagramsLogged;
+            if (newlyRejected <= 0 || now - lastRejectedLogTime < REJECTED_LOG_INTERVAL_MILLIS) return;
+            rejectedDatagramsLogged = total;
+            lastRejectedLogTime = now;
+        }
+        Logger.warn(newlyRejected + " datagrammes UDP rejetés (invalides, sans session ou de type inconnu)");
+    }
+
     /**
      * Réinitialiser les stats par seconde
      */
-    public void resetPerSecondStats() {
+    public synchronized void resetPerSecondStats() {
         long now = System.currentTimeMillis();
         if (now - lastResetTime >= 1000) {
             tcpPacketsPerSecond = 0;
             udpPacketsPerSecond = 0;
             bytesPerSecond = 0;
+            reliableMessagesPerSecond = 0;
             lastResetTime = now;
         }
     }
@@ -160,8 +266,30 @@ public class ServerMonitor {
         json.append("\"totalBytesSent\":").append(totalBytesSent).append(",");
         json.append("\"connectedClients\":").append(connectedClients).append(",");
         json.append("\"totalEntities\":").append(totalEntities).append(",");
+        json.append("\"maxOutboundQueueDepth\":").append(maxOutboundQueueDepth).append(",");
+        json.append("\"maxInboundTCPDepth\":").append(maxInboundTCPDepth).append(",");
+        json.append("\"maxInboundUDPDepth\":").append(maxInboundUDPDepth).append(",");
+        json.append("\"inboundUDPDropped\":").append(inboundUDPDropped).append(",");
+        json.append("\"rejectedDatagrams\":").append(rejectedDatagrams).append(",");
+        json.append("\"degradedClients\":").append(degradedClients).append(",");
+        json.append("\"healthDegradations\":").append(healthDegradations).append(",");
+        json.append("\"healthDisconnects\":").append(healthDisconnects).append(",");
+        json.append("\"skippedSnapshots\":").append(skippedSnapshots).append(",");
+        json.append("\"totalReliableMessages\":").append(totalReliableMessages).append(",");
+        json.append("\"totalReliableBytes\":").append(totalReliableBytes).append(",");
+        json.append("\"latencyP50\":").append(latencyP50).append(",");
+        json.append("\"latencyP99\":").append(latencyP99).append(",");
+        json.append("\"latencyMax\":").append(latencyMax).append(",");
+        json.append("\"clientLatencies\":[");
+        List<ClientLatency> latencies = clientLatencies;
+        for (int i = 0; i < latencies.size(); i++) {
+            json.append(latencies.get(i).toJSON());
+            if (i < latencies.size() - 1) json.append(",");
+        }
+        json.append("],");
         json.append("\"tcpPacketsPerSecond\":").append(tcpPacketsPerSecond).append(",");
         json.append("\"udpPacketsPerSecond\":").append(udpPacketsPerSecond).append(",");
+        json.append("\"reliableMessagesPerSecond\":").append(reliableMessagesPerSecond).append(",");
         json.append("\"bytesPerSecond\":").append(bytesPerSecond).append(",");
         json.append("\"recentLogs\":[");
 
@@ -175,14 +303,46 @@ public class ServerMonitor {
         return json.toString();
     }
 
+    /**
+     * Réunir les stats de toutes les salles : sommes, maximums, et latences de tous leurs clients
+     */
+    public void updateRoomStats(List<Room> rooms) {
+        int clients = 0, entities = 0, maxDepth = 0, tcpDepth = 0, udpDepth = 0, degraded = 0;
+        long udpDropped = 0;
+        LatencyHistogram allLatencies = new LatencyHistogram();
+        List<ClientLatency> latencies = new ArrayList<>();
+
+        for (Room room : rooms) {
+            clients += room.entitiesManager.getClients().size();
+            entities += room.entitiesManager.getEntities().size();
+            for (ClientConnection client : room.entitiesManager.getClients()) {
+                maxDepth = Math.max(maxDepth, client.getOutboundQueueDepth());
+            }
+
+            Network network = room.network;
+            tcpDepth = Math.max(tcpDepth, network.takeInboundTCPPeakDepth());
+            udpDepth = Math.max(udpDepth, network.takeInboundUDPPeakDepth());
+            udpDropped += network.getInboundUDPDropped();
+            degraded += network.getDegradedClients();
+            allLatencies.add(network.getPublishedLatencies());
+            latencies.addAll(network.getPublishedClientLatencies());
+        }
+
+        setConnectedClients(clients);
+        setTotalEntities(entities);
+        setMaxOutboundQueueDepth(maxDepth);
+        setInboundQueueStats(tcpDepth, udpDepth, udpDropped);
+        setDegradedClients(degraded);
+        setLatencyStats(latencies, allLatencies.percentile(50), allLatencies.percentile(99), allLatencies.getMax());
+    }
+
     public void statsUpdateLoop(GameServer gameServer) {
         while (gameServer.running) {
             try {
                 Thread.sleep(1000); // Toutes les secondes
 
-                // Mettre à jour les stats
-                setConnectedClients(GameServer.entitiesManager.getClients().size());
-                setTotalEntities(GameServer.entitiesManager.getEntities().size());
+                updateRoomStats(gameServer.getRooms().getRooms());
+                updateRejectedDatagrams(gameServer.getRooms().getRejectedDatagrams());
                 resetPerSecondStats();
 
                 // Broadcaster aux dashboards
@@ -194,6 +354,19 @@ public class ServerMonitor {
         }
     }
 
+    /**
+     * Latence mesurée d'un client, en microsecondes (voir LatencyTracker)
+     */
+    public record ClientLatency(String player, long samples, long rtt, long jitter, long clockOffset,
+                                long p50, long p99, long max) {
+
+        public String toJSON() {
+            return String.format("{\"player\":\"%s\",\"samples\":%d,\"rtt\":%d,\"jitter\":%d,\"clockOffset\":%d,"
+                            + "\"p50\":%d,\"p99\":%d,\"max\":%d}",
+                    String.valueOf(player).replace("\"", "\\\""), samples, rtt, jitter, clockOffset, p50, p99, max);
+        }
+    }
+
     /**
      * Classe pour les entrées de log
      */
@@ -0,0 +1,112 @@
+package com.superkiment.server.network;
+
+import com.superkiment.common.packets.snapshot.Snapshot;
+
+/**
+ * Budget d'envoi UDP d'un client, en octets par tick, ajusté comme une fenêtre de congestion AIMD :
+ * chaque snapshot acquitté alors que le budget limitait l'envoi l'augmente un peu,
+ * et la perte d'un snapshot le divise par deux, une fois par période de perte.
+ * <p>
+ * Un snapshot est considéré comme perdu s'il n'est pas acquitté {@link #LOSS_TIMEOUT_TICKS} ticks après son envoi.
+ * Uniquement manipulé par le thread du tick.
+ */
+public class BandwidthEstimator {
+
+    /**
+     * Budget de départ : un datagramme par tick.
+     */
+    public static final int INITIAL_BUDGET = 1200;
+
+    /**
+     * Toujours de quoi envoyer le joueur et quelques entités.
+     */
+    public static final int MIN_BUDGET = 256;
+
+    /**
+     * Plafond par client, modifiable avec {@code -Dsurvivkim.udp.budget=...} (octets par tick).
+     */
+    public static final int MAX_BUDGET = Integer.getInteger("survivkim.udp.budget", 16 * 1024);
+
+    public static final int ADDITIVE_INCREASE = 64;
+    public static final double MULTIPLICATIVE_DECREASE = 0.5;
+
+    public static final int LOSS_TIMEOUT_TICKS = 10;
+
+    /**
+     * Snapshots suivis, au moins autant que le délai de perte.
+     */
+    private static final int WINDOW = 32;
+
+    private final int[] seqs = new int[WINDOW];
+    private final int[] sentTicks = new int[WINDOW];
+    private final boolean[] pending = new boolean[WINDOW];
+    private final boolean[] limited = new boolean[WINDOW];
+
+    private double budget = INITIAL_BUDGET;
+    private int lastSentSeq = -1;
+
+    /**
+     * Les pertes des snapshots envoyés jusqu'à celui-ci ont déjà réduit le budget.
+     */
+    private int recoverySeq = -1;
+
+    private int losses = 0;
+
+    public int getBudget() {
+        return (int) budget;
+    }
+
+    /**
+     * Un snapshot vient de partir. {@code budgetLimited} : des entités ont été reportées faute de budget.
+     */
+    public void onSent(int seq, int tick, boolean budgetLimited) {
+        int slot = seq % WINDOW;
+        // Un snapshot encore suivi qui sort de la fenêtre n'a pas été acquitté à temps
+        if (pending[slot]) onLoss(seqs[slot]);
+
+        seqs[slot] = seq;
+        sentTicks[slot] = tick;
+        pending[slot] = true;
+        limited[slot] = budgetLimited;
+        lastSentSeq = seq;
+    }
+
+    /**
+     * Le client a reçu le snapshot {@code seq} en entier.
+     */
+    public void onAck(int seq) {
+        int slot = seq % WINDOW;
+        if (!pending[slot] || seqs[slot] != seq) return;
+
+        pending[slot] = false;
+        // Inutile de grandir tant que le budget ne limite rien
+        if (limited[slot]) budget = Math.min(budget + ADDITIVE_INCREASE, MAX_BUDGET);
+    }
+
+    /**
+     * Détecter les snapshots perdus. Appelé par le tick.
+     */
+    public void update(int tick) {
+        for (int slot = 0; slot < WINDOW; slot++) {
+            if (pending[slot] && tick - sentTicks[slot] >= LOSS_TIMEOUT_TICKS) {
+                pending[slot] = false;
+                onLoss(seqs[slot]);
+            }
+        }
+    }
+
+    private void onLoss(int seq) {
+        pending[seq % WINDOW] = false;
+        losses++;
+
+        // Les snapshots partis avant la dernière réduction se perdaient avec l'ancien budget : ne pas réduire deux fois
+        if (recoverySeq != -1 && !Snapshot.isNewer(seq, recoverySeq)) return;
+
+        budget = Math.max(budget * MULTIPLICATIVE_DECREASE, MIN_BUDGET);
+        recoverySeq = lastSentSeq;
+    }
+
+    public int getLosses() {
+        return losses;
+    }
+}
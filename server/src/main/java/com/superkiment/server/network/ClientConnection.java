@@ -1,95 +1,372 @@
 package com.superkiment.server.network;
 
+import com.superkiment.common.Logger;
 import com.superkiment.common.packets.*;
-import com.superkiment.server.GameServer;
+import com.superkiment.common.packets.codec.PacketCodecs;
+import com.superkiment.common.packets.codec.SharedFrame;
+import com.superkiment.common.packets.reliable.ReliableChannel;
+import com.superkiment.common.packets.session.SessionCodec;
+import com.superkiment.common.utils.MpscArrayQueue;
+import com.superkiment.common.utils.SlotMap;
+import com.superkiment.server.room.Room;
 
 import java.io.*;
 import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.superkiment.common.packets.codec.PacketCodecs.FRAME_HEADER_SIZE;
+import static com.superkiment.common.packets.codec.PacketCodecs.MAX_FRAME_SIZE;
 
 /**
  * La liaison entre le client TCP/UDP et le Player actif dans le monde.
+ * Les lectures et écritures sont faites par le thread du Selector de {@link TCPServer}, jamais bloquantes.
+ * Les packets reçus et la déconnexion sont confiés au tick de sa salle (voir {@link Network#processInbound()}).
+ * <p>
+ * Les envois passent par une file bornée : n'importe quel thread peut y déposer des frames, et tout ce qui a été
+ * déposé pendant un tick part en une seule écriture lors de {@link TCPServer#flush(Room)}.
  */
-public class ClientConnection implements Runnable {
+public class ClientConnection {
+
+    private static final int INITIAL_READ_BUFFER_SIZE = 4096;
+    private static final int INITIAL_WRITE_BUFFER_SIZE = 16 * 1024;
+
+    /**
+     * Au-delà, on arrête de regrouper les frames dans le buffer d'écriture : le reste attend la prochaine écriture.
+     */
+    private static final int MAX_WRITE_BUFFER_SIZE = 256 * 1024;
+
+    /**
+     * Nombre de frames qu'un client peut avoir en attente avant d'être considéré comme trop lent et déconnecté.
+     */
+    public static final int OUTBOUND_QUEUE_CAPACITY = 4096;
+
+    private final SocketChannel channel;
+    private final TCPServer server;
+    private SelectionKey key;
+
+    /**
+     * Buffer de lecture en mode écriture : les octets reçus s'y accumulent jusqu'à former des frames complètes.
+     */
+    private ByteBuffer readBuffer = ByteBuffer.allocate(INITIAL_READ_BUFFER_SIZE);
 
-    private final Socket socket;
-    private ObjectOutputStream out;
-    private ObjectInputStream in;
+    /**
+     * Frames en attente d'envoi, remplies par n'importe quel thread et vidées par le thread du Selector.
+     */
+    private final MpscArrayQueue<SharedFrame> outbound = new MpscArrayQueue<>(OUTBOUND_QUEUE_CAPACITY);
+
+    /**
+     * Frames retirées de la file et regroupées, en mode lecture. Uniquement manipulé par le thread du Selector.
+     */
+    private ByteBuffer writeBuffer = ByteBuffer.allocateDirect(INITIAL_WRITE_BUFFER_SIZE).flip();
+
+    /**
+     * Depuis quand le socket refuse d'écrire ce qui attend dans le buffer, ou 0 s'il suit.
+     */
+    private volatile long writeStalledSince = 0;
+
+    /**
+     * Le thread du Selector est dans {@link #onWritable()} : il prend dans la file tout ce qui y arrive.
+     */
+    private volatile boolean writing = false;
+
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private final AtomicBoolean disconnected = new AtomicBoolean(false);
 
     public String playerId;
     public String playerName;
-    private int udpPort;
+
+    /**
+     * La salle choisie au join, null avant. Écrite par le thread du Selector, lue par tous.
+     */
+    public volatile Room room;
+
+    /**
+     * Poignées du client et de l'entité de son joueur dans le {@link com.superkiment.server.entities.ServerEntitiesManager}, 0 tant qu'ils n'y sont pas.
+     */
+    public long handle = SlotMap.NONE;
+    public long playerHandle = SlotMap.NONE;
+
+    /**
+     * Session UDP attribuée au join (voir {@link UdpSessions}), 0 tant qu'il n'y en a pas. Uniquement manipulé par le tick de sa salle.
+     */
+    public int sessionId = SessionCodec.NO_SESSION;
+    public long sessionToken;
+
+    /**
+     * Un hello a été reçu : l'acquittement part avec les prochains datagrammes du client.
+     */
+    public boolean helloAckPending = false;
+
+    /**
+     * Adresse UDP du client, liée par son dernier hello.
+     */
+    private volatile InetSocketAddress udpAddress;
+
+    public final SnapshotHistory snapshots = new SnapshotHistory();
+    public final ClientInterest interest = new ClientInterest();
+    public final InputQueue inputs = new InputQueue();
+    public final ReplicationScheduler replication = new ReplicationScheduler();
+    public final BandwidthEstimator bandwidth = new BandwidthEstimator();
+    public final ConnectionHealth health = new ConnectionHealth();
+    public final LatencyTracker latency = new LatencyTracker();
+
+    /**
+     * Événements des entités, envoyés de façon fiable avec les datagrammes du tick. Uniquement manipulé par le thread du tick.
+     */
+    public final ReliableChannel reliable = new ReliableChannel(PacketSerializer.UDP_PAYLOAD_BUDGET - 1);
+
+    /**
+     * Blocs du monde qu'il reste à envoyer depuis le join, null une fois tout envoyé.
+     */
+    public WorldStream worldStream;
+
+    /**
+     * Dernière commande du joueur simulée par le tick, renvoyée dans les snapshots, ou -1.
+     */
+    public int lastProcessedInput = -1;
 
     private long lastHeartbeatTime = 999999999999999999L;
-    private long lastCalculatedPing = 0;
 
-    public ClientConnection(Socket socket) {
-        this.socket = socket;
+    public ClientConnection(SocketChannel channel, TCPServer server) {
+        this.channel = channel;
+        this.server = server;
     }
 
-    @Override
-    public void run() {
-        try {
-            out = new ObjectOutputStream(socket.getOutputStream());
-            in = new ObjectInputStream(socket.getInputStream());
-
-            // Recevoir les packets
-            while (!socket.isClosed()) {
-                try {
-                    Packet packet = (Packet) in.readObject();
-                    Network.handleTCPPacket(packet, this);
-                } catch (EOFException | SocketException e) {
-                    break;
-                } catch (ClassNotFoundException e) {
-                    e.printStackTrace();
-                }
+    void register(Selector selector) throws ClosedChannelException {
+        key = channel.register(selector, SelectionKey.OP_READ, this);
+    }
+
+    /**
+     * Lit tout ce qui est disponible sur le socket et confie chaque frame complète au tick.
+     */
+    void onReadable() throws IOException {
+        int read = channel.read(readBuffer);
+        if (read == -1) {
+            disconnect();
+            return;
+        }
+
+        readBuffer.flip();
+        while (readBuffer.remaining() >= FRAME_HEADER_SIZE) {
+            int length = readBuffer.getInt(readBuffer.position());
+            if (length < 0 || length > MAX_FRAME_SIZE) {
+                throw new IOException("Taille de frame invalide: " + length);
             }
-        } catch (IOException e) {
-            e.printStackTrace();
+            if (readBuffer.remaining() < FRAME_HEADER_SIZE + length) break;
+
+            // Décoder directement dans le buffer de lecture, sans copie intermédiaire
+            int frameEnd = readBuffer.position() + FRAME_HEADER_SIZE + length;
+            ByteBuffer frame = readBuffer.duplicate();
+            frame.position(readBuffer.position() + FRAME_HEADER_SIZE).limit(frameEnd);
+            readBuffer.position(frameEnd);
+
+            if (!server.getRooms().queueTCPPacket(PacketCodecs.decode(frame), length, this)) {
+                throw new IOException("File d'entrée du tick pleine");
+            }
+        }
+        readBuffer.compact();
+
+        // Agrandir le buffer si la frame en cours ne peut pas y tenir
+        if (!readBuffer.hasRemaining()) {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.min(readBuffer.capacity() * 2, FRAME_HEADER_SIZE + MAX_FRAME_SIZE));
+            readBuffer.flip();
+            bigger.put(readBuffer);
+            readBuffer = bigger;
+        }
+    }
+
+    /**
+     * Regroupe les frames en attente et les écrit tant que le socket les accepte. S'il sature, on attend OP_WRITE pour reprendre.
+     */
+    void onWritable() throws IOException {
+        flushScheduled.set(false);
+        if (disconnected.get()) {
+            releaseOutbound();
+            return;
+        }
+        if (key == null || !key.isValid()) return;
+
+        writing = true;
+        try {
+            writeQueued();
         } finally {
-            disconnect();
+            writing = false;
+        }
+    }
+
+    private void writeQueued() throws IOException {
+        while (true) {
+            fillWriteBuffer();
+            if (!writeBuffer.hasRemaining()) break;
+
+            channel.write(writeBuffer);
+            if (writeBuffer.hasRemaining()) {
+                if (writeStalledSince == 0) writeStalledSince = System.currentTimeMillis();
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                return;
+            }
+        }
+        writeStalledSince = 0;
+        key.interestOps(SelectionKey.OP_READ);
+    }
+
+    /**
+     * Déplace les frames de la file vers le buffer d'écriture, à la suite de ce qui n'a pas encore été écrit.
+     */
+    private void fillWriteBuffer() {
+        if (outbound.peek() == null) return;
+
+        writeBuffer.compact();
+        SharedFrame frame;
+        while ((frame = outbound.peek()) != null) {
+            int length = frame.length();
+            if (writeBuffer.remaining() < length) {
+                if (writeBuffer.position() > 0 && writeBuffer.capacity() >= MAX_WRITE_BUFFER_SIZE) break;
+                growWriteBuffer(writeBuffer.position() + length);
+            }
+            writeBuffer.put(frame.array(), 0, length);
+            outbound.poll();
+            frame.release();
+        }
+        writeBuffer.flip();
+    }
+
+    /**
+     * Rend au pool les frames qui ne partiront plus. Thread du Selector, seul à retirer des frames de la file.
+     */
+    private void releaseOutbound() {
+        SharedFrame frame;
+        while ((frame = outbound.poll()) != null) {
+            frame.release();
         }
     }
 
+    private void growWriteBuffer(int required) {
+        int capacity = Math.max(required, Math.min(writeBuffer.capacity() * 2, MAX_WRITE_BUFFER_SIZE));
+        ByteBuffer bigger = ByteBuffer.allocateDirect(capacity);
+        writeBuffer.flip();
+        bigger.put(writeBuffer);
+        writeBuffer = bigger;
+    }
+
     public void sendTCP(Packet packet) {
-        try {
-            out.writeObject(packet);
-            out.flush();
-        } catch (IOException e) {
-            e.printStackTrace();
+        if (disconnected.get()) return;
+        SharedFrame frame = SharedFrame.wrap(PacketCodecs.encodeFrame(packet));
+        sendFrame(frame);
+        frame.release();
+    }
+
+    /**
+     * Déposer une frame déjà encodée, pour n'encoder qu'une fois un packet envoyé à plusieurs clients.
+     * La file en garde une référence jusqu'à ce que ses octets soient copiés dans le buffer d'écriture.
+     * Si la file est pleine, le client ne suit plus le rythme du serveur : on le déconnecte plutôt que de bloquer le tick.
+     */
+    void sendFrame(SharedFrame frame) {
+        if (disconnected.get()) return;
+
+        if (!outbound.offer(frame.retain())) {
+            frame.release();
+            Logger.warn("File d'envoi TCP pleine pour " + playerName + " (" + outbound.capacity() + " frames), client trop lent");
+            disconnect();
+            return;
         }
+
+        // Une déconnexion concurrente a pu vider la file avant ce dépôt : le thread du Selector la videra à nouveau
+        if (disconnected.get()) {
+            server.scheduleRelease(this);
+            return;
+        }
+
+        if (flushScheduled.compareAndSet(false, true)) {
+            server.scheduleFlush(this);
+        }
+    }
+
+    /**
+     * Confier un message encodé au canal fiable UDP, sur son sous-canal ordonné.
+     * Si trop de messages attendent leur acquittement, le client ne reçoit plus rien : on le déconnecte.
+     */
+    void sendReliable(SharedFrame message) {
+        if (disconnected.get()) return;
+
+        if (!reliable.send(ReliableChannel.ORDERED, message)) {
+            Logger.warn("Canal fiable UDP plein pour " + playerName + " (" + reliable.getPendingCount() + " fragments), client injoignable");
+            disconnect();
+        }
+    }
+
+    /**
+     * Nombre de frames en attente d'envoi, pour repérer les clients qui ne suivent pas.
+     */
+    public int getOutboundQueueDepth() {
+        return outbound.size();
+    }
+
+    /**
+     * @return true si le thread du Selector est en train d'écrire les frames de la file.
+     */
+    public boolean isWriting() {
+        return writing;
+    }
+
+    /**
+     * Depuis combien de temps le socket refuse les écritures, 0 s'il a tout accepté à la dernière écriture.
+     */
+    public long getWriteStallMillis(long now) {
+        long since = writeStalledSince;
+        return since == 0 ? 0 : now - since;
     }
 
     public InetAddress getAddress() {
-        return socket.getInetAddress();
+        return channel.socket().getInetAddress();
     }
 
-    public void setUdpPort(int port) {
-        this.udpPort = port;
+    /**
+     * Envoyer désormais les datagrammes du client à cette adresse, et n'accepter que les siens.
+     */
+    public void bindUdp(InetSocketAddress address) {
+        this.udpAddress = address;
     }
 
-    public int getUdpPort() {
-        return udpPort;
+    /**
+     * @return l'adresse UDP du client, ou null tant qu'il n'a pas envoyé de hello.
+     */
+    public InetSocketAddress getUdpAddress() {
+        return udpAddress;
     }
 
     public void disconnect() {
+        if (!disconnected.compareAndSet(false, true)) return;
+
         try {
-            socket.close();
-            GameServer.entitiesManager.removeClient(this);
+            if (key != null) key.cancel();
+            channel.close();
         } catch (IOException e) {
             e.printStackTrace();
         }
+
+        Logger.debug("Connexion TCP fermée: " + playerName);
+        if (server == null) return;
+        // Les frames en attente sont rendues par le thread du Selector, seul consommateur de la file
+        server.scheduleRelease(this);
+        // Le joueur est retiré du jeu par le tick de sa salle, jamais par le thread d'I/O
+        server.getRooms().queueDisconnect(this);
     }
 
-    public void setLastHeartbeat(long time) {
-        this.lastHeartbeatTime = time;
+    public boolean isDisconnected() {
+        return disconnected.get();
     }
 
-    public void calculatePing(long clientTimestamp) {
-        long clientToServerTime = System.currentTimeMillis() - clientTimestamp;
-        this.lastCalculatedPing = clientToServerTime * 2;
+    public void setLastHeartbeat(long time) {
+        this.lastHeartbeatTime = time;
     }
 
     public float timeSinceLastHeartbeat(long now) {
         return now - lastHeartbeatTime;
     }
-}
\ No newline at end of file
+}
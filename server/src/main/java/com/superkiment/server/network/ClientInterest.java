@@ -0,0 +1,144 @@
+package com.superkiment.server.network;
+
+import com.superkiment.common.entities.Entity;
+import com.superkiment.common.packets.snapshot.Snapshot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Les entités qu'un client connaît : il a reçu leur création et n'a pas encore reçu leur suppression.
+ * Seules ces entités lui sont répliquées. Uniquement manipulé par le thread du tick.
+ */
+public class ClientInterest {
+
+    private final Map<Entity, Member> members = new IdentityHashMap<>();
+
+    /**
+     * Les mêmes membres dans un tableau, parcouru sans itérateur à chaque tick.
+     */
+    private final List<Member> memberList = new ArrayList<>();
+
+    /**
+     * netIds des membres, triés, reconstruits quand l'ensemble change.
+     */
+    private int[] netIds = new int[16];
+    private int netIdCount = 0;
+    private boolean netIdsDirty = false;
+
+    private static final class Member {
+        final Entity entity;
+        int lastSeenTick;
+        int index;
+
+        Member(Entity entity, int tick) {
+            this.entity = entity;
+            this.lastSeenTick = tick;
+        }
+    }
+
+    public boolean contains(Entity entity) {
+        return members.containsKey(entity);
+    }
+
+    public int size() {
+        return members.size();
+    }
+
+    /**
+     * Noter que l'entité est pertinente à ce tick.
+     *
+     * @return vrai si le client ne la connaissait pas encore : sa création doit lui être envoyée.
+     */
+    boolean see(Entity entity, int tick) {
+        Member member = members.get(entity);
+        if (member != null) {
+            member.lastSeenTick = tick;
+            return false;
+        }
+
+        put(new Member(entity, tick));
+        return true;
+    }
+
+    private void put(Member member) {
+        member.index = memberList.size();
+        memberList.add(member);
+        members.put(member.entity, member);
+        netIdsDirty = true;
+    }
+
+    /**
+     * Retirer un membre de la liste en le remplaçant par le dernier.
+     */
+    private void removeAt(int index) {
+        Member last = memberList.remove(memberList.size() - 1);
+        if (index < memberList.size()) {
+            memberList.set(index, last);
+            last.index = index;
+        }
+        netIdsDirty = true;
+    }
+
+    /**
+     * Ajouter l'entité sans passer par le calcul de pertinence (création envoyée directement au client).
+     * Elle reste connue tant que le prochain calcul la juge pertinente.
+     */
+    public void add(Entity entity) {
+        if (!members.containsKey(entity)) put(new Member(entity, Integer.MIN_VALUE));
+    }
+
+    public boolean remove(Entity entity) {
+        Member member = members.remove(entity);
+        if (member == null) return false;
+        removeAt(member.index);
+        return true;
+    }
+
+    /**
+     * Retirer les entités qui n'ont pas été vues à ce tick et les ajouter à {@code left}.
+     */
+    void removeNotSeen(int tick, List<Entity> left) {
+        for (int i = memberList.size() - 1; i >= 0; i--) {
+            Member member = memberList.get(i);
+            if (member.lastSeenTick == tick) continue;
+
+            members.remove(member.entity);
+            removeAt(i);
+            left.add(member.entity);
+        }
+    }
+
+    /**
+     * Copier dans {@code out} la partie de {@code world} que le client connaît, triée par netId comme {@code world}.
+     */
+    public Snapshot filter(Snapshot world, Snapshot out) {
+        if (netIdsDirty) rebuildNetIds();
+
+        out.seq = world.seq;
+        out.tick = world.tick;
+        out.serverTime = world.serverTime;
+        out.clear();
+        for (int i = 0; i < netIdCount; i++) {
+            int index = world.indexOf(netIds[i]);
+            if (index < 0) continue;
+            out.add(world.netIds[index], world.x[index], world.y[index], world.angle[index]);
+        }
+        return out;
+    }
+
+    private void rebuildNetIds() {
+        if (netIds.length < members.size()) netIds = new int[Math.max(members.size(), netIds.length * 2)];
+
+        netIdCount = 0;
+        for (int i = 0; i < memberList.size(); i++) {
+            Entity entity = memberList.get(i).entity;
+            if (entity.netId != 0) netIds[netIdCount++] = entity.netId;
+        }
+        Arrays.sort(netIds, 0, netIdCount);
+        netIdsDirty = false;
+    }
+}
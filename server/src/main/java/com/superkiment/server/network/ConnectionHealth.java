@@ -0,0 +1,246 @@
+package com.superkiment.server.network;
+
+import java.util.Locale;
+
+/**
+ * Santé d'une connexion, pour qu'un client qui ne lit plus ne ralentisse pas le reste du serveur.
+ * <p>
+ * Quatre mesures sont relevées à chaque tick : la file d'envoi TCP, depuis combien de temps le socket refuse les écritures,
+ * les octets du canal fiable pas encore acquittés, et depuis combien de temps le client n'a acquitté aucun snapshot.
+ * Au-delà d'un seuil {@code degraded}, la connexion est dégradée et la {@link Policy} choisit quoi faire : ne plus envoyer
+ * ce qui peut être perdu, envoyer moins souvent, ou déconnecter. Au-delà d'un seuil {@code disconnect}, le client est
+ * déconnecté quelle que soit la politique. La connexion redevient saine après {@link Policy#recoveryMillis} sous les seuils.
+ * <p>
+ * Uniquement manipulé par le thread du tick, sauf {@link #onSnapshotSent}, appelé par le thread de réplication du client.
+ */
+public class ConnectionHealth {
+
+    /**
+     * Ce qui est fait d'une connexion dégradée.
+     */
+    public enum Action {
+        /**
+         * Plus de snapshots ni de parties du monde, sauf un snapshot de temps en temps pour voir si le client répond.
+         */
+        DROP,
+        /**
+         * Un snapshot et une partie du monde tous les {@link Policy#throttleTicks} ticks.
+         */
+        THROTTLE,
+        DISCONNECT
+    }
+
+    /**
+     * Ce qui a changé au dernier {@link #update}.
+     */
+    public enum Change {NONE, DEGRADED, RECOVERED, DISCONNECT}
+
+    /**
+     * Seuils et action, communs à toutes les connexions.
+     */
+    public static final class Policy {
+
+        public final Action action;
+
+        public final int degradedQueueDepth;
+        public final long degradedStallMillis;
+        public final long degradedUnackedBytes;
+        public final long degradedAckSilenceMillis;
+
+        public final int disconnectQueueDepth;
+        public final long disconnectStallMillis;
+        public final long disconnectUnackedBytes;
+        public final long disconnectAckSilenceMillis;
+
+        /**
+         * {@link Action#THROTTLE} : un envoi tous les tant de ticks.
+         */
+        public final int throttleTicks;
+
+        /**
+         * {@link Action#DROP} : un snapshot tous les tant de ticks, pour que le client puisse l'acquitter et se rétablir.
+         */
+        public final int probeTicks;
+
+        public final long recoveryMillis;
+
+        public Policy(Action action,
+                      int degradedQueueDepth, long degradedStallMillis, long degradedUnackedBytes, long degradedAckSilenceMillis,
+                      int disconnectQueueDepth, long disconnectStallMillis, long disconnectUnackedBytes, long disconnectAckSilenceMillis,
+                      int throttleTicks, int probeTicks, long recoveryMillis) {
+            this.action = action;
+            this.degradedQueueDepth = degradedQueueDepth;
+            this.degradedStallMillis = degradedStallMillis;
+            this.degradedUnackedBytes = degradedUnackedBytes;
+            this.degradedAckSilenceMillis = degradedAckSilenceMillis;
+            this.disconnectQueueDepth = disconnectQueueDepth;
+            this.disconnectStallMillis = disconnectStallMillis;
+            this.disconnectUnackedBytes = disconnectUnackedBytes;
+            this.disconnectAckSilenceMillis = disconnectAckSilenceMillis;
+            this.throttleTicks = Math.max(1, throttleTicks);
+            this.probeTicks = Math.max(1, probeTicks);
+            this.recoveryMillis = recoveryMillis;
+        }
+
+        /**
+         * La politique du serveur, modifiable avec {@code -Dsurvivkim.health.*} :
+         * {@code action} (drop, throttle, disconnect), {@code queue}, {@code stall}, {@code unacked} et {@code silence}
+         * pour les seuils de dégradation, {@code *.disconnect} pour ceux de déconnexion, {@code throttle}, {@code probe}
+         * (en ticks) et {@code recovery} (en millisecondes).
+         */
+        public static Policy fromProperties() {
+            return new Policy(
+                    Action.valueOf(System.getProperty("survivkim.health.action", "throttle").toUpperCase(Locale.ROOT)),
+                    Integer.getInteger("survivkim.health.queue", ClientConnection.OUTBOUND_QUEUE_CAPACITY / 4),
+                    Long.getLong("survivkim.health.stall", 500),
+                    Long.getLong("survivkim.health.unacked", 64 * 1024),
+                    Long.getLong("survivkim.health.silence", 1000),
+                    Integer.getInteger("survivkim.health.queue.disconnect", ClientConnection.OUTBOUND_QUEUE_CAPACITY * 3 / 4),
+                    Long.getLong("survivkim.health.stall.disconnect", 5000),
+                    Long.getLong("survivkim.health.unacked.disconnect", 1024 * 1024),
+                    Long.getLong("survivkim.health.silence.disconnect", 6000),
+                    Integer.getInteger("survivkim.health.throttle", 4),
+                    Integer.getInteger("survivkim.health.probe", 20),
+                    Long.getLong("survivkim.health.recovery", 2000)
+            );
+        }
+    }
+
+    public static final Policy POLICY = Policy.fromProperties();
+
+    private final Policy policy;
+
+    // Mesures qui ont dégradé ou fait déconnecter la connexion, gardées pour l'expliquer sans allouer à chaque tick
+    private static final int NONE = 0, QUEUE = 1, STALL = 2, UNACKED = 3, SILENCE = 4;
+    private int reason = NONE;
+    private long reasonValue = 0;
+
+    private boolean degraded = false;
+    private long healthySince = -1;
+
+    /**
+     * Premier snapshot envoyé depuis le dernier acquittement, ou -1 si tous sont acquittés.
+     */
+    private volatile long unackedSince = -1;
+
+    public ConnectionHealth() {
+        this(POLICY);
+    }
+
+    public ConnectionHealth(Policy policy) {
+        this.policy = policy;
+    }
+
+    /**
+     * Un snapshot vient de partir.
+     */
+    public void onSnapshotSent(long now) {
+        if (unackedSince < 0) unackedSince = now;
+    }
+
+    /**
+     * Le client a acquitté un snapshot.
+     */
+    public void onSnapshotAck() {
+        unackedSince = -1;
+    }
+
+    /**
+     * Depuis combien de temps le client n'a acquitté aucun des snapshots envoyés.
+     */
+    public long getAckSilenceMillis(long now) {
+        long since = unackedSince;
+        return since < 0 ? 0 : now - since;
+    }
+
+    /**
+     * Évaluer les mesures du tick. Appelé par le tick, avant la réplication.
+     *
+     * @param stallMillis depuis combien de temps le socket TCP refuse les écritures, 0 s'il suit.
+     */
+    public Change update(int queueDepth, long stallMillis, long unackedBytes, long now) {
+        long silenceMillis = getAckSilenceMillis(now);
+
+        if (exceeded(queueDepth, stallMillis, unackedBytes, silenceMillis, policy.disconnectQueueDepth,
+                policy.disconnectStallMillis, policy.disconnectUnackedBytes, policy.disconnectAckSilenceMillis)) {
+            return Change.DISCONNECT;
+        }
+
+        if (exceeded(queueDepth, stallMillis, unackedBytes, silenceMillis, policy.degradedQueueDepth,
+                policy.degradedStallMillis, policy.degradedUnackedBytes, policy.degradedAckSilenceMillis)) {
+            healthySince = -1;
+            if (degraded) return Change.NONE;
+
+            if (policy.action == Action.DISCONNECT) return Change.DISCONNECT;
+            degraded = true;
+            return Change.DEGRADED;
+        }
+
+        if (!degraded) return Change.NONE;
+
+        // Rester sous les seuils un moment avant d'envoyer à nouveau à plein débit
+        if (healthySince < 0) healthySince = now;
+        if (now - healthySince < policy.recoveryMillis) return Change.NONE;
+
+        degraded = false;
+        healthySince = -1;
+        reason = NONE;
+        return Change.RECOVERED;
+    }
+
+    private boolean exceeded(int queueDepth, long stallMillis, long unackedBytes, long silenceMillis,
+                             int maxQueueDepth, long maxStallMillis, long maxUnackedBytes, long maxSilenceMillis) {
+        if (queueDepth >= maxQueueDepth) return exceeded(QUEUE, queueDepth);
+        if (stallMillis >= maxStallMillis) return exceeded(STALL, stallMillis);
+        if (unackedBytes >= maxUnackedBytes) return exceeded(UNACKED, unackedBytes);
+        if (silenceMillis >= maxSilenceMillis) return exceeded(SILENCE, silenceMillis);
+        return false;
+    }
+
+    private boolean exceeded(int measure, long value) {
+        reason = measure;
+        reasonValue = value;
+        return true;
+    }
+
+    /**
+     * Le snapshot de ce tick peut partir.
+     */
+    public boolean allowsSnapshot(int tick) {
+        if (!degraded) return true;
+        return switch (policy.action) {
+            case DROP -> tick % policy.probeTicks == 0;
+            case THROTTLE -> tick % policy.throttleTicks == 0;
+            case DISCONNECT -> false;
+        };
+    }
+
+    /**
+     * Ce qui peut attendre ou être perdu (les parties du monde) peut partir ce tick-ci.
+     */
+    public boolean allowsDroppable(int tick) {
+        if (!degraded) return true;
+        return policy.action == Action.THROTTLE && tick % policy.throttleTicks == 0;
+    }
+
+    public boolean isDegraded() {
+        return degraded;
+    }
+
+    /**
+     * La mesure qui a dégradé ou fait déconnecter la connexion, null si elle est saine.
+     */
+    public String getReason() {
+        return switch (reason) {
+            case QUEUE -> "file TCP de " + reasonValue + " frames";
+            case STALL -> "socket TCP bloqué depuis " + reasonValue + " ms";
+            case UNACKED -> reasonValue + " octets fiables non acquittés";
+            case SILENCE -> "aucun snapshot acquitté depuis " + reasonValue + " ms";
+            default -> null;
+        };
+    }
+
+    public Policy getPolicy() {
+        return policy;
+    }
+}
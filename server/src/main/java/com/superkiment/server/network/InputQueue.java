@@ -0,0 +1,65 @@
+package com.superkiment.server.network;
+
+import com.superkiment.common.packets.input.PlayerInput;
+import com.superkiment.common.packets.snapshot.Snapshot;
+
+/**
+ * Commandes reçues en UDP pour le joueur d'un client, en attente d'être simulées par le tick.
+ * <p>
+ * Uniquement manipulé par le thread du tick. Les commandes en double ou arrivées après une plus récente sont ignorées ;
+ * si le tick prend du retard, les plus anciennes sont abandonnées. Aucune allocation après la construction.
+ */
+public class InputQueue {
+
+    /**
+     * Un peu plus d'une seconde de commandes à 30 Hz.
+     */
+    public static final int CAPACITY = 32;
+
+    private final int[] seqs = new int[CAPACITY];
+    private final int[] movesX = new int[CAPACITY];
+    private final int[] movesY = new int[CAPACITY];
+    private int head = 0;
+    private int size = 0;
+
+    private int lastReceived = -1;
+
+    /**
+     * Retenir une commande reçue.
+     *
+     * @return false si la commande n'est pas plus récente que la dernière reçue.
+     */
+    public boolean offer(PlayerInput input) {
+        if (lastReceived != -1 && !Snapshot.isNewer(input.seq, lastReceived)) return false;
+        lastReceived = input.seq;
+
+        if (size == CAPACITY) {
+            head = (head + 1) % CAPACITY;
+            size--;
+        }
+        int slot = (head + size) % CAPACITY;
+        seqs[slot] = input.seq;
+        movesX[slot] = input.moveX;
+        movesY[slot] = input.moveY;
+        size++;
+        return true;
+    }
+
+    /**
+     * Sortir la plus ancienne commande dans {@code into}. Appelé par le tick.
+     *
+     * @return false si aucune commande n'est en attente.
+     */
+    public boolean poll(PlayerInput into) {
+        if (size == 0) return false;
+
+        into.set(seqs[head], movesX[head], movesY[head]);
+        head = (head + 1) % CAPACITY;
+        size--;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+}
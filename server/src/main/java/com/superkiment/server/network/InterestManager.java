@@ -0,0 +1,84 @@
+package com.superkiment.server.network;
+
+import com.superkiment.common.entities.Entity;
+import com.superkiment.server.entities.SpatialGrid;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Calcul des entités pertinentes pour chaque client : celles proches de son joueur.
+ * <p>
+ * Une entité entre dans l'intérêt d'un client à moins de {@link #ENTER_RADIUS} de son joueur et n'en sort qu'au-delà
+ * de {@link #LEAVE_RADIUS} : une entité qui oscille autour de la limite ne provoque pas une création et une suppression
+ * à chaque tick. Uniquement manipulé par le thread du tick.
+ */
+public class InterestManager {
+
+    /**
+     * Un peu plus que la fenêtre du client (800x600), pour que les entités soient créées avant d'apparaître à l'écran.
+     */
+    public static final double ENTER_RADIUS = 800;
+    public static final double LEAVE_RADIUS = 1000;
+
+    private final double enterRadius;
+    private final double leaveRadius;
+
+    private final SpatialGrid grid;
+    private final List<Entity> candidates = new ArrayList<>();
+    private int tick = 0;
+
+    public InterestManager() {
+        this(ENTER_RADIUS, LEAVE_RADIUS);
+    }
+
+    public InterestManager(double enterRadius, double leaveRadius) {
+        if (leaveRadius < enterRadius) throw new IllegalArgumentException("Le rayon de sortie doit être supérieur au rayon d'entrée");
+        this.enterRadius = enterRadius;
+        this.leaveRadius = leaveRadius;
+        this.grid = new SpatialGrid(leaveRadius);
+    }
+
+    /**
+     * Indexer les positions du tick. À appeler une fois par tick, avant les {@link #update}.
+     */
+    public void rebuild(Iterable<Entity> entities) {
+        tick++;
+        grid.rebuild(entities);
+    }
+
+    public int getTick() {
+        return tick;
+    }
+
+    /**
+     * Mettre à jour l'intérêt d'un client autour de son joueur.
+     *
+     * @param player  le joueur du client, toujours pertinent ; null s'il n'a pas (encore) d'entité
+     * @param entered reçoit les entités que le client doit créer
+     * @param left    reçoit les entités que le client doit supprimer
+     */
+    public void update(ClientInterest interest, Entity player, List<Entity> entered, List<Entity> left) {
+        if (player != null) {
+            if (interest.see(player, tick)) entered.add(player);
+
+            candidates.clear();
+            grid.query(player.pos.x, player.pos.y, leaveRadius, candidates);
+
+            double enterSquared = enterRadius * enterRadius;
+            for (int i = 0; i < candidates.size(); i++) {
+                Entity entity = candidates.get(i);
+                if (entity == player) continue;
+
+                if (interest.contains(entity)) {
+                    interest.see(entity, tick);
+                } else if (player.pos.distanceSquared(entity.pos) <= enterSquared && interest.see(entity, tick)) {
+                    entered.add(entity);
+                }
+            }
+            candidates.clear();
+        }
+
+        interest.removeNotSeen(tick, left);
+    }
+}
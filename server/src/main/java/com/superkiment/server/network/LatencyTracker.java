@@ -0,0 +1,134 @@
+package com.superkiment.server.network;
+
+import com.superkiment.common.packets.ping.PingCodec;
+import com.superkiment.server.monitor.LatencyHistogram;
+
+import java.util.Arrays;
+
+/**
+ * Latence d'un client, mesurée par des pings UDP (voir {@link PingCodec}) : aller-retour lissé, gigue,
+ * décalage entre son horloge et celle du serveur, et histogramme des allers-retours depuis la connexion.
+ * <p>
+ * Le serveur garde lui-même l'heure d'envoi de chaque ping : un client ne peut pas faire croire à une latence plus faible.
+ * Manipulé par le thread de réplication du client (envoi des pings) et par le tick (réception), jamais en même temps.
+ */
+public class LatencyTracker {
+
+    public static final long PING_INTERVAL_MICROS = 250_000;
+
+    /**
+     * Pings attendus en même temps au plus : une réponse plus tardive est ignorée.
+     */
+    private static final int WINDOW = 16;
+
+    /**
+     * Le décalage est celui de l'échange au plus court aller-retour parmi les derniers, le moins déformé par
+     * une file d'attente sur l'un des deux trajets (comme le filtre d'horloge de NTP).
+     */
+    private static final int OFFSET_FILTER = 8;
+
+    private final int[] sentSeqs = new int[WINDOW];
+    private final long[] sentAt = new long[WINDOW];
+    private int nextSeq = 0;
+    private long lastPingAt = Long.MIN_VALUE;
+
+    private final long[] filterRtts = new long[OFFSET_FILTER];
+    private final long[] filterOffsets = new long[OFFSET_FILTER];
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private long samples = 0;
+    private long lastRtt = -1;
+    private double smoothedRtt = 0;
+    private double jitter = 0;
+    private long offset = 0;
+
+    public LatencyTracker() {
+        Arrays.fill(sentSeqs, -1);
+    }
+
+    /**
+     * Numéro du ping à envoyer maintenant, ou -1 si le dernier est parti il y a moins de {@link #PING_INTERVAL_MICROS}.
+     */
+    public int nextPing(long nowMicros) {
+        if (lastPingAt != Long.MIN_VALUE && nowMicros - lastPingAt < PING_INTERVAL_MICROS) return -1;
+        lastPingAt = nowMicros;
+
+        int seq = nextSeq;
+        nextSeq = (seq + 1) & 0xFFFF;
+        sentSeqs[seq % WINDOW] = seq;
+        sentAt[seq % WINDOW] = nowMicros;
+        return seq;
+    }
+
+    /**
+     * La réponse au ping {@code seq} est arrivée au serveur à {@code receivedMicros}.
+     *
+     * @return false si le ping est inconnu, trop ancien ou déjà répondu : la réponse est ignorée.
+     */
+    public boolean onPong(int seq, long clientReceivedMicros, long clientSentMicros, long receivedMicros) {
+        int slot = seq % WINDOW;
+        if (sentSeqs[slot] != seq) return false;
+        sentSeqs[slot] = -1;
+
+        long t0 = sentAt[slot];
+        long clientHeld = Math.max(0, clientSentMicros - clientReceivedMicros);
+        long rtt = Math.max(0, receivedMicros - t0 - clientHeld);
+        long sampleOffset = ((clientReceivedMicros - t0) + (clientSentMicros - receivedMicros)) / 2;
+
+        histogram.record(rtt);
+
+        // Lissage et gigue comme TCP (RFC 6298) et RTP (RFC 3550)
+        if (samples == 0) {
+            smoothedRtt = rtt;
+        } else {
+            smoothedRtt += (rtt - smoothedRtt) / 8;
+            jitter += (Math.abs(rtt - lastRtt) - jitter) / 16;
+        }
+        lastRtt = rtt;
+
+        int filterSlot = (int) (samples % OFFSET_FILTER);
+        filterRtts[filterSlot] = rtt;
+        filterOffsets[filterSlot] = sampleOffset;
+        samples++;
+
+        int best = 0;
+        int filled = (int) Math.min(samples, OFFSET_FILTER);
+        for (int i = 1; i < filled; i++) {
+            if (filterRtts[i] < filterRtts[best]) best = i;
+        }
+        offset = filterOffsets[best];
+        return true;
+    }
+
+    public long getSamples() {
+        return samples;
+    }
+
+    /**
+     * Aller-retour lissé, sans le temps passé chez le client, en microsecondes.
+     */
+    public long getRttMicros() {
+        return (long) smoothedRtt;
+    }
+
+    /**
+     * Variation moyenne de l'aller-retour d'un échange au suivant, en microsecondes.
+     */
+    public long getJitterMicros() {
+        return (long) jitter;
+    }
+
+    /**
+     * Horloge du client moins celle du serveur, en microsecondes.
+     */
+    public long getClockOffsetMicros() {
+        return offset;
+    }
+
+    /**
+     * Les allers-retours mesurés depuis la connexion. Lu par le tick uniquement.
+     */
+    public LatencyHistogram getHistogram() {
+        return histogram;
+    }
+}
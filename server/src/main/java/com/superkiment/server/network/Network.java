@@ -2,193 +2,830 @@ package com.superkiment.server.network;
 
 import com.superkiment.common.Logger;
 import com.superkiment.common.entities.Entity;
+import com.superkiment.common.entities.EntityReplication;
+import com.superkiment.common.entities.Player;
 import com.superkiment.common.packets.*;
+import com.superkiment.common.packets.codec.PacketCodecs;
+import com.superkiment.common.packets.codec.SharedFrame;
+import com.superkiment.common.packets.entity.LinkEntityPacket;
 import com.superkiment.common.packets.entity.PacketCreateEntity;
 import com.superkiment.common.packets.entity.PacketDeleteEntity;
-import com.superkiment.common.packets.entity.PacketEntityPosition;
+import com.superkiment.common.packets.entity.PacketEntityPatch;
 import com.superkiment.common.packets.entity.PacketUpdateEntity;
-import com.superkiment.server.GameServer;
+import com.superkiment.common.packets.input.InputCodec;
+import com.superkiment.common.packets.input.PlayerInput;
+import com.superkiment.common.packets.ping.PingCodec;
+import com.superkiment.common.packets.session.SessionCodec;
+import com.superkiment.common.packets.reliable.ReliableChannel;
+import com.superkiment.common.packets.snapshot.Snapshot;
+import com.superkiment.common.packets.snapshot.SnapshotCodec;
+import com.superkiment.common.utils.MpscArrayQueue;
 import com.superkiment.server.entities.ServerEntitiesManager;
+import com.superkiment.server.monitor.LatencyHistogram;
 import com.superkiment.server.monitor.ServerMonitor;
 import com.superkiment.server.network.handles.BlockHandle;
 import com.superkiment.server.network.handles.EntityHandle;
 import com.superkiment.server.network.handles.PlayerHandle;
+import com.superkiment.server.room.Room;
+import com.superkiment.server.room.RoomManager;
 
-import java.io.IOException;
-import java.net.DatagramPacket;
-import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 /**
- * Classe contenant uniquement des fonctions statiques sur le handling de paquets et l'envoi de paquets.
+ * Le handling de paquets et l'envoi de paquets d'une salle (voir {@link Room}) : ses files d'entrée,
+ * l'intérêt de ses clients et la réplication de son monde. Uniquement manipulé par le thread de la salle,
+ * sauf les méthodes {@code queue*}, appelées par les threads d'I/O à travers le {@link RoomManager}.
  */
 public class Network {
 
     //Références pour la facilité.
-    private static final ServerMonitor monitor;
-    private static final ServerEntitiesManager entitiesManager;
+    private static final ServerMonitor monitor = ServerMonitor.getInstance();
+    private final Room room;
+    private final ServerEntitiesManager entitiesManager;
+    private final UdpSessions sessions;
 
-    //Récupération des références.
-    static {
-        monitor = ServerMonitor.getInstance();
-        entitiesManager = GameServer.entitiesManager;
+    /**
+     * Numéro du dernier snapshot UDP envoyé, sur 16 bits.
+     */
+    private int snapshotSeq = 0;
+
+    // État de replicate : écrit par le tick avant de lancer les tâches des clients, qui ne font que le lire.
+    // Le snapshot du monde n'est jamais une baseline : chaque client reçoit sa partie, copiée dans ses propres snapshots.
+    private final Snapshot worldSnapshot = new Snapshot(0, 64);
+    private final ReplicationWorkers workers;
+    private final ReplicationWorkers.Job replicateJob = this::replicate;
+    private final Function<Entity, SharedFrame> createMessage = this::createMessage;
+    private final Function<Entity, SharedFrame> deleteMessage = this::deleteMessage;
+    private final long[] sent = new long[2];
+    private Snapshot world;
+    private UDPServer replicationServer;
+    private long replicationTime;
+
+    // État réutilisé par updateInterest, uniquement manipulé par le thread du tick
+    private final InterestManager interestManager = new InterestManager();
+    private final List<Entity> entered = new ArrayList<>();
+    private final List<Entity> left = new ArrayList<>();
+
+    /**
+     * Commandes simulées au plus par joueur et par tick : de quoi rattraper un à-coup du réseau
+     * sans qu'un client puisse accélérer son joueur en envoyant plus de commandes.
+     */
+    public static final int MAX_INPUTS_PER_TICK = 4;
+    private final PlayerInput polledInput = new PlayerInput();
+    private final Map<Entity, SharedFrame> createMessages = new IdentityHashMap<>();
+    private final Map<Entity, SharedFrame> deleteMessages = new IdentityHashMap<>();
+
+    /**
+     * Buffers des packets envoyés par le tick : chacun est encodé une fois puis partagé par les files des clients.
+     */
+    private final SharedFrame.Pool framePool = new SharedFrame.Pool(1 << 14);
+
+    /**
+     * Datagrammes fiables envoyés au plus par tick et par client : au-delà, les messages attendent le tick suivant.
+     */
+    public static final int MAX_RELIABLE_DATAGRAMS_PER_TICK = 8;
+
+    /**
+     * Packets TCP traités au plus par tick, le reste attend le tick suivant.
+     */
+    public static final int MAX_TCP_PACKETS_PER_TICK = 256;
+
+    /**
+     * Datagrammes traités au plus par tick : plusieurs commandes et acquittements par client, avec de la marge.
+     */
+    public static final int MAX_DATAGRAMS_PER_TICK = 1024;
+
+    /**
+     * Taille maximale d'un datagramme client → serveur : le plus grand entre les commandes et les acquittements.
+     * Sur le canal fiable, les clients n'envoient que des acquittements : [type][session][en-tête du canal].
+     */
+    public static final int MAX_CLIENT_DATAGRAM_SIZE = Math.max(Math.max(InputCodec.MAX_SIZE, SnapshotCodec.ACK_SIZE),
+            Math.max(1 + Short.BYTES + ReliableChannel.HEADER_SIZE, Math.max(PingCodec.PONG_SIZE, SessionCodec.HELLO_SIZE)));
+
+    /**
+     * Packets TCP décodés par le thread du Selector, en attente d'être traités par le tick.
+     */
+    private final MpscArrayQueue<InboundPacket> inboundTCP = new MpscArrayQueue<>(1 << 14);
+
+    /**
+     * Datagrammes copiés par le thread UDP, en attente d'être traités par le tick.
+     * Les copies viennent de {@link #freeDatagrams}, où le tick les rend une fois traitées : aucune allocation par datagramme.
+     */
+    private static final int INBOUND_DATAGRAMS = 1 << 12;
+    private final MpscArrayQueue<InboundDatagram> inboundUDP = new MpscArrayQueue<>(INBOUND_DATAGRAMS);
+    private final MpscArrayQueue<InboundDatagram> freeDatagrams = new MpscArrayQueue<>(INBOUND_DATAGRAMS);
+
+    // Métriques des files d'entrée : profondeurs vues par le tick, datagrammes perdus par le thread UDP
+    private volatile int inboundTCPPeakDepth = 0;
+    private volatile int inboundUDPPeakDepth = 0;
+    private final AtomicLong inboundUDPDropped = new AtomicLong();
+
+    /**
+     * Datagrammes invalides, dans le mauvais sens ou d'un type inconnu, hellos refusés et messages fiables venus d'un client
+     * (ils passent par TCP) : n'importe quel client peut en envoyer, ils ne sont que comptés.
+     */
+    private final AtomicLong rejectedDatagrams = new AtomicLong();
+    private final ReliableChannel.Receiver reliableReceiver = (message, channel) -> rejectedDatagrams.incrementAndGet();
+
+    /**
+     * Connexions fermées par n'importe quel thread, retirées du jeu par le tick.
+     */
+    private final Queue<ClientConnection> disconnected = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Connexions de la salle qui ont reçu des frames depuis le dernier {@link TCPServer#flush(Room)},
+     * déposées par le tick et les threads de réplication.
+     */
+    final Queue<ClientConnection> scheduledFlushes = new ConcurrentLinkedQueue<>();
+
+    // Commande et pong réutilisés pour décoder les datagrammes, uniquement manipulés par le thread du tick
+    private final PlayerInput receivedInput = new PlayerInput();
+    private final PingCodec.Pong receivedPong = new PingCodec.Pong();
+
+    /**
+     * Intervalle de publication des latences dans le moniteur.
+     */
+    public static final long LATENCY_PUBLISH_MILLIS = 1000;
+    private long lastLatencyPublish = 0;
+
+    // Publiés pour le thread des stats du moniteur
+    private volatile int degradedClients = 0;
+    private volatile LatencyHistogram publishedLatencies = new LatencyHistogram();
+    private volatile List<ServerMonitor.ClientLatency> publishedClientLatencies = List.of();
+
+    /**
+     * @param sessions les sessions UDP du processus, communes à toutes les salles.
+     * @param workers les threads de réplication du processus, partagés entre les salles.
+     */
+    public Network(Room room, UdpSessions sessions, ReplicationWorkers workers) {
+        this.room = room;
+        this.entitiesManager = room.entitiesManager;
+        this.sessions = sessions;
+        this.workers = workers;
+
+        for (int i = 0; i < INBOUND_DATAGRAMS; i++) {
+            freeDatagrams.offer(new InboundDatagram());
+        }
     }
 
     /**
-     * Gérer les packets TCP reçus
+     * Confier un packet TCP reçu au tick. Appelé par le thread d'I/O.
+     *
+     * @return false si la file est pleine : le packet est perdu.
      */
-    public static void handleTCPPacket(Packet packet, ClientConnection originClient) {
-        Logger.trace("TCP reçu: " + packet);
+    public boolean queueTCPPacket(Packet packet, int size, ClientConnection originClient) {
+        return inboundTCP.offer(new InboundPacket(packet, size, originClient));
+    }
 
-        try {
-            monitor.logTCPReceived(packet);
-        } catch (IOException ignored) {
+    /**
+     * Confier au tick une copie d'un datagramme reçu, de sa position à sa limite. Appelé par le thread UDP.
+     * Les datagrammes trop grands ou qui ne tiennent plus dans la file sont perdus, comme sur le réseau, et seulement comptés.
+     */
+    public void queueDatagram(ByteBuffer datagram, InetSocketAddress from) {
+        if (datagram.remaining() > MAX_CLIENT_DATAGRAM_SIZE) {
+            inboundUDPDropped.incrementAndGet();
+            return;
         }
 
-        switch (packet.getType()) {
-            case CREATE_ENTITY -> EntityHandle.handleCreateEntity((PacketCreateEntity) packet, originClient);
+        // Le thread UDP est le seul consommateur des copies libres
+        InboundDatagram inbound = freeDatagrams.poll();
+        if (inbound == null) {
+            inboundUDPDropped.incrementAndGet();
+            return;
+        }
 
-            case DELETE_ENTITY -> EntityHandle.handleDeleteEntity((PacketDeleteEntity) packet);
+        inbound.data.clear();
+        inbound.data.put(datagram).flip();
+        inbound.from = from;
+        inbound.receivedAt = System.nanoTime();
+        inboundUDP.offer(inbound);
+    }
 
-            case UPDATE_ENTITY -> EntityHandle.handleUpdateEntity((PacketUpdateEntity) packet, originClient);
+    /**
+     * Confier au tick le retrait d'une connexion fermée. Appelé une seule fois par connexion, depuis n'importe quel thread.
+     */
+    public void queueDisconnect(ClientConnection client) {
+        disconnected.offer(client);
+    }
 
-            case PLAYER_JOIN -> PlayerHandle.handlePlayerJoin((PacketPlayerJoin) packet, originClient);
+    /**
+     * Nombre de packets TCP reçus qui attendent le prochain tick.
+     */
+    public int getInboundTCPDepth() {
+        return inboundTCP.size();
+    }
 
-            case CREATE_BLOCK -> BlockHandle.handleCreateBlock((PacketCreateBlock) packet, originClient);
+    /**
+     * Nombre de datagrammes reçus qui attendent le prochain tick.
+     */
+    public int getInboundUDPDepth() {
+        return inboundUDP.size();
+    }
 
-            case HEARTBEAT -> EntityHandle.handlePlayerHeartbeat((PacketHeartbeat) packet, originClient);
+    /**
+     * Plus grande file de packets TCP vue par le tick depuis le dernier appel.
+     */
+    public int takeInboundTCPPeakDepth() {
+        int peak = inboundTCPPeakDepth;
+        inboundTCPPeakDepth = 0;
+        return peak;
+    }
 
-            default -> Logger.warn("Type de packet TCP non géré: " + packet.getType());
+    /**
+     * Plus grande file de datagrammes vue par le tick depuis le dernier appel.
+     */
+    public int takeInboundUDPPeakDepth() {
+        int peak = inboundUDPPeakDepth;
+        inboundUDPPeakDepth = 0;
+        return peak;
+    }
 
+    /**
+     * Datagrammes perdus parce qu'ils étaient trop grands ou que le tick ne suivait pas.
+     */
+    public long getInboundUDPDropped() {
+        return inboundUDPDropped.get();
+    }
+
+    /**
+     * Datagrammes rejetés par le tick depuis le démarrage de la salle (voir {@link #rejectedDatagrams}).
+     */
+    public long getRejectedDatagrams() {
+        return rejectedDatagrams.get();
+    }
+
+    /**
+     * Traiter ce que les threads d'I/O ont reçu depuis le dernier tick, dans la limite des budgets :
+     * les déconnexions, puis les packets TCP, puis les datagrammes. Appelé par le thread du tick, seul à modifier le jeu.
+     */
+    public void processInbound() {
+        ClientConnection client;
+        while ((client = disconnected.poll()) != null) {
+            entitiesManager.removeClient(client);
+            room.leave();
+        }
+
+        inboundTCPPeakDepth = Math.max(inboundTCPPeakDepth, inboundTCP.size());
+        InboundPacket packet;
+        for (int i = 0; i < MAX_TCP_PACKETS_PER_TICK && (packet = inboundTCP.poll()) != null; i++) {
+            if (packet.client.isDisconnected()) continue;
+            monitor.logTCPReceived(packet.packet, packet.size);
+            handleTCPPacket(packet.packet, packet.client);
+        }
+
+        inboundUDPPeakDepth = Math.max(inboundUDPPeakDepth, inboundUDP.size());
+        InboundDatagram datagram;
+        for (int i = 0; i < MAX_DATAGRAMS_PER_TICK && (datagram = inboundUDP.poll()) != null; i++) {
+            try {
+                handleDatagram(datagram.data, datagram.from, datagram.receivedAt);
+            } catch (RuntimeException e) {
+                rejectedDatagrams.incrementAndGet();
+            }
+            freeDatagrams.offer(datagram);
         }
     }
 
     /**
-     * Gérer les packets UDP sur la mise à jour d'une seule entité reçus.
+     * Gérer un datagramme reçu d'un client à l'instant, positionné sur son octet de type.
      */
-    public static void handleUDPPacket(PacketEntityPosition packet, InetAddress address, int port, UDPServer udpServer) {
-        monitor.logUDPReceived(packet);
+    public void handleDatagram(ByteBuffer datagram, InetSocketAddress from) {
+        handleDatagram(datagram, from, System.nanoTime());
+    }
 
-        ClientConnection client = entitiesManager.getClients().get(packet.entityId);
-        if (client != null) {
-            if (client.getUdpPort() == 0) {
-                client.setUdpPort(port);
+    /**
+     * Gérer un datagramme reçu d'un client, positionné sur son octet de type.
+     *
+     * @param receivedAt l'instant de réception par le thread UDP ({@link System#nanoTime()}), pour mesurer la latence
+     *                   sans l'attente du tick.
+     */
+    public void handleDatagram(ByteBuffer datagram, InetSocketAddress from, long receivedAt) {
+        monitor.logUDPReceived(datagram.remaining());
+
+        byte type = datagram.get();
+        switch (type) {
+            case InputCodec.TYPE_INPUT -> handleInputUDP(datagram, from);
+            case SnapshotCodec.TYPE_ACK -> {
+                int sessionId = SessionCodec.readSessionId(datagram);
+                int seq = datagram.getShort() & 0xFFFF;
+                handleSnapshotAck(sessionId, seq, from);
             }
+            case SessionCodec.TYPE_HELLO -> handleHelloUDP(datagram, from);
+            case ReliableChannel.TYPE_RELIABLE -> handleReliableUDP(datagram, from);
+            case PingCodec.TYPE_PONG -> handlePongUDP(datagram, from, receivedAt);
+            // Datagrammes serveur → client, ou inconnus
+            default -> rejectedDatagrams.incrementAndGet();
+        }
+    }
+
+    /**
+     * Gérer les packets TCP reçus
+     */
+    public void handleTCPPacket(Packet packet, ClientConnection originClient) {
+        Logger.trace("TCP reçu: " + packet);
+
+        switch (packet.getType()) {
+            case CREATE_ENTITY -> EntityHandle.handleCreateEntity(room, (PacketCreateEntity) packet, originClient);
+
+            case DELETE_ENTITY -> EntityHandle.handleDeleteEntity(room, (PacketDeleteEntity) packet, originClient);
+
+            case UPDATE_ENTITY -> EntityHandle.handleUpdateEntity(room, (PacketUpdateEntity) packet, originClient);
+
+            case PLAYER_JOIN -> PlayerHandle.handlePlayerJoin(room, (PacketPlayerJoin) packet, originClient);
+
+            case ZONE_JOIN -> PlayerHandle.handleZoneJoin(room, (PacketZoneJoin) packet, originClient);
+
+            case HEARTBEAT -> EntityHandle.handlePlayerHeartbeat((PacketHeartbeat) packet, originClient);
+
+            default -> Logger.warn("Type de packet TCP non géré: " + packet.getType());
+
         }
+    }
 
-        Entity entity = entitiesManager.getEntities().get(packet.entityId);
-        if (entity != null) {
-            entity.pos.set(packet.posX, packet.posY);
-            entity.dirLookTarget.set(packet.dirX, packet.dirY);
+    /**
+     * Gérer un datagramme de commandes pour le joueur d'un client, positionné juste après l'octet de type.
+     * Les commandes sont retenues pour {@link #applyInputs()} ; celles répétées d'un datagramme à l'autre
+     * sont écartées par {@link InputQueue#offer}.
+     */
+    public void handleInputUDP(ByteBuffer datagram, InetSocketAddress from) {
+        int sessionId = InputCodec.readSessionId(datagram);
+        int newestSeq = InputCodec.readNewestSeq(datagram);
+        int count = InputCodec.readCount(datagram);
+
+        // Seul le joueur du client de la session peut être commandé par UDP
+        ClientConnection client = sessions.get(sessionId, from);
+        if (client == null) return;
+
+        // De la plus ancienne à la plus récente
+        for (int i = count - 1; i >= 0; i--) {
+            client.inputs.offer(InputCodec.readInput(datagram, (newestSeq - i) & 0xFFFF, receivedInput));
+        }
+    }
 
-            broadcastPositionUDP(packet, address, port, udpServer);
+    /**
+     * Simuler les commandes reçues depuis le dernier tick, avec le même pas que la prédiction du client.
+     * Appelé par le tick, avant la logique des entités.
+     */
+    public void applyInputs() {
+        for (ClientConnection client : entitiesManager.getClients()) {
+            if (!(entitiesManager.getPlayer(client) instanceof Player player)) continue;
+
+            for (int i = 0; i < MAX_INPUTS_PER_TICK && client.inputs.poll(polledInput); i++) {
+                player.applyInput(polledInput, entitiesManager, room.blocksManager);
+                client.lastProcessedInput = polledInput.seq;
+                player.dirtyPosition = true;
+
+                // Les actions sont exécutées par le serveur seul, depuis la position simulée
+                if (polledInput.hasAction(PlayerInput.ACTION_FIRE)) EntityHandle.fireProjectile(room, player);
+                if (polledInput.hasAction(PlayerInput.ACTION_PLACE_BLOCK)) BlockHandle.placeBlock(room, player);
+            }
         }
     }
 
     /**
      * Envoyer un packet TCP à tous les clients (sauf l'expéditeur en cas de création de player)
      */
-    public static void broadcastTCP(Packet packet, ClientConnection except) {
-        try {
-            monitor.logTCPSent(packet);
-        } catch (IOException ignored) {
-        }
+    public void broadcastTCP(Packet packet, ClientConnection except) {
+        // Encodé une seule fois, la même frame est déposée dans la file de chaque client
+        SharedFrame frame = framePool.encodeFrame(packet);
+        monitor.logTCPSent(packet, frame.length() - PacketCodecs.FRAME_HEADER_SIZE);
 
-        for (ClientConnection client : entitiesManager.getClients().values()) {
+        for (ClientConnection client : entitiesManager.getClients()) {
             if (client == except
                     && packet.getType() == Packet.PacketType.CREATE_ENTITY
                     && ((PacketCreateEntity) packet).entityId.equals(client.playerId)
             ) continue;
 
-            client.sendTCP(packet);
+            client.sendFrame(frame);
         }
+        frame.release();
     }
 
     /**
-     * Envoyer une position UDP à tous les clients sauf l'expéditeur (mise à jour d'une seule entité).
+     * Envoyer un packet, par le canal fiable UDP, aux clients qui connaissent l'entité (sauf {@code except}).
      */
-    public static void broadcastPositionUDP(PacketEntityPosition packet, InetAddress exceptAddress, int exceptPort, UDPServer udpServer) {
-        monitor.logUDPSent(packet);
+    public void sendToInterested(Entity entity, Packet packet, ClientConnection except) {
+        SharedFrame message = null;
+        for (ClientConnection client : entitiesManager.getClients()) {
+            if (client == except || !client.interest.contains(entity)) continue;
+
+            if (message == null) {
+                message = framePool.encode(packet);
+                monitor.logReliableSent(packet, message.length());
+            }
+            client.sendReliable(message);
+        }
+        if (message != null) message.release();
+    }
 
-        for (ClientConnection client : entitiesManager.getClients().values()) {
-            int udpPort = client.getUdpPort();
-            if (udpPort == 0) continue;
+    /**
+     * Envoyer la suppression d'une entité, par le canal fiable UDP, aux clients qui la connaissent, qui l'oublient.
+     */
+    public void broadcastEntityDeleted(Entity entity) {
+        SharedFrame message = null;
+        for (ClientConnection client : entitiesManager.getClients()) {
+            if (!client.interest.remove(entity)) continue;
 
-            if (client.getAddress().equals(exceptAddress) && udpPort == exceptPort) {
-                continue;
-            }
-            udpServer.sendPosition(packet, client.getAddress(), udpPort);
+            if (message == null) message = deleteMessage(entity);
+            client.sendReliable(message);
         }
+        if (message != null) message.release();
     }
 
     /**
-     * Envoyer une position UDP à tous les clients sauf l'expéditeur (mise à jour de toutes les entités qui ont bougé).
+     * Noter qu'un client connaît une entité dont la création lui a été envoyée directement.
      */
-    public static void broadcastBulkPositionUDP(UDPServer udpServer) {
-        List<Entity> moved = entitiesManager.getEntities()
-                .values()
-                .stream()
-                .filter(e -> e.dirtyPosition)
-                .toList();
+    public void addToInterest(ClientConnection client, Entity entity) {
+        client.interest.add(entity);
+    }
 
-        if (moved.isEmpty()) return;
+    /**
+     * Recalculer les entités pertinentes pour chaque client et lui envoyer la création de celles qui entrent
+     * dans sa zone et la suppression de celles qui en sortent. Appelé par le tick, avant l'envoi des snapshots.
+     */
+    public void updateInterest() {
+        if (entitiesManager.getClients().isEmpty()) return;
 
-        //On divise la liste en petites listes de 17 entités pour éviter de passer au-dessus de la limite du buffer
-        List<List<Entity>> dividedMoved = new ArrayList<>();
-        List<Entity> currentList = new ArrayList<>();
+        interestManager.rebuild(entitiesManager.getEntities());
 
-        for (int i = 0; i < moved.size(); i++) {
-            if (i % 17 == 0) {
-                dividedMoved.add(new ArrayList<>());
-                currentList = dividedMoved.get(dividedMoved.size() - 1);
-            }
+        for (ClientConnection client : entitiesManager.getClients()) {
+            if (client.playerId == null) continue;
 
-            currentList.add(moved.get(i));
-        }
+            Entity player = entitiesManager.getPlayer(client);
+            interestManager.update(client.interest, player, entered, left);
 
-        //On sérialise toutes les listes
-        List<byte[]> dividedDatas = new ArrayList<>();
-        for (List<Entity> part : dividedMoved) {
-            byte[] data = PacketSerializer.serializeBulk(new PacketPositionsBulk(part));
-            dividedDatas.add(data);
+            // Encodées une seule fois par tick, même si plusieurs clients voient entrer la même entité
+            for (int i = 0; i < entered.size(); i++) {
+                client.sendReliable(createMessages.computeIfAbsent(entered.get(i), createMessage));
+            }
+            for (int i = 0; i < left.size(); i++) {
+                client.sendReliable(deleteMessages.computeIfAbsent(left.get(i), deleteMessage));
+            }
+            entered.clear();
+            left.clear();
         }
 
-        for (ClientConnection client : entitiesManager.getClients().values()) {
-            int udpPort = client.getUdpPort();
-            if (udpPort == 0) continue;
+        // Les canaux des clients gardent leurs propres références jusqu'aux acquittements
+        createMessages.values().forEach(SharedFrame::release);
+        deleteMessages.values().forEach(SharedFrame::release);
+        createMessages.clear();
+        deleteMessages.clear();
+    }
 
-            //Et on envoie tous les serials à chaque client
-            for (byte[] data : dividedDatas) {
-                try {
-                    DatagramPacket datagramPacket = new DatagramPacket(
-                            data, data.length, client.getAddress(), udpPort
-                    );
-                    udpServer.socket.send(datagramPacket);
-                } catch (IOException e) {
-                    e.printStackTrace();
+    private SharedFrame createMessage(Entity entity) {
+        Packet packet = LinkEntityPacket.CreatePacketFromEntity(entity);
+        SharedFrame message = framePool.encode(packet);
+        monitor.logReliableSent(packet, message.length());
+        return message;
+    }
+
+    private SharedFrame deleteMessage(Entity entity) {
+        Packet packet = new PacketDeleteEntity(entity.id);
+        SharedFrame message = framePool.encode(packet);
+        monitor.logReliableSent(packet, message.length());
+        return message;
+    }
+
+    /**
+     * Évaluer la santé de chaque connexion (voir {@link ConnectionHealth}) et appliquer la politique du serveur :
+     * un client qui ne suit plus reçoit moins, ou est déconnecté, avant que son retard ne pèse sur le tick.
+     * Appelé par le tick, avant la réplication.
+     */
+    public void checkHealth() {
+        long now = System.currentTimeMillis();
+        int degraded = 0;
+        int skippedSnapshots = 0;
+
+        for (ClientConnection client : entitiesManager.getClients()) {
+            ConnectionHealth health = client.health;
+            ConnectionHealth.Change change = health.update(client.getOutboundQueueDepth(), client.getWriteStallMillis(now),
+                    client.reliable.getPendingBytes(), now);
+
+            switch (change) {
+                case DEGRADED -> monitor.logHealthChange(change, client.playerName + " ne suit plus (" + health.getReason()
+                        + "), politique " + health.getPolicy().action);
+                case RECOVERED -> monitor.logHealthChange(change, client.playerName + " suit à nouveau");
+                case DISCONNECT -> {
+                    monitor.logHealthChange(change, client.playerName + " déconnecté (" + health.getReason() + ")");
+                    client.disconnect();
+                    continue;
+                }
+                case NONE -> {
                 }
             }
+
+            if (health.isDegraded()) {
+                degraded++;
+                if (client.getUdpAddress() != null && !health.allowsSnapshot(room.currentTick)) skippedSnapshots++;
+            }
+        }
+
+        degradedClients = degraded;
+        monitor.logSkippedSnapshots(skippedSnapshots);
+    }
+
+    /**
+     * Répliquer la fin du tick vers chaque client, en parallèle (voir {@link ReplicationWorkers}) :
+     * le snapshot du monde est capturé une fois, puis chaque client reçoit sa partie et les messages de son canal fiable.
+     * Appelé par le tick, une fois tous les messages du tick déposés ; il attend que tous les clients soient servis.
+     */
+    public void replicate(UDPServer udpServer) {
+        if (entitiesManager.getClients().isEmpty()) return;
+
+        snapshotSeq = (snapshotSeq + 1) & 0xFFFF;
+        world = worldSnapshot.recapture(snapshotSeq, entitiesManager.getEntities());
+        world.tick = room.currentTick;
+        world.serverTime = room.serverTimeMillis();
+        replicationServer = udpServer;
+        replicationTime = System.currentTimeMillis();
+
+        workers.run(entitiesManager.getClients(), replicateJob);
+
+        world = null;
+        replicationServer = null;
+        workers.takeSent(sent);
+        if (sent[0] > 0) monitor.logUDPSent((int) sent[0], sent[1]);
+    }
+
+    /**
+     * Le travail de {@link #replicate} pour un client. Ne touche qu'à ce client et au {@link ReplicationWorkers.Worker} du thread.
+     */
+    private void replicate(ClientConnection client, ReplicationWorkers.Worker worker) {
+        // Rien ne part tant que le client ne s'est pas fait connaître en UDP
+        InetSocketAddress target = client.getUdpAddress();
+        if (target == null || client.isDisconnected()) return;
+
+        if (client.helloAckPending) {
+            client.helloAckPending = false;
+            sendHelloAck(client, target, worker);
+        }
+
+        // Un client dégradé reçoit moins de snapshots, mais ses messages fiables partent toujours
+        if (client.health.allowsSnapshot(room.currentTick)) sendSnapshot(client, target, worker);
+        sendReliable(client, target, worker);
+        sendPing(client, target, worker);
+    }
+
+    private void sendHelloAck(ClientConnection client, InetSocketAddress target, ReplicationWorkers.Worker worker) {
+        ByteBuffer buffer = worker.controlBuffer;
+        buffer.clear();
+        SessionCodec.writeHelloAck(buffer, client.sessionId);
+        buffer.flip();
+        replicationServer.send(buffer, target);
+        worker.onSent(SessionCodec.HELLO_ACK_SIZE);
+    }
+
+    /**
+     * Envoyer un ping au client si le dernier date de plus de {@link LatencyTracker#PING_INTERVAL_MICROS}.
+     */
+    private void sendPing(ClientConnection client, InetSocketAddress target, ReplicationWorkers.Worker worker) {
+        int seq = client.latency.nextPing(room.serverTimeMicros());
+        if (seq < 0) return;
+
+        ByteBuffer buffer = worker.controlBuffer;
+        buffer.clear();
+        PingCodec.writePing(buffer, seq);
+        buffer.flip();
+        replicationServer.send(buffer, target);
+        worker.onSent(PingCodec.PING_SIZE);
+    }
+
+    /**
+     * Envoyer au client le snapshot du tick restreint aux entités qu'il connaît et à ce que permet son budget
+     * (voir {@link ReplicationScheduler} et {@link BandwidthEstimator}),
+     * encodé en delta par rapport au dernier snapshot qu'il a acquitté.
+     */
+    private void sendSnapshot(ClientConnection client, InetSocketAddress target, ReplicationWorkers.Worker worker) {
+        Snapshot baseline = client.snapshots.baseline();
+        Snapshot snapshot = client.interest.filter(world, client.snapshots.nextSnapshot(snapshotSeq, client.interest.size()));
+        snapshot.inputAck = client.lastProcessedInput;
+
+        // Ce qui tient dans le budget du client, les entités les plus prioritaires d'abord
+        client.bandwidth.update(room.currentTick);
+        Entity player = entitiesManager.getPlayer(client);
+        int deferred = client.replication.schedule(snapshot, baseline, player == null ? 0 : player.netId,
+                client.bandwidth.getBudget() - SnapshotCodec.HEADER_SIZE, entitiesManager);
+
+        List<ByteBuffer> datagrams = worker.datagrams;
+        SnapshotCodec.encode(snapshot, baseline, worker.packer, datagrams);
+        for (int i = 0; i < datagrams.size(); i++) {
+            ByteBuffer datagram = datagrams.get(i);
+            replicationServer.send(datagram, target);
+            worker.onSent(datagram.remaining());
+        }
+        worker.packer.release(datagrams);
+        client.snapshots.store(snapshot);
+        client.bandwidth.onSent(snapshotSeq, room.currentTick, deferred > 0);
+        client.health.onSnapshotSent(replicationTime);
+    }
+
+    /**
+     * Envoyer au client les messages de son canal fiable qui attendent un premier envoi ou un renvoi,
+     * et les acquittements de ce qu'il a envoyé.
+     */
+    private void sendReliable(ClientConnection client, InetSocketAddress target, ReplicationWorkers.Worker worker) {
+        ByteBuffer buffer = worker.reliableBuffer;
+        for (int i = 0; i < MAX_RELIABLE_DATAGRAMS_PER_TICK; i++) {
+            buffer.clear();
+            buffer.put(ReliableChannel.TYPE_RELIABLE);
+            if (!client.reliable.writeDatagram(buffer, replicationTime)) break;
+
+            buffer.flip();
+            replicationServer.send(buffer, target);
+            worker.onSent(buffer.remaining());
+        }
+    }
+
+    /**
+     * Un client a reçu un snapshot en entier : il devient sa baseline, et l'acquittement nourrit l'estimation de son budget.
+     */
+    public void handleSnapshotAck(int sessionId, int seq, InetSocketAddress from) {
+        ClientConnection client = sessions.get(sessionId, from);
+        if (client == null) return;
+
+        client.snapshots.acknowledge(seq);
+        client.bandwidth.onAck(seq);
+        client.health.onSnapshotAck();
+    }
+
+    /**
+     * Attribuer au client une session UDP et la lui envoyer par TCP : il la présentera dans un hello.
+     * Appelé par le tick, au join.
+     */
+    public void openUdpSession(ClientConnection client) {
+        sessions.open(client);
+        client.sendTCP(new PacketUdpSession(client.sessionId, client.sessionToken));
+    }
+
+    /**
+     * Libérer la session UDP d'un client qui part. Appelé par le tick.
+     */
+    public void closeUdpSession(ClientConnection client) {
+        sessions.close(client);
+    }
+
+    /**
+     * Gérer un hello, positionné juste après l'octet de type : la session est liée à l'adresse d'où il vient,
+     * et l'acquittement part avec les prochains datagrammes du client.
+     */
+    public void handleHelloUDP(ByteBuffer datagram, InetSocketAddress from) {
+        int sessionId = SessionCodec.readSessionId(datagram);
+        long token = SessionCodec.readToken(datagram);
+
+        boolean alreadyBound = sessions.get(sessionId, from) != null;
+        ClientConnection client = sessions.bind(sessionId, token, from);
+        if (client == null) {
+            rejectedDatagrams.incrementAndGet();
+            return;
         }
+
+        if (!alreadyBound) Logger.info("Session UDP de " + client.playerName + " liée à " + from);
+        client.helloAckPending = true;
     }
 
     /**
-     * Envoyer une position UDP à tous les clients sauf l'expéditeur (mise à jour de toutes les entités qui ont bougé).
+     * Gérer la réponse d'un client à un ping, positionnée juste après l'octet de type.
      */
-    public static void broadcastChangesInCollisionablesTCP(TCPServer tcpServer) {
-        List<Entity> changed = entitiesManager.getEntities()
-                .values()
-                .stream()
-                .filter(e -> e.dirtyOtherAttribute)
-                .toList();
+    public void handlePongUDP(ByteBuffer datagram, InetSocketAddress from, long receivedAt) {
+        PingCodec.Pong pong = PingCodec.readPong(datagram, receivedPong);
+        ClientConnection client = sessions.get(pong.sessionId, from);
+        if (client == null) return;
 
-        if (changed.isEmpty()) return;
+        client.latency.onPong(pong.seq, pong.clientReceivedMicros, pong.clientSentMicros, room.serverTimeMicros(receivedAt));
+    }
 
-        for (ClientConnection client : entitiesManager.getClients().values()) {
+    /**
+     * Publier pour le moniteur la latence de chaque client et celle de tous les clients de la salle réunis,
+     * une fois par seconde. Appelé par le tick.
+     */
+    public void publishLatency() {
+        long now = System.currentTimeMillis();
+        if (now - lastLatencyPublish < LATENCY_PUBLISH_MILLIS) return;
+        lastLatencyPublish = now;
+
+        // Un nouvel histogramme à chaque fois : le thread des stats lit celui d'avant
+        LatencyHistogram allLatencies = new LatencyHistogram();
+        List<ServerMonitor.ClientLatency> latencies = new ArrayList<>();
+        for (ClientConnection client : entitiesManager.getClients()) {
+            LatencyTracker latency = client.latency;
+            if (latency.getSamples() == 0) continue;
+
+            LatencyHistogram histogram = latency.getHistogram();
+            allLatencies.add(histogram);
+            latencies.add(new ServerMonitor.ClientLatency(client.playerName, latency.getSamples(), latency.getRttMicros(),
+                    latency.getJitterMicros(), latency.getClockOffsetMicros(),
+                    histogram.percentile(50), histogram.percentile(99), histogram.getMax()));
+        }
+        publishedLatencies = allLatencies;
+        publishedClientLatencies = latencies;
+    }
+
+    /**
+     * Les allers-retours de tous les clients de la salle, publiés par {@link #publishLatency()}. À ne pas modifier.
+     */
+    public LatencyHistogram getPublishedLatencies() {
+        return publishedLatencies;
+    }
+
+    public List<ServerMonitor.ClientLatency> getPublishedClientLatencies() {
+        return publishedClientLatencies;
+    }
 
-            for (Entity entity : changed) {
-                client.sendTCP(new PacketUpdateEntity(entity));
+    /**
+     * Clients dégradés au dernier {@link #checkHealth()}.
+     */
+    public int getDegradedClients() {
+        return degradedClients;
+    }
+
+    /**
+     * Les threads qui répliquent vers les clients en plus du tick.
+     */
+    public ReplicationWorkers getReplicationWorkers() {
+        return workers;
+    }
+
+    /**
+     * Gérer un datagramme du canal fiable d'un client, positionné juste après l'octet de type : [session] puis le canal.
+     */
+    public void handleReliableUDP(ByteBuffer datagram, InetSocketAddress from) {
+        ClientConnection client = sessions.get(SessionCodec.readSessionId(datagram), from);
+        if (client == null) return;
+
+        client.reliable.receive(datagram, System.currentTimeMillis(), reliableReceiver);
+    }
+
+    /**
+     * Au-delà de ce nombre de frames en attente, le client ne reçoit plus de parties du monde ce tick-ci.
+     */
+    public static final int WORLD_STREAM_MAX_QUEUE_DEPTH = 64;
+
+    /**
+     * Envoyer aux joueurs qui ont rejoint la partie les prochaines parties du monde (voir {@link WorldStream}),
+     * autour de leur joueur. Appelé par le tick.
+     */
+    public void streamWorld() {
+        for (ClientConnection client : entitiesManager.getClients()) {
+            WorldStream stream = client.worldStream;
+            if (stream == null) continue;
+
+            // Un client lent finit de vider sa file avant de recevoir la suite
+            if (client.getOutboundQueueDepth() > WORLD_STREAM_MAX_QUEUE_DEPTH) continue;
+            if (!client.health.allowsDroppable(room.currentTick)) continue;
+
+            Entity player = entitiesManager.getPlayer(client);
+            int centerX = player == null ? 0 : (int) Math.round(player.pos.x / BlockHandle.BLOCK_GRID_SIZE);
+            int centerY = player == null ? 0 : (int) Math.round(player.pos.y / BlockHandle.BLOCK_GRID_SIZE);
+
+            for (int i = 0; i < WorldStream.CHUNKS_PER_TICK && !stream.isDone(); i++) {
+                SharedFrame frame = framePool.encodeFrame(stream.nextChunk(centerX, centerY));
+                client.sendFrame(frame);
+                frame.release();
+            }
+
+            if (stream.isDone()) {
+                client.worldStream = null;
+                monitor.log("INFO", "Monde envoyé à " + client.playerName + " (" + stream.getChunkCount() + " parties)");
             }
         }
     }
+
+    /**
+     * Envoyer aux clients qui les connaissent les champs répliqués modifiés pendant le tick, et seulement eux
+     * (voir {@link EntityReplication}). Les marques sont effacées une fois envoyées.
+     */
+    public void broadcastChangesInCollisionables() {
+        for (Entity entity : entitiesManager.getEntities()) {
+            if (entity.dirtyFields == 0) continue;
+
+            int fields = entity.dirtyFields & EntityReplication.fieldsOf(entity);
+            entity.dirtyFields = 0;
+            if (fields != 0) {
+                sendToInterested(entity, new PacketEntityPatch(entity, fields), null);
+            }
+        }
+    }
+
+    /**
+     * Un packet TCP reçu, sa taille encodée et la connexion dont il provient.
+     */
+    private record InboundPacket(Packet packet, int size, ClientConnection client) {
+    }
+
+    /**
+     * Copie réutilisable d'un datagramme reçu, type compris, et son expéditeur.
+     */
+    private static final class InboundDatagram {
+        final ByteBuffer data = ByteBuffer.allocate(MAX_CLIENT_DATAGRAM_SIZE);
+        InetSocketAddress from;
+        long receivedAt;
+    }
 }
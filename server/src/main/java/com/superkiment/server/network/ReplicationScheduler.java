@@ -0,0 +1,185 @@
+package com.superkiment.server.network;
+
+import com.superkiment.common.entities.EntitiesManager;
+import com.superkiment.common.entities.Entity;
+import com.superkiment.common.entities.Player;
+import com.superkiment.common.entities.Projectile;
+import com.superkiment.common.packets.snapshot.Quantization;
+import com.superkiment.common.packets.snapshot.Snapshot;
+import com.superkiment.common.packets.snapshot.SnapshotCodec;
+
+import java.util.Arrays;
+
+/**
+ * Choisit, à chaque tick, les entités mises à jour pour un client sans dépasser son budget en octets.
+ * <p>
+ * Chaque entité dont l'état diffère de ce que le client a acquitté accumule une priorité, d'autant plus vite qu'elle est
+ * proche du joueur et qu'elle bouge vite (joueurs, projectiles). Les plus prioritaires sont envoyées tant que le budget
+ * le permet et repartent de zéro. Les autres sont marquées {@link Snapshot#kept} : le client garde ce qu'il en a reçu de
+ * plus récent, pour quelques bits chacune, et elles continuent d'accumuler : aucune n'attend indéfiniment.
+ * <p>
+ * Le joueur du client passe toujours en premier, sa prédiction en dépend. Uniquement manipulé par le thread du tick.
+ */
+public class ReplicationScheduler {
+
+    /**
+     * Distance à laquelle une entité accumule deux fois moins vite qu'une entité collée au joueur.
+     */
+    public static final double DISTANCE_FALLOFF = 400;
+
+    public static final float DEFAULT_WEIGHT = 1f;
+    public static final float PLAYER_WEIGHT = 2f;
+    public static final float PROJECTILE_WEIGHT = 4f;
+
+    // Priorités du tick précédent, triées par netId, y compris celles des entités reportées
+    private int[] netIds = new int[64];
+    private float[] priorities = new float[64];
+    private int size = 0;
+
+    // Tableaux de travail, conservés pour ne pas allouer à chaque tick
+    private int[] nextNetIds = new int[64];
+    private float[] nextPriorities = new float[64];
+    private int[] costs = new int[64];
+    private boolean[] deferred = new boolean[64];
+    private long[] candidates = new long[64];
+
+    private int lastDeferred = 0;
+    private int lastBits = 0;
+
+    /**
+     * Réduire {@code snapshot}, déjà restreint aux entités que le client connaît, à ce qui tient dans {@code budgetBytes}.
+     *
+     * @param baseline    le snapshot acquitté par le client, ou null.
+     * @param playerNetId le joueur du client, ou 0.
+     * @return le nombre d'entités reportées à un tick suivant.
+     */
+    public int schedule(Snapshot snapshot, Snapshot baseline, int playerNetId, int budgetBytes, EntitiesManager entities) {
+        ensureCapacity(snapshot.size);
+
+        int playerIndex = playerNetId == 0 ? -1 : snapshot.indexOf(playerNetId);
+        double playerX = playerIndex < 0 ? 0 : Quantization.dequantizePosition(snapshot.x[playerIndex]);
+        double playerY = playerIndex < 0 ? 0 : Quantization.dequantizePosition(snapshot.y[playerIndex]);
+
+        // Accumuler, en parcourant en parallèle le snapshot et les priorités précédentes (tous deux triés par netId)
+        int candidateCount = 0;
+        int previous = 0;
+        for (int i = 0; i < snapshot.size; i++) {
+            int netId = snapshot.netIds[i];
+            while (previous < size && netIds[previous] < netId) previous++;
+            float priority = previous < size && netIds[previous] == netId ? priorities[previous] : 0f;
+
+            int bits = SnapshotCodec.recordBits(snapshot, i, baseline, baseline == null ? -1 : baseline.indexOf(netId));
+            costs[i] = bits;
+            deferred[i] = false;
+            nextNetIds[i] = netId;
+
+            if (bits == 0) {
+                // Le client a déjà cet état
+                priority = 0f;
+            } else if (i == playerIndex) {
+                priority = Float.MAX_VALUE;
+            } else {
+                double distance = playerIndex < 0 ? 0 : Math.hypot(
+                        Quantization.dequantizePosition(snapshot.x[i]) - playerX,
+                        Quantization.dequantizePosition(snapshot.y[i]) - playerY
+                );
+                priority += (float) (weight(entities.getEntityFromNetId(netId)) * DISTANCE_FALLOFF / (DISTANCE_FALLOFF + distance));
+                // Priorité positive en bits de poids fort (l'ordre des flottants positifs est celui de leurs bits), index en bits de poids faible
+                candidates[candidateCount++] = ((long) Float.floatToIntBits(priority) << 32) | i;
+            }
+            nextPriorities[i] = priority;
+        }
+
+        // Le joueur d'abord, puis les plus prioritaires tant qu'elles tiennent, en gardant de quoi écrire les reportées
+        int budgetBits = budgetBytes * 8;
+        int usedBits = candidateCount * SnapshotCodec.KEPT_RECORD_BITS;
+        if (playerIndex >= 0 && costs[playerIndex] > 0) {
+            usedBits += costs[playerIndex];
+            nextPriorities[playerIndex] = 0f;
+        }
+
+        Arrays.sort(candidates, 0, candidateCount);
+        int deferredCount = 0;
+        for (int k = candidateCount - 1; k >= 0; k--) {
+            int i = (int) candidates[k];
+            // La plus prioritaire part même si les reportées remplissent à elles seules le budget : aucune n'attend indéfiniment
+            if (k == candidateCount - 1 || usedBits - SnapshotCodec.KEPT_RECORD_BITS + costs[i] <= budgetBits) {
+                usedBits += costs[i] - SnapshotCodec.KEPT_RECORD_BITS;
+                nextPriorities[i] = 0f;
+            } else {
+                deferred[i] = true;
+                deferredCount++;
+            }
+        }
+
+        // Garder les priorités de toutes les entités, envoyées ou non
+        int[] swapIds = netIds;
+        netIds = nextNetIds;
+        nextNetIds = swapIds;
+        float[] swapPriorities = priorities;
+        priorities = nextPriorities;
+        nextPriorities = swapPriorities;
+        size = snapshot.size;
+
+        if (deferredCount > 0) markDeferred(snapshot, baseline);
+
+        lastDeferred = deferredCount;
+        lastBits = usedBits;
+        return deferredCount;
+    }
+
+    /**
+     * Marquer les entités reportées. Elles prennent l'état acquitté par le client, ou 0 s'il ne les a jamais acquittées,
+     * que le client reconstruit de son côté : le snapshot reste une baseline valable pour les deltas suivants.
+     * L'état acquitté peut être plus ancien que ce que le client a déjà reçu, il ne doit donc pas l'afficher.
+     */
+    private void markDeferred(Snapshot snapshot, Snapshot baseline) {
+        for (int i = 0; i < snapshot.size; i++) {
+            if (!deferred[i]) continue;
+
+            int j = baseline == null ? -1 : baseline.indexOf(snapshot.netIds[i]);
+            snapshot.x[i] = j < 0 ? 0 : baseline.x[j];
+            snapshot.y[i] = j < 0 ? 0 : baseline.y[j];
+            snapshot.angle[i] = j < 0 ? 0 : baseline.angle[j];
+            snapshot.kept[i] = true;
+        }
+    }
+
+    static float weight(Entity entity) {
+        if (entity instanceof Projectile) return PROJECTILE_WEIGHT;
+        if (entity instanceof Player) return PLAYER_WEIGHT;
+        return DEFAULT_WEIGHT;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (costs.length >= capacity) return;
+
+        int length = Math.max(capacity, costs.length * 2);
+        netIds = Arrays.copyOf(netIds, length);
+        priorities = Arrays.copyOf(priorities, length);
+        nextNetIds = new int[length];
+        nextPriorities = new float[length];
+        costs = new int[length];
+        deferred = new boolean[length];
+        candidates = new long[length];
+    }
+
+    /**
+     * Priorité accumulée par une entité, 0 si elle est à jour chez le client ou inconnue.
+     */
+    public float getPriority(int netId) {
+        int index = Arrays.binarySearch(netIds, 0, size, netId);
+        return index < 0 ? 0f : priorities[index];
+    }
+
+    public int getLastDeferred() {
+        return lastDeferred;
+    }
+
+    /**
+     * Taille estimée des entrées écrites au dernier tick, reportées comprises, en bits.
+     */
+    public int getLastBits() {
+        return lastBits;
+    }
+}
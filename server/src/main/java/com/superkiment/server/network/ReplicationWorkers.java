@@ -0,0 +1,182 @@
+package com.superkiment.server.network;
+
+import com.superkiment.common.Logger;
+import com.superkiment.common.packets.PacketSerializer;
+import com.superkiment.common.packets.ping.PingCodec;
+import com.superkiment.common.packets.session.SessionCodec;
+import com.superkiment.common.packets.snapshot.DatagramPacker;
+import com.superkiment.common.packets.snapshot.SnapshotCodec;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Exécute une tâche par client sur plusieurs threads, pendant que le tick attend qu'elles soient toutes finies.
+ * <p>
+ * Le tick participe lui-même : chaque thread prend le prochain client libre jusqu'à ce qu'il n'en reste plus.
+ * Pendant {@link #run}, le monde ne change pas : une tâche peut lire les entités et l'état partagé du tick,
+ * mais ne modifie que son client et le {@link Worker} de son thread.
+ * Avec 0 thread supplémentaire, tout est fait par le tick, dans l'ordre des clients.
+ * <p>
+ * Les salles d'un processus partagent les mêmes threads : leurs appels à {@link #run} passent l'un après l'autre.
+ */
+public class ReplicationWorkers {
+
+    /**
+     * Threads en plus du tick (-Dsurvivkim.replication.threads), par défaut un par cœur restant.
+     */
+    public static final int THREADS = Integer.getInteger("survivkim.replication.threads",
+            Math.max(0, Runtime.getRuntime().availableProcessors() - 1));
+
+    /**
+     * Une tâche exécutée pour chaque client, avec le {@link Worker} du thread qui l'exécute.
+     */
+    public interface Job {
+        void run(ClientConnection client, Worker worker);
+    }
+
+    /**
+     * Ce que chaque thread réutilise d'un client à l'autre, et ce qu'il a envoyé.
+     */
+    public static final class Worker {
+        public final DatagramPacker packer = SnapshotCodec.newPacker(PacketSerializer.UDP_PAYLOAD_BUDGET);
+        public final List<ByteBuffer> datagrams = new ArrayList<>();
+        public final ByteBuffer reliableBuffer = ByteBuffer.allocateDirect(PacketSerializer.UDP_PAYLOAD_BUDGET);
+        public final ByteBuffer controlBuffer = ByteBuffer.allocateDirect(Math.max(PingCodec.PING_SIZE, SessionCodec.HELLO_ACK_SIZE));
+
+        public int datagramsSent = 0;
+        public long bytesSent = 0;
+
+        /**
+         * Compter un datagramme envoyé, additionné par le tick après {@link #run}.
+         */
+        public void onSent(int bytes) {
+            datagramsSent++;
+            bytesSent += bytes;
+        }
+    }
+
+    private final Worker[] workers;
+    private final Thread[] threads;
+
+    private ClientConnection[] clients = new ClientConnection[64];
+    private int count;
+    private Job job;
+
+    private final AtomicInteger cursor = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private volatile int generation = 0;
+    private volatile Thread waiter;
+    private volatile boolean stopped = false;
+
+    public ReplicationWorkers(int threads) {
+        this.workers = new Worker[threads + 1];
+        this.threads = new Thread[threads];
+        workers[0] = new Worker();
+
+        for (int i = 0; i < threads; i++) {
+            Worker worker = workers[i + 1] = new Worker();
+            Thread thread = new Thread(() -> loop(worker), "replication-" + i);
+            thread.setDaemon(true);
+            this.threads[i] = thread;
+            thread.start();
+        }
+    }
+
+    /**
+     * Exécuter {@code job} pour chaque client et attendre la fin de toutes les tâches. Appelé par le tick uniquement.
+     * Une tâche qui lève une exception est notée et n'empêche pas les autres.
+     */
+    public synchronized void run(Iterable<ClientConnection> source, Job job) {
+        count = 0;
+        for (ClientConnection client : source) {
+            if (count == clients.length) clients = Arrays.copyOf(clients, count * 2);
+            clients[count++] = client;
+        }
+        if (count == 0) return;
+
+        this.job = job;
+        cursor.set(0);
+
+        // Peu de clients : réveiller les autres threads coûterait plus que de tout faire ici
+        if (threads.length == 0 || count == 1) {
+            work(workers[0]);
+        } else {
+            waiter = Thread.currentThread();
+            running.set(threads.length + 1);
+            generation++;
+            for (Thread thread : threads) LockSupport.unpark(thread);
+
+            work(workers[0]);
+            running.decrementAndGet();
+            while (running.get() != 0) LockSupport.park(this);
+        }
+
+        this.job = null;
+        Arrays.fill(clients, 0, count, null);
+    }
+
+    /**
+     * Additionner ce que chaque thread a envoyé depuis le dernier appel, puis remettre les compteurs à zéro.
+     * Appelé par le tick, après {@link #run} ; avec plusieurs salles, le total peut inclure l'envoi d'une autre.
+     *
+     * @return {datagrammes, octets}
+     */
+    public synchronized long[] takeSent(long[] into) {
+        long datagrams = 0, bytes = 0;
+        for (Worker worker : workers) {
+            datagrams += worker.datagramsSent;
+            bytes += worker.bytesSent;
+            worker.datagramsSent = 0;
+            worker.bytesSent = 0;
+        }
+        into[0] = datagrams;
+        into[1] = bytes;
+        return into;
+    }
+
+    public int getThreadCount() {
+        return threads.length;
+    }
+
+    /**
+     * Les ids des threads supplémentaires, pour mesurer ce qu'ils allouent.
+     */
+    public long[] getThreadIds() {
+        long[] ids = new long[threads.length];
+        for (int i = 0; i < threads.length; i++) ids[i] = threads[i].threadId();
+        return ids;
+    }
+
+    public void stop() {
+        stopped = true;
+        for (Thread thread : threads) LockSupport.unpark(thread);
+    }
+
+    private void loop(Worker worker) {
+        int seen = 0;
+        while (true) {
+            while (generation == seen && !stopped) LockSupport.park(this);
+            if (stopped) return;
+            seen = generation;
+
+            work(worker);
+            if (running.decrementAndGet() == 0) LockSupport.unpark(waiter);
+        }
+    }
+
+    private void work(Worker worker) {
+        int i;
+        while ((i = cursor.getAndIncrement()) < count) {
+            try {
+                job.run(clients[i], worker);
+            } catch (RuntimeException e) {
+                Logger.warn("Réplication impossible pour " + clients[i].playerName + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.superkiment.server.network;
+
+import com.superkiment.common.packets.snapshot.Snapshot;
+
+/**
+ * Les derniers snapshots envoyés à un client et le dernier qu'il a acquitté, qui sert de baseline aux deltas suivants.
+ */
+public class SnapshotHistory {
+
+    public static final int SIZE = 16;
+
+    private final Snapshot[] sent = new Snapshot[SIZE];
+    private int ackedSeq = -1;
+
+    /**
+     * Snapshots propres au client, réutilisés d'un tick à l'autre : celui d'il y a {@link #SIZE} + 1 envois
+     * n'est plus dans {@link #sent}, il ne peut donc plus servir de baseline.
+     */
+    private final Snapshot[] pool = new Snapshot[SIZE + 1];
+    private int poolIndex = 0;
+
+    /**
+     * Noter qu'un snapshot a été envoyé au client. Appelé par le tick.
+     */
+    public void store(Snapshot snapshot) {
+        sent[snapshot.seq % SIZE] = snapshot;
+    }
+
+    /**
+     * Un snapshot à remplir pour le prochain envoi à ce client. Appelé par le tick, après {@link #baseline()}.
+     */
+    public Snapshot nextSnapshot(int seq, int expectedSize) {
+        poolIndex = (poolIndex + 1) % pool.length;
+        Snapshot snapshot = pool[poolIndex];
+
+        // Ne jamais réécrire la baseline, même si le client a sauté des ticks
+        if (snapshot != null && snapshot == baseline()) {
+            poolIndex = (poolIndex + 1) % pool.length;
+            snapshot = pool[poolIndex];
+        }
+
+        if (snapshot == null) {
+            snapshot = new Snapshot(seq, expectedSize);
+            pool[poolIndex] = snapshot;
+        }
+        snapshot.seq = seq;
+        return snapshot;
+    }
+
+    /**
+     * Le client a reçu le snapshot {@code seq} en entier. Appelé par le tick.
+     */
+    public void acknowledge(int seq) {
+        int current = ackedSeq;
+        if (current == -1 || Snapshot.isNewer(seq, current)) {
+            ackedSeq = seq;
+        }
+    }
+
+    /**
+     * @return le snapshot acquitté à utiliser comme baseline, ou null s'il est trop ancien ou inconnu (envoi complet).
+     */
+    public Snapshot baseline() {
+        int seq = ackedSeq;
+        if (seq == -1) return null;
+
+        Snapshot snapshot = sent[seq % SIZE];
+        return snapshot != null && snapshot.seq == seq ? snapshot : null;
+    }
+}
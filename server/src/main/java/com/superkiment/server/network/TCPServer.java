@@ -1,74 +1,176 @@
 package com.superkiment.server.network;
 
 import com.superkiment.common.Logger;
-import com.superkiment.server.GameServer;
+import com.superkiment.server.room.Room;
+import com.superkiment.server.room.RoomManager;
 
 import java.io.IOException;
-import java.net.ServerSocket;
-import java.net.Socket;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadFactory;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.*;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
+/**
+ * Serveur TCP non bloquant : un seul thread d'I/O gère toutes les connexions via un Selector.
+ * Les packets décodés sont confiés au tick de la salle de leur connexion (voir {@link RoomManager#queueTCPPacket}).
+ */
 public class TCPServer {
 
+    private static final int ACCEPT_BACKLOG = 1024;
+
     private final int port;
-    private final GameServer gameServer;
-    private ServerSocket serverSocket;
-    private final ExecutorService threadPool;
-    private boolean running = false;
+    private final RoomManager rooms;
+    private ServerSocketChannel serverChannel;
+    private Selector selector;
+    private volatile boolean running = false;
+
+    /**
+     * Connexions à écrire au prochain réveil du thread du Selector.
+     */
+    private final Queue<ClientConnection> pendingWrites = new ConcurrentLinkedQueue<>();
 
-    public TCPServer(int port, GameServer gameServer) {
+    public TCPServer(int port, RoomManager rooms) {
         this.port = port;
-        this.gameServer = gameServer;
-        this.threadPool = Executors.newCachedThreadPool(
-                new ThreadFactory() {
-                    private int counter = 0;
-
-                    @Override
-                    public Thread newThread(Runnable r) {
-                        Thread t = new Thread(r);
-                        t.setName("tcp-client-" + (++counter));
-                        t.setDaemon(true);
-                        return t;
-                    }
-                }
-        );
+        this.rooms = rooms;
+    }
+
+    public RoomManager getRooms() {
+        return rooms;
+    }
+
+    /**
+     * Ouvre le port d'écoute. Séparé de {@link #start()} pour connaître le port effectif avant de lancer la boucle.
+     */
+    public void bind() throws IOException {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.configureBlocking(false);
+        serverChannel.bind(new InetSocketAddress(port), ACCEPT_BACKLOG);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        running = true;
+        Logger.info("Serveur TCP démarré sur le port " + getLocalPort());
     }
 
     public void start() {
         try {
-            serverSocket = new ServerSocket(port);
-            running = true;
-            Logger.info("Serveur TCP démarré sur le port " + port);
+            if (serverChannel == null) bind();
 
             while (running) {
-                try {
-                    Socket clientSocket = serverSocket.accept();
-                    ClientConnection client = new ClientConnection(clientSocket);
-                    threadPool.execute(client);
-
-                    Logger.info("Nouvelle connexion TCP: " + clientSocket.getInetAddress());
-                } catch (IOException e) {
-                    if (running) {
-                        e.printStackTrace();
+                selector.select();
+                processPendingWrites();
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+
+                    if (!key.isValid()) continue;
+
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+
+                    ClientConnection client = (ClientConnection) key.attachment();
+                    try {
+                        if (key.isReadable()) client.onReadable();
+                        if (key.isValid() && key.isWritable()) client.onWritable();
+                    } catch (IOException e) {
+                        client.disconnect();
                     }
                 }
             }
+        } catch (IOException | ClosedSelectorException e) {
+            if (running) e.printStackTrace();
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+
+            ClientConnection client = new ClientConnection(channel, this);
+            client.register(selector);
+
+            Logger.info("Nouvelle connexion TCP: " + channel.socket().getInetAddress());
+        }
+    }
+
+    /**
+     * Note qu'une connexion a des frames à envoyer. Elles partiront au prochain {@link #flush(Room)} de sa salle.
+     */
+    void scheduleFlush(ClientConnection client) {
+        Room room = client.room;
+        if (room != null) room.network.scheduledFlushes.offer(client);
+        // Sans salle, aucun tick ne viendrait l'envoyer
+        else wakeFor(client);
+    }
+
+    /**
+     * Envoie tout ce que la salle a déposé depuis son dernier appel, en un seul réveil du Selector.
+     * Appelé à la fin du tick de la salle pour regrouper ses frames en une écriture par client : les frames
+     * des autres salles attendent la fin de leur propre tick.
+     */
+    public void flush(Room room) {
+        Queue<ClientConnection> scheduled = room.network.scheduledFlushes;
+        ClientConnection client;
+        boolean any = false;
+        while ((client = scheduled.poll()) != null) {
+            pendingWrites.offer(client);
+            any = true;
+        }
+        if (any && selector != null) selector.wakeup();
+    }
+
+    /**
+     * Faire rendre au pool, par le thread du Selector, les frames d'une connexion fermée.
+     */
+    void scheduleRelease(ClientConnection client) {
+        wakeFor(client);
+    }
+
+    private void wakeFor(ClientConnection client) {
+        pendingWrites.offer(client);
+        if (selector != null) selector.wakeup();
+    }
+
+    private void processPendingWrites() {
+        ClientConnection client;
+        while ((client = pendingWrites.poll()) != null) {
+            try {
+                client.onWritable();
+            } catch (IOException e) {
+                client.disconnect();
+            }
+        }
+    }
+
+    public int getLocalPort() {
+        try {
+            return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
         } catch (IOException e) {
-            e.printStackTrace();
+            return port;
         }
     }
 
     public void stop() {
         running = false;
         try {
-            if (serverSocket != null) {
-                serverSocket.close();
+            if (selector != null) {
+                for (SelectionKey key : selector.keys()) {
+                    key.channel().close();
+                }
+                selector.close();
+            }
+            if (serverChannel != null) {
+                serverChannel.close();
             }
-            threadPool.shutdown();
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+}
@@ -2,86 +2,93 @@ package com.superkiment.server.network;
 
 import com.superkiment.common.Logger;
 import com.superkiment.common.packets.PacketSerializer;
-import com.superkiment.common.packets.entity.PacketEntityPosition;
+import com.superkiment.server.room.RoomManager;
 
 import java.io.IOException;
-import java.net.DatagramPacket;
-import java.net.DatagramSocket;
-import java.net.InetAddress;
-import java.net.SocketException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
 import java.nio.ByteBuffer;
-
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+
+/**
+ * Réception et envoi UDP sur un DatagramChannel.
+ * <p>
+ * Aucune allocation par datagramme : un seul buffer direct de réception, copié dans la file d'entrée de la salle
+ * de sa session (voir {@link RoomManager#queueDatagram}), et les envois partent de buffers encodés une fois puis envoyés tels quels à chaque client.
+ * La réception tourne sur son propre thread et ne touche jamais au jeu ;
+ * {@link #send(ByteBuffer, SocketAddress)} peut être appelé depuis n'importe quel thread.
+ */
 public class UDPServer {
 
     private final int port;
-    public DatagramSocket socket;
-    private boolean running = false;
+    private final RoomManager rooms;
+    public DatagramChannel channel;
+    private volatile boolean running = false;
+
+    private final ByteBuffer receiveBuffer = ByteBuffer.allocateDirect(PacketSerializer.UDP_BUFFER_SIZE);
 
-    public UDPServer(int port) {
+    public UDPServer(int port, RoomManager rooms) {
         this.port = port;
+        this.rooms = rooms;
     }
 
     public void start() {
         try {
-            socket = new DatagramSocket(port);
-
-            running = true;
-            Logger.info("Serveur UDP démarré sur le port " + socket.getLocalPort());
+            channel = DatagramChannel.open();
+            channel.bind(new InetSocketAddress(port));
+        } catch (IOException e) {
+            Logger.error("Impossible de démarrer le serveur UDP: " + e.getMessage());
+            return;
+        }
 
+        running = true;
+        Logger.info("Serveur UDP démarré sur le port " + channel.socket().getLocalPort());
 
-            while (running) {
-                try {
-                    byte[] buffer = new byte[1024];
-                    DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
-                    socket.receive(packet);
+        while (running) {
+            try {
+                receiveBuffer.clear();
+                SocketAddress sender = channel.receive(receiveBuffer);
+                if (!(sender instanceof InetSocketAddress from)) continue;
 
-                    ByteBuffer packetBuffer = ByteBuffer.wrap(packet.getData(), 0, packet.getLength());
-                    byte type = packetBuffer.get();
+                receiveBuffer.flip();
+                if (!receiveBuffer.hasRemaining()) continue;
 
-                    handlePacket(type, packet, packetBuffer);
+                rooms.queueDatagram(receiveBuffer, from);
 
-                } catch (IOException e) {
-                    if (running) {
-                        e.printStackTrace();
-                    }
-                } catch (Exception e) {
-                    throw new RuntimeException(e);
+            } catch (ClosedChannelException e) {
+                break;
+            } catch (IOException e) {
+                if (running) {
+                    e.printStackTrace();
                 }
             }
-        } catch (SocketException e) {
-            e.printStackTrace();
         }
     }
 
-    public void sendPosition(PacketEntityPosition packet, InetAddress address, int port) {
+    /**
+     * Envoyer le contenu du buffer (de sa position à sa limite) sans modifier sa position,
+     * pour que le même buffer parte vers plusieurs clients.
+     */
+    public void send(ByteBuffer datagram, SocketAddress target) {
+        int position = datagram.position();
         try {
-            byte[] data = PacketSerializer.serializePositionUDP(packet);
-            DatagramPacket datagramPacket = new DatagramPacket(
-                    data, data.length, address, port
-            );
-            socket.send(datagramPacket);
+            channel.send(datagram, target);
         } catch (IOException e) {
-            e.printStackTrace();
+            if (running) e.printStackTrace();
+        } finally {
+            datagram.position(position);
         }
     }
 
     public void stop() {
         running = false;
-        if (socket != null) {
-            socket.close();
-        }
-    }
-
-    private void handlePacket(byte type, DatagramPacket packet, ByteBuffer packetBuffer) throws Exception {
-        switch (type) {
-            case 1 -> {
-                PacketEntityPosition posPacket =
-                        PacketSerializer.deserializePositionUDP(packetBuffer);
-
-                Network.handleUDPPacket(posPacket, packet.getAddress(), packet.getPort(), this);
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
             }
-            case 2 -> throw new Exception("Pas supposé avoir ce UDP ici");
-            default -> throw new IllegalStateException("Unexpected value: " + type);
         }
     }
-}
\ No newline at end of file
+}
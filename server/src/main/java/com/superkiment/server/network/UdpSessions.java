@@ -0,0 +1,84 @@
+package com.superkiment.server.network;
+
+import com.superkiment.common.packets.session.SessionCodec;
+import com.superkiment.server.entities.NetIdAllocator;
+
+import java.net.InetSocketAddress;
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Les sessions UDP des clients, indexées par leur identifiant de 16 bits (voir {@link SessionCodec}) :
+ * un tableau plutôt qu'une table de hachage, chaque datagramme reçu n'y coûte qu'une lecture.
+ * <p>
+ * Un datagramme n'est attribué à un client que s'il porte sa session et vient de l'adresse liée par son dernier hello.
+ * Communes à toutes les salles du processus : le thread UDP y trouve la salle de chaque datagramme
+ * ({@link #lookup}), chaque salle ouvre et ferme les sessions de ses clients.
+ */
+public class UdpSessions {
+
+    private final AtomicReferenceArray<ClientConnection> sessions = new AtomicReferenceArray<>(NetIdAllocator.MAX_NET_ID + 1);
+    private final NetIdAllocator ids = new NetIdAllocator();
+    private final SecureRandom random = new SecureRandom();
+    private int count = 0;
+
+    /**
+     * Attribuer une session au client, à lui envoyer par TCP. Sans effet s'il en a déjà une.
+     */
+    public synchronized void open(ClientConnection client) {
+        if (client.sessionId != SessionCodec.NO_SESSION) return;
+
+        int id = ids.allocate();
+        client.sessionToken = random.nextLong();
+        client.sessionId = id;
+        sessions.set(id, client);
+        count++;
+    }
+
+    public synchronized void close(ClientConnection client) {
+        int id = client.sessionId;
+        if (id == SessionCodec.NO_SESSION || sessions.get(id) != client) return;
+
+        sessions.set(id, null);
+        ids.release(id);
+        count--;
+    }
+
+    /**
+     * Le client de la session, sans vérifier l'adresse : pour choisir la salle d'un datagramme, qui le vérifiera.
+     */
+    public ClientConnection lookup(int sessionId) {
+        return sessions.get(sessionId & 0xFFFF);
+    }
+
+    /**
+     * Le client d'un datagramme : celui de la session, si le datagramme vient de l'adresse qu'elle a liée.
+     *
+     * @return null si la session est inconnue, pas encore liée, ou liée à une autre adresse.
+     */
+    public ClientConnection get(int sessionId, InetSocketAddress from) {
+        ClientConnection client = sessions.get(sessionId & 0xFFFF);
+        if (client == null || !from.equals(client.getUdpAddress())) return null;
+        return client;
+    }
+
+    /**
+     * Un hello : lier la session à l'adresse d'où il vient, même si elle était liée à une autre.
+     *
+     * @return le client, ou null si la session est inconnue ou le jeton faux.
+     */
+    public ClientConnection bind(int sessionId, long token, InetSocketAddress from) {
+        ClientConnection client = sessions.get(sessionId & 0xFFFF);
+        if (client == null || client.sessionToken != token) return null;
+
+        if (!from.equals(client.getUdpAddress())) client.bindUdp(from);
+        return client;
+    }
+
+    /**
+     * Nombre de sessions ouvertes.
+     */
+    public synchronized int size() {
+        return count;
+    }
+}
@@ -0,0 +1,118 @@
+package com.superkiment.server.network;
+
+import com.superkiment.common.blocks.Block;
+import com.superkiment.common.packets.PacketWorldChunk;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Envoi progressif des blocs du monde à un joueur qui vient de rejoindre la partie.
+ * <p>
+ * Les blocs sont copiés au moment du join puis envoyés par parties bornées, des plus proches du joueur aux plus lointains,
+ * quelques parties par tick : le joueur peut jouer autour de lui avant d'avoir reçu toute la carte,
+ * et un join ne remplit jamais la file d'envoi de sa connexion. Les blocs posés ensuite sont diffusés normalement.
+ * Uniquement manipulé par le thread du tick.
+ */
+public class WorldStream {
+
+    public static final int BLOCKS_PER_CHUNK = 1024;
+
+    /**
+     * Parties envoyées au plus par tick et par client, soit ~40 000 blocs par seconde.
+     */
+    public static final int CHUNKS_PER_TICK = 2;
+
+    /**
+     * Compresser les parties (désactivable avec -Dsurvivkim.join.raw=true).
+     */
+    public static final boolean DEFLATE = !Boolean.getBoolean("survivkim.join.raw");
+
+    private final int[] blockX;
+    private final int[] blockY;
+    private final int count;
+
+    private boolean sorted = false;
+    private int next = 0;
+    private int chunkIndex = 0;
+
+    public WorldStream(List<Block> blocks) {
+        // La liste peut grandir pendant la copie : on s'en tient à un instantané
+        Block[] snapshot = blocks.toArray(new Block[0]);
+        count = snapshot.length;
+        if (count > 1 << 24) throw new IllegalStateException("Trop de blocs à envoyer: " + count);
+        blockX = new int[count];
+        blockY = new int[count];
+        for (int i = 0; i < count; i++) {
+            blockX[i] = (int) snapshot[i].pos.x;
+            blockY[i] = (int) snapshot[i].pos.y;
+        }
+    }
+
+    public int getChunkCount() {
+        return (count + BLOCKS_PER_CHUNK - 1) / BLOCKS_PER_CHUNK;
+    }
+
+    public boolean isDone() {
+        return next >= count;
+    }
+
+    /**
+     * La prochaine partie à envoyer. Au premier appel, les blocs sont triés autour de la case donnée,
+     * celle du joueur s'il existe déjà.
+     *
+     * @return null quand tout a été envoyé.
+     */
+    public PacketWorldChunk nextChunk(int centerX, int centerY) {
+        if (isDone()) return null;
+        if (!sorted) {
+            sortAround(centerX, centerY);
+            sorted = true;
+        }
+
+        int size = Math.min(BLOCKS_PER_CHUNK, count - next);
+        int[] chunkX = new int[size];
+        int[] chunkY = new int[size];
+
+        // Dans une partie, l'ordre par lignes rapproche les blocs voisins et réduit les écarts à encoder
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = ((long) blockY[next + i] << 32) | (blockX[next + i] & 0xFFFFFFFFL);
+        }
+        Arrays.sort(keys);
+        for (int i = 0; i < size; i++) {
+            chunkY[i] = (int) (keys[i] >> 32);
+            chunkX[i] = (int) keys[i];
+        }
+        next += size;
+
+        PacketWorldChunk chunk = new PacketWorldChunk(chunkIndex++, getChunkCount(), chunkX, chunkY, size);
+        chunk.deflate = DEFLATE;
+        return chunk;
+    }
+
+    /**
+     * Trier les blocs par distance à la case (centerX, centerY), les plus proches d'abord.
+     */
+    private void sortAround(int centerX, int centerY) {
+        // Clé : distance au carré dans les bits de poids fort, indice du bloc dans les 24 bits de poids faible
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            long dx = blockX[i] - (long) centerX;
+            long dy = blockY[i] - (long) centerY;
+            long distance = Math.min(dx * dx + dy * dy, (1L << 39) - 1);
+            keys[i] = (distance << 24) | i;
+        }
+        Arrays.sort(keys);
+
+        int[] sortedX = new int[count];
+        int[] sortedY = new int[count];
+        for (int i = 0; i < count; i++) {
+            int index = (int) (keys[i] & 0xFFFFFF);
+            sortedX[i] = blockX[index];
+            sortedY[i] = blockY[index];
+        }
+        System.arraycopy(sortedX, 0, blockX, 0, count);
+        System.arraycopy(sortedY, 0, blockY, 0, count);
+    }
+}
@@ -1,22 +1,30 @@
 package com.superkiment.server.network.handles;
 
+import com.superkiment.common.entities.Player;
 import com.superkiment.common.packets.PacketCreateBlock;
-import com.superkiment.server.GameServer;
 import com.superkiment.server.monitor.ServerMonitor;
-import com.superkiment.server.network.ClientConnection;
+import com.superkiment.server.room.Room;
 import org.joml.Vector2d;
 
-import static com.superkiment.server.network.Network.broadcastTCP;
-
 /**
- *  Le handle qui contient les fonctions nécessaires à la création de blocs et la récéption de données concernant la création de blocks.
+ *  Le handle qui contient les fonctions nécessaires à la création de blocs, à la demande des commandes des joueurs.
  */
 public class BlockHandle {
 
-    public static void handleCreateBlock(PacketCreateBlock packet, ClientConnection client) {
-        if (GameServer.blocksManager.addBlock(new Vector2d(packet.posX, packet.posY))) {
-            broadcastTCP(packet, client);
-            ServerMonitor.getInstance().log("INFO", "Block créé: " + packet.posX + " " + packet.posY);
+    /**
+     * Taille d'une case de la grille des blocs.
+     */
+    public static final double BLOCK_GRID_SIZE = 50;
+
+    /**
+     * Poser un bloc sur la case du joueur, et l'envoyer à tous les clients de la salle (y compris celui qui l'a posé).
+     */
+    public static void placeBlock(Room room, Player player) {
+        Vector2d pos = new Vector2d(Math.round(player.pos.x / BLOCK_GRID_SIZE), Math.round(player.pos.y / BLOCK_GRID_SIZE));
+
+        if (room.blocksManager.addBlock(pos)) {
+            room.network.broadcastTCP(new PacketCreateBlock(pos), null);
+            ServerMonitor.getInstance().log("INFO", "Block créé: " + pos.x + " " + pos.y);
         }
     }
 }
@@ -2,56 +2,111 @@ package com.superkiment.server.network.handles;
 
 import com.superkiment.common.Logger;
 import com.superkiment.common.entities.Entity;
-import com.superkiment.common.entities.EntityFactory;
+import com.superkiment.common.entities.EntityReplication;
+import com.superkiment.common.entities.Player;
+import com.superkiment.common.entities.Projectile;
 import com.superkiment.common.packets.PacketHeartbeat;
 import com.superkiment.common.packets.entity.PacketCreateEntity;
+import com.superkiment.common.packets.entity.PacketCreateEntityPlayer;
 import com.superkiment.common.packets.entity.PacketDeleteEntity;
 import com.superkiment.common.packets.entity.PacketUpdateEntity;
-import com.superkiment.server.GameServer;
 import com.superkiment.server.monitor.ServerMonitor;
 import com.superkiment.server.network.ClientConnection;
-
-import static com.superkiment.server.network.Network.broadcastTCP;
+import com.superkiment.server.room.Room;
+import org.joml.Vector2d;
 
 /**
  * Le handle qui contient les fonctions nécessaires à la création et suppression d'entités et la récéption de données concernant la création et suppression d'entités.
  */
 public class EntityHandle {
 
-    public static void deleteEntity(String id) {
-        PacketDeleteEntity packet = new PacketDeleteEntity(id);
-        handleDeleteEntity(packet);
+    public static void deleteEntity(Room room, String id) {
+        Entity entity = room.entitiesManager.getEntityFromID(id);
+        room.entitiesManager.removeEntity(id);
+        Logger.debug("Entité supprimée: " + id);
+
+        // Seuls les clients qui connaissent l'entité reçoivent sa suppression
+        if (entity != null) room.network.broadcastEntityDeleted(entity);
+        ServerMonitor.getInstance().log("INFO", "Entité supprimée: " + id);
     }
 
-    public static void handleCreateEntity(PacketCreateEntity packet, ClientConnection client) {
-        Entity entity = EntityFactory.getInstance().create(packet);
+    /**
+     * Distance entre le centre du joueur et le projectile qu'il tire.
+     */
+    public static final double PROJECTILE_SPAWN_DISTANCE = 30;
+
+    public static void handleCreateEntity(Room room, PacketCreateEntity packet, ClientConnection client) {
+        // Un client ne crée que son joueur, une seule fois : les projectiles viennent de ses commandes, simulées par le serveur,
+        // et l'id d'une entité existante la remplacerait
+        if (!(packet instanceof PacketCreateEntityPlayer)
+                || !packet.entityId.equals(client.playerId)
+                || room.entitiesManager.getPlayer(client) != null
+                || room.entitiesManager.getEntityFromID(packet.entityId) != null) {
+            Logger.warn("Création d'entité refusée pour " + client.playerName + ": " + packet);
+            return;
+        }
+
+        Entity entity = room.entityFactory.create(packet);
 
-        GameServer.entitiesManager.addEntity(entity);
+        room.entitiesManager.addEntity(entity);
+        packet.netId = entity.netId;
 
-        // Broadcaster à tous les clients
-        broadcastTCP(packet, client);
+        // L'expéditeur apprend ainsi le netId de son entité, les autres la recevront quand elle entrera dans leur zone
+        client.sendTCP(packet);
+        room.network.addToInterest(client, entity);
         ServerMonitor.getInstance().log("INFO", "Entité créée: " + entity.id + " (" + entity.name + ")");
     }
 
-    public static void handleDeleteEntity(PacketDeleteEntity packet) {
-        GameServer.entitiesManager.getEntities().remove(packet.entityId);
-        Logger.debug("Entité supprimée: " + packet.entityId);
+    /**
+     * Tir d'un joueur : le projectile part devant lui, dans la direction visée par sa commande.
+     * Les clients le reçoivent quand il entre dans leur zone d'intérêt, comme toute autre entité.
+     */
+    public static void fireProjectile(Room room, Player player) {
+        if (player.dirLookTarget.lengthSquared() == 0) return;
 
-        // Broadcaster à tous les clients
-        broadcastTCP(packet, null);
-        ServerMonitor.getInstance().log("INFO", "Entité supprimée: " + packet.entityId);
+        Vector2d dir = new Vector2d(player.dirLookTarget).normalize();
+        Vector2d pos = new Vector2d(dir).mul(PROJECTILE_SPAWN_DISTANCE).add(player.pos);
+
+        Projectile projectile = new Projectile(pos, dir);
+        projectile.addCollisionException(player);
+        room.entitiesManager.addEntity(projectile);
+        Logger.debug("Projectile tiré par " + player.name + ": " + projectile.id);
+    }
+
+    /**
+     * Un client ne supprime que son joueur.
+     */
+    public static void handleDeleteEntity(Room room, PacketDeleteEntity packet, ClientConnection client) {
+        if (!packet.entityId.equals(client.playerId)) {
+            Logger.warn("Suppression d'entité refusée pour " + client.playerName + ": " + packet);
+            return;
+        }
+        deleteEntity(room, packet.entityId);
     }
 
-    public static void handleUpdateEntity(PacketUpdateEntity packet, ClientConnection client) {
-        Entity entity = GameServer.entitiesManager.getEntityFromID(packet.entityId);
-        EntityFactory.ApplyBasePacketToEntity(packet, entity);
+    /**
+     * Un client modifie son joueur : seuls le nom et les textes des formes sont acceptés,
+     * le reste (position, points de vie) appartient au serveur. Les autres clients reçoivent le patch au prochain tick.
+     */
+    public static void handleUpdateEntity(Room room, PacketUpdateEntity packet, ClientConnection client) {
+        Entity entity = room.entitiesManager.getEntityFromID(packet.entityId);
+        if (entity == null || !entity.id.equals(client.playerId)) {
+            Logger.warn("Mise à jour d'entité refusée pour " + client.playerName + ": " + packet);
+            return;
+        }
+
+        entity.name = packet.entityName;
+        int count = Math.min(packet.shapesTexts.length, entity.shapeModel.shapes.size());
+        for (int i = 0; i < count; i++) {
+            entity.shapeModel.shapes.get(i).text = packet.shapesTexts[i];
+        }
+        entity.markDirty(EntityReplication.NAME | EntityReplication.SHAPE_TEXTS);
 
-        broadcastTCP(packet, client);
         ServerMonitor.getInstance().log("INFO", "Entité mise à jour: " + entity.id + " (" + entity.name + ")");
     }
 
     public static void handlePlayerHeartbeat(PacketHeartbeat packet, ClientConnection client) {
+        // La latence est mesurée par les pings UDP (voir LatencyTracker), pas avec l'horloge du client
         client.setLastHeartbeat(System.currentTimeMillis());
-        client.calculatePing(packet.timestamp);
     }
 }
@@ -1,43 +1,61 @@
 package com.superkiment.server.network.handles;
 
 import com.superkiment.common.Logger;
-import com.superkiment.common.blocks.Block;
 import com.superkiment.common.entities.Entity;
-import com.superkiment.common.packets.Packet;
-import com.superkiment.common.packets.PacketCreateBlock;
 import com.superkiment.common.packets.PacketPlayerJoin;
+import com.superkiment.common.packets.PacketZoneJoin;
 import com.superkiment.common.packets.entity.LinkEntityPacket;
-import com.superkiment.server.GameServer;
 import com.superkiment.server.monitor.ServerMonitor;
 import com.superkiment.server.network.ClientConnection;
-
-import static com.superkiment.server.network.Network.broadcastTCP;
+import com.superkiment.server.network.WorldStream;
+import com.superkiment.server.room.Room;
 
 /**
  * Le handle qui contient les fonctions nécessaires à la création de joueurs et la récéption de données concernant la création de joueurs.
  */
 public class PlayerHandle {
 
-    public static void handlePlayerJoin(PacketPlayerJoin packetPlayerJoin, ClientConnection client) {
+    public static void handlePlayerJoin(Room room, PacketPlayerJoin packetPlayerJoin, ClientConnection client) {
         client.playerId = packetPlayerJoin.playerId;
         client.playerName = packetPlayerJoin.playerName;
-        GameServer.entitiesManager.getClients().put(packetPlayerJoin.playerId, client);
+        room.entitiesManager.addClient(client);
 
-        Logger.info("Joueur connecté: " + packetPlayerJoin.playerName + " (" + packetPlayerJoin.playerId + ")");
+        // Ses datagrammes seront reconnus à cette session, liée à son adresse UDP par son hello
+        room.network.openUdpSession(client);
 
-        // Envoyer toutes les entités existantes au nouveau joueur
-        for (Entity entity : GameServer.entitiesManager.getEntities().values()) {
-            Packet packet = LinkEntityPacket.CreatePacketFromEntity(entity);
-            client.sendTCP(packet);
-        }
+        Logger.info("Joueur connecté: " + packetPlayerJoin.playerName + " (" + packetPlayerJoin.playerId + ") dans " + room.name);
 
-        for (Block block : GameServer.blocksManager.getBlocks()) {
-            PacketCreateBlock packetCreateBlock = new PacketCreateBlock(block.pos);
-            client.sendTCP(packetCreateBlock);
+        // Les entités lui sont envoyées par Network.updateInterest(), à mesure qu'elles entrent dans sa zone,
+        // et les blocs par Network.streamWorld(), les plus proches d'abord
+        if (!room.blocksManager.getBlocks().isEmpty()) {
+            client.worldStream = new WorldStream(room.blocksManager.getBlocks());
         }
 
         // Broadcaster le nouveau joueur aux autres
-        broadcastTCP(packetPlayerJoin, client);
+        room.network.broadcastTCP(packetPlayerJoin, client);
         ServerMonitor.getInstance().log("INFO", "Joueur a rejoint : " + client.playerId + " (" + client.playerName + ")");
     }
+
+    /**
+     * Un joueur redirigé par une zone voisine : il retrouve l'entité qu'elle a confiée à la salle (voir ZoneNode).
+     */
+    public static void handleZoneJoin(Room room, PacketZoneJoin packet, ClientConnection client) {
+        if (room.zone == null) {
+            Logger.warn("Join de zone reçu par un serveur sans zones: " + packet.playerName);
+            client.disconnect();
+            return;
+        }
+        room.zone.queueJoin(packet, client);
+    }
+
+    /**
+     * Le ticket du joueur redirigé est valide : il rejoint comme un nouveau joueur, mais avec l'entité qui l'attendait.
+     */
+    public static void completeZoneJoin(Room room, PacketZoneJoin packet, ClientConnection client, Entity player) {
+        handlePlayerJoin(room, new PacketPlayerJoin(packet.playerId, packet.playerName), client);
+
+        // Son entité existe déjà : il apprend son nouveau netId comme après l'avoir créée
+        client.sendTCP(LinkEntityPacket.CreatePacketFromEntity(player));
+        room.network.addToInterest(client, player);
+    }
 }
@@ -0,0 +1,237 @@
+package com.superkiment.server.room;
+
+import com.superkiment.common.Logger;
+import com.superkiment.common.Time;
+import com.superkiment.common.blocks.BlocksManager;
+import com.superkiment.common.entities.Entity;
+import com.superkiment.common.entities.EntityFactory;
+import com.superkiment.server.entities.ServerEntitiesManager;
+import com.superkiment.server.network.ClientConnection;
+import com.superkiment.server.network.Network;
+import com.superkiment.server.network.ReplicationWorkers;
+import com.superkiment.server.network.TCPServer;
+import com.superkiment.server.zone.ZoneNode;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Une partie isolée : ses entités, ses blocs, ses clients, son horloge et son tick, sur son propre thread.
+ * Un processus héberge plusieurs salles (voir {@link RoomManager}) qui ne partagent que les sockets,
+ * les sessions UDP et les threads de réplication.
+ * <p>
+ * Seul le thread de la salle modifie son monde ; les threads d'I/O ne font que déposer dans les files de son {@link Network}.
+ */
+public class Room {
+
+    public static final int TICK_RATE = 20; // 20 ticks par seconde
+
+    public final int id;
+    public final String name;
+
+    public final ServerEntitiesManager entitiesManager;
+    public final BlocksManager blocksManager;
+    public final EntityFactory entityFactory;
+    public final Network network;
+
+    /**
+     * La zone de la carte simulée par la salle et ses échanges avec les zones voisines, ou null si la salle a
+     * toute la carte. Fixée avant le lancement de la salle.
+     */
+    public ZoneNode zone;
+
+    private final RoomManager manager;
+
+    /**
+     * Numéro du tick en cours, envoyé avec les snapshots.
+     */
+    public int currentTick = 0;
+
+    /**
+     * Origine de l'heure de la salle envoyée aux clients.
+     */
+    private final long startNanos = System.nanoTime();
+
+    /**
+     * Joueurs qui ont rejoint la salle ou sont en train de la rejoindre, pour ne pas dépasser sa capacité.
+     */
+    private final AtomicInteger players = new AtomicInteger();
+
+    /**
+     * Depuis quand la salle n'a plus de joueur (System.currentTimeMillis()), si elle n'en a pas.
+     */
+    private volatile long emptySince = System.currentTimeMillis();
+
+    private volatile boolean running = false;
+    private Thread thread;
+
+    public Room(int id, RoomManager manager, ReplicationWorkers replicationWorkers) {
+        this.id = id;
+        this.name = "salle-" + id;
+        this.manager = manager;
+
+        entitiesManager = new ServerEntitiesManager(this);
+        blocksManager = new BlocksManager();
+        entityFactory = new EntityFactory(entitiesManager);
+        network = new Network(this, manager.getSessions(), replicationWorkers);
+    }
+
+    /**
+     * Lancer le tick de la salle sur son thread.
+     */
+    public void start() {
+        running = true;
+        thread = new Thread(this::loop, name);
+        thread.start();
+        Logger.info("Salle démarrée: " + name);
+    }
+
+    public void stop() {
+        running = false;
+        if (thread != null) LockSupport.unpark(thread);
+        if (zone != null) zone.stop();
+    }
+
+    /**
+     * Boucle de la salle : un tick tous les 1/{@link #TICK_RATE} de seconde, en rattrapant les ticks en retard.
+     */
+    private void loop() {
+        long nsPerTick = 1_000_000_000L / TICK_RATE;
+        long nextTick = System.nanoTime();
+
+        while (running) {
+            long now = System.nanoTime();
+            if (now - nextTick < 0) {
+                LockSupport.parkNanos(this, nextTick - now);
+                continue;
+            }
+
+            try {
+                tick();
+            } catch (RuntimeException e) {
+                Logger.error("Tick de " + name + " interrompu: " + e.getMessage());
+                e.printStackTrace();
+            }
+            nextTick += nsPerTick;
+        }
+    }
+
+    /**
+     * Une loop du jeu en lui-même
+     */
+    public void tick() {
+        Time.UpdateFrameTime();
+        currentTick++;
+
+        // Traiter ce que les threads d'I/O ont reçu : seul le tick modifie le jeu
+        network.processInbound();
+
+        // Gérer les timeouts
+        for (ClientConnection client : entitiesManager.getClients()) {
+            float timeSinceLastHeatbeat = client.timeSinceLastHeartbeat(System.currentTimeMillis());
+
+            // Timeout : 12 secondes (3 * heartbeat de 4s)
+            if (timeSinceLastHeatbeat > 12_000f) {
+                Logger.info("Client " + client.playerName + " was timed out.");
+                client.disconnect();
+            }
+        }
+
+        // Les clients qui ne suivent plus sont ralentis ou déconnectés avant d'envoyer quoi que ce soit
+        network.checkHealth();
+
+        for (Entity entity : entitiesManager.getEntities()) {
+            entity.dirtyPosition = false;
+        }
+
+        // Commandes des joueurs reçues en UDP depuis le dernier tick, simulées comme le client les a prédites
+        network.applyInputs();
+
+        // Fantômes et entités reçus des zones voisines
+        if (zone != null) zone.processInbound();
+
+        for (Entity entity : entitiesManager.getEntities()) {
+            // Un fantôme est simulé par sa zone, il n'est ici qu'en lecture
+            if (!entity.ghost) entity.updateLogic(entitiesManager, blocksManager);
+        }
+
+        entitiesManager.deleteAllEntitiesToBeDeleted();
+
+        // Ce qui a franchi une frontière part chez la voisine, ce qui en est proche y est recopié
+        if (zone != null) zone.update();
+
+        // Créations et suppressions selon ce que chaque joueur a autour de lui, avant de répliquer les positions
+        network.updateInterest();
+        network.broadcastChangesInCollisionables();
+        // Snapshots et messages fiables de chaque client, en parallèle : le tick attend qu'ils soient tous partis
+        network.replicate(manager.getUdpServer());
+        network.streamWorld();
+
+        // Tout ce qui a été envoyé pendant le tick part en une écriture par client
+        TCPServer tcpServer = manager.getTcpServer();
+        if (tcpServer != null) tcpServer.flush(this);
+
+        network.publishLatency();
+
+        // Une fois par seconde, une salle vide depuis longtemps peut rendre son thread (voir RoomManager)
+        if (currentTick % TICK_RATE == 0 && players.get() == 0) {
+            manager.reclaimIfIdle(this, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Réserver une place pour un joueur qui rejoint. Appelé par le {@link RoomManager}.
+     *
+     * @return false si la salle est pleine.
+     */
+    boolean tryJoin(int capacity) {
+        while (true) {
+            int count = players.get();
+            if (count >= capacity) return false;
+            if (players.compareAndSet(count, count + 1)) return true;
+        }
+    }
+
+    /**
+     * Libérer la place d'un joueur parti. Appelé par le tick, une fois par connexion qui a choisi la salle.
+     */
+    public void leave() {
+        if (players.decrementAndGet() == 0) emptySince = System.currentTimeMillis();
+    }
+
+    /**
+     * @return true si la salle n'a eu aucun joueur depuis au moins {@code idleMillis}.
+     */
+    public boolean isIdle(long now, long idleMillis) {
+        return players.get() == 0 && now - emptySince >= idleMillis;
+    }
+
+    /**
+     * Joueurs de la salle, y compris ceux dont le join n'a pas encore été traité.
+     */
+    public int getPlayerCount() {
+        return players.get();
+    }
+
+    /**
+     * Heure de la salle en millisecondes depuis sa création. Sur 32 bits, elle boucle au bout de 24 jours :
+     * les clients n'utilisent que des écarts entre deux valeurs.
+     */
+    public int serverTimeMillis() {
+        return (int) ((System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    /**
+     * Heure de la salle en microsecondes depuis sa création, pour les mesures de latence.
+     */
+    public long serverTimeMicros() {
+        return serverTimeMicros(System.nanoTime());
+    }
+
+    /**
+     * Un instant relevé avec {@link System#nanoTime()}, converti en heure de la salle en microsecondes.
+     */
+    public long serverTimeMicros(long nanoTime) {
+        return (nanoTime - startNanos) / 1000;
+    }
+}
@@ -0,0 +1,243 @@
+package com.superkiment.server.room;
+
+import com.superkiment.common.Logger;
+import com.superkiment.common.packets.Packet;
+import com.superkiment.common.packets.input.InputCodec;
+import com.superkiment.common.packets.ping.PingCodec;
+import com.superkiment.common.packets.reliable.ReliableChannel;
+import com.superkiment.common.packets.session.SessionCodec;
+import com.superkiment.common.packets.snapshot.SnapshotCodec;
+import com.superkiment.server.network.ClientConnection;
+import com.superkiment.server.network.ReplicationWorkers;
+import com.superkiment.server.network.TCPServer;
+import com.superkiment.server.network.UDPServer;
+import com.superkiment.server.network.UdpSessions;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Les salles du processus (voir {@link Room}) et l'aiguillage de ce que reçoivent les sockets vers la bonne salle.
+ * <p>
+ * Un joueur entre dans la première salle qui a de la place, ou dans une nouvelle salle si toutes sont pleines.
+ * Une salle ajoutée ainsi est arrêtée quand elle est restée vide {@link #IDLE_ROOM_MILLIS}, et toutes partagent
+ * les mêmes threads de réplication : une salle ne coûte que son thread de tick et son monde.
+ * Les packets TCP vont à la salle de leur connexion, les datagrammes à celle de leur session UDP : chaque salle
+ * n'a jamais à regarder ce qui ne la concerne pas.
+ */
+public class RoomManager {
+
+    /**
+     * Salles créées au démarrage (-Dsurvivkim.rooms).
+     */
+    public static final int INITIAL_ROOMS = Integer.getInteger("survivkim.rooms", 1);
+
+    /**
+     * Joueurs au plus par salle (-Dsurvivkim.room.capacity).
+     */
+    public static final int ROOM_CAPACITY = Integer.getInteger("survivkim.room.capacity", 64);
+
+    /**
+     * Salles au plus dans le processus (-Dsurvivkim.rooms.max) : au-delà, les joueurs sont refusés.
+     */
+    public static final int MAX_ROOMS = Integer.getInteger("survivkim.rooms.max", 64);
+
+    /**
+     * Durée sans joueur après laquelle une salle en trop est arrêtée (-Dsurvivkim.room.idle.millis).
+     */
+    public static final long IDLE_ROOM_MILLIS = Long.getLong("survivkim.room.idle.millis", 60_000);
+
+    private final int capacity;
+    private final int maxRooms;
+    private final ReplicationWorkers replicationWorkers;
+
+    /**
+     * Salles gardées même vides : celles du démarrage.
+     */
+    private int minRooms = 1;
+    private int nextRoomId = 0;
+
+    private final List<Room> rooms = new CopyOnWriteArrayList<>();
+    private final UdpSessions sessions = new UdpSessions();
+
+    /**
+     * Datagrammes sans session connue ou d'un type inconnu : n'importe qui peut en envoyer, ils ne sont que comptés.
+     * Ceux des salles arrêtées s'y ajoutent.
+     */
+    private final AtomicLong rejectedDatagrams = new AtomicLong();
+
+    private volatile TCPServer tcpServer;
+    private volatile UDPServer udpServer;
+    private volatile boolean started = false;
+
+    public RoomManager() {
+        this(ROOM_CAPACITY, MAX_ROOMS, ReplicationWorkers.THREADS);
+    }
+
+    /**
+     * @param replicationThreads threads de réplication du processus, partagés par toutes les salles.
+     */
+    public RoomManager(int capacity, int maxRooms, int replicationThreads) {
+        this.capacity = capacity;
+        this.maxRooms = maxRooms;
+        this.replicationWorkers = new ReplicationWorkers(replicationThreads);
+    }
+
+    /**
+     * Les sockets par lesquels les salles envoient, une fois ouverts.
+     */
+    public void attach(TCPServer tcpServer, UDPServer udpServer) {
+        this.tcpServer = tcpServer;
+        this.udpServer = udpServer;
+    }
+
+    /**
+     * Lancer les ticks des salles déjà créées, et en créer jusqu'à en avoir {@code initialRooms}.
+     */
+    public synchronized void start(int initialRooms) {
+        started = true;
+        minRooms = Math.max(1, initialRooms);
+        for (Room room : rooms) room.start();
+        while (rooms.size() < initialRooms) createRoom();
+    }
+
+    /**
+     * Créer une salle, lancée tout de suite si le serveur tourne.
+     */
+    public synchronized Room createRoom() {
+        Room room = new Room(nextRoomId++, this, replicationWorkers);
+        rooms.add(room);
+        if (started) room.start();
+        return room;
+    }
+
+    /**
+     * Choisir la salle d'un joueur qui rejoint et lui réserver une place.
+     *
+     * @return null si toutes les salles sont pleines et qu'il ne peut plus y en avoir d'autres.
+     */
+    public synchronized Room assign() {
+        for (Room room : rooms) {
+            if (room.tryJoin(capacity)) return room;
+        }
+        if (rooms.size() >= maxRooms) return null;
+
+        Room room = createRoom();
+        room.tryJoin(capacity);
+        return room;
+    }
+
+    /**
+     * Arrêter une salle restée vide {@link #IDLE_ROOM_MILLIS}, si le processus en a plus que celles du démarrage.
+     * Une salle qui simule une zone est toujours gardée. Appelé par le tick de la salle.
+     *
+     * @return true si la salle a été arrêtée et retirée.
+     */
+    public synchronized boolean reclaimIfIdle(Room room, long now) {
+        // assign() prend le même verrou : aucun joueur ne peut entrer pendant qu'on décide
+        if (rooms.size() <= minRooms || room.zone != null || !room.isIdle(now, IDLE_ROOM_MILLIS)) return false;
+        if (!rooms.remove(room)) return false;
+
+        room.stop();
+        rejectedDatagrams.addAndGet(room.network.getRejectedDatagrams());
+        Logger.info("Salle vide arrêtée: " + room.name);
+        return true;
+    }
+
+    /**
+     * Confier un packet TCP reçu au tick de la salle de sa connexion. Le join, ou celui d'un joueur venu d'une autre
+     * zone, choisit la salle.
+     * Appelé par le thread du Selector.
+     *
+     * @return false si la file de la salle est pleine : le packet est perdu.
+     */
+    public boolean queueTCPPacket(Packet packet, int size, ClientConnection client) {
+        Room room = client.room;
+        if (room == null) {
+            if (packet.getType() != Packet.PacketType.PLAYER_JOIN && packet.getType() != Packet.PacketType.ZONE_JOIN) {
+                Logger.debug("Packet reçu avant le join, ignoré: " + packet.getType());
+                return true;
+            }
+
+            room = assign();
+            if (room == null) {
+                Logger.warn("Toutes les salles sont pleines, join refusé");
+                client.disconnect();
+                return true;
+            }
+            client.room = room;
+        }
+        return room.network.queueTCPPacket(packet, size, client);
+    }
+
+    /**
+     * Confier un datagramme reçu, positionné sur son octet de type, au tick de la salle de sa session.
+     * Appelé par le thread UDP. Un datagramme sans session connue est perdu et compté, sans rien allouer.
+     */
+    public void queueDatagram(ByteBuffer datagram, InetSocketAddress from) {
+        int start = datagram.position();
+        if (datagram.remaining() < 1 + Short.BYTES) {
+            rejectedDatagrams.incrementAndGet();
+            return;
+        }
+
+        byte type = datagram.get(start);
+        switch (type) {
+            case InputCodec.TYPE_INPUT, SnapshotCodec.TYPE_ACK, ReliableChannel.TYPE_RELIABLE, PingCodec.TYPE_PONG,
+                 SessionCodec.TYPE_HELLO -> {
+                ClientConnection client = sessions.lookup(datagram.getShort(start + 1) & 0xFFFF);
+                Room room = client == null ? null : client.room;
+                if (room != null) room.network.queueDatagram(datagram, from);
+                else rejectedDatagrams.incrementAndGet();
+            }
+            default -> rejectedDatagrams.incrementAndGet();
+        }
+    }
+
+    /**
+     * Datagrammes rejetés depuis le démarrage, ici (voir {@link #queueDatagram}) et par les ticks des salles.
+     */
+    public long getRejectedDatagrams() {
+        long total = rejectedDatagrams.get();
+        for (Room room : rooms) {
+            total += room.network.getRejectedDatagrams();
+        }
+        return total;
+    }
+
+    /**
+     * Confier le retrait d'une connexion fermée à sa salle. Une connexion qui n'a pas rejoint n'est dans aucune.
+     */
+    public void queueDisconnect(ClientConnection client) {
+        Room room = client.room;
+        if (room != null) room.network.queueDisconnect(client);
+    }
+
+    public List<Room> getRooms() {
+        return rooms;
+    }
+
+    public UdpSessions getSessions() {
+        return sessions;
+    }
+
+    public TCPServer getTcpServer() {
+        return tcpServer;
+    }
+
+    public UDPServer getUdpServer() {
+        return udpServer;
+    }
+
+    public ReplicationWorkers getReplicationWorkers() {
+        return replicationWorkers;
+    }
+
+    public void stop() {
+        for (Room room : rooms) room.stop();
+        replicationWorkers.stop();
+    }
+}
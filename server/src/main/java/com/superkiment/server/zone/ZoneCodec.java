@@ -0,0 +1,123 @@
+package com.superkiment.server.zone;
+
+import com.superkiment.common.entities.Entity;
+import com.superkiment.common.packets.Packet;
+import com.superkiment.common.packets.codec.PacketCodecs;
+import com.superkiment.common.packets.codec.PacketReader;
+import com.superkiment.common.packets.codec.PacketWriter;
+import com.superkiment.common.packets.entity.LinkEntityPacket;
+import com.superkiment.common.packets.entity.PacketCreateEntity;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Messages échangés entre les processus de deux zones voisines, chacun dans une frame préfixée par sa longueur
+ * comme les packets TCP des clients : [longueur][type][contenu].
+ * <ul>
+ *     <li>HELLO : [zone] — premier message d'une connexion, le numéro de la zone qui l'a ouverte.</li>
+ *     <li>HANDOFF : [état][ticket] — une entité passe dans la zone qui reçoit le message, avec tout son état.
+ *     Le ticket (0 sans joueur connecté) est celui que présentera le client redirigé.</li>
+ *     <li>GHOST_ENTER : [état] — une entité approche de la frontière, la voisine en garde une copie.</li>
+ *     <li>GHOST_MOVE : [id][x][y][visée x][visée y][pv] — la copie a changé.</li>
+ *     <li>GHOST_LEAVE : [id] — l'entité s'est éloignée de la frontière ou a disparu.</li>
+ * </ul>
+ * L'état d'une entité est son packet de création (voir {@link PacketCodecs}) suivi de sa visée et de son déplacement.
+ */
+public class ZoneCodec {
+
+    public static final byte TYPE_HELLO = 1;
+    public static final byte TYPE_HANDOFF = 2;
+    public static final byte TYPE_GHOST_ENTER = 3;
+    public static final byte TYPE_GHOST_MOVE = 4;
+    public static final byte TYPE_GHOST_LEAVE = 5;
+
+    /**
+     * L'état complet d'une entité, lu dans un HANDOFF ou un GHOST_ENTER.
+     */
+    public static final class EntityState {
+        public PacketCreateEntity packet;
+        public double lookX, lookY;
+        public double moveX, moveY;
+
+        /**
+         * Appliquer la visée et le déplacement à l'entité créée depuis {@link #packet}.
+         */
+        public void applyMotion(Entity entity) {
+            entity.dirLookTarget.set(lookX, lookY);
+            entity.dirDepl.set(moveX, moveY);
+        }
+    }
+
+    public static void writeHello(PacketWriter out, int zoneIndex) {
+        int start = begin(out, TYPE_HELLO);
+        out.writeShort(zoneIndex);
+        end(out, start);
+    }
+
+    public static void writeHandoff(PacketWriter out, Entity entity, long ticket) {
+        int start = begin(out, TYPE_HANDOFF);
+        writeEntityState(out, entity);
+        out.writeLong(ticket);
+        end(out, start);
+    }
+
+    public static void writeGhostEnter(PacketWriter out, Entity entity) {
+        int start = begin(out, TYPE_GHOST_ENTER);
+        writeEntityState(out, entity);
+        end(out, start);
+    }
+
+    public static void writeGhostMove(PacketWriter out, Entity entity) {
+        int start = begin(out, TYPE_GHOST_MOVE);
+        out.writeId(entity.id);
+        out.writeDouble(entity.pos.x);
+        out.writeDouble(entity.pos.y);
+        out.writeDouble(entity.dirLookTarget.x);
+        out.writeDouble(entity.dirLookTarget.y);
+        out.writeFloat(entity.hp);
+        end(out, start);
+    }
+
+    public static void writeGhostLeave(PacketWriter out, String id) {
+        int start = begin(out, TYPE_GHOST_LEAVE);
+        out.writeId(id);
+        end(out, start);
+    }
+
+    /**
+     * Lire l'état d'une entité, à la position du buffer.
+     */
+    public static EntityState readEntityState(ByteBuffer buffer) throws IOException {
+        Packet packet = PacketCodecs.decode(buffer);
+        if (!(packet instanceof PacketCreateEntity create)) throw new IOException("État d'entité attendu: " + packet.getType());
+
+        PacketReader in = new PacketReader(buffer);
+        EntityState state = new EntityState();
+        state.packet = create;
+        state.lookX = in.readDouble();
+        state.lookY = in.readDouble();
+        state.moveX = in.readDouble();
+        state.moveY = in.readDouble();
+        return state;
+    }
+
+    private static void writeEntityState(PacketWriter out, Entity entity) {
+        PacketCodecs.write(LinkEntityPacket.CreatePacketFromEntity(entity), out);
+        out.writeDouble(entity.dirLookTarget.x);
+        out.writeDouble(entity.dirLookTarget.y);
+        out.writeDouble(entity.dirDepl.x);
+        out.writeDouble(entity.dirDepl.y);
+    }
+
+    private static int begin(PacketWriter out, byte type) {
+        int start = out.size();
+        out.writeInt(0);
+        out.writeByte(type);
+        return start;
+    }
+
+    private static void end(PacketWriter out, int start) {
+        out.setInt(start, out.size() - start - PacketCodecs.FRAME_HEADER_SIZE);
+    }
+}
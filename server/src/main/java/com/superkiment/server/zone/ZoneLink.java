@@ -0,0 +1,123 @@
+package com.superkiment.server.zone;
+
+import com.superkiment.common.Logger;
+import com.superkiment.common.packets.codec.PacketWriter;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * La connexion vers une zone voisine, dans un seul sens : ce processus y écrit, la voisine lit
+ * (voir {@link ZoneListener}). Son thread se reconnecte tant que la voisine ne répond pas, qu'elle ne soit pas encore
+ * démarrée ou qu'elle ait redémarré.
+ * <p>
+ * Le tick confie à {@link #send} ce qu'il a écrit pour la voisine : il n'attend jamais le réseau.
+ */
+public class ZoneLink {
+
+    public static final long RETRY_MILLIS = 500;
+
+    /**
+     * Envois en attente au plus : au-delà, la voisine ne suit plus et les envois sont perdus.
+     */
+    public static final int MAX_QUEUED = 256;
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 1000;
+
+    private final ZoneMap.Zone target;
+    private final int fromIndex;
+    private final BlockingQueue<byte[]> outbound = new ArrayBlockingQueue<>(MAX_QUEUED);
+
+    private volatile boolean running = false;
+    private volatile boolean connected = false;
+    private volatile Socket socket;
+    private Thread thread;
+
+    public ZoneLink(ZoneMap.Zone target, int fromIndex) {
+        this.target = target;
+        this.fromIndex = fromIndex;
+    }
+
+    public void start() {
+        running = true;
+        thread = new Thread(this::loop, "zone-link-" + target.index);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Envoyer des messages déjà encodés (voir {@link ZoneCodec}). Appelé par le tick.
+     *
+     * @return false si la voisine n'est pas connectée ou ne suit plus : rien n'est envoyé.
+     */
+    public boolean send(byte[] messages) {
+        return connected && outbound.offer(messages);
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    public ZoneMap.Zone getTarget() {
+        return target;
+    }
+
+    public void stop() {
+        running = false;
+        connected = false;
+        closeSocket();
+        if (thread != null) thread.interrupt();
+    }
+
+    private void loop() {
+        while (running) {
+            try (Socket s = new Socket()) {
+                s.connect(new InetSocketAddress(target.host, target.peerPort), CONNECT_TIMEOUT_MILLIS);
+                s.setTcpNoDelay(true);
+                socket = s;
+                OutputStream out = new BufferedOutputStream(s.getOutputStream());
+
+                PacketWriter hello = new PacketWriter();
+                ZoneCodec.writeHello(hello, fromIndex);
+                out.write(hello.toByteArray());
+                out.flush();
+
+                connected = true;
+                Logger.info("Zone voisine connectée: " + target);
+
+                while (running) {
+                    byte[] messages = outbound.poll(RETRY_MILLIS, TimeUnit.MILLISECONDS);
+                    if (messages == null) continue;
+                    out.write(messages);
+                    if (outbound.isEmpty()) out.flush();
+                }
+            } catch (IOException e) {
+                if (connected) Logger.warn("Zone voisine perdue: " + target + " (" + e.getMessage() + ")");
+            } catch (InterruptedException e) {
+                break;
+            } finally {
+                connected = false;
+                socket = null;
+                outbound.clear();
+            }
+
+            if (running) LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(RETRY_MILLIS));
+        }
+    }
+
+    private void closeSocket() {
+        Socket s = socket;
+        if (s == null) return;
+        try {
+            s.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.superkiment.server.zone;
+
+import com.superkiment.common.Logger;
+import com.superkiment.common.packets.codec.PacketCodecs;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+
+/**
+ * Reçoit les messages des zones voisines (voir {@link ZoneLink}) : un thread par voisine connectée, qui confie
+ * chaque frame au tick par {@link ZoneNode#queueInbound}. Les voisines sont peu nombreuses, des sockets bloquants suffisent.
+ */
+public class ZoneListener {
+
+    private final int port;
+    private final ZoneNode node;
+
+    private volatile ServerSocket serverSocket;
+    private volatile boolean running = false;
+
+    public ZoneListener(int port, ZoneNode node) {
+        this.port = port;
+        this.node = node;
+    }
+
+    /**
+     * Ouvrir le port, puis accepter les voisines sur un thread.
+     */
+    public void start() throws IOException {
+        serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(new InetSocketAddress(port));
+        running = true;
+
+        Thread thread = new Thread(this::acceptLoop, "zone-listener");
+        thread.setDaemon(true);
+        thread.start();
+        Logger.info("Zones voisines attendues sur le port " + serverSocket.getLocalPort());
+    }
+
+    public int getLocalPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public void stop() {
+        running = false;
+        try {
+            if (serverSocket != null) serverSocket.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                Thread reader = new Thread(() -> readLoop(socket), "zone-reader");
+                reader.setDaemon(true);
+                reader.start();
+            } catch (IOException e) {
+                if (running) Logger.warn("Connexion de zone refusée: " + e.getMessage());
+            }
+        }
+    }
+
+    private void readLoop(Socket socket) {
+        int from = -1;
+        try (socket; DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+            byte[] hello = readFrame(in);
+            ByteBuffer buffer = ByteBuffer.wrap(hello);
+            if (buffer.get() != ZoneCodec.TYPE_HELLO) throw new IOException("Hello de zone attendu");
+            from = buffer.getShort() & 0xFFFF;
+            Logger.info("Zone " + from + " connectée");
+
+            while (running) {
+                node.queueInbound(from, readFrame(in));
+            }
+        } catch (EOFException e) {
+            // La voisine a fermé la connexion
+        } catch (IOException e) {
+            if (running) Logger.warn("Lecture de zone interrompue: " + e.getMessage());
+        }
+
+        if (from >= 0) node.queueLinkLost(from);
+    }
+
+    private static byte[] readFrame(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length <= 0 || length > PacketCodecs.MAX_FRAME_SIZE) {
+            throw new IOException("Taille de frame invalide: " + length);
+        }
+        byte[] frame = new byte[length];
+        in.readFully(frame);
+        return frame;
+    }
+}
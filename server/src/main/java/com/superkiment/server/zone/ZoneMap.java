@@ -0,0 +1,103 @@
+package com.superkiment.server.zone;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Découpage de la carte en zones, chacune simulée par un processus serveur : des bandes verticales de
+ * {@link #getWidth()} de large, la première et la dernière s'étendant jusqu'au bout de la carte.
+ * Une zone n'a donc que deux voisines au plus, à gauche et à droite.
+ * <p>
+ * Tous les processus lisent le même découpage (-Dsurvivkim.zones), et chacun son numéro de zone (-Dsurvivkim.zone).
+ */
+public class ZoneMap {
+
+    /**
+     * Largeur d'une zone (-Dsurvivkim.zone.width).
+     */
+    public static final double DEFAULT_WIDTH = Double.parseDouble(System.getProperty("survivkim.zone.width", "2000"));
+
+    /**
+     * Une zone et les adresses de son processus : ports TCP et UDP des clients, port des autres zones.
+     */
+    public static final class Zone {
+        public final int index;
+        public final String host;
+        public final int tcpPort;
+        public final int udpPort;
+        public final int peerPort;
+        public final double minX;
+        public final double maxX;
+
+        Zone(int index, String host, int tcpPort, int udpPort, int peerPort, double minX, double maxX) {
+            this.index = index;
+            this.host = host;
+            this.tcpPort = tcpPort;
+            this.udpPort = udpPort;
+            this.peerPort = peerPort;
+            this.minX = minX;
+            this.maxX = maxX;
+        }
+
+        public boolean contains(double x) {
+            return x >= minX && x < maxX;
+        }
+
+        @Override
+        public String toString() {
+            return "zone-" + index + "@" + host + ":" + tcpPort;
+        }
+    }
+
+    private final Zone[] zones;
+    private final double width;
+
+    /**
+     * @param endpoints une adresse "hôte:portTCP:portUDP:portZones" par zone, de gauche à droite.
+     */
+    public ZoneMap(List<String> endpoints, double width) {
+        if (endpoints.isEmpty()) throw new IllegalArgumentException("Aucune zone");
+        if (width <= 0) throw new IllegalArgumentException("Largeur de zone invalide: " + width);
+
+        this.width = width;
+        this.zones = new Zone[endpoints.size()];
+        for (int i = 0; i < zones.length; i++) {
+            String[] parts = endpoints.get(i).trim().split(":");
+            if (parts.length != 4) throw new IllegalArgumentException("Zone invalide, hôte:tcp:udp:zones attendu: " + endpoints.get(i));
+
+            double minX = i == 0 ? Double.NEGATIVE_INFINITY : i * width;
+            double maxX = i == zones.length - 1 ? Double.POSITIVE_INFINITY : (i + 1) * width;
+            zones[i] = new Zone(i, parts[0], Integer.parseInt(parts[1]), Integer.parseInt(parts[2]),
+                    Integer.parseInt(parts[3]), minX, maxX);
+        }
+    }
+
+    /**
+     * Le découpage de -Dsurvivkim.zones (adresses séparées par des virgules), ou null si le serveur est seul.
+     */
+    public static ZoneMap fromSystemProperties() {
+        String spec = System.getProperty("survivkim.zones");
+        if (spec == null || spec.isBlank()) return null;
+        return new ZoneMap(new ArrayList<>(List.of(spec.split(","))), DEFAULT_WIDTH);
+    }
+
+    public int size() {
+        return zones.length;
+    }
+
+    public Zone get(int index) {
+        return zones[index];
+    }
+
+    /**
+     * La zone qui contient l'abscisse {@code x}.
+     */
+    public Zone zoneOf(double x) {
+        int index = (int) Math.floor(x / width);
+        return zones[Math.max(0, Math.min(zones.length - 1, index))];
+    }
+
+    public double getWidth() {
+        return width;
+    }
+}
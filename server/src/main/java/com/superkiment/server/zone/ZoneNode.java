@@ -0,0 +1,451 @@
+package com.superkiment.server.zone;
+
+import com.superkiment.common.Logger;
+import com.superkiment.common.entities.Entity;
+import com.superkiment.common.packets.PacketZoneJoin;
+import com.superkiment.common.packets.PacketZoneRedirect;
+import com.superkiment.common.packets.codec.PacketReader;
+import com.superkiment.common.packets.codec.PacketWriter;
+import com.superkiment.common.utils.SlotMap;
+import com.superkiment.server.network.ClientConnection;
+import com.superkiment.server.network.InterestManager;
+import com.superkiment.server.network.handles.EntityHandle;
+import com.superkiment.server.network.handles.PlayerHandle;
+import com.superkiment.server.room.Room;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * La part de la carte simulée par une salle quand la carte est découpée en zones (voir {@link ZoneMap}),
+ * et ses échanges avec les processus des zones voisines.
+ * <p>
+ * Une entité qui franchit la frontière de plus de {@link #HANDOFF_MARGIN} est confiée à la voisine avec tout son état,
+ * et son client est redirigé vers le serveur de la voisine avec un ticket qui lui fait retrouver son joueur.
+ * Les entités à moins de {@link #GHOST_MARGIN} d'une frontière sont recopiées chez la voisine sous forme de fantômes
+ * ({@link Entity#ghost}) : en lecture seule, ils servent aux collisions et sont répliqués à ses clients,
+ * qui voient ainsi de l'autre côté. Ce qu'une collision change sur un fantôme est écrasé par sa prochaine copie.
+ * <p>
+ * Manipulé par le tick de la salle, sauf {@link #queueInbound} et {@link #queueLinkLost}, appelés par les threads de lecture.
+ */
+public class ZoneNode {
+
+    /**
+     * Les clients voient jusqu'à cette distance : une voisine doit connaître tout ce qui est à cette distance de sa frontière.
+     */
+    public static final double GHOST_MARGIN = InterestManager.ENTER_RADIUS;
+
+    /**
+     * Une entité n'est confiée à la voisine qu'une fois franchement passée : un joueur qui longe la frontière
+     * ne change pas de serveur à chaque pas.
+     */
+    public static final double HANDOFF_MARGIN = 32;
+
+    /**
+     * Délai pour qu'un joueur confié par une voisine se présente : au-delà, son entité est supprimée.
+     */
+    public static final long TICKET_TIMEOUT_MILLIS = 10_000;
+
+    /**
+     * Une voisine, ce qui lui est envoyé pendant le tick et les entités dont elle a une copie.
+     */
+    private static final class Neighbour {
+        final ZoneMap.Zone zone;
+        final ZoneLink link;
+        final PacketWriter out = new PacketWriter();
+        Set<String> mirrored = new HashSet<>();
+        Set<String> seen = new HashSet<>();
+
+        Neighbour(ZoneMap.Zone zone, int fromIndex) {
+            this.zone = zone;
+            this.link = new ZoneLink(zone, fromIndex);
+        }
+    }
+
+    private static final class Inbound {
+        final int from;
+        final byte[] frame;
+
+        Inbound(int from, byte[] frame) {
+            this.from = from;
+            this.frame = frame;
+        }
+    }
+
+    private static final class Ticket {
+        final long value;
+        final long deadline;
+
+        Ticket(long value, long deadline) {
+            this.value = value;
+            this.deadline = deadline;
+        }
+    }
+
+    private static final class PendingJoin {
+        final PacketZoneJoin packet;
+        final ClientConnection client;
+        final long deadline;
+
+        PendingJoin(PacketZoneJoin packet, ClientConnection client, long deadline) {
+            this.packet = packet;
+            this.client = client;
+            this.deadline = deadline;
+        }
+    }
+
+    private final Room room;
+    private final ZoneMap.Zone self;
+    private final Neighbour left;
+    private final Neighbour right;
+    private final ZoneListener listener;
+
+    private final Queue<Inbound> inbound = new ConcurrentLinkedQueue<>();
+    private final Map<String, Integer> ghostOrigins = new HashMap<>();
+    private final Map<String, Ticket> tickets = new HashMap<>();
+    private final List<PendingJoin> pendingJoins = new ArrayList<>();
+    private final SecureRandom random = new SecureRandom();
+
+    public ZoneNode(Room room, ZoneMap map, int index) {
+        this.room = room;
+        this.self = map.get(index);
+        this.left = index > 0 ? new Neighbour(map.get(index - 1), index) : null;
+        this.right = index < map.size() - 1 ? new Neighbour(map.get(index + 1), index) : null;
+        this.listener = new ZoneListener(self.peerPort, this);
+    }
+
+    /**
+     * Attendre les voisines et se connecter à elles.
+     */
+    public void start() throws IOException {
+        listener.start();
+        if (left != null) left.link.start();
+        if (right != null) right.link.start();
+        Logger.info("Zone " + self.index + " : x de " + self.minX + " à " + self.maxX);
+    }
+
+    public void stop() {
+        listener.stop();
+        if (left != null) left.link.stop();
+        if (right != null) right.link.stop();
+    }
+
+    public ZoneMap.Zone getZone() {
+        return self;
+    }
+
+    /**
+     * Vraie si les voisines existantes sont toutes connectées dans les deux sens.
+     */
+    public boolean isLinked() {
+        return (left == null || left.link.isConnected()) && (right == null || right.link.isConnected());
+    }
+
+    // ─────────────────────── Threads de lecture ──────────────────────────
+
+    /**
+     * Confier au tick un message d'une voisine. Appelé par son thread de lecture.
+     */
+    public void queueInbound(int from, byte[] frame) {
+        inbound.offer(new Inbound(from, frame));
+    }
+
+    /**
+     * La connexion depuis une voisine est perdue : ses fantômes ne seront plus mis à jour.
+     */
+    public void queueLinkLost(int from) {
+        inbound.offer(new Inbound(from, null));
+    }
+
+    // ─────────────────────── Tick ────────────────────────────────────────
+
+    /**
+     * Appliquer ce que les voisines ont envoyé, puis les joins en attente de leur entité. Appelé par le tick,
+     * après les commandes des joueurs : les fantômes déplacés sont répliqués au même tick.
+     */
+    public void processInbound() {
+        Inbound message;
+        while ((message = inbound.poll()) != null) {
+            if (message.frame == null) {
+                dropGhostsFrom(message.from);
+                continue;
+            }
+            try {
+                handleMessage(message.from, ByteBuffer.wrap(message.frame));
+            } catch (IOException | RuntimeException e) {
+                Logger.warn("Message de la zone " + message.from + " invalide: " + e.getMessage());
+            }
+        }
+
+        processPendingJoins();
+    }
+
+    /**
+     * Confier aux voisines les entités passées chez elles, mettre à jour leurs copies et envoyer le tout.
+     * Appelé par le tick, une fois les entités déplacées et supprimées.
+     */
+    public void update() {
+        for (Entity entity : room.entitiesManager.getEntities()) {
+            if (entity.ghost) continue;
+
+            double x = entity.pos.x;
+            Neighbour target = x < self.minX - HANDOFF_MARGIN ? left : x >= self.maxX + HANDOFF_MARGIN ? right : null;
+            // Sans voisine joignable, l'entité reste simulée ici
+            if (target != null && target.link.isConnected()) {
+                handOff(entity, target);
+                continue;
+            }
+
+            if (left != null && x < self.minX + GHOST_MARGIN) mirror(entity, left);
+            if (right != null && x >= self.maxX - GHOST_MARGIN) mirror(entity, right);
+        }
+
+        if (left != null) flush(left);
+        if (right != null) flush(right);
+
+        expireTickets();
+    }
+
+    /**
+     * Un joueur redirigé par une voisine se présente avec son ticket. S'il arrive avant son entité,
+     * il l'attend jusqu'à {@link #TICKET_TIMEOUT_MILLIS}.
+     */
+    public void queueJoin(PacketZoneJoin packet, ClientConnection client) {
+        pendingJoins.add(new PendingJoin(packet, client, System.currentTimeMillis() + TICKET_TIMEOUT_MILLIS));
+        processPendingJoins();
+    }
+
+    // ─────────────────────── Passage d'une zone à l'autre ────────────────
+
+    private void handOff(Entity entity, Neighbour target) {
+        ClientConnection client = room.entitiesManager.getClient(entity.id);
+        long ticket = 0;
+        if (client != null) {
+            do {
+                ticket = random.nextLong();
+            } while (ticket == 0);
+        }
+
+        ZoneCodec.writeHandoff(target.out, entity, ticket);
+
+        // L'entité reste ici comme fantôme de la voisine, qui en enverra les copies : pas de suppression chez les clients
+        entity.ghost = true;
+        ghostOrigins.put(entity.id, target.zone.index);
+        target.mirrored.remove(entity.id);
+
+        if (client != null) {
+            client.playerHandle = SlotMap.NONE;
+            client.sendTCP(new PacketZoneRedirect(target.zone.host, target.zone.tcpPort, target.zone.udpPort, ticket));
+            Logger.info(client.playerName + " passe en zone " + target.zone.index);
+        }
+    }
+
+    private void handleMessage(int from, ByteBuffer buffer) throws IOException {
+        byte type = buffer.get();
+        switch (type) {
+            case ZoneCodec.TYPE_HANDOFF -> {
+                ZoneCodec.EntityState state = ZoneCodec.readEntityState(buffer);
+                long ticket = new PacketReader(buffer).readLong();
+                adopt(from, state, ticket);
+            }
+            case ZoneCodec.TYPE_GHOST_ENTER -> updateGhost(from, ZoneCodec.readEntityState(buffer));
+            case ZoneCodec.TYPE_GHOST_MOVE -> {
+                PacketReader in = new PacketReader(buffer);
+                Entity ghost = getGhost(in.readId());
+                double x = in.readDouble(), y = in.readDouble();
+                double lookX = in.readDouble(), lookY = in.readDouble();
+                float hp = in.readFloat();
+                if (ghost == null) return;
+
+                ghost.pos.set(x, y);
+                ghost.dirLookTarget.set(lookX, lookY);
+                ghost.hp = hp;
+                ghost.dirtyPosition = true;
+            }
+            case ZoneCodec.TYPE_GHOST_LEAVE -> {
+                String id = new PacketReader(buffer).readId();
+                if (getGhost(id) == null) return;
+                ghostOrigins.remove(id);
+                EntityHandle.deleteEntity(room, id);
+            }
+            default -> Logger.warn("Message de zone inconnu: " + type);
+        }
+    }
+
+    /**
+     * Une voisine confie une entité : son fantôme, s'il y en a un, devient l'entité elle-même, sans changer de netId.
+     */
+    private void adopt(int from, ZoneCodec.EntityState state, long ticket) {
+        String id = state.packet.entityId;
+        Entity entity = room.entitiesManager.getEntityFromID(id);
+
+        if (entity == null) {
+            entity = room.entityFactory.create(state.packet);
+            state.applyMotion(entity);
+            room.entitiesManager.addEntity(entity);
+        } else if (entity.ghost) {
+            entity.pos.set(state.packet.posX, state.packet.posY);
+            entity.hp = state.packet.hp;
+            state.applyMotion(entity);
+            entity.ghost = false;
+            entity.dirtyPosition = true;
+            ghostOrigins.remove(id);
+        } else {
+            Logger.warn("Entité confiée par la zone " + from + " déjà simulée ici: " + id);
+            return;
+        }
+
+        // La voisine la garde comme fantôme : c'est désormais à nous de le mettre à jour
+        Neighbour neighbour = neighbour(from);
+        if (neighbour != null) neighbour.mirrored.add(id);
+
+        if (ticket != 0) tickets.put(id, new Ticket(ticket, System.currentTimeMillis() + TICKET_TIMEOUT_MILLIS));
+        Logger.debug("Entité reçue de la zone " + from + ": " + id);
+    }
+
+    private void updateGhost(int from, ZoneCodec.EntityState state) {
+        String id = state.packet.entityId;
+        Entity entity = room.entitiesManager.getEntityFromID(id);
+
+        if (entity == null) {
+            entity = room.entityFactory.create(state.packet);
+            entity.ghost = true;
+            state.applyMotion(entity);
+            room.entitiesManager.addEntity(entity);
+            ghostOrigins.put(id, from);
+        } else if (entity.ghost) {
+            entity.pos.set(state.packet.posX, state.packet.posY);
+            entity.hp = state.packet.hp;
+            state.applyMotion(entity);
+            entity.dirtyPosition = true;
+        } else {
+            Logger.warn("Fantôme envoyé par la zone " + from + " pour une entité simulée ici: " + id);
+        }
+    }
+
+    private void processPendingJoins() {
+        if (pendingJoins.isEmpty()) return;
+
+        long now = System.currentTimeMillis();
+        Iterator<PendingJoin> it = pendingJoins.iterator();
+        while (it.hasNext()) {
+            PendingJoin join = it.next();
+            if (join.client.isDisconnected()) {
+                it.remove();
+                continue;
+            }
+
+            Entity player = claim(join.packet.playerId, join.packet.ticket);
+            if (player != null) {
+                it.remove();
+                PlayerHandle.completeZoneJoin(room, join.packet, join.client, player);
+            } else if (now - join.deadline >= 0) {
+                it.remove();
+                Logger.warn("Ticket de zone refusé pour " + join.packet.playerName);
+                join.client.disconnect();
+            }
+        }
+    }
+
+    /**
+     * L'entité confiée avec ce ticket, qui ne sert qu'une fois.
+     *
+     * @return null si aucune entité n'attend ce joueur avec ce ticket.
+     */
+    private Entity claim(String playerId, long ticket) {
+        Ticket expected = tickets.get(playerId);
+        if (expected == null || expected.value != ticket) return null;
+        tickets.remove(playerId);
+
+        Entity player = room.entitiesManager.getEntityFromID(playerId);
+        return player == null || player.ghost ? null : player;
+    }
+
+    private void expireTickets() {
+        if (tickets.isEmpty()) return;
+
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<String, Ticket>> it = tickets.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Ticket> entry = it.next();
+            if (now - entry.getValue().deadline < 0) continue;
+            it.remove();
+
+            Entity player = room.entitiesManager.getEntityFromID(entry.getKey());
+            if (player != null && !player.ghost) {
+                Logger.info("Joueur confié jamais arrivé, supprimé: " + entry.getKey());
+                EntityHandle.deleteEntity(room, entry.getKey());
+            }
+        }
+    }
+
+    // ─────────────────────── Fantômes ────────────────────────────────────
+
+    private void mirror(Entity entity, Neighbour neighbour) {
+        neighbour.seen.add(entity.id);
+        if (neighbour.mirrored.contains(entity.id)) {
+            ZoneCodec.writeGhostMove(neighbour.out, entity);
+        } else {
+            ZoneCodec.writeGhostEnter(neighbour.out, entity);
+        }
+    }
+
+    /**
+     * Retirer les copies des entités qui ne sont plus près de la frontière, puis envoyer ce que le tick a écrit.
+     */
+    private void flush(Neighbour neighbour) {
+        if (!neighbour.link.isConnected()) {
+            // La voisine supprime nos fantômes en perdant la connexion : tout sera renvoyé à la reconnexion
+            neighbour.mirrored.clear();
+            neighbour.seen.clear();
+            neighbour.out.reset();
+            return;
+        }
+
+        for (String id : neighbour.mirrored) {
+            if (!neighbour.seen.contains(id)) ZoneCodec.writeGhostLeave(neighbour.out, id);
+        }
+        Set<String> mirrored = neighbour.seen;
+        neighbour.seen = neighbour.mirrored;
+        neighbour.seen.clear();
+        neighbour.mirrored = mirrored;
+
+        if (neighbour.out.size() == 0) return;
+        if (!neighbour.link.send(neighbour.out.toByteArray())) {
+            Logger.warn("Zone " + neighbour.zone.index + " ne suit plus, messages perdus");
+        }
+        neighbour.out.reset();
+    }
+
+    private void dropGhostsFrom(int from) {
+        Iterator<Map.Entry<String, Integer>> it = ghostOrigins.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Integer> entry = it.next();
+            if (entry.getValue() != from) continue;
+            it.remove();
+            EntityHandle.deleteEntity(room, entry.getKey());
+        }
+        Logger.warn("Zone " + from + " déconnectée, ses fantômes sont supprimés");
+    }
+
+    private Entity getGhost(String id) {
+        Entity entity = room.entitiesManager.getEntityFromID(id);
+        return entity != null && entity.ghost ? entity : null;
+    }
+
+    private Neighbour neighbour(int index) {
+        if (left != null && left.zone.index == index) return left;
+        if (right != null && right.zone.index == index) return right;
+        return null;
+    }
+}
@@ -1,15 +1,16 @@
 package com.superkiment.server;
 
-import com.superkiment.common.blocks.BlocksManager;
-import com.superkiment.common.entities.EntityFactory;
+import com.superkiment.common.packets.Packet;
+import com.superkiment.common.packets.PacketHeartbeat;
 import com.superkiment.common.packets.PacketPlayerJoin;
-import com.superkiment.server.entities.ServerEntitiesManager;
+import com.superkiment.common.packets.codec.PacketCodecs;
 import com.superkiment.server.network.ClientConnection;
+import com.superkiment.server.network.TCPServer;
+import com.superkiment.server.room.Room;
+import com.superkiment.server.room.RoomManager;
 import org.junit.jupiter.api.*;
 
 import java.io.*;
-import java.lang.reflect.Field;
-import java.net.ServerSocket;
 import java.net.Socket;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -21,83 +22,91 @@ import static org.junit.jupiter.api.Assertions.*;
  * Tests d'intégration E2E — connexion TCP réelle.
  *
  * Architecture du test :
- *   [ClientSocket] <── loopback ──> [ServerSocket -> ClientConnection thread]
+ *   [ClientSocket] <── loopback ──> [TCPServer (Selector) -> ClientConnection]
  *
- * IMPORTANT : Network.entitiesManager est static final — impossible à remplacer
- * en Java 21. On utilise donc UNE SEULE instance de ServerEntitiesManager pour
- * toute la classe de test (créée dans @BeforeAll, avant le chargement de Network)
- * et on vide simplement ses maps entre chaque test.
+ * Les packets reçus sont confiés au tick de la salle : les tests appellent donc
+ * room.network.processInbound() et tcpServer.flush(room) pendant leurs attentes, comme le ferait Room.tick().
+ *
+ * Une seule salle, jamais lancée, pour toute la classe : les joueurs y entrent tous,
+ * et ses maps sont vidées entre chaque test.
  */
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 public class PlayerConnectionIntegrationTest {
 
-    private static ServerSocket serverSocket;
+    private static TCPServer tcpServer;
+    private static Room room;
     private static ExecutorService executor;
 
     private Socket clientSocket;
-    private Socket acceptedSocket;
-    private ObjectOutputStream clientOut;
-    private ObjectInputStream clientIn;
+    private DataOutputStream clientOut;
 
     @BeforeAll
     static void globalSetup() throws Exception {
-        // Doit se faire AVANT tout chargement de la classe Network (lazy loading),
-        // sans quoi Network.entitiesManager serait null.
-        GameServer.entitiesManager = new ServerEntitiesManager();
-        GameServer.blocksManager   = new BlocksManager();
-
-        Field f = EntityFactory.class.getDeclaredField("instance");
-        f.setAccessible(true);
-        f.set(null, null);
-        EntityFactory.CreateInstance(GameServer.entitiesManager);
+        RoomManager rooms = new RoomManager(1024, 1, 0);
+        room = rooms.createRoom();
 
         executor = Executors.newCachedThreadPool(r -> {
             Thread t = new Thread(r, "test-server-thread");
             t.setDaemon(true);
             return t;
         });
+
+        tcpServer = new TCPServer(0, rooms);
+        rooms.attach(tcpServer, null);
+        tcpServer.bind();
+        executor.submit(tcpServer::start);
     }
 
     @BeforeEach
     void setUp() throws Exception {
-        // Vider l'état de l'instance EXISTANTE plutôt que d'en créer une nouvelle.
-        // Network.entitiesManager est static final : on ne peut pas le remplacer.
-        GameServer.entitiesManager.getClients().clear();
-        GameServer.entitiesManager.getEntities().clear();
-
-        serverSocket  = new ServerSocket(0);
-        clientSocket  = new Socket("localhost", serverSocket.getLocalPort());
-        acceptedSocket = serverSocket.accept();
+        room.entitiesManager.clearClients();
+        room.entitiesManager.clear();
 
-        executor.submit(new ClientConnection(acceptedSocket)::run);
-
-        clientOut = new ObjectOutputStream(clientSocket.getOutputStream());
-        clientOut.flush();
-        clientIn  = new ObjectInputStream(clientSocket.getInputStream());
+        clientSocket = new Socket("localhost", tcpServer.getLocalPort());
+        clientOut    = new DataOutputStream(clientSocket.getOutputStream());
     }
 
     @AfterEach
     void tearDown() throws Exception {
         try { clientOut.close();    } catch (Exception ignored) {}
-        try { clientIn.close();     } catch (Exception ignored) {}
         try { clientSocket.close(); } catch (Exception ignored) {}
-        try { acceptedSocket.close(); } catch (Exception ignored) {}
-        try { serverSocket.close(); } catch (Exception ignored) {}
     }
 
     @AfterAll
     static void globalTearDown() throws Exception {
+        if (tcpServer != null) tcpServer.stop();
         if (executor != null) {
             executor.shutdownNow();
             executor.awaitTermination(2, TimeUnit.SECONDS);
         }
     }
 
+    /**
+     * Envoie un packet dans une frame préfixée par sa longueur, comme le fait TCPClient.
+     */
+    private static void sendFrame(DataOutputStream out, Packet packet) throws IOException {
+        out.write(PacketCodecs.encodeFrame(packet));
+        out.flush();
+    }
+
+    /**
+     * Attend (en jouant le rôle du tick) que la condition soit vraie ou que le délai expire.
+     */
+    private static void pumpUntil(java.util.function.BooleanSupplier condition, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (System.currentTimeMillis() < deadline) {
+            room.network.processInbound();
+            tcpServer.flush(room);
+            if (condition.getAsBoolean()) return;
+            Thread.sleep(10);
+        }
+    }
+
     // ─────────────────────────── Tests ───────────────────────────────────
 
     /**
      * Un joueur envoie PacketPlayerJoin -> le serveur doit l'enregistrer dans
-     * entitiesManager.getClients() avec le bon playerId et playerName.
+     * entitiesManager avec le bon playerId et playerName.
      */
     @Test
     @Order(1)
@@ -105,19 +114,14 @@ public class PlayerConnectionIntegrationTest {
         String playerId   = "test-player-uuid-001";
         String playerName = "TestPlayer";
 
-        clientOut.writeObject(new PacketPlayerJoin(playerId, playerName));
-        clientOut.flush();
+        sendFrame(clientOut, new PacketPlayerJoin(playerId, playerName));
 
-        long deadline = System.currentTimeMillis() + 500;
-        while (!GameServer.entitiesManager.getClients().containsKey(playerId)
-                && System.currentTimeMillis() < deadline) {
-            Thread.sleep(10);
-        }
+        pumpUntil(() -> room.entitiesManager.getClient(playerId) != null, 500);
 
-        assertTrue(GameServer.entitiesManager.getClients().containsKey(playerId),
+        assertTrue(room.entitiesManager.getClient(playerId) != null,
                 "Le joueur doit être enregistré dans entitiesManager.getClients()");
 
-        ClientConnection registered = GameServer.entitiesManager.getClients().get(playerId);
+        ClientConnection registered = room.entitiesManager.getClient(playerId);
         assertEquals(playerName, registered.playerName,
                 "Le nom du joueur doit correspondre");
     }
@@ -128,33 +132,21 @@ public class PlayerConnectionIntegrationTest {
     @Test
     @Order(2)
     void twoPlayersJoin_bothRegistered() throws Exception {
-        clientOut.writeObject(new PacketPlayerJoin("player-A", "Alice"));
-        clientOut.flush();
-
-        Socket client2   = new Socket("localhost", serverSocket.getLocalPort());
-        Socket accepted2 = serverSocket.accept();
-        executor.submit(new ClientConnection(accepted2)::run);
+        sendFrame(clientOut, new PacketPlayerJoin("player-A", "Alice"));
 
-        ObjectOutputStream out2 = new ObjectOutputStream(client2.getOutputStream());
-        out2.flush();
-        new ObjectInputStream(client2.getInputStream());
+        Socket client2 = new Socket("localhost", tcpServer.getLocalPort());
+        DataOutputStream out2 = new DataOutputStream(client2.getOutputStream());
 
-        out2.writeObject(new PacketPlayerJoin("player-B", "Bob"));
-        out2.flush();
+        sendFrame(out2, new PacketPlayerJoin("player-B", "Bob"));
 
-        long deadline = System.currentTimeMillis() + 500;
-        while (GameServer.entitiesManager.getClients().size() < 2
-                && System.currentTimeMillis() < deadline) {
-            Thread.sleep(10);
-        }
+        pumpUntil(() -> room.entitiesManager.getClients().size() >= 2, 500);
 
         try {
-            assertTrue(GameServer.entitiesManager.getClients().containsKey("player-A"), "Alice doit être enregistrée");
-            assertTrue(GameServer.entitiesManager.getClients().containsKey("player-B"), "Bob doit être enregistré");
+            assertTrue(room.entitiesManager.getClient("player-A") != null, "Alice doit être enregistrée");
+            assertTrue(room.entitiesManager.getClient("player-B") != null, "Bob doit être enregistré");
         } finally {
             out2.close();
             client2.close();
-            accepted2.close();
         }
     }
 
@@ -166,26 +158,122 @@ public class PlayerConnectionIntegrationTest {
     void playerDisconnects_removedFromClients() throws Exception {
         String playerId = "player-disconnect-test";
 
-        clientOut.writeObject(new PacketPlayerJoin(playerId, "Ephemeral"));
-        clientOut.flush();
+        sendFrame(clientOut, new PacketPlayerJoin(playerId, "Ephemeral"));
 
-        long deadline = System.currentTimeMillis() + 500;
-        while (!GameServer.entitiesManager.getClients().containsKey(playerId)
-                && System.currentTimeMillis() < deadline) {
-            Thread.sleep(10);
-        }
-        assertTrue(GameServer.entitiesManager.getClients().containsKey(playerId),
+        pumpUntil(() -> room.entitiesManager.getClient(playerId) != null, 500);
+        assertTrue(room.entitiesManager.getClient(playerId) != null,
                 "Le joueur doit d'abord apparaître");
 
         clientSocket.close();
 
-        deadline = System.currentTimeMillis() + 1000;
-        while (GameServer.entitiesManager.getClients().containsKey(playerId)
-                && System.currentTimeMillis() < deadline) {
-            Thread.sleep(20);
-        }
+        pumpUntil(() -> room.entitiesManager.getClient(playerId) == null, 1000);
 
-        assertFalse(GameServer.entitiesManager.getClients().containsKey(playerId),
+        assertFalse(room.entitiesManager.getClient(playerId) != null,
                 "Le joueur doit être retiré de la map après déconnexion");
     }
-}
\ No newline at end of file
+
+    /**
+     * Lit la prochaine frame reçue par le client de test.
+     */
+    private static Packet readFrame(DataInputStream in) throws IOException {
+        byte[] frame = new byte[in.readInt()];
+        in.readFully(frame);
+        return PacketCodecs.decode(frame);
+    }
+
+    /**
+     * Rejoint le serveur et consomme les frames envoyées en réponse, jusqu'à son propre PacketPlayerJoin.
+     */
+    private ClientConnection joinAndDrain(String playerId, DataInputStream in) throws Exception {
+        sendFrame(clientOut, new PacketPlayerJoin(playerId, "Lent"));
+        pumpUntil(() -> room.entitiesManager.getClient(playerId) != null, 500);
+
+        ClientConnection connection = room.entitiesManager.getClient(playerId);
+        assertNotNull(connection, "Le joueur doit être enregistré");
+
+        Packet packet;
+        do {
+            packet = readFrame(in);
+        } while (!(packet instanceof PacketPlayerJoin join && join.playerId.equals(playerId)));
+
+        // Le thread du Selector ne doit plus écrire les frames du join : il viderait la file du test en même temps
+        pumpUntil(() -> connection.getOutboundQueueDepth() == 0 && !connection.isWriting(), 1000);
+        assertEquals(0, connection.getOutboundQueueDepth(), "Les frames du join doivent être parties");
+        assertFalse(connection.isWriting(), "Le thread du Selector doit avoir fini d'écrire");
+
+        return connection;
+    }
+
+    /**
+     * Les frames déposées pendant un tick restent dans la file jusqu'au flush, puis arrivent toutes, dans l'ordre.
+     */
+    @Test
+    @Order(4)
+    void sendTCP_isHeldUntilFlush_thenDeliveredInOrder() throws Exception {
+        clientSocket.setSoTimeout(2000);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(clientSocket.getInputStream()));
+        ClientConnection connection = joinAndDrain("player-flush-test", in);
+
+        for (int i = 0; i < 50; i++) {
+            connection.sendTCP(new PacketHeartbeat("server", i));
+        }
+
+        assertEquals(50, connection.getOutboundQueueDepth(), "Les frames doivent attendre le flush dans la file");
+        Thread.sleep(50);
+        assertEquals(0, clientSocket.getInputStream().available(), "Rien ne doit partir avant le flush");
+
+        tcpServer.flush(room);
+
+        for (int i = 0; i < 50; i++) {
+            PacketHeartbeat heartbeat = assertInstanceOf(PacketHeartbeat.class, readFrame(in));
+            assertEquals(i, heartbeat.timestamp, "Les frames doivent arriver dans l'ordre d'envoi");
+        }
+        assertEquals(0, connection.getOutboundQueueDepth(), "La file doit être vidée après le flush");
+    }
+
+    /**
+     * Un client dont la file d'envoi déborde est déconnecté au lieu de ralentir le serveur.
+     */
+    @Test
+    @Order(5)
+    void outboundQueueFull_disconnectsSlowClient() throws Exception {
+        clientSocket.setSoTimeout(2000);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(clientSocket.getInputStream()));
+        String playerId = "player-slow-test";
+        ClientConnection connection = joinAndDrain(playerId, in);
+
+        for (int i = 0; i <= ClientConnection.OUTBOUND_QUEUE_CAPACITY; i++) {
+            connection.sendTCP(new PacketHeartbeat("server", i));
+        }
+
+        assertTrue(connection.isDisconnected(), "Le client trop lent doit être déconnecté");
+
+        // Le retrait du jeu est confié au tick
+        pumpUntil(() -> room.entitiesManager.getClient(playerId) == null, 500);
+        assertFalse(room.entitiesManager.getClient(playerId) != null,
+                "Le client trop lent doit être retiré de la map");
+    }
+
+    /**
+     * Les frames qui attendaient encore le flush sont rendues à la déconnexion, et plus rien n'est déposé ensuite.
+     */
+    @Test
+    @Order(6)
+    void disconnect_releasesQueuedFrames() throws Exception {
+        clientSocket.setSoTimeout(2000);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(clientSocket.getInputStream()));
+        ClientConnection connection = joinAndDrain("player-release-test", in);
+
+        for (int i = 0; i < 50; i++) {
+            connection.sendTCP(new PacketHeartbeat("server", i));
+        }
+        assertEquals(50, connection.getOutboundQueueDepth());
+
+        connection.disconnect();
+        pumpUntil(() -> connection.getOutboundQueueDepth() == 0, 500);
+        assertEquals(0, connection.getOutboundQueueDepth(), "Le thread du Selector doit vider la file d'une connexion fermée");
+
+        connection.sendTCP(new PacketHeartbeat("server", 50));
+        assertEquals(0, connection.getOutboundQueueDepth(), "Rien ne doit être déposé après la déconnexion");
+    }
+}
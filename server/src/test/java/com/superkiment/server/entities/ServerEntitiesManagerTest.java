@@ -0,0 +1,119 @@
+package com.superkiment.server.entities;
+
+import com.superkiment.common.entities.Entity;
+import com.superkiment.common.entities.Player;
+import com.superkiment.server.network.ClientConnection;
+import com.superkiment.server.room.RoomManager;
+import org.joml.Vector2d;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ServerEntitiesManagerTest {
+
+    private RoomManager rooms;
+    private ServerEntitiesManager manager;
+
+    @BeforeEach
+    void setUp() {
+        rooms = new RoomManager(64, 1, 0);
+        manager = rooms.createRoom().entitiesManager;
+    }
+
+    // ──────────────────── Attribution des netIds ─────────────────────────
+
+    @Test
+    void addEntity_assignsUniqueNetIds() {
+        Set<Integer> netIds = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            Entity e = new Entity();
+            manager.addEntity(e);
+
+            assertTrue(e.netId > 0 && e.netId <= NetIdAllocator.MAX_NET_ID, "Le netId doit tenir sur 16 bits et ne pas valoir 0");
+            assertTrue(netIds.add(e.netId), "Chaque entité doit avoir un netId différent");
+            assertSame(e, manager.getEntityFromNetId(e.netId));
+        }
+    }
+
+    @Test
+    void addEntity_ignoresNetIdSentByClient() {
+        Entity first = new Entity();
+        manager.addEntity(first);
+
+        Entity forged = new Entity();
+        forged.netId = first.netId;
+        manager.addEntity(forged);
+
+        assertNotEquals(first.netId, forged.netId, "Le serveur doit attribuer lui-même le netId");
+        assertSame(first, manager.getEntityFromNetId(first.netId), "Une entité existante ne doit pas être écrasée");
+    }
+
+    @Test
+    void removeEntity_releasesNetIdForReuse() {
+        NetIdAllocator allocator = new NetIdAllocator();
+        int first = allocator.allocate();
+        allocator.allocate();
+        assertEquals(2, allocator.inUse());
+
+        allocator.release(first);
+        assertEquals(1, allocator.inUse());
+
+        Entity e = new Entity();
+        manager.addEntity(e);
+        int netId = e.netId;
+        manager.removeEntity(e.id);
+
+        assertNull(manager.getEntityFromNetId(netId), "Le netId doit être libéré avec l'entité");
+    }
+
+    @Test
+    void allocator_whenExhausted_reusesReleasedIdsInOrder() {
+        NetIdAllocator allocator = new NetIdAllocator();
+        for (int i = 0; i < NetIdAllocator.MAX_NET_ID; i++) {
+            allocator.allocate();
+        }
+        assertThrows(IllegalStateException.class, allocator::allocate, "Aucun netId libre");
+
+        allocator.release(10);
+        allocator.release(3);
+
+        assertEquals(10, allocator.allocate(), "Les netIds libérés sont réutilisés dans l'ordre de libération");
+        assertEquals(3, allocator.allocate());
+    }
+
+    // ──────────────────── Clients ────────────────────────────────────────
+
+    private ClientConnection connect(String playerId) {
+        ClientConnection client = new ClientConnection(null, null);
+        client.playerId = playerId;
+        client.playerName = playerId;
+        manager.addClient(client);
+        rooms.getSessions().open(client);
+        return client;
+    }
+
+    @Test
+    void removeClient_replacedConnection_keepsPlayerOfNewOne() {
+        ClientConnection stale = connect("alice");
+        Player player = new Player(new Vector2d());
+        player.id = "alice";
+        manager.addEntity(player);
+
+        ClientConnection fresh = connect("alice");
+        manager.removeClient(stale);
+
+        assertSame(fresh, manager.getClient("alice"), "La nouvelle connexion reste celle du joueur");
+        assertSame(player, manager.getEntityFromID("alice"), "La déconnexion tardive de l'ancienne ne supprime pas son joueur");
+        assertSame(player, manager.getPlayer(fresh));
+        assertSame(fresh, rooms.getSessions().lookup(fresh.sessionId), "La session de la nouvelle connexion reste ouverte");
+        assertNull(rooms.getSessions().lookup(stale.sessionId), "Celle de l'ancienne est libérée");
+
+        manager.removeClient(fresh);
+        assertNull(manager.getClient("alice"));
+        assertNull(manager.getEntityFromID("alice"), "La déconnexion du joueur supprime son joueur");
+    }
+}
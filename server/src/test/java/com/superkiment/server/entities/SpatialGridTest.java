@@ -0,0 +1,81 @@
+package com.superkiment.server.entities;
+
+import com.superkiment.common.entities.Entity;
+import org.joml.Vector2d;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SpatialGridTest {
+
+    private static List<Entity> randomEntities(Random random, int count, double extent) {
+        List<Entity> entities = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            entities.add(new Entity(new Vector2d((random.nextDouble() - 0.5) * extent, (random.nextDouble() - 0.5) * extent)));
+        }
+        return entities;
+    }
+
+    @Test
+    void query_matchesBruteForce_includingNegativeCoordinates() {
+        Random random = new Random(3);
+        List<Entity> entities = randomEntities(random, 2000, 10_000);
+        SpatialGrid grid = new SpatialGrid(500);
+        grid.rebuild(entities);
+
+        List<Entity> found = new ArrayList<>();
+        for (int q = 0; q < 200; q++) {
+            double x = (random.nextDouble() - 0.5) * 10_000, y = (random.nextDouble() - 0.5) * 10_000;
+            double radius = random.nextDouble() * 1500;
+
+            found.clear();
+            grid.query(x, y, radius, found);
+
+            int expected = 0;
+            for (Entity entity : entities) {
+                if (entity.pos.distanceSquared(x, y) <= radius * radius) {
+                    expected++;
+                    assertTrue(found.contains(entity), "Une entité dans le rayon doit être trouvée");
+                }
+            }
+            assertEquals(expected, found.size(), "Aucune entité hors du rayon ni en double");
+        }
+    }
+
+    @Test
+    void rebuild_forgetsPreviousPositions() {
+        Entity entity = new Entity(new Vector2d(100, 100));
+        SpatialGrid grid = new SpatialGrid(50);
+        grid.rebuild(List.of(entity));
+
+        entity.pos.set(-900, 400);
+        grid.rebuild(List.of(entity));
+
+        List<Entity> found = new ArrayList<>();
+        grid.query(100, 100, 10, found);
+        assertTrue(found.isEmpty(), "L'ancienne position ne doit plus être indexée");
+
+        grid.query(-900, 400, 10, found);
+        assertEquals(List.of(entity), found);
+    }
+
+    @Test
+    void manyCells_growTable() {
+        List<Entity> entities = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) entities.add(new Entity(new Vector2d(i * 10, -i * 10)));
+
+        SpatialGrid grid = new SpatialGrid(1);
+        grid.rebuild(entities);
+
+        List<Entity> found = new ArrayList<>();
+        for (Entity entity : entities) {
+            found.clear();
+            grid.query(entity.pos.x, entity.pos.y, 0.5, found);
+            assertEquals(List.of(entity), found, "Chaque entité doit rester dans sa case après agrandissement de la table");
+        }
+    }
+}
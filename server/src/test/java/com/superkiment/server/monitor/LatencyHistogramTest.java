@@ -0,0 +1,75 @@
+package com.superkiment.server.monitor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    void buckets_coverEveryValue_withBoundedError() {
+        int previous = -1;
+        for (long value = 0; value <= LatencyHistogram.MAX_VALUE; value = value < 1000 ? value + 1 : value + value / 97) {
+            int index = LatencyHistogram.index(value);
+            assertTrue(index >= previous, "Les cases doivent suivre l'ordre des valeurs");
+            previous = index;
+
+            long high = LatencyHistogram.highestEquivalent(index);
+            assertTrue(high >= value, "La borne haute de la case doit contenir la valeur " + value);
+            assertTrue(high - value <= Math.max(0, value / 64), "Erreur relative trop grande pour " + value);
+        }
+    }
+
+    @Test
+    void percentiles_matchSortedValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Random random = new Random(42);
+        long[] values = new long[10_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 1000 + (long) (Math.abs(random.nextGaussian()) * 20_000);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double p : new double[]{50, 90, 99, 99.9}) {
+            long exact = values[(int) Math.ceil(values.length * p / 100) - 1];
+            long measured = histogram.percentile(p);
+            assertTrue(measured >= exact && measured <= exact + exact / 64 + 1,
+                    "p" + p + " : " + measured + " au lieu de " + exact);
+        }
+        assertEquals(values[values.length - 1], histogram.getMax());
+        assertEquals(values[0], histogram.getMin());
+        assertEquals(values[values.length - 1], histogram.percentile(100));
+    }
+
+    @Test
+    void add_mergesHistograms_andResetEmpties() {
+        LatencyHistogram a = new LatencyHistogram();
+        LatencyHistogram b = new LatencyHistogram();
+        for (int i = 0; i < 90; i++) a.record(10);
+        for (int i = 0; i < 10; i++) b.record(5000);
+
+        a.add(b);
+        assertEquals(100, a.getCount());
+        assertEquals(10, a.percentile(90));
+        assertEquals(5000, a.percentile(99), "Le max borne le percentile");
+        assertEquals(509, a.getMean(), 0.001);
+
+        a.reset();
+        assertEquals(0, a.getCount());
+        assertEquals(0, a.percentile(50));
+        assertEquals(0, a.getMin());
+    }
+
+    @Test
+    void outOfRangeValues_areClamped() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(0, histogram.getMin());
+        assertEquals(LatencyHistogram.MAX_VALUE, histogram.getMax());
+    }
+}
@@ -0,0 +1,55 @@
+package com.superkiment.server.network;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BandwidthEstimatorTest {
+
+    @Test
+    void acks_growBudget_onlyWhenItLimits() {
+        BandwidthEstimator estimator = new BandwidthEstimator();
+
+        estimator.onSent(1, 0, false);
+        estimator.onAck(1);
+        assertEquals(BandwidthEstimator.INITIAL_BUDGET, estimator.getBudget(), "Un budget qui ne limite rien ne doit pas grandir");
+
+        estimator.onSent(2, 1, true);
+        estimator.onAck(2);
+        estimator.onAck(2);
+        assertEquals(BandwidthEstimator.INITIAL_BUDGET + BandwidthEstimator.ADDITIVE_INCREASE, estimator.getBudget(),
+                "Un seul acquittement compte par snapshot");
+    }
+
+    @Test
+    void loss_halvesBudget_oncePerLossPeriod() {
+        BandwidthEstimator estimator = new BandwidthEstimator();
+        for (int seq = 1; seq <= 5; seq++) estimator.onSent(seq, seq, true);
+
+        // Aucun acquittement : les 5 snapshots sont perdus, mais ne réduisent le budget qu'une fois
+        estimator.update(5 + BandwidthEstimator.LOSS_TIMEOUT_TICKS);
+        assertEquals(5, estimator.getLosses());
+        assertEquals(BandwidthEstimator.INITIAL_BUDGET / 2, estimator.getBudget());
+
+        // Une perte après la réduction la divise à nouveau
+        estimator.onSent(6, 20, true);
+        estimator.update(20 + BandwidthEstimator.LOSS_TIMEOUT_TICKS);
+        assertEquals(BandwidthEstimator.INITIAL_BUDGET / 4, estimator.getBudget());
+    }
+
+    @Test
+    void budget_staysWithinBounds() {
+        BandwidthEstimator estimator = new BandwidthEstimator();
+        for (int tick = 0; tick < 20; tick++) {
+            estimator.onSent(tick, tick * BandwidthEstimator.LOSS_TIMEOUT_TICKS, true);
+            estimator.update((tick + 1) * BandwidthEstimator.LOSS_TIMEOUT_TICKS);
+        }
+        assertEquals(BandwidthEstimator.MIN_BUDGET, estimator.getBudget());
+
+        for (int seq = 100; seq < 2000; seq++) {
+            estimator.onSent(seq & 0xFFFF, 1000, true);
+            estimator.onAck(seq & 0xFFFF);
+        }
+        assertEquals(BandwidthEstimator.MAX_BUDGET, estimator.getBudget());
+    }
+}
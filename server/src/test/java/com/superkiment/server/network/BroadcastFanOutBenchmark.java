@@ -0,0 +1,102 @@
+package com.superkiment.server.network;
+
+import com.superkiment.common.entities.Player;
+import com.superkiment.common.packets.Packet;
+import com.superkiment.common.packets.codec.PacketCodecs;
+import com.superkiment.common.packets.codec.SharedFrame;
+import com.superkiment.common.packets.entity.PacketUpdateEntity;
+import com.superkiment.common.utils.MpscArrayQueue;
+import org.joml.Vector2d;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Diffusion des événements d'un tick à tous les clients : un packet construit et encodé par client (l'ancien
+ * broadcastChangesInCollisionablesTCP), contre un {@link SharedFrame} encodé une fois et référencé par chaque file.
+ * Dans les deux cas, les octets sont ensuite copiés dans le buffer d'écriture de chaque client, comme le fait le Selector.
+ * <p>
+ * Lancer avec : java -cp ... com.superkiment.server.network.BroadcastFanOutBenchmark [clients] [événements par tick]
+ */
+public class BroadcastFanOutBenchmark {
+
+    private static final int TICKS = 200;
+
+    public static void main(String[] args) {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int events = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+
+        Player[] entities = new Player[events];
+        for (int i = 0; i < events; i++) {
+            entities[i] = new Player(new Vector2d(i, i));
+            entities[i].netId = i + 1;
+        }
+
+        List<MpscArrayQueue<Object>> queues = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) queues.add(new MpscArrayQueue<>(events * 2));
+        ByteBuffer writeBuffer = ByteBuffer.allocateDirect(1 << 20);
+        SharedFrame.Pool pool = new SharedFrame.Pool(events * 2);
+
+        // Chauffe du JIT
+        for (int i = 0; i < 50; i++) {
+            perClient(entities, queues, writeBuffer);
+            shared(entities, queues, writeBuffer, pool);
+        }
+
+        System.out.println("── " + clients + " clients, " + events + " événements par tick");
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            long bytes = 0;
+            for (int t = 0; t < TICKS; t++) bytes += perClient(entities, queues, writeBuffer);
+            double perClientUs = (System.nanoTime() - start) / 1e3 / TICKS;
+
+            start = System.nanoTime();
+            for (int t = 0; t < TICKS; t++) shared(entities, queues, writeBuffer, pool);
+            double sharedUs = (System.nanoTime() - start) / 1e3 / TICKS;
+
+            System.out.printf("  Encodage par client : %8.1f µs/tick   Frame partagée : %8.1f µs/tick   (%.1f KB copiés par tick)%n",
+                    perClientUs, sharedUs, bytes / 1024.0 / TICKS);
+        }
+    }
+
+    private static long perClient(Player[] entities, List<MpscArrayQueue<Object>> queues, ByteBuffer writeBuffer) {
+        for (Player entity : entities) {
+            for (MpscArrayQueue<Object> queue : queues) {
+                queue.offer(PacketCodecs.encodeFrame(new PacketUpdateEntity(entity)));
+            }
+        }
+
+        long bytes = 0;
+        for (MpscArrayQueue<Object> queue : queues) {
+            writeBuffer.clear();
+            Object frame;
+            while ((frame = queue.poll()) != null) {
+                writeBuffer.put((byte[]) frame);
+            }
+            bytes += writeBuffer.position();
+        }
+        return bytes;
+    }
+
+    private static void shared(Player[] entities, List<MpscArrayQueue<Object>> queues, ByteBuffer writeBuffer, SharedFrame.Pool pool) {
+        for (Player entity : entities) {
+            Packet packet = new PacketUpdateEntity(entity);
+            SharedFrame frame = pool.encodeFrame(packet);
+            for (MpscArrayQueue<Object> queue : queues) {
+                queue.offer(frame.retain());
+            }
+            frame.release();
+        }
+
+        for (MpscArrayQueue<Object> queue : queues) {
+            writeBuffer.clear();
+            Object polled;
+            while ((polled = queue.poll()) != null) {
+                SharedFrame frame = (SharedFrame) polled;
+                writeBuffer.put(frame.array(), 0, frame.length());
+                frame.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.superkiment.server.network;
+
+import com.superkiment.server.network.ConnectionHealth.Action;
+import com.superkiment.server.network.ConnectionHealth.Change;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConnectionHealthTest {
+
+    private static ConnectionHealth.Policy policy(Action action) {
+        return new ConnectionHealth.Policy(action,
+                100, 500, 1000, 1000,
+                1000, 5000, 10_000, 6000,
+                4, 20, 2000);
+    }
+
+    // ─────────────────────── Dégradation ─────────────────────────────────
+
+    @Test
+    void healthyConnection_sendsEverything() {
+        ConnectionHealth health = new ConnectionHealth(policy(Action.THROTTLE));
+
+        assertEquals(Change.NONE, health.update(99, 499, 999, 0));
+        assertFalse(health.isDegraded());
+        assertNull(health.getReason());
+        for (int tick = 0; tick < 10; tick++) {
+            assertTrue(health.allowsSnapshot(tick));
+            assertTrue(health.allowsDroppable(tick));
+        }
+    }
+
+    @Test
+    void throttle_sendsEveryFewTicks() {
+        ConnectionHealth health = new ConnectionHealth(policy(Action.THROTTLE));
+
+        assertEquals(Change.DEGRADED, health.update(100, 0, 0, 0));
+        assertEquals(Change.NONE, health.update(100, 0, 0, 50), "La dégradation n'est signalée qu'une fois");
+        assertTrue(health.isDegraded());
+        assertTrue(health.getReason().contains("100"), "La raison doit citer la mesure");
+
+        int snapshots = 0, droppable = 0;
+        for (int tick = 0; tick < 20; tick++) {
+            if (health.allowsSnapshot(tick)) snapshots++;
+            if (health.allowsDroppable(tick)) droppable++;
+        }
+        assertEquals(5, snapshots, "Un snapshot tous les 4 ticks");
+        assertEquals(5, droppable);
+    }
+
+    @Test
+    void drop_keepsOnlyProbeSnapshots() {
+        ConnectionHealth health = new ConnectionHealth(policy(Action.DROP));
+        assertEquals(Change.DEGRADED, health.update(0, 600, 0, 0));
+
+        int snapshots = 0;
+        for (int tick = 0; tick < 40; tick++) {
+            if (health.allowsSnapshot(tick)) snapshots++;
+            assertFalse(health.allowsDroppable(tick), "Rien de ce qui peut être perdu ne part");
+        }
+        assertEquals(2, snapshots, "Un snapshot de sonde tous les 20 ticks");
+    }
+
+    @Test
+    void disconnectPolicy_disconnectsDegradedConnection() {
+        ConnectionHealth health = new ConnectionHealth(policy(Action.DISCONNECT));
+        assertEquals(Change.DISCONNECT, health.update(0, 0, 1000, 0));
+    }
+
+    @Test
+    void disconnectThreshold_disconnectsWhateverThePolicy() {
+        for (Action action : Action.values()) {
+            ConnectionHealth health = new ConnectionHealth(policy(action));
+            assertEquals(Change.DISCONNECT, health.update(1000, 0, 0, 0), "Politique " + action);
+            assertEquals(Change.DISCONNECT, new ConnectionHealth(policy(action)).update(0, 5000, 0, 0));
+            assertEquals(Change.DISCONNECT, new ConnectionHealth(policy(action)).update(0, 0, 10_000, 0));
+        }
+    }
+
+    // ─────────────────────── Acquittements ───────────────────────────────
+
+    @Test
+    void ackSilence_countsFromFirstUnackedSnapshot() {
+        ConnectionHealth health = new ConnectionHealth(policy(Action.THROTTLE));
+        assertEquals(0, health.getAckSilenceMillis(1000), "Rien d'envoyé, rien à attendre");
+
+        health.onSnapshotSent(1000);
+        health.onSnapshotSent(1050);
+        assertEquals(500, health.getAckSilenceMillis(1500));
+        assertEquals(Change.DEGRADED, health.update(0, 0, 0, 2000));
+
+        health.onSnapshotAck();
+        assertEquals(0, health.getAckSilenceMillis(2000));
+        health.onSnapshotSent(2050);
+        assertEquals(Change.DISCONNECT, health.update(0, 0, 0, 2050 + 6000), "Un client muet finit déconnecté");
+    }
+
+    // ─────────────────────── Rétablissement ──────────────────────────────
+
+    @Test
+    void recovery_waitsUnderThresholds() {
+        ConnectionHealth health = new ConnectionHealth(policy(Action.THROTTLE));
+        assertEquals(Change.DEGRADED, health.update(200, 0, 0, 0));
+
+        assertEquals(Change.NONE, health.update(0, 0, 0, 100));
+        assertEquals(Change.NONE, health.update(0, 0, 0, 1000));
+        // Un nouveau dépassement repart de zéro
+        assertEquals(Change.NONE, health.update(200, 0, 0, 1500));
+        assertEquals(Change.NONE, health.update(0, 0, 0, 1600));
+        assertEquals(Change.NONE, health.update(0, 0, 0, 3500));
+        assertTrue(health.isDegraded());
+
+        assertEquals(Change.RECOVERED, health.update(0, 0, 0, 3600));
+        assertFalse(health.isDegraded());
+        assertNull(health.getReason());
+        assertTrue(health.allowsSnapshot(1));
+    }
+}
@@ -0,0 +1,40 @@
+package com.superkiment.server.network;
+
+import com.superkiment.common.packets.input.PlayerInput;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InputQueueTest {
+
+    @Test
+    void inputsComeOutInOrder_duplicatesAndLateOnesIgnored() {
+        InputQueue queue = new InputQueue();
+        assertTrue(queue.offer(new PlayerInput().set(1, 1, 0)));
+        assertTrue(queue.offer(new PlayerInput().set(3, 0, 1)));
+        assertFalse(queue.offer(new PlayerInput().set(3, 0, 1)), "Une commande en double doit être ignorée");
+        assertFalse(queue.offer(new PlayerInput().set(2, -1, 0)), "Une commande arrivée après une plus récente doit être ignorée");
+
+        PlayerInput out = new PlayerInput();
+        assertTrue(queue.poll(out));
+        assertEquals(1, out.seq);
+        assertEquals(1, out.moveX);
+        assertTrue(queue.poll(out));
+        assertEquals(3, out.seq);
+        assertEquals(1, out.moveY);
+        assertFalse(queue.poll(out));
+    }
+
+    @Test
+    void full_dropsOldest() {
+        InputQueue queue = new InputQueue();
+        for (int seq = 65530; seq < 65530 + InputQueue.CAPACITY + 2; seq++) {
+            queue.offer(new PlayerInput().set(seq, 0, 0));
+        }
+
+        assertEquals(InputQueue.CAPACITY, queue.size());
+        PlayerInput out = new PlayerInput();
+        queue.poll(out);
+        assertEquals(65532, out.seq, "Les deux plus anciennes doivent être abandonnées, après le bouclage des numéros");
+    }
+}
@@ -0,0 +1,105 @@
+package com.superkiment.server.network;
+
+import com.superkiment.common.entities.Entity;
+import com.superkiment.common.packets.snapshot.Snapshot;
+import org.joml.Vector2d;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InterestManagerTest {
+
+    private final InterestManager manager = new InterestManager(100, 150);
+    private final ClientInterest interest = new ClientInterest();
+    private final List<Entity> entered = new ArrayList<>();
+    private final List<Entity> left = new ArrayList<>();
+
+    private void tick(Entity player, Entity... entities) {
+        entered.clear();
+        left.clear();
+        manager.rebuild(List.of(entities));
+        manager.update(interest, player, entered, left);
+    }
+
+    // ─────────────────────── Entrées et sorties ──────────────────────────
+
+    @Test
+    void playerIsAlwaysRelevant() {
+        Entity player = new Entity(new Vector2d(0, 0));
+        tick(player, player);
+
+        assertEquals(List.of(player), entered);
+        assertTrue(interest.contains(player));
+
+        tick(player);
+        assertTrue(interest.contains(player), "Le joueur reste connu même s'il n'est pas dans la grille");
+        assertTrue(left.isEmpty());
+    }
+
+    @Test
+    void entityEntersWithinEnterRadius_only() {
+        Entity player = new Entity(new Vector2d(0, 0));
+        Entity other = new Entity(new Vector2d(120, 0));
+
+        tick(player, player, other);
+        assertFalse(interest.contains(other), "Entre le rayon d'entrée et le rayon de sortie, une entité inconnue n'entre pas");
+
+        other.pos.set(90, 0);
+        tick(player, player, other);
+        assertTrue(entered.contains(other));
+        assertTrue(interest.contains(other));
+    }
+
+    @Test
+    void hysteresis_keepsEntityUntilLeaveRadius() {
+        Entity player = new Entity(new Vector2d(0, 0));
+        Entity other = new Entity(new Vector2d(50, 0));
+        tick(player, player, other);
+
+        for (double x : new double[]{99, 101, 140, 99, 149}) {
+            other.pos.set(x, 0);
+            tick(player, player, other);
+            assertTrue(entered.isEmpty() && left.isEmpty(), "Pas de création ni de suppression à x=" + x);
+        }
+
+        other.pos.set(151, 0);
+        tick(player, player, other);
+        assertEquals(List.of(other), left);
+        assertFalse(interest.contains(other));
+    }
+
+    @Test
+    void removedEntity_leaves() {
+        Entity player = new Entity(new Vector2d(0, 0));
+        Entity other = new Entity(new Vector2d(10, 0));
+        tick(player, player, other);
+
+        tick(player, player);
+        assertEquals(List.of(other), left, "Une entité qui n'existe plus doit être supprimée chez le client");
+    }
+
+    // ─────────────────────── Filtrage des snapshots ──────────────────────
+
+    @Test
+    void filter_keepsOnlyKnownEntities_sortedByNetId() {
+        Entity player = new Entity(new Vector2d(0, 0));
+        Entity near = new Entity(new Vector2d(10, 0));
+        Entity far = new Entity(new Vector2d(1000, 0));
+        player.netId = 7;
+        near.netId = 3;
+        far.netId = 5;
+        tick(player, player, near, far);
+
+        Snapshot world = Snapshot.capture(42, List.of(player, near, far), 3);
+        Snapshot filtered = interest.filter(world, new Snapshot(0, 1));
+
+        assertEquals(42, filtered.seq);
+        assertEquals(2, filtered.size);
+        assertEquals(3, filtered.netIds[0]);
+        assertEquals(7, filtered.netIds[1]);
+        assertEquals(world.x[world.indexOf(3)], filtered.x[0]);
+    }
+}
@@ -0,0 +1,87 @@
+package com.superkiment.server.network;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyTrackerTest {
+
+    /**
+     * Horloge du client en avance de 5 s sur celle du serveur.
+     */
+    private static final long CLIENT_AHEAD = 5_000_000;
+
+    /**
+     * Un échange complet : {@code up} et {@code down} µs de trajet, {@code held} µs chez le client.
+     */
+    private static boolean exchange(LatencyTracker tracker, long sentAt, long up, long held, long down) {
+        int seq = tracker.nextPing(sentAt);
+        assertTrue(seq >= 0);
+        long clientReceived = sentAt + up + CLIENT_AHEAD;
+        return tracker.onPong(seq, clientReceived, clientReceived + held, sentAt + up + held + down);
+    }
+
+    @Test
+    void symmetricPath_measuresRttAndOffset() {
+        LatencyTracker tracker = new LatencyTracker();
+        assertTrue(exchange(tracker, 0, 20_000, 3_000, 20_000));
+
+        assertEquals(1, tracker.getSamples());
+        assertEquals(40_000, tracker.getRttMicros(), "Le temps passé chez le client ne compte pas");
+        assertEquals(CLIENT_AHEAD, tracker.getClockOffsetMicros());
+        assertEquals(0, tracker.getJitterMicros());
+        assertEquals(40_000, tracker.getHistogram().getMax());
+    }
+
+    @Test
+    void pingInterval_isRespected() {
+        LatencyTracker tracker = new LatencyTracker();
+        assertEquals(0, tracker.nextPing(1000));
+        assertEquals(-1, tracker.nextPing(1000 + LatencyTracker.PING_INTERVAL_MICROS - 1));
+        assertEquals(1, tracker.nextPing(1000 + LatencyTracker.PING_INTERVAL_MICROS));
+    }
+
+    @Test
+    void unknownOrRepeatedPong_isIgnored() {
+        LatencyTracker tracker = new LatencyTracker();
+        int seq = tracker.nextPing(0);
+
+        assertFalse(tracker.onPong(seq + 1, 0, 0, 10), "Un ping jamais envoyé");
+        assertTrue(tracker.onPong(seq, 0, 0, 10));
+        assertFalse(tracker.onPong(seq, 0, 0, 10), "Un ping déjà répondu");
+        assertEquals(1, tracker.getSamples());
+    }
+
+    @Test
+    void offset_comesFromFastestExchange() {
+        LatencyTracker tracker = new LatencyTracker();
+        long now = 0;
+        // Trajets asymétriques (file d'attente à l'aller), sauf un échange rapide et symétrique
+        for (int i = 0; i < 6; i++) {
+            exchange(tracker, now, 80_000, 1000, 20_000);
+            now += LatencyTracker.PING_INTERVAL_MICROS;
+        }
+        exchange(tracker, now, 10_000, 1000, 10_000);
+        now += LatencyTracker.PING_INTERVAL_MICROS;
+        exchange(tracker, now, 80_000, 1000, 20_000);
+
+        assertEquals(CLIENT_AHEAD, tracker.getClockOffsetMicros(), "Le décalage doit venir de l'échange le plus rapide");
+    }
+
+    @Test
+    void jitter_followsRttVariation() {
+        LatencyTracker tracker = new LatencyTracker();
+        long now = 0;
+        for (int i = 0; i < 200; i++) {
+            long path = i % 2 == 0 ? 10_000 : 20_000;
+            exchange(tracker, now, path, 0, path);
+            now += LatencyTracker.PING_INTERVAL_MICROS;
+        }
+
+        // Les allers-retours alternent entre 20 et 40 ms : 20 ms de variation à chaque échange
+        assertEquals(20_000, tracker.getJitterMicros(), 500);
+        assertEquals(30_000, tracker.getRttMicros(), 5_000);
+        assertEquals(20_000, tracker.getHistogram().percentile(50), 400);
+        assertEquals(40_000, tracker.getHistogram().percentile(99), 700);
+    }
+}
@@ -0,0 +1,172 @@
+package com.superkiment.server.network;
+
+import com.superkiment.common.entities.Entity;
+import com.superkiment.common.entities.Player;
+import com.superkiment.common.packets.PacketSerializer;
+import com.superkiment.common.packets.input.InputCodec;
+import com.superkiment.common.packets.input.PlayerInput;
+import com.superkiment.common.packets.snapshot.SnapshotCodec;
+import com.superkiment.server.entities.ServerEntitiesManager;
+import com.superkiment.server.room.Room;
+import com.superkiment.server.room.RoomManager;
+import org.joml.Vector2d;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Trafic UDP pour des joueurs simulés en loopback qui envoient leurs commandes à 30 Hz (chacune répétée dans les
+ * datagrammes suivants) pendant que le tick tourne à 20 Hz, comparé aux positions absolues qu'ils envoyaient avant.
+ * <p>
+ * Lancer avec : java -cp ... com.superkiment.server.network.PlayerInputBenchmark [joueurs] [secondes]
+ */
+public class PlayerInputBenchmark {
+
+    private static final int INPUT_RATE = 30;
+    private static final int TICK_RATE = 20;
+
+    /**
+     * Position absolue qu'envoyait chaque client : [type][netId (2)][posX][posY][dirX][dirY][timestamp].
+     */
+    private static final int POSITION_SIZE = 1 + Short.BYTES + 4 * Double.BYTES + Long.BYTES;
+
+    public static void main(String[] args) throws Exception {
+        int playerCount = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        // Une salle jamais lancée : le benchmark joue lui-même son tick
+        RoomManager rooms = new RoomManager(playerCount, 1, ReplicationWorkers.THREADS);
+        Room room = rooms.createRoom();
+        ServerEntitiesManager manager = room.entitiesManager;
+
+        UDPServer udpServer = new UDPServer(0, rooms);
+        rooms.attach(null, udpServer);
+        Thread udpThread = new Thread(udpServer::start, "udp-server");
+        udpThread.setDaemon(true);
+        udpThread.start();
+        while (udpServer.channel == null || udpServer.channel.getLocalAddress() == null) Thread.sleep(5);
+        InetSocketAddress server = new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                ((InetSocketAddress) udpServer.channel.getLocalAddress()).getPort());
+
+        // Jamais démarré : les créations envoyées à l'entrée dans les zones d'intérêt restent dans les files
+        TCPServer tcpServer = new TCPServer(0, null);
+        ServerSocketChannel tcpListener = ServerSocketChannel.open().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        List<ClientConnection> clients = new ArrayList<>();
+        List<DatagramChannel> sockets = new ArrayList<>();
+        List<SocketChannel> tcpChannels = new ArrayList<>();
+
+        for (int i = 0; i < playerCount; i++) {
+            tcpChannels.add(SocketChannel.open(tcpListener.getLocalAddress()));
+            SocketChannel accepted = tcpListener.accept();
+            tcpChannels.add(accepted);
+
+            DatagramChannel socket = DatagramChannel.open().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            socket.configureBlocking(false);
+            sockets.add(socket);
+
+            Entity player = new Player(new Vector2d(i * 50, 0));
+            manager.addEntity(player);
+
+            ClientConnection client = new ClientConnection(accepted, tcpServer);
+            client.playerId = player.id;
+            client.room = room;
+            manager.addClient(client);
+            // Le hello est déjà fait : la session est liée à l'adresse du joueur
+            room.network.openUdpSession(client);
+            client.bindUdp((InetSocketAddress) socket.getLocalAddress());
+            clients.add(client);
+        }
+
+        System.out.println(playerCount + " joueurs, commandes à " + INPUT_RATE + " Hz, tick à " + TICK_RATE + " Hz");
+
+        long[] counts = run(room, udpServer, server, clients, sockets, seconds);
+        System.out.println(String.format("%-28s %16s %16s", "", "datagrammes/s", "Ko/s"));
+        System.out.println(String.format("%-28s %16d %16.1f", "montant (commandes)",
+                counts[2] / seconds, counts[3] / 1024.0 / seconds));
+        System.out.println(String.format("%-28s %16d %16.1f", "montant (positions, avant)",
+                counts[2] / seconds, counts[2] * (double) POSITION_SIZE / 1024.0 / seconds));
+        System.out.println(String.format("%-28s %16d %16.1f", "descendant (snapshots)",
+                counts[0] / seconds, counts[1] / 1024.0 / seconds));
+
+        udpServer.stop();
+        room.stop();
+        for (DatagramChannel socket : sockets) socket.close();
+        for (SocketChannel channel : tcpChannels) channel.close();
+        tcpListener.close();
+    }
+
+    /**
+     * @return {datagrammes reçus par les joueurs, octets reçus, datagrammes de commandes envoyés, octets envoyés}
+     */
+    private static long[] run(Room room, UDPServer udpServer, InetSocketAddress server, List<ClientConnection> clients,
+                              List<DatagramChannel> sockets, int seconds) throws Exception {
+        ByteBuffer out = ByteBuffer.allocate(InputCodec.MAX_SIZE);
+        ByteBuffer in = ByteBuffer.allocateDirect(PacketSerializer.UDP_BUFFER_SIZE);
+        ByteBuffer ack = ByteBuffer.allocate(SnapshotCodec.ACK_SIZE);
+        PlayerInput input = new PlayerInput();
+
+        long datagrams = 0, bytes = 0, sent = 0, sentBytes = 0;
+        long start = System.nanoTime();
+        long end = start + seconds * 1_000_000_000L;
+        long nextInputs = start, nextTick = start;
+        int seq = 0;
+
+        while (System.nanoTime() < end) {
+            long now = System.nanoTime();
+
+            if (now >= nextInputs) {
+                for (int i = 0; i < clients.size(); i++) {
+                    out.clear();
+                    int count = Math.min(seq + 1, InputCodec.REDUNDANCY);
+                    InputCodec.writeHeader(out, clients.get(i).sessionId, seq, count);
+                    for (int age = count - 1; age >= 0; age--) {
+                        // Les joueurs tournent en rond : l'axe change toutes les 10 commandes
+                        int step = (seq - age) / 10 % 4;
+                        input.set(seq - age, step == 0 ? 1 : step == 2 ? -1 : 0, step == 1 ? 1 : step == 3 ? -1 : 0);
+                        InputCodec.writeInput(out, input);
+                    }
+                    out.flip();
+                    sentBytes += out.remaining();
+                    sockets.get(i).send(out, server);
+                    sent++;
+                }
+                seq++;
+                nextInputs += 1_000_000_000L / INPUT_RATE;
+            }
+
+            if (now >= nextTick) {
+                room.network.processInbound();
+                room.network.applyInputs();
+                room.network.updateInterest();
+                room.network.replicate(udpServer);
+                nextTick += 1_000_000_000L / TICK_RATE;
+            }
+
+            // Réception côté joueurs : compter, et acquitter les snapshots comme UDPClient
+            for (int i = 0; i < sockets.size(); i++) {
+                DatagramChannel socket = sockets.get(i);
+                while (true) {
+                    in.clear();
+                    if (socket.receive(in) == null) break;
+                    in.flip();
+                    datagrams++;
+                    bytes += in.remaining();
+
+                    if (in.get(0) == SnapshotCodec.TYPE_SNAPSHOT) {
+                        ack.clear();
+                        SnapshotCodec.writeAck(ack, clients.get(i).sessionId, in.getShort(1) & 0xFFFF);
+                        socket.send(ack.flip(), server);
+                    }
+                }
+            }
+            Thread.onSpinWait();
+        }
+        return new long[]{datagrams, bytes, sent, sentBytes};
+    }
+}
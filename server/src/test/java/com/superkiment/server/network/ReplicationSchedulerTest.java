@@ -0,0 +1,195 @@
+package com.superkiment.server.network;
+
+import com.superkiment.common.entities.EntitiesManager;
+import com.superkiment.common.entities.Entity;
+import com.superkiment.common.entities.Player;
+import com.superkiment.common.packets.snapshot.Quantization;
+import com.superkiment.common.packets.snapshot.Snapshot;
+import com.superkiment.common.packets.snapshot.SnapshotCodec;
+import com.superkiment.common.packets.snapshot.SnapshotInterpolator;
+import com.superkiment.common.packets.snapshot.SnapshotReceiver;
+import org.joml.Vector2d;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReplicationSchedulerTest {
+
+    private static final int PLAYER = 1;
+
+    private EntitiesManager entities;
+    private ReplicationScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        entities = new EntitiesManager();
+        scheduler = new ReplicationScheduler();
+
+        Entity player = new Player(new Vector2d());
+        player.netId = PLAYER;
+        entities.addEntity(player);
+    }
+
+    /**
+     * Le joueur en (0, 0) et {@code count} entités alignées sur x, de netId 2 à count + 1, espacées de {@code spacing}.
+     */
+    private static Snapshot world(int seq, int count, double spacing, int offset) {
+        Snapshot snapshot = new Snapshot(seq, count + 1);
+        snapshot.add(PLAYER, 0, 0, 0);
+        for (int i = 0; i < count; i++) {
+            snapshot.add(i + 2, Quantization.quantizePosition(spacing * (i + 1)) + offset, offset, 0);
+        }
+        return snapshot;
+    }
+
+    private static int bitsOf(Snapshot snapshot, Snapshot baseline) {
+        int bits = 0;
+        for (int i = 0; i < snapshot.size; i++) {
+            int j = baseline == null ? -1 : baseline.indexOf(snapshot.netIds[i]);
+            bits += SnapshotCodec.recordBits(snapshot, i, baseline, j);
+        }
+        return bits;
+    }
+
+    // ─────────────────────── Budget ──────────────────────────────────────
+
+    @Test
+    void largeBudget_sendsEverything() {
+        Snapshot snapshot = world(1, 20, 50, 0);
+
+        assertEquals(0, scheduler.schedule(snapshot, null, PLAYER, 10_000, entities));
+        assertEquals(21, snapshot.size);
+    }
+
+    @Test
+    void smallBudget_keepsClosestEntities_andPlayerFirst() {
+        Snapshot snapshot = world(1, 20, 50, 0);
+
+        int deferred = scheduler.schedule(snapshot, null, PLAYER, 40, entities);
+
+        assertTrue(deferred > 0, "Le budget ne doit pas suffire");
+        assertEquals(21, snapshot.size, "Les entités reportées restent dans le snapshot");
+        assertFalse(snapshot.kept[0], "Le joueur doit toujours être envoyé");
+        for (int i = 1; i < snapshot.size; i++) {
+            assertEquals(i > 20 - deferred, snapshot.kept[i], "Les entités les plus proches du joueur doivent passer en premier");
+        }
+        assertTrue(scheduler.getLastBits() <= 40 * 8, "Les entrées envoyées doivent tenir dans le budget");
+        assertTrue(scheduler.getPriority(21) > 0, "Une entité reportée garde sa priorité");
+    }
+
+    @Test
+    void deferredEntity_keepsAcknowledgedState_andCostsNothing() {
+        Snapshot baseline = world(1, 20, 50, 0);
+        Snapshot snapshot = world(2, 20, 50, 5);
+
+        int deferred = scheduler.schedule(snapshot, baseline, PLAYER, 20, entities);
+
+        assertTrue(deferred > 0);
+        assertEquals(21, snapshot.size, "Une entité connue du client reste dans le snapshot");
+        int last = snapshot.indexOf(21);
+        int inBaseline = baseline.indexOf(21);
+        assertEquals(baseline.x[inBaseline], snapshot.x[last], "L'entité reportée reprend l'état acquitté");
+        assertTrue(bitsOf(snapshot, baseline) <= 20 * 8, "Le delta encodé tient dans le budget");
+    }
+
+    @Test
+    void farEntities_areNotStarved() {
+        Snapshot baseline = world(1, 40, 100, 0);
+        int sentFarthest = -1;
+
+        for (int tick = 0; tick < 100 && sentFarthest < 0; tick++) {
+            // Tout bouge à chaque tick, mais le budget ne permet d'envoyer que quelques entités en plus des reportées
+            Snapshot snapshot = world(tick + 2, 40, 100, 1 + tick % 2);
+            scheduler.schedule(snapshot, baseline, PLAYER, 16 + 40 * SnapshotCodec.KEPT_RECORD_BITS / 8, entities);
+
+            int farthest = snapshot.indexOf(41);
+            if (baseline.x[baseline.indexOf(41)] != snapshot.x[farthest]) sentFarthest = tick;
+        }
+
+        assertTrue(sentFarthest >= 0, "L'entité la plus lointaine doit finir par être envoyée");
+    }
+
+    @Test
+    void unchangedEntities_haveNoPriority() {
+        Snapshot baseline = world(1, 5, 50, 0);
+        Snapshot snapshot = world(2, 5, 50, 0);
+
+        assertEquals(0, scheduler.schedule(snapshot, baseline, PLAYER, 0, entities));
+        assertEquals(0f, scheduler.getPriority(3));
+        assertEquals(6, snapshot.size);
+    }
+
+    // ─────────────────────── Côté client ─────────────────────────────────
+
+    /**
+     * Encoder, recevoir et interpoler un snapshot comme le ferait le client, à l'heure locale {@code localTime}.
+     */
+    private static void deliver(Snapshot snapshot, Snapshot baseline, int localTime,
+                                SnapshotReceiver receiver, SnapshotInterpolator interpolator) throws IOException {
+        snapshot.serverTime = localTime;
+        for (byte[] datagram : SnapshotCodec.encode(snapshot, baseline, 1024)) {
+            ByteBuffer buffer = ByteBuffer.wrap(datagram);
+            buffer.get();
+            receiver.receive(buffer, new SnapshotReceiver.Listener() {
+                @Override
+                public void onEntityState(int netId, double x, double y, double dirX, double dirY) {
+                }
+
+                @Override
+                public void onSnapshot(Snapshot complete) {
+                    interpolator.onSnapshot(complete, localTime);
+                }
+            });
+        }
+    }
+
+    @Test
+    void deferredEntity_withNewerUnackedSnapshot_keepsLatestReceivedState() throws IOException {
+        SnapshotReceiver receiver = new SnapshotReceiver();
+        SnapshotInterpolator interpolator = new SnapshotInterpolator();
+
+        // Le client acquitte le 1, reçoit le 2 (où l'entité 2 a avancé et la 3 apparaît) sans que l'acquittement arrive
+        Snapshot acked = new Snapshot(1, 2);
+        acked.add(PLAYER, 0, 0, 0);
+        acked.add(2, Quantization.quantizePosition(100), 0, 0);
+        deliver(acked, null, 0, receiver, interpolator);
+
+        Snapshot unacked = new Snapshot(2, 3);
+        unacked.add(PLAYER, 0, 0, 0);
+        unacked.add(2, Quantization.quantizePosition(200), 0, 0);
+        unacked.add(3, Quantization.quantizePosition(50), 0, 0);
+        deliver(unacked, acked, 50, receiver, interpolator);
+
+        // Sans budget, seule la plus prioritaire, collée au joueur, part dans le 3 : les deux autres sont reportées
+        Snapshot deferred = new Snapshot(3, 4);
+        deferred.add(PLAYER, 0, 0, 0);
+        deferred.add(2, Quantization.quantizePosition(300), 0, 0);
+        deferred.add(3, Quantization.quantizePosition(60), 0, 0);
+        deferred.add(4, Quantization.quantizePosition(1), 0, 0);
+        assertEquals(2, scheduler.schedule(deferred, acked, PLAYER, 0, entities));
+        assertFalse(deferred.kept[3]);
+        deliver(deferred, acked, 100, receiver, interpolator);
+
+        Snapshot rebuilt = receiver.getLatest();
+        assertEquals(3, rebuilt.seq);
+        for (int i = 0; i < deferred.size; i++) {
+            assertEquals(deferred.netIds[i], rebuilt.netIds[i]);
+            assertEquals(deferred.x[i], rebuilt.x[i], "Le client doit reconstruire le même snapshot que le serveur");
+            assertEquals(deferred.kept[i], rebuilt.kept[i]);
+        }
+
+        Entity entity = new Entity();
+        entity.netId = 2;
+        assertTrue(interpolator.apply(entity, 1000));
+        assertTrue(entity.posLerp.x >= 200 - 1e-6, "L'entité reportée ne doit pas revenir à l'état acquitté : " + entity.posLerp.x);
+
+        Entity unackedEntity = new Entity();
+        unackedEntity.netId = 3;
+        assertTrue(interpolator.apply(unackedEntity, 1000), "Une entité reportée jamais acquittée reste interpolée");
+        assertEquals(50, unackedEntity.posLerp.x, 1e-6);
+    }
+}
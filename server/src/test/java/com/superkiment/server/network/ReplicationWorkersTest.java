@@ -0,0 +1,115 @@
+package com.superkiment.server.network;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests des threads de réplication : chaque client est servi une fois par appel, par n'importe quel thread,
+ * et le tick ne repart qu'une fois toutes les tâches finies.
+ */
+public class ReplicationWorkersTest {
+
+    private ReplicationWorkers workers;
+
+    @AfterEach
+    void tearDown() {
+        if (workers != null) workers.stop();
+    }
+
+    private static List<ClientConnection> clients(int count) {
+        List<ClientConnection> clients = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ClientConnection client = new ClientConnection(null, null);
+            client.playerName = "client-" + i;
+            clients.add(client);
+        }
+        return clients;
+    }
+
+    @Test
+    void everyClientServedOnce_perRun() {
+        workers = new ReplicationWorkers(3);
+        List<ClientConnection> clients = clients(200);
+        ConcurrentHashMap<ClientConnection, AtomicInteger> calls = new ConcurrentHashMap<>();
+
+        for (int run = 0; run < 50; run++) {
+            workers.run(clients, (client, worker) -> calls.computeIfAbsent(client, c -> new AtomicInteger()).incrementAndGet());
+
+            // run ne rend la main qu'une fois tout fini : les compteurs sont à jour
+            for (ClientConnection client : clients) {
+                assertEquals(run + 1, calls.get(client).get(), "Chaque client doit être servi une fois par appel");
+            }
+        }
+    }
+
+    @Test
+    void workSpreadOverThreads_withOwnWorker() throws Exception {
+        workers = new ReplicationWorkers(3);
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        Set<ReplicationWorkers.Worker> used = ConcurrentHashMap.newKeySet();
+        ConcurrentHashMap<Thread, ReplicationWorkers.Worker> workerOf = new ConcurrentHashMap<>();
+
+        workers.run(clients(64), (client, worker) -> {
+            threads.add(Thread.currentThread());
+            used.add(worker);
+            ReplicationWorkers.Worker previous = workerOf.putIfAbsent(Thread.currentThread(), worker);
+            assertTrue(previous == null || previous == worker, "Un thread utilise toujours le même Worker");
+            try {
+                Thread.sleep(2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        assertTrue(threads.size() > 1, "Les clients doivent être répartis sur plusieurs threads");
+        assertEquals(threads.size(), used.size());
+    }
+
+    @Test
+    void failingJob_doesNotStopOthers() {
+        workers = new ReplicationWorkers(2);
+        List<ClientConnection> clients = clients(20);
+        AtomicInteger served = new AtomicInteger();
+
+        workers.run(clients, (client, worker) -> {
+            if (client == clients.get(5)) throw new IllegalStateException("panne");
+            served.incrementAndGet();
+        });
+
+        assertEquals(19, served.get(), "Les autres clients doivent être servis");
+    }
+
+    @Test
+    void noExtraThread_runsOnTickInOrder() {
+        workers = new ReplicationWorkers(0);
+        List<ClientConnection> clients = clients(10);
+        List<ClientConnection> order = new ArrayList<>();
+        Thread tick = Thread.currentThread();
+
+        workers.run(clients, (client, worker) -> {
+            assertSame(tick, Thread.currentThread());
+            order.add(client);
+        });
+
+        assertEquals(clients, order);
+    }
+
+    @Test
+    void sentCounters_summedAndReset() {
+        workers = new ReplicationWorkers(2);
+        workers.run(clients(30), (client, worker) -> worker.onSent(100));
+
+        long[] sent = workers.takeSent(new long[2]);
+        assertEquals(30, sent[0]);
+        assertEquals(3000, sent[1]);
+        assertEquals(0, workers.takeSent(new long[2])[0], "Les compteurs repartent de zéro");
+    }
+}
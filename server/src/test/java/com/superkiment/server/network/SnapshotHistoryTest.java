@@ -0,0 +1,45 @@
+package com.superkiment.server.network;
+
+import com.superkiment.common.packets.snapshot.Snapshot;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SnapshotHistoryTest {
+
+    @Test
+    void noAck_meansNoBaseline() {
+        SnapshotHistory history = new SnapshotHistory();
+        history.store(new Snapshot(1, 0));
+
+        assertNull(history.baseline(), "Sans acquittement, le snapshot doit être envoyé en entier");
+    }
+
+    @Test
+    void ack_selectsStoredSnapshotAsBaseline() {
+        SnapshotHistory history = new SnapshotHistory();
+        Snapshot first = new Snapshot(1, 0);
+        Snapshot second = new Snapshot(2, 0);
+        history.store(first);
+        history.store(second);
+
+        history.acknowledge(2);
+        history.acknowledge(1);
+
+        assertSame(second, history.baseline(), "Un acquittement plus ancien ne doit pas remplacer le plus récent");
+    }
+
+    @Test
+    void ack_tooOldOrNeverSent_fallsBackToFullSnapshot() {
+        SnapshotHistory history = new SnapshotHistory();
+        for (int seq = 1; seq <= SnapshotHistory.SIZE + 1; seq++) {
+            history.store(new Snapshot(seq, 0));
+        }
+
+        history.acknowledge(1);
+        assertNull(history.baseline(), "Le snapshot 1 a été écrasé dans l'historique");
+
+        history.acknowledge(SnapshotHistory.SIZE + 5);
+        assertNull(history.baseline(), "Un snapshot jamais envoyé ne peut pas servir de baseline");
+    }
+}
@@ -0,0 +1,162 @@
+package com.superkiment.server.network;
+
+import com.superkiment.common.Logger;
+import com.superkiment.common.packets.Packet;
+import com.superkiment.common.packets.PacketPlayerJoin;
+import com.superkiment.common.packets.codec.PacketCodecs;
+import com.superkiment.server.room.Room;
+import com.superkiment.server.room.RoomManager;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Benchmark en loopback : N clients se connectent et envoient un PacketPlayerJoin.
+ * Compare le TCPServer à Selector avec l'ancien modèle (un thread et deux Object*Stream par connexion).
+ * On mesure uniquement la partie réseau (accept + décodage), pas le traitement des packets par le tick.
+ * <p>
+ * Lancer avec : java -cp ... com.superkiment.server.network.TCPServerBenchmark [connexions]
+ * (prévoir un ulimit -n supérieur à 2 * connexions + marge).
+ */
+public class TCPServerBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        Logger.setMinimumLevel(Logger.LogLevel.WARN);
+
+        System.out.println("Connexions simultanées : " + connections);
+        System.out.println(String.format("%-22s %12s %14s %12s", "modèle", "temps (ms)", "threads (pic)", "heap (Mo)"));
+
+        Result nio = runSelector(connections);
+        print("Selector (NIO)", nio);
+
+        Result legacy = runThreadPerConnection(connections);
+        print("thread par connexion", legacy);
+    }
+
+    private static void print(String name, Result r) {
+        System.out.println(String.format("%-22s %12d %14d %12d", name, r.millis, r.peakThreads, r.heapMb));
+    }
+
+    /**
+     * Le modèle actuel : un thread d'I/O, des frames préfixées par leur longueur, traitement dans le tick.
+     */
+    private static Result runSelector(int connections) throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        // Une seule salle, jamais lancée : les joins restent dans sa file
+        RoomManager rooms = new RoomManager(connections, 1, 0);
+        Room room = rooms.createRoom();
+        TCPServer server = new TCPServer(0, rooms);
+        server.bind();
+        Thread ioThread = new Thread(server::start, "bench-tcp-server");
+        ioThread.setDaemon(true);
+        ioThread.start();
+
+        List<Socket> sockets = new ArrayList<>(connections);
+        long start = System.nanoTime();
+
+        for (int i = 0; i < connections; i++) {
+            Socket socket = new Socket("localhost", server.getLocalPort());
+            OutputStream out = socket.getOutputStream();
+            out.write(PacketCodecs.encodeFrame(new PacketPlayerJoin("bench-" + i, "Bench" + i)));
+            out.flush();
+            sockets.add(socket);
+        }
+
+        // Attendre que toutes les frames soient décodées et confiées au tick
+        while (room.network.getInboundTCPDepth() < connections) {
+            Thread.sleep(1);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        Result result = new Result(elapsed / 1_000_000, threads.getPeakThreadCount(), usedHeapMb());
+
+        for (Socket socket : sockets) socket.close();
+        server.stop();
+        room.stop();
+        return result;
+    }
+
+    /**
+     * Reproduction de l'ancien modèle : ServerSocket bloquant, un thread et un ObjectInputStream par client.
+     */
+    private static Result runThreadPerConnection(int connections) throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+
+        AtomicInteger joined = new AtomicInteger();
+        ExecutorService pool = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "bench-legacy-client");
+            t.setDaemon(true);
+            return t;
+        });
+        ServerSocket serverSocket = new ServerSocket(0, connections);
+
+        Thread acceptThread = new Thread(() -> {
+            try {
+                while (!serverSocket.isClosed()) {
+                    Socket accepted = serverSocket.accept();
+                    pool.execute(() -> {
+                        try {
+                            ObjectOutputStream out = new ObjectOutputStream(accepted.getOutputStream());
+                            out.flush();
+                            ObjectInputStream in = new ObjectInputStream(accepted.getInputStream());
+                            while (!accepted.isClosed()) {
+                                Packet packet = (Packet) in.readObject();
+                                if (packet instanceof PacketPlayerJoin) joined.incrementAndGet();
+                            }
+                        } catch (IOException | ClassNotFoundException ignored) {
+                        }
+                    });
+                }
+            } catch (IOException ignored) {
+            }
+        }, "bench-legacy-accept");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+
+        List<Socket> sockets = new ArrayList<>(connections);
+        long start = System.nanoTime();
+
+        for (int i = 0; i < connections; i++) {
+            Socket socket = new Socket("localhost", serverSocket.getLocalPort());
+            ObjectOutputStream out = new ObjectOutputStream(socket.getOutputStream());
+            out.writeObject(new PacketPlayerJoin("bench-" + i, "Bench" + i));
+            out.flush();
+            sockets.add(socket);
+        }
+
+        while (joined.get() < connections) {
+            Thread.sleep(1);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        Result result = new Result(elapsed / 1_000_000, threads.getPeakThreadCount(), usedHeapMb());
+
+        for (Socket socket : sockets) socket.close();
+        serverSocket.close();
+        pool.shutdownNow();
+        return result;
+    }
+
+    private static long usedHeapMb() {
+        System.gc();
+        Runtime rt = Runtime.getRuntime();
+        return (rt.totalMemory() - rt.freeMemory()) / (1024 * 1024);
+    }
+
+    private record Result(long millis, int peakThreads, long heapMb) {
+    }
+}
@@ -0,0 +1,36 @@
+package com.superkiment.server.network;
+
+import com.superkiment.common.packets.PacketHeartbeat;
+import com.superkiment.server.room.Room;
+import com.superkiment.server.room.RoomManager;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TCPServerTest {
+
+    @Test
+    void flush_sendsOnlyTheCallingRoomsFrames() {
+        RoomManager rooms = new RoomManager(8, 2, 0);
+        Room first = rooms.createRoom();
+        Room second = rooms.createRoom();
+        // Jamais démarré : les écritures restent dans sa file, seul compte ce que chaque salle lui confie
+        TCPServer server = new TCPServer(0, rooms);
+
+        ClientConnection inFirst = new ClientConnection(null, server);
+        inFirst.room = first;
+        ClientConnection inSecond = new ClientConnection(null, server);
+        inSecond.room = second;
+
+        inFirst.sendTCP(new PacketHeartbeat("server", 1));
+        inSecond.sendTCP(new PacketHeartbeat("server", 2));
+
+        server.flush(first);
+        assertTrue(first.network.scheduledFlushes.isEmpty());
+        assertEquals(1, second.network.scheduledFlushes.size(), "Les frames d'une autre salle attendent la fin de son tick");
+        assertTrue(second.network.scheduledFlushes.contains(inSecond));
+
+        server.flush(second);
+        assertTrue(second.network.scheduledFlushes.isEmpty());
+    }
+}
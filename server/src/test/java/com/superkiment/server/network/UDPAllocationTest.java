@@ -0,0 +1,245 @@
+package com.superkiment.server.network;
+
+import com.superkiment.common.entities.Entity;
+import com.superkiment.common.entities.Player;
+import com.superkiment.common.packets.PacketSerializer;
+import com.superkiment.common.packets.input.InputCodec;
+import com.superkiment.common.packets.input.PlayerInput;
+import com.superkiment.common.packets.snapshot.SnapshotCodec;
+import com.superkiment.server.entities.ServerEntitiesManager;
+import com.superkiment.server.room.Room;
+import com.superkiment.server.room.RoomManager;
+import org.joml.Vector2d;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Octets alloués par le chemin UDP en régime établi : envoi des snapshots par le tick et réception des commandes par le thread UDP.
+ * <p>
+ * Les clients sont de vrais sockets en loopback : une connexion TCP (pour l'adresse du client) et un DatagramChannel
+ * qui reçoit les snapshots et renvoie les acquittements, comme le ferait UDPClient. Les créations envoyées en TCP
+ * lors des entrées dans la zone d'intérêt restent dans la file des connexions (aucun flush).
+ */
+public class UDPAllocationTest {
+
+    private static final int ENTITIES = 300;
+    private static final int CLIENTS = 4;
+
+    private static final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static Room room;
+    private static UDPServer udpServer;
+    private static Thread udpThread;
+    private static ServerSocketChannel tcpListener;
+
+    private static final List<Entity> entities = new ArrayList<>();
+    private static final List<Vector2d> origins = new ArrayList<>();
+    private static final List<Entity> players = new ArrayList<>();
+    private static final List<ClientConnection> clients = new ArrayList<>();
+    private static final List<DatagramChannel> sinks = new ArrayList<>();
+    private static final List<SocketChannel> tcpChannels = new ArrayList<>();
+
+    private static final ByteBuffer sinkBuffer = ByteBuffer.allocateDirect(PacketSerializer.UDP_BUFFER_SIZE);
+    private static final ByteBuffer ackBuffer = ByteBuffer.allocateDirect(SnapshotCodec.ACK_SIZE);
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        // Une salle jamais lancée : le test joue lui-même son tick
+        RoomManager rooms = new RoomManager(CLIENTS, 1, ReplicationWorkers.THREADS);
+        room = rooms.createRoom();
+        ServerEntitiesManager manager = room.entitiesManager;
+
+        udpServer = new UDPServer(0, rooms);
+        rooms.attach(null, udpServer);
+        udpThread = new Thread(udpServer::start, "test-udp-server");
+        udpThread.setDaemon(true);
+        udpThread.start();
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((udpServer.channel == null || udpServer.channel.getLocalAddress() == null) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+
+        Random random = new Random(1);
+        for (int i = 0; i < ENTITIES; i++) {
+            Entity entity = new Player(new Vector2d(random.nextDouble() * 2000, random.nextDouble() * 2000));
+            manager.addEntity(entity);
+            entities.add(entity);
+            origins.add(new Vector2d(entity.pos));
+        }
+
+        TCPServer tcpServer = new TCPServer(0, null);
+        tcpListener = ServerSocketChannel.open().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        for (int i = 0; i < CLIENTS; i++) {
+            SocketChannel remote = SocketChannel.open(tcpListener.getLocalAddress());
+            SocketChannel accepted = tcpListener.accept();
+            tcpChannels.add(remote);
+            tcpChannels.add(accepted);
+
+            DatagramChannel sink = DatagramChannel.open().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            sink.configureBlocking(false);
+            sinks.add(sink);
+
+            Entity player = new Player(new Vector2d(500 * i, 500 * i));
+            manager.addEntity(player);
+            players.add(player);
+
+            ClientConnection client = new ClientConnection(accepted, tcpServer);
+            client.playerId = player.id;
+            client.room = room;
+            room.network.openUdpSession(client);
+            client.bindUdp((InetSocketAddress) sink.getLocalAddress());
+            manager.addClient(client);
+            clients.add(client);
+        }
+    }
+
+    @AfterAll
+    static void tearDown() throws Exception {
+        ServerEntitiesManager manager = room.entitiesManager;
+        for (ClientConnection client : clients) manager.removeClient(client);
+        for (Entity entity : entities) manager.removeEntity(entity.id);
+        for (Entity player : players) manager.removeEntity(player.id);
+
+        udpServer.stop();
+        room.stop();
+        for (DatagramChannel sink : sinks) sink.close();
+        for (SocketChannel channel : tcpChannels) channel.close();
+        tcpListener.close();
+    }
+
+    /**
+     * Un tick : 20 % des entités bougent, l'intérêt des clients est recalculé, le snapshot part vers chaque client,
+     * et chaque client acquitte ce qu'il a reçu.
+     * <p>
+     * Les entités tremblent autour de leur position d'origine : grâce à l'hystérésis, une entité proche de la limite
+     * n'entre qu'une fois (pendant la chauffe) et ne ressort jamais, la mesure ne voit donc aucune création.
+     */
+    private static void tick(Random random) throws IOException {
+        for (int i = 0; i < ENTITIES; i++) {
+            if (random.nextInt(5) != 0) continue;
+            Entity entity = entities.get(i);
+            Vector2d origin = origins.get(i);
+            entity.pos.x = origin.x + random.nextDouble() - 0.5;
+            entity.pos.y = origin.y + random.nextDouble() - 0.5;
+        }
+
+        room.network.checkHealth();
+        room.network.updateInterest();
+        room.network.replicate(udpServer);
+
+        for (int c = 0; c < CLIENTS; c++) {
+            DatagramChannel sink = sinks.get(c);
+            int lastSeq = -1;
+            while (true) {
+                sinkBuffer.clear();
+                if (sink.receive(sinkBuffer) == null) break;
+                lastSeq = sinkBuffer.getShort(1) & 0xFFFF;
+            }
+            if (lastSeq >= 0) {
+                room.network.handleSnapshotAck(clients.get(c).sessionId, lastSeq, clients.get(c).getUdpAddress());
+            }
+        }
+    }
+
+    // ─────────────────────── Snapshots ───────────────────────────────────
+
+    @Test
+    void snapshotBroadcast_steadyState_allocatesAlmostNothing() throws IOException {
+        // Le test des commandes a pu déplacer un joueur
+        for (int c = 0; c < CLIENTS; c++) players.get(c).pos.set(500 * c, 500 * c);
+
+        Random random = new Random(2);
+        for (int i = 0; i < 500; i++) tick(random);
+        for (ClientConnection client : clients) {
+            assertTrue(client.interest.size() > 1, "Chaque client doit connaître des entités autour de son joueur");
+            assertTrue(client.interest.size() < ENTITIES, "Les entités lointaines ne doivent pas être répliquées");
+        }
+
+        // Le tick et les threads de réplication
+        int ticks = 500;
+        long before = replicationAllocatedBytes();
+        for (int i = 0; i < ticks; i++) tick(random);
+        long perTick = (replicationAllocatedBytes() - before) / ticks;
+
+        System.out.println("Snapshots : " + perTick + " octets alloués par tick (" + ENTITIES + " entités, " + CLIENTS + " clients)");
+        assertTrue(perTick < 1024, perTick + " octets alloués par tick sur le chemin UDP");
+    }
+
+    private static long replicationAllocatedBytes() {
+        long bytes = threads.getCurrentThreadAllocatedBytes();
+        for (long id : room.network.getReplicationWorkers().getThreadIds()) {
+            bytes += Math.max(0, threads.getThreadAllocatedBytes(id));
+        }
+        return bytes;
+    }
+
+    // ─────────────────────── Commandes des joueurs ───────────────────────
+
+    @Test
+    void inputs_steadyState_allocatesAlmostNothingOnUdpThread() throws Exception {
+        ClientConnection client = clients.get(0);
+        DatagramChannel sender = sinks.get(0);
+        InetSocketAddress server = new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                ((InetSocketAddress) udpServer.channel.getLocalAddress()).getPort());
+
+        sendInputs(sender, server, client, 2000, 0);
+        long before = threads.getThreadAllocatedBytes(udpThread.threadId());
+        int datagrams = 2000;
+        sendInputs(sender, server, client, datagrams, 2000);
+        long perDatagram = (threads.getThreadAllocatedBytes(udpThread.threadId()) - before) / datagrams;
+
+        System.out.println("Commandes : " + perDatagram + " octets alloués par datagramme de " + InputCodec.REDUNDANCY + " commandes");
+        assertTrue(perDatagram < 256, perDatagram + " octets alloués par datagramme sur le thread UDP");
+    }
+
+    /**
+     * Envoyer des commandes au serveur, chacune répétée dans les datagrammes suivants comme le fait UDPClient,
+     * et attendre que le tick ait simulé la dernière.
+     */
+    private static void sendInputs(DatagramChannel sender, InetSocketAddress server, ClientConnection client,
+                                   int count, int firstSeq) throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocate(InputCodec.MAX_SIZE);
+        PlayerInput input = new PlayerInput();
+
+        for (int i = 0; i < count; i++) {
+            int seq = (firstSeq + i) & 0xFFFF;
+            buffer.clear();
+            InputCodec.writeHeader(buffer, client.sessionId, seq, InputCodec.REDUNDANCY);
+            for (int age = InputCodec.REDUNDANCY - 1; age >= 0; age--) {
+                InputCodec.writeInput(buffer, input.set((seq - age) & 0xFFFF, 0, 0));
+            }
+            sender.send(buffer.flip(), server);
+            // Sans attendre, la file des commandes déborderait
+            if ((i + 1) % 20 == 0) waitForInput(client, seq);
+        }
+        waitForInput(client, (firstSeq + count - 1) & 0xFFFF);
+    }
+
+    private static void waitForInput(ClientConnection client, int seq) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            // Rôle du tick : traiter les datagrammes copiés par le thread UDP, puis simuler les commandes
+            room.network.processInbound();
+            room.network.applyInputs();
+            if (client.lastProcessedInput == seq) break;
+            Thread.sleep(1);
+        }
+        assertEquals(seq, client.lastProcessedInput, "Le serveur doit avoir simulé la commande envoyée");
+    }
+}
@@ -0,0 +1,97 @@
+package com.superkiment.server.network;
+
+import com.superkiment.common.packets.session.SessionCodec;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UdpSessionsTest {
+
+    private static final InetSocketAddress HOME = new InetSocketAddress("127.0.0.1", 40000);
+    private static final InetSocketAddress ROAMING = new InetSocketAddress("127.0.0.1", 40001);
+
+    // ─────────────────────── Liaison ─────────────────────────────────────
+
+    @Test
+    void unboundSession_rejectsDatagrams() {
+        UdpSessions sessions = new UdpSessions();
+        ClientConnection client = new ClientConnection(null, null);
+        sessions.open(client);
+
+        assertNotEquals(SessionCodec.NO_SESSION, client.sessionId);
+        assertNull(sessions.get(client.sessionId, HOME), "Rien n'est accepté avant le premier hello");
+    }
+
+    @Test
+    void hello_bindsAddress() {
+        UdpSessions sessions = new UdpSessions();
+        ClientConnection client = new ClientConnection(null, null);
+        sessions.open(client);
+
+        assertSame(client, sessions.bind(client.sessionId, client.sessionToken, HOME));
+        assertEquals(HOME, client.getUdpAddress());
+        assertSame(client, sessions.get(client.sessionId, HOME));
+        assertNull(sessions.get(client.sessionId, ROAMING), "Une autre adresse ne peut pas parler pour le client");
+    }
+
+    @Test
+    void wrongToken_isRejected() {
+        UdpSessions sessions = new UdpSessions();
+        ClientConnection client = new ClientConnection(null, null);
+        sessions.open(client);
+        sessions.bind(client.sessionId, client.sessionToken, HOME);
+
+        assertNull(sessions.bind(client.sessionId, client.sessionToken + 1, ROAMING));
+        assertEquals(HOME, client.getUdpAddress(), "Un faux hello ne doit pas détourner la session");
+        assertNull(sessions.bind(client.sessionId + 1, client.sessionToken, ROAMING), "Session inconnue");
+    }
+
+    @Test
+    void helloFromNewAddress_rebinds() {
+        UdpSessions sessions = new UdpSessions();
+        ClientConnection client = new ClientConnection(null, null);
+        sessions.open(client);
+        sessions.bind(client.sessionId, client.sessionToken, HOME);
+
+        assertSame(client, sessions.bind(client.sessionId, client.sessionToken, ROAMING));
+        assertSame(client, sessions.get(client.sessionId, ROAMING));
+        assertNull(sessions.get(client.sessionId, HOME), "L'ancienne adresse ne doit plus être acceptée");
+    }
+
+    // ─────────────────────── Fermeture ───────────────────────────────────
+
+    @Test
+    void close_releasesSession() {
+        UdpSessions sessions = new UdpSessions();
+        ClientConnection first = new ClientConnection(null, null);
+        ClientConnection second = new ClientConnection(null, null);
+        sessions.open(first);
+        sessions.open(second);
+        sessions.bind(first.sessionId, first.sessionToken, HOME);
+        assertEquals(2, sessions.size());
+
+        sessions.close(first);
+        assertEquals(1, sessions.size());
+        assertNull(sessions.get(first.sessionId, HOME));
+        assertNull(sessions.bind(first.sessionId, first.sessionToken, HOME), "Le jeton d'une session fermée ne sert plus");
+
+        sessions.close(first);
+        assertEquals(1, sessions.size(), "Fermer deux fois ne doit rien changer");
+    }
+
+    @Test
+    void open_isIdempotent() {
+        UdpSessions sessions = new UdpSessions();
+        ClientConnection client = new ClientConnection(null, null);
+        sessions.open(client);
+        int id = client.sessionId;
+        long token = client.sessionToken;
+
+        sessions.open(client);
+        assertEquals(id, client.sessionId);
+        assertEquals(token, client.sessionToken);
+        assertEquals(1, sessions.size());
+    }
+}
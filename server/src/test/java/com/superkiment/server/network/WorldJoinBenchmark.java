@@ -0,0 +1,168 @@
+package com.superkiment.server.network;
+
+import com.superkiment.common.Logger;
+import com.superkiment.common.blocks.Block;
+import com.superkiment.common.blocks.BlocksManager;
+import com.superkiment.common.packets.PacketCreateBlock;
+import com.superkiment.common.packets.PacketWorldChunk;
+import com.superkiment.common.packets.codec.PacketCodecs;
+import org.joml.Vector2d;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Envoi du monde à un joueur qui rejoint la partie : un PacketCreateBlock par bloc (l'ancien join)
+ * contre les parties de {@link WorldStream}, brutes puis compressées, pour 1 000, 10 000 et 100 000 blocs.
+ * <p>
+ * Mesure les octets et frames envoyés, le temps d'encodage côté serveur, le temps d'ajout côté client,
+ * et la part des blocs proches du joueur reçue dès le premier tick.
+ * <p>
+ * Lancer avec : java -cp ... com.superkiment.server.network.WorldJoinBenchmark [blocs...]
+ */
+public class WorldJoinBenchmark {
+
+    /**
+     * Au-delà, l'ajout bloc par bloc dans la CopyOnWriteArrayList du client prend des secondes : il n'est pas mesuré.
+     */
+    private static final int LEGACY_APPLY_LIMIT = 20_000;
+
+    /**
+     * Rayon, en cases, de ce que le joueur voit autour de lui.
+     */
+    private static final int VIEW_RADIUS = 16;
+
+    public static void main(String[] args) {
+        int[] sizes = args.length > 0
+                ? java.util.Arrays.stream(args).mapToInt(Integer::parseInt).toArray()
+                : new int[]{1_000, 10_000, 100_000};
+
+        // Les traces de chaque ajout de bloc fausseraient la mesure
+        Logger.setMinimumLevel(Logger.LogLevel.INFO);
+
+        // Chauffe du JIT
+        for (int i = 0; i < 3; i++) {
+            run(5_000, false);
+        }
+
+        for (int size : sizes) {
+            run(size, true);
+        }
+    }
+
+    private static void run(int size, boolean print) {
+        List<Block> blocks = randomMap(size, new Random(size));
+
+        // ─── Ancien join : une frame par bloc
+        long start = System.nanoTime();
+        long legacyBytes = 0;
+        List<byte[]> legacyFrames = new ArrayList<>(blocks.size());
+        for (Block block : blocks) {
+            byte[] frame = PacketCodecs.encodeFrame(new PacketCreateBlock(block.pos));
+            legacyFrames.add(frame);
+            legacyBytes += frame.length;
+        }
+        double legacyEncodeMs = (System.nanoTime() - start) / 1e6;
+
+        String legacyApply = "—";
+        if (blocks.size() <= LEGACY_APPLY_LIMIT) {
+            BlocksManager client = new BlocksManager();
+            start = System.nanoTime();
+            for (byte[] frame : legacyFrames) {
+                PacketCreateBlock packet = (PacketCreateBlock) decodeFrame(frame);
+                client.addBlock(new Vector2d(packet.posX, packet.posY));
+            }
+            legacyApply = String.format("%.1f ms", (System.nanoTime() - start) / 1e6);
+        }
+
+        // ─── Parties brutes puis compressées
+        Stream raw = stream(blocks, false);
+        Stream deflated = stream(blocks, true);
+
+        if (!print) return;
+
+        System.out.println("── " + blocks.size() + " blocs");
+        System.out.printf("  Un packet par bloc   : %6d frames  %9s  encodage %7.1f ms  ajout client %s%n",
+                legacyFrames.size(), kb(legacyBytes), legacyEncodeMs, legacyApply);
+        System.out.printf("  Parties brutes       : %6d frames  %9s  encodage %7.1f ms  ajout client %.1f ms%n",
+                raw.frames, kb(raw.bytes), raw.encodeMs, raw.applyMs);
+        System.out.printf("  Parties compressées  : %6d frames  %9s  encodage %7.1f ms  ajout client %.1f ms%n",
+                deflated.frames, kb(deflated.bytes), deflated.encodeMs, deflated.applyMs);
+        System.out.printf("  Envoi complet en %d ticks ; blocs à moins de %d cases du joueur reçus au 1er tick : %d / %d%n",
+                (deflated.frames + WorldStream.CHUNKS_PER_TICK - 1) / WorldStream.CHUNKS_PER_TICK,
+                VIEW_RADIUS, deflated.nearbyFirstTick, deflated.nearbyTotal);
+    }
+
+    private record Stream(int frames, long bytes, double encodeMs, double applyMs, int nearbyFirstTick, int nearbyTotal) {
+    }
+
+    private static Stream stream(List<Block> blocks, boolean deflate) {
+        long start = System.nanoTime();
+        WorldStream stream = new WorldStream(blocks);
+        List<byte[]> frames = new ArrayList<>();
+        long bytes = 0;
+        PacketWorldChunk chunk;
+        while ((chunk = stream.nextChunk(0, 0)) != null) {
+            chunk.deflate = deflate;
+            byte[] frame = PacketCodecs.encodeFrame(chunk);
+            frames.add(frame);
+            bytes += frame.length;
+        }
+        double encodeMs = (System.nanoTime() - start) / 1e6;
+
+        BlocksManager client = new BlocksManager();
+        int nearbyFirstTick = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < frames.size(); i++) {
+            PacketWorldChunk packet = (PacketWorldChunk) decodeFrame(frames.get(i));
+            client.addBlocks(packet.blockX, packet.blockY, packet.count);
+            if (i == WorldStream.CHUNKS_PER_TICK - 1 || i == frames.size() - 1 && i < WorldStream.CHUNKS_PER_TICK) {
+                nearbyFirstTick = countNearby(client.getBlocks());
+            }
+        }
+        double applyMs = (System.nanoTime() - start) / 1e6;
+
+        return new Stream(frames.size(), bytes, encodeMs, applyMs, nearbyFirstTick, countNearby(blocks));
+    }
+
+    private static int countNearby(List<Block> blocks) {
+        int count = 0;
+        for (Block block : blocks) {
+            if (block.pos.x * block.pos.x + block.pos.y * block.pos.y <= VIEW_RADIUS * VIEW_RADIUS) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Une carte aléatoire remplie à 30 %, centrée sur l'apparition des joueurs.
+     */
+    private static List<Block> randomMap(int size, Random random) {
+        int half = (int) Math.ceil(Math.sqrt(size / 0.3) / 2);
+        Set<Long> used = new HashSet<>();
+        List<Block> blocks = new ArrayList<>(size);
+        while (blocks.size() < size) {
+            int x = random.nextInt(2 * half) - half;
+            int y = random.nextInt(2 * half) - half;
+            if (used.add(((long) x << 32) | (y & 0xFFFFFFFFL))) blocks.add(new Block(x, y));
+        }
+        return blocks;
+    }
+
+    private static Object decodeFrame(byte[] frame) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(frame);
+            buffer.getInt();
+            return PacketCodecs.decode(buffer);
+        } catch (java.io.IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String kb(long bytes) {
+        return String.format("%.1f KB", bytes / 1024.0);
+    }
+}
@@ -0,0 +1,73 @@
+package com.superkiment.server.network;
+
+import com.superkiment.common.blocks.Block;
+import com.superkiment.common.packets.PacketWorldChunk;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WorldStreamTest {
+
+    private static List<Block> grid(int half) {
+        List<Block> blocks = new ArrayList<>();
+        for (int x = -half; x < half; x++) {
+            for (int y = -half; y < half; y++) {
+                blocks.add(new Block(x, y));
+            }
+        }
+        return blocks;
+    }
+
+    private static long distance(int x, int y, int centerX, int centerY) {
+        long dx = x - centerX, dy = y - centerY;
+        return dx * dx + dy * dy;
+    }
+
+    @Test
+    void chunks_coverEveryBlockOnce_nearestFirst() {
+        List<Block> blocks = grid(40);
+        WorldStream stream = new WorldStream(blocks);
+        assertEquals((blocks.size() + WorldStream.BLOCKS_PER_CHUNK - 1) / WorldStream.BLOCKS_PER_CHUNK, stream.getChunkCount());
+
+        Set<Long> seen = new HashSet<>();
+        long previousFarthest = -1;
+        int chunks = 0;
+        PacketWorldChunk chunk;
+        while ((chunk = stream.nextChunk(10, -5)) != null) {
+            assertEquals(chunks, chunk.chunkIndex);
+            assertEquals(stream.getChunkCount(), chunk.chunkCount);
+            assertTrue(chunk.count <= WorldStream.BLOCKS_PER_CHUNK, "Une partie doit rester bornée");
+
+            long nearest = Long.MAX_VALUE, farthest = 0;
+            for (int i = 0; i < chunk.count; i++) {
+                assertTrue(seen.add(((long) chunk.blockX[i] << 32) | (chunk.blockY[i] & 0xFFFFFFFFL)), "Un bloc ne doit être envoyé qu'une fois");
+                long d = distance(chunk.blockX[i], chunk.blockY[i], 10, -5);
+                nearest = Math.min(nearest, d);
+                farthest = Math.max(farthest, d);
+            }
+            assertTrue(nearest >= previousFarthest, "Les parties doivent arriver des plus proches aux plus lointaines");
+            previousFarthest = farthest;
+            chunks++;
+        }
+
+        assertTrue(stream.isDone());
+        assertEquals(stream.getChunkCount(), chunks);
+        assertEquals(blocks.size(), seen.size(), "Tous les blocs doivent être envoyés");
+    }
+
+    @Test
+    void blocksAddedAfterJoin_areNotStreamed() {
+        List<Block> blocks = grid(2);
+        WorldStream stream = new WorldStream(blocks);
+        blocks.add(new Block(100, 100));
+
+        PacketWorldChunk chunk = stream.nextChunk(0, 0);
+        assertEquals(16, chunk.count, "Le flux s'en tient aux blocs présents au join");
+        assertNull(stream.nextChunk(0, 0));
+    }
+}
@@ -0,0 +1,116 @@
+package com.superkiment.server.network.handles;
+
+import com.superkiment.common.entities.Entity;
+import com.superkiment.common.entities.Player;
+import com.superkiment.common.packets.Packet;
+import com.superkiment.common.packets.PacketPlayerJoin;
+import com.superkiment.common.packets.entity.PacketCreateEntityPlayer;
+import com.superkiment.common.packets.entity.PacketDeleteEntity;
+import com.superkiment.server.network.ClientConnection;
+import com.superkiment.server.network.TCPServer;
+import com.superkiment.server.room.Room;
+import com.superkiment.server.room.RoomManager;
+import org.joml.Vector2d;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EntityHandleTest {
+
+    private Room room;
+
+    @BeforeEach
+    void setUp() {
+        room = new RoomManager(8, 1, 0).createRoom();
+    }
+
+    /**
+     * Un client sans socket, qui garde ce que le serveur lui envoie.
+     */
+    private static final class RecordingClient extends ClientConnection {
+        final List<Packet> sent = new ArrayList<>();
+
+        RecordingClient(Room room) {
+            super(null, new TCPServer(0, null));
+            this.room = room;
+        }
+
+        @Override
+        public void sendTCP(Packet packet) {
+            sent.add(packet);
+        }
+    }
+
+    private RecordingClient join(String playerId) {
+        RecordingClient client = new RecordingClient(room);
+        PlayerHandle.handlePlayerJoin(room, new PacketPlayerJoin(playerId, playerId), client);
+        return client;
+    }
+
+    private static PacketCreateEntityPlayer createPlayerPacket(String id) {
+        Player player = new Player(new Vector2d(0, 0));
+        player.id = id;
+        player.name = id;
+        return new PacketCreateEntityPlayer(player);
+    }
+
+    // ──────────────────── Création ───────────────────────────────────────
+
+    @Test
+    void createEntity_ownPlayer_isAccepted() {
+        RecordingClient client = join("alice");
+        EntityHandle.handleCreateEntity(room, createPlayerPacket("alice"), client);
+
+        Entity player = room.entitiesManager.getPlayer(client);
+        assertNotNull(player, "Le client doit pouvoir créer son joueur");
+        assertEquals("alice", player.id);
+    }
+
+    @Test
+    void createEntity_forgedId_isRejected() {
+        RecordingClient alice = join("alice");
+        EntityHandle.handleCreateEntity(room, createPlayerPacket("alice"), alice);
+        Entity original = room.entitiesManager.getEntityFromID("alice");
+
+        RecordingClient mallory = join("mallory");
+        mallory.sent.clear();
+        EntityHandle.handleCreateEntity(room, createPlayerPacket("alice"), mallory);
+
+        assertSame(original, room.entitiesManager.getEntityFromID("alice"), "Le joueur d'un autre client ne doit pas être remplacé");
+        assertNull(room.entitiesManager.getPlayer(mallory));
+        assertTrue(mallory.sent.isEmpty(), "Une création refusée ne doit rien renvoyer");
+    }
+
+    @Test
+    void createEntity_secondPlayer_isRejected() {
+        RecordingClient client = join("alice");
+        EntityHandle.handleCreateEntity(room, createPlayerPacket("alice"), client);
+        Entity first = room.entitiesManager.getPlayer(client);
+        int count = room.entitiesManager.getEntities().size();
+
+        EntityHandle.handleCreateEntity(room, createPlayerPacket("alice"), client);
+        EntityHandle.handleCreateEntity(room, createPlayerPacket("extra"), client);
+
+        assertSame(first, room.entitiesManager.getPlayer(client), "Un client n'a qu'un joueur");
+        assertEquals(count, room.entitiesManager.getEntities().size());
+    }
+
+    // ──────────────────── Suppression ────────────────────────────────────
+
+    @Test
+    void deleteEntity_otherPlayer_isRejected() {
+        RecordingClient alice = join("alice");
+        EntityHandle.handleCreateEntity(room, createPlayerPacket("alice"), alice);
+        RecordingClient mallory = join("mallory");
+
+        EntityHandle.handleDeleteEntity(room, new PacketDeleteEntity("alice"), mallory);
+        assertNotNull(room.entitiesManager.getEntityFromID("alice"), "Un client ne supprime pas le joueur d'un autre");
+
+        EntityHandle.handleDeleteEntity(room, new PacketDeleteEntity("alice"), alice);
+        assertNull(room.entitiesManager.getEntityFromID("alice"), "Un client peut supprimer son propre joueur");
+    }
+}
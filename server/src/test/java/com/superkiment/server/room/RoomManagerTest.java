@@ -0,0 +1,177 @@
+package com.superkiment.server.room;
+
+import com.superkiment.common.entities.Entity;
+import com.superkiment.common.packets.PacketHeartbeat;
+import com.superkiment.common.packets.PacketPlayerJoin;
+import com.superkiment.common.packets.session.SessionCodec;
+import com.superkiment.common.packets.snapshot.SnapshotCodec;
+import com.superkiment.server.network.ClientConnection;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RoomManagerTest {
+
+    private static final InetSocketAddress HOME = new InetSocketAddress("127.0.0.1", 40000);
+
+    // ─────────────────────── Attribution des salles ──────────────────────
+
+    @Test
+    void assign_fillsRoomBeforeCreatingAnother() {
+        RoomManager rooms = new RoomManager(2, 4, 0);
+        Room first = rooms.createRoom();
+
+        assertSame(first, rooms.assign());
+        assertSame(first, rooms.assign());
+        Room second = rooms.assign();
+
+        assertNotSame(first, second, "Une salle pleine ne doit plus recevoir de joueur");
+        assertEquals(2, rooms.getRooms().size());
+        assertEquals(2, first.getPlayerCount());
+        assertEquals(1, second.getPlayerCount());
+    }
+
+    @Test
+    void assign_refusesWhenAllRoomsAreFull() {
+        RoomManager rooms = new RoomManager(1, 2, 0);
+
+        assertNotNull(rooms.assign());
+        Room last = rooms.assign();
+        assertNotNull(last);
+        assertNull(rooms.assign(), "Au-delà du nombre de salles, le joueur doit être refusé");
+
+        last.leave();
+        assertSame(last, rooms.assign(), "La place libérée doit être reprise");
+    }
+
+    @Test
+    void rooms_haveIsolatedWorlds() {
+        RoomManager rooms = new RoomManager(8, 2, 0);
+        Room first = rooms.createRoom();
+        Room second = rooms.createRoom();
+
+        Entity entity = new Entity();
+        first.entitiesManager.addEntity(entity);
+
+        assertNotNull(first.entitiesManager.getEntityFromID(entity.id));
+        assertNull(second.entitiesManager.getEntityFromID(entity.id), "Une entité ne doit exister que dans sa salle");
+        assertNotSame(first.blocksManager, second.blocksManager);
+        assertNotSame(first.network, second.network);
+        assertSame(first.network.getReplicationWorkers(), second.network.getReplicationWorkers(),
+                "Les threads de réplication doivent être partagés entre les salles");
+    }
+
+    // ─────────────────────── Salles vides ────────────────────────────────
+
+    @Test
+    void idleExtraRoom_isReclaimed() {
+        RoomManager rooms = new RoomManager(1, 4, 0);
+        Room first = rooms.createRoom();
+        rooms.assign();
+        Room extra = rooms.assign();
+        assertNotSame(first, extra);
+
+        long later = System.currentTimeMillis() + RoomManager.IDLE_ROOM_MILLIS;
+        assertFalse(rooms.reclaimIfIdle(extra, later), "Une salle avec un joueur doit être gardée");
+
+        extra.leave();
+        assertFalse(rooms.reclaimIfIdle(extra, System.currentTimeMillis()), "Une salle vide depuis peu doit être gardée");
+        assertTrue(rooms.reclaimIfIdle(extra, later + 1));
+        assertFalse(rooms.getRooms().contains(extra));
+
+        first.leave();
+        assertFalse(rooms.reclaimIfIdle(first, later + 1), "La dernière salle doit être gardée");
+        assertEquals(1, rooms.getRooms().size());
+    }
+
+    // ─────────────────────── Aiguillage TCP ──────────────────────────────
+
+    @Test
+    void join_choosesRoomOfConnection() {
+        RoomManager rooms = new RoomManager(8, 2, 0);
+        Room room = rooms.createRoom();
+        ClientConnection client = new ClientConnection(null, null);
+
+        rooms.queueTCPPacket(new PacketHeartbeat("id", 0), 1, client);
+        assertNull(client.room, "Un packet avant le join ne doit pas choisir de salle");
+        assertEquals(0, room.network.getInboundTCPDepth());
+
+        rooms.queueTCPPacket(new PacketPlayerJoin("id", "Alice"), 1, client);
+        assertSame(room, client.room);
+        assertEquals(1, room.network.getInboundTCPDepth());
+
+        rooms.queueTCPPacket(new PacketHeartbeat("id", 0), 1, client);
+        assertEquals(2, room.network.getInboundTCPDepth(), "Les packets suivants doivent aller à la même salle");
+    }
+
+    @Test
+    void join_refusedWhenFull_disconnects() throws Exception {
+        RoomManager rooms = new RoomManager(1, 1, 0);
+        rooms.assign();
+        ClientConnection client = new ClientConnection(SocketChannel.open(), null);
+
+        rooms.queueTCPPacket(new PacketPlayerJoin("id", "Bob"), 1, client);
+
+        assertNull(client.room);
+        assertTrue(client.isDisconnected(), "Un joueur sans salle doit être déconnecté");
+    }
+
+    // ─────────────────────── Aiguillage UDP ──────────────────────────────
+
+    @Test
+    void datagram_goesToRoomOfSession() {
+        RoomManager rooms = new RoomManager(1, 2, 0);
+        Room first = rooms.createRoom();
+        Room second = rooms.createRoom();
+
+        ClientConnection client = new ClientConnection(null, null);
+        client.room = second;
+        rooms.getSessions().open(client);
+
+        ByteBuffer hello = ByteBuffer.allocate(SessionCodec.HELLO_SIZE);
+        SessionCodec.writeHello(hello, client.sessionId, client.sessionToken);
+        rooms.queueDatagram(hello.flip(), HOME);
+
+        assertEquals(0, first.network.getInboundUDPDepth());
+        assertEquals(1, second.network.getInboundUDPDepth());
+
+        ByteBuffer unknown = ByteBuffer.allocate(SessionCodec.HELLO_SIZE);
+        SessionCodec.writeHello(unknown, client.sessionId + 1, 0);
+        rooms.queueDatagram(unknown.flip(), HOME);
+        assertEquals(1, second.network.getInboundUDPDepth(), "Un datagramme de session inconnue doit être perdu");
+        assertEquals(1, rooms.getRejectedDatagrams(), "Il doit être compté");
+
+        ByteBuffer garbage = ByteBuffer.allocate(8);
+        garbage.put((byte) 0x7F).putShort((short) 1).flip();
+        rooms.queueDatagram(garbage, HOME);
+        assertEquals(2, rooms.getRejectedDatagrams(), "Un type inconnu doit être compté, pas logué");
+    }
+
+    @Test
+    void datagram_rejectedByTick_isCounted() {
+        RoomManager rooms = new RoomManager(1, 1, 0);
+        Room room = rooms.createRoom();
+
+        ClientConnection client = new ClientConnection(null, null);
+        client.room = room;
+        rooms.getSessions().open(client);
+
+        // Le bon préfixe de session suffit pour arriver jusqu'au tick
+        ByteBuffer forged = ByteBuffer.allocate(SessionCodec.HELLO_SIZE);
+        SessionCodec.writeHello(forged, client.sessionId, client.sessionToken + 1);
+        rooms.queueDatagram(forged.flip(), HOME);
+
+        ByteBuffer truncated = ByteBuffer.allocate(1 + Short.BYTES);
+        truncated.put(SnapshotCodec.TYPE_ACK).putShort((short) client.sessionId).flip();
+        rooms.queueDatagram(truncated, HOME);
+
+        room.network.processInbound();
+        assertEquals(2, room.network.getRejectedDatagrams(), "Un hello refusé et un datagramme tronqué doivent être comptés");
+        assertEquals(2, rooms.getRejectedDatagrams());
+        assertNull(rooms.getSessions().get(client.sessionId, HOME), "Le hello refusé ne doit pas lier la session");
+    }
+}
@@ -0,0 +1,54 @@
+package com.superkiment.server.zone;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ZoneMapTest {
+
+    private static final List<String> THREE_ZONES = List.of(
+            "127.0.0.1:56201:56202:56203",
+            "127.0.0.1:56211:56212:56213",
+            "10.0.0.2:56221:56222:56223");
+
+    @Test
+    void zones_areVerticalStrips() {
+        ZoneMap map = new ZoneMap(THREE_ZONES, 1000);
+
+        assertEquals(3, map.size());
+        assertEquals(0, map.zoneOf(0).index);
+        assertEquals(0, map.zoneOf(999.9).index);
+        assertEquals(1, map.zoneOf(1000).index, "La frontière appartient à la zone de droite");
+        assertEquals(2, map.zoneOf(2500).index);
+    }
+
+    @Test
+    void edgeZones_extendToEndOfMap() {
+        ZoneMap map = new ZoneMap(THREE_ZONES, 1000);
+
+        assertEquals(0, map.zoneOf(-50_000).index);
+        assertEquals(2, map.zoneOf(50_000).index);
+        assertTrue(map.get(0).contains(-50_000));
+        assertTrue(map.get(2).contains(50_000));
+        assertFalse(map.get(1).contains(2000));
+    }
+
+    @Test
+    void endpoints_areParsed() {
+        ZoneMap.Zone zone = new ZoneMap(THREE_ZONES, 1000).get(2);
+
+        assertEquals("10.0.0.2", zone.host);
+        assertEquals(56221, zone.tcpPort);
+        assertEquals(56222, zone.udpPort);
+        assertEquals(56223, zone.peerPort);
+    }
+
+    @Test
+    void invalidEndpoint_isRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new ZoneMap(List.of("127.0.0.1:56201"), 1000));
+        assertThrows(IllegalArgumentException.class, () -> new ZoneMap(List.of(), 1000));
+        assertThrows(IllegalArgumentException.class, () -> new ZoneMap(THREE_ZONES, 0));
+    }
+}
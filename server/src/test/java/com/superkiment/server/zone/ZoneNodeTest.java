@@ -0,0 +1,234 @@
+package com.superkiment.server.zone;
+
+import com.superkiment.common.entities.Entity;
+import com.superkiment.common.entities.Player;
+import com.superkiment.common.packets.Packet;
+import com.superkiment.common.packets.PacketZoneJoin;
+import com.superkiment.common.packets.PacketZoneRedirect;
+import com.superkiment.common.packets.entity.PacketCreateEntity;
+import com.superkiment.common.utils.SlotMap;
+import com.superkiment.server.network.ClientConnection;
+import com.superkiment.server.network.TCPServer;
+import com.superkiment.server.room.Room;
+import com.superkiment.server.room.RoomManager;
+import org.joml.Vector2d;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Deux zones reliées en loopback, comme deux processus : la zone 0 à gauche de x = 4000, la zone 1 à droite.
+ * Les salles ne sont pas lancées, le test joue leurs ticks (la partie des zones) pendant ses attentes.
+ */
+public class ZoneNodeTest {
+
+    private static final double WIDTH = 4000;
+    private static final int ZONE_1_TCP_PORT = 56211;
+    private static final int ZONE_1_UDP_PORT = 56212;
+
+    private Room west;
+    private Room east;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ZoneMap map = new ZoneMap(List.of(
+                "127.0.0.1:56201:56202:" + freePort(),
+                "127.0.0.1:" + ZONE_1_TCP_PORT + ":" + ZONE_1_UDP_PORT + ":" + freePort()), WIDTH);
+
+        west = startZone(map, 0);
+        east = startZone(map, 1);
+        pumpUntil(() -> west.zone.isLinked() && east.zone.isLinked());
+        assertTrue(west.zone.isLinked() && east.zone.isLinked(), "Les deux zones doivent se connecter");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (west.zone != null) west.zone.stop();
+        if (east.zone != null) east.zone.stop();
+    }
+
+    private static Room startZone(ZoneMap map, int index) throws IOException {
+        Room room = new RoomManager(8, 1, 0).createRoom();
+        room.zone = new ZoneNode(room, map, index);
+        room.zone.start();
+        return room;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * Jouer la partie des zones du tick des deux salles jusqu'à ce que la condition soit vraie.
+     */
+    private void pumpUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 3000;
+        while (System.currentTimeMillis() < deadline) {
+            for (Room room : new Room[]{west, east}) {
+                if (room.zone == null) continue;
+                room.zone.processInbound();
+                room.zone.update();
+            }
+            if (condition.getAsBoolean()) return;
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * Un client sans socket, qui garde ce que le serveur lui envoie.
+     */
+    private static final class RecordingClient extends ClientConnection {
+        final List<Packet> sent = new CopyOnWriteArrayList<>();
+
+        RecordingClient(Room room) {
+            super(null, new TCPServer(0, null));
+            this.room = room;
+        }
+
+        @Override
+        public void sendTCP(Packet packet) {
+            sent.add(packet);
+        }
+
+        <T extends Packet> T find(Class<T> type) {
+            for (Packet packet : sent) {
+                if (type.isInstance(packet)) return type.cast(packet);
+            }
+            return null;
+        }
+    }
+
+    // ─────────────────────── Fantômes ────────────────────────────────────
+
+    @Test
+    void entityNearBorder_isMirroredAsGhost() throws Exception {
+        Player player = new Player(new Vector2d(3900, 0));
+        west.entitiesManager.addEntity(player);
+
+        pumpUntil(() -> east.entitiesManager.getEntityFromID(player.id) != null);
+        Entity ghost = east.entitiesManager.getEntityFromID(player.id);
+        assertNotNull(ghost, "La voisine doit connaître une entité proche de la frontière");
+        assertTrue(ghost.ghost);
+        assertEquals(3900, ghost.pos.x, 1e-9);
+
+        player.pos.set(3950, 10);
+        pumpUntil(() -> ghost.pos.x == 3950);
+        assertEquals(3950, ghost.pos.x, 1e-9, "Le fantôme doit suivre l'entité");
+        assertEquals(10, ghost.pos.y, 1e-9);
+
+        player.pos.set(1000, 0);
+        pumpUntil(() -> east.entitiesManager.getEntityFromID(player.id) == null);
+        assertNull(east.entitiesManager.getEntityFromID(player.id), "Loin de la frontière, le fantôme doit disparaître");
+    }
+
+    @Test
+    void entityFarFromBorder_isNotMirrored() throws Exception {
+        Player player = new Player(new Vector2d(500, 0));
+        west.entitiesManager.addEntity(player);
+
+        pumpUntil(() -> false);
+        assertNull(east.entitiesManager.getEntityFromID(player.id));
+    }
+
+    @Test
+    void lostNeighbour_dropsItsGhosts() throws Exception {
+        Player player = new Player(new Vector2d(3900, 0));
+        west.entitiesManager.addEntity(player);
+        pumpUntil(() -> east.entitiesManager.getEntityFromID(player.id) != null);
+        assertNotNull(east.entitiesManager.getEntityFromID(player.id));
+
+        west.zone.stop();
+        west.zone = null;
+        pumpUntil(() -> east.entitiesManager.getEntityFromID(player.id) == null);
+        assertNull(east.entitiesManager.getEntityFromID(player.id), "Les fantômes d'une zone perdue ne seraient plus jamais mis à jour");
+    }
+
+    // ─────────────────────── Passage de frontière ────────────────────────
+
+    @Test
+    void entityCrossingBorder_isHandedOffWithItsState() throws Exception {
+        Player player = new Player(new Vector2d(3900, 0));
+        player.hp = 42;
+        west.entitiesManager.addEntity(player);
+        pumpUntil(() -> east.entitiesManager.getEntityFromID(player.id) != null);
+        Entity ghost = east.entitiesManager.getEntityFromID(player.id);
+        int ghostNetId = ghost.netId;
+
+        player.pos.set(WIDTH + ZoneNode.HANDOFF_MARGIN + 10, 0);
+        pumpUntil(() -> !ghost.ghost);
+
+        assertFalse(ghost.ghost, "La voisine doit simuler l'entité qui a franchi la frontière");
+        assertEquals(ghostNetId, ghost.netId, "Le fantôme devient l'entité : ses clients ne la voient pas recréée");
+        assertEquals(42, ghost.hp, 1e-6);
+        assertTrue(player.ghost, "L'ancienne zone garde l'entité comme fantôme");
+
+        // Désormais, c'est la nouvelle zone qui met à jour la copie de l'ancienne
+        ghost.pos.set(4100, 20);
+        pumpUntil(() -> player.pos.x == 4100);
+        assertEquals(4100, player.pos.x, 1e-9);
+        assertEquals(20, player.pos.y, 1e-9);
+    }
+
+    @Test
+    void entityJustPastBorder_staysInItsZone() throws Exception {
+        Player player = new Player(new Vector2d(WIDTH + ZoneNode.HANDOFF_MARGIN / 2, 0));
+        west.entitiesManager.addEntity(player);
+
+        pumpUntil(() -> east.entitiesManager.getEntityFromID(player.id) != null);
+        assertFalse(player.ghost, "Sous la marge, l'entité ne change pas de zone");
+        assertTrue(east.entitiesManager.getEntityFromID(player.id).ghost);
+    }
+
+    @Test
+    void player_isRedirectedAndRejoinsWithTicket() throws Exception {
+        Player player = new Player(new Vector2d(3900, 0));
+        player.name = "Alice";
+        west.entitiesManager.addEntity(player);
+        RecordingClient westClient = new RecordingClient(west);
+        westClient.playerId = player.id;
+        westClient.playerName = player.name;
+        west.entitiesManager.addClient(westClient);
+
+        player.pos.set(WIDTH + 100, 0);
+        pumpUntil(() -> westClient.find(PacketZoneRedirect.class) != null);
+
+        PacketZoneRedirect redirect = westClient.find(PacketZoneRedirect.class);
+        assertNotNull(redirect, "Le client doit être redirigé vers la zone de son joueur");
+        assertEquals(ZONE_1_TCP_PORT, redirect.tcpPort);
+        assertEquals(ZONE_1_UDP_PORT, redirect.udpPort);
+        assertNotEquals(0L, redirect.ticket);
+        assertEquals(SlotMap.NONE, westClient.playerHandle, "L'ancienne zone ne doit plus appliquer ses commandes");
+
+        // Un faux ticket n'ouvre rien
+        RecordingClient intruder = new RecordingClient(east);
+        east.network.handleTCPPacket(new PacketZoneJoin(player.id, "Mallory", redirect.ticket + 1), intruder);
+        pumpUntil(() -> false);
+        assertNull(east.entitiesManager.getClient(player.id), "Le joueur ne doit pas être donné sans son ticket");
+
+        RecordingClient eastClient = new RecordingClient(east);
+        east.network.handleTCPPacket(new PacketZoneJoin(player.id, "Alice", redirect.ticket), eastClient);
+        pumpUntil(() -> east.entitiesManager.getClient(player.id) == eastClient);
+
+        Entity adopted = east.entitiesManager.getPlayer(eastClient);
+        assertNotNull(adopted, "Le client redirigé doit retrouver son joueur");
+        assertEquals(player.id, adopted.id);
+        assertFalse(adopted.ghost);
+        PacketCreateEntity create = eastClient.find(PacketCreateEntity.class);
+        assertNotNull(create, "Le client doit apprendre le netId de son joueur dans la nouvelle zone");
+        assertEquals(adopted.netId, create.netId);
+
+        // La déconnexion de l'ancienne zone ne supprime pas le fantôme
+        west.entitiesManager.removeClient(westClient);
+        assertNotNull(west.entitiesManager.getEntityFromID(player.id));
+    }
+}